@@ -0,0 +1,16 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package java.io;
+
+/**
+ * A minimal emulation of {@code java.io.Externalizable} so that the geometry classes which
+ * implement it can be compiled by GWT. Externalization is never used in GWT.
+ */
+public interface Externalizable extends Serializable
+{
+    void writeExternal (ObjectOutput out) throws IOException;
+
+    void readExternal (ObjectInput in) throws IOException, ClassNotFoundException;
+}
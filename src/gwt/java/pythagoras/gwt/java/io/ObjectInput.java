@@ -0,0 +1,16 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package java.io;
+
+/**
+ * A minimal emulation of {@code java.io.ObjectInput}, sufficient to compile the geometry
+ * classes' {@link Externalizable} implementations in GWT.
+ */
+public interface ObjectInput
+{
+    float readFloat () throws IOException;
+
+    double readDouble () throws IOException;
+}
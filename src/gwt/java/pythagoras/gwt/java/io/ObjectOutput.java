@@ -0,0 +1,16 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package java.io;
+
+/**
+ * A minimal emulation of {@code java.io.ObjectOutput}, sufficient to compile the geometry
+ * classes' {@link Externalizable} implementations in GWT.
+ */
+public interface ObjectOutput
+{
+    void writeFloat (float v) throws IOException;
+
+    void writeDouble (double v) throws IOException;
+}
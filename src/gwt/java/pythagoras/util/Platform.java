@@ -5,6 +5,7 @@
 package pythagoras.util;
 
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * A platform instance that's used when running in GWT. Note that this is copied over top of the
@@ -54,4 +55,11 @@ public class Platform
     public static native double[] clone (double[] values) /*-{
         return values.slice(0);
     }-*/;
+
+    /**
+     * Runs the supplied tasks. JavaScript has no threads, so they are simply run in order.
+     */
+    public static void invokeAll (List<? extends Runnable> tasks) {
+        for (Runnable task : tasks) task.run();
+    }
 }
@@ -101,6 +101,18 @@ public abstract class AbstractQuadCurve implements IQuadCurve
         return target;
     }
 
+    @Override // from interface IShape
+    public Rectangle tightBounds () {
+        return tightBounds(new Rectangle());
+    }
+
+    @Override // from interface IShape
+    public Rectangle tightBounds (Rectangle target) {
+        double x1 = x1(), y1 = y1();
+        target.setBounds(x1, y1, 0, 0);
+        return QuadCurves.addBounds(x1, y1, ctrlX(), ctrlY(), x2(), y2(), target);
+    }
+
     @Override // from interface IShape
     public PathIterator pathIterator (Transform t) {
         return new Iterator(this, t);
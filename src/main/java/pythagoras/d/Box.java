@@ -4,14 +4,17 @@
 
 package pythagoras.d;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 
 /**
  * An axis-aligned box.
  */
-public class Box implements IBox, Serializable
+public class Box implements IBox, Externalizable
 {
-    private static final long serialVersionUID = 5387466195433177670L;
+    private static final long serialVersionUID = 2415231590617366440L;
 
     /** The unit box. */
     public static final Box UNIT = new Box(Vector3.UNIT_XYZ.negate(), Vector3.UNIT_XYZ);
@@ -116,14 +119,14 @@ public class Box implements IBox, Serializable
         return intersect(other, this);
     }
 
-    // /**
-    //  * Transforms this box in-place.
-    //  *
-    //  * @return a reference to this box, for chaining.
-    //  */
-    // public Box transformLocal (Transform3D transform) {
-    //     return transform(transform, this);
-    // }
+    /**
+     * Transforms this box in-place.
+     *
+     * @return a reference to this box, for chaining.
+     */
+    public Box transformLocal (Transform3D transform) {
+        return transform(transform, this);
+    }
 
     /**
      * Projects this box in-place.
@@ -236,55 +239,63 @@ public class Box implements IBox, Serializable
         return result;
     }
 
-    // /**
-    //  * Transforms this box.
-    //  *
-    //  * @return a new box containing the result.
-    //  */
-    // public Box transform (Transform3D transform) {
-    //     return transform(transform, new Box());
-    // }
-
-    // /**
-    //  * Transforms this box, placing the result in the provided object.
-    //  *
-    //  * @return a reference to the result box, for chaining.
-    //  */
-    // public Box transform (Transform3D transform, Box result) {
-    //     // the corners of the box cover the eight permutations of ([minX|maxX], [minY|maxY],
-    //     // [minZ|maxZ]). To find the new minimum and maximum for each element, we transform
-    //     // selecting either the minimum or maximum for each component based on whether it will
-    //     // increase or decrease the total (which depends on the sign of the matrix element).
-    //     transform.update(Transform3D.AFFINE);
-    //     Matrix4f matrix = transform.matrix();
-    //     double minx =
-    //         matrix.m00 * (matrix.m00 > 0f ? _minExtent.x : _maxExtent.x) +
-    //         matrix.m10 * (matrix.m10 > 0f ? _minExtent.y : _maxExtent.y) +
-    //         matrix.m20 * (matrix.m20 > 0f ? _minExtent.z : _maxExtent.z) + matrix.m30;
-    //     double miny =
-    //         matrix.m01 * (matrix.m01 > 0f ? _minExtent.x : _maxExtent.x) +
-    //         matrix.m11 * (matrix.m11 > 0f ? _minExtent.y : _maxExtent.y) +
-    //         matrix.m21 * (matrix.m21 > 0f ? _minExtent.z : _maxExtent.z) + matrix.m31;
-    //     double minz =
-    //         matrix.m02 * (matrix.m02 > 0f ? _minExtent.x : _maxExtent.x) +
-    //         matrix.m12 * (matrix.m12 > 0f ? _minExtent.y : _maxExtent.y) +
-    //         matrix.m22 * (matrix.m22 > 0f ? _minExtent.z : _maxExtent.z) + matrix.m32;
-    //     double maxx =
-    //         matrix.m00 * (matrix.m00 < 0f ? _minExtent.x : _maxExtent.x) +
-    //         matrix.m10 * (matrix.m10 < 0f ? _minExtent.y : _maxExtent.y) +
-    //         matrix.m20 * (matrix.m20 < 0f ? _minExtent.z : _maxExtent.z) + matrix.m30;
-    //     double maxy =
-    //         matrix.m01 * (matrix.m01 < 0f ? _minExtent.x : _maxExtent.x) +
-    //         matrix.m11 * (matrix.m11 < 0f ? _minExtent.y : _maxExtent.y) +
-    //         matrix.m21 * (matrix.m21 < 0f ? _minExtent.z : _maxExtent.z) + matrix.m31;
-    //     double maxz =
-    //         matrix.m02 * (matrix.m02 < 0f ? _minExtent.x : _maxExtent.x) +
-    //         matrix.m12 * (matrix.m12 < 0f ? _minExtent.y : _maxExtent.y) +
-    //         matrix.m22 * (matrix.m22 < 0f ? _minExtent.z : _maxExtent.z) + matrix.m32;
-    //     result._minExtent.set(minx, miny, minz);
-    //     result._maxExtent.set(maxx, maxy, maxz);
-    //     return result;
-    // }
+    /**
+     * Transforms this box.
+     *
+     * @return a new box containing the result.
+     */
+    public Box transform (Transform3D transform) {
+        return transform(transform, new Box());
+    }
+
+    /**
+     * Transforms this box, placing the result in the provided object.
+     *
+     * @return a reference to the result box, for chaining.
+     */
+    public Box transform (Transform3D transform, Box result) {
+        switch (transform.type()) {
+        case Transform3D.IDENTITY:
+            return result.set(this);
+        case Transform3D.GENERAL:
+            return project(transform.matrix(), result);
+        }
+        // the corners of the box cover the eight permutations of ([minX|maxX], [minY|maxY],
+        // [minZ|maxZ]). To find the new minimum and maximum for each element, we transform
+        // selecting either the minimum or maximum for each component based on whether it will
+        // increase or decrease the total (which depends on the sign of the matrix element).
+        IMatrix4 matrix = transform.matrix();
+        double m00 = matrix.m00(), m10 = matrix.m10(), m20 = matrix.m20(), m30 = matrix.m30();
+        double m01 = matrix.m01(), m11 = matrix.m11(), m21 = matrix.m21(), m31 = matrix.m31();
+        double m02 = matrix.m02(), m12 = matrix.m12(), m22 = matrix.m22(), m32 = matrix.m32();
+        double minx =
+            m00 * (m00 > 0f ? _minExtent.x : _maxExtent.x) +
+            m10 * (m10 > 0f ? _minExtent.y : _maxExtent.y) +
+            m20 * (m20 > 0f ? _minExtent.z : _maxExtent.z) + m30;
+        double miny =
+            m01 * (m01 > 0f ? _minExtent.x : _maxExtent.x) +
+            m11 * (m11 > 0f ? _minExtent.y : _maxExtent.y) +
+            m21 * (m21 > 0f ? _minExtent.z : _maxExtent.z) + m31;
+        double minz =
+            m02 * (m02 > 0f ? _minExtent.x : _maxExtent.x) +
+            m12 * (m12 > 0f ? _minExtent.y : _maxExtent.y) +
+            m22 * (m22 > 0f ? _minExtent.z : _maxExtent.z) + m32;
+        double maxx =
+            m00 * (m00 < 0f ? _minExtent.x : _maxExtent.x) +
+            m10 * (m10 < 0f ? _minExtent.y : _maxExtent.y) +
+            m20 * (m20 < 0f ? _minExtent.z : _maxExtent.z) + m30;
+        double maxy =
+            m01 * (m01 < 0f ? _minExtent.x : _maxExtent.x) +
+            m11 * (m11 < 0f ? _minExtent.y : _maxExtent.y) +
+            m21 * (m21 < 0f ? _minExtent.z : _maxExtent.z) + m31;
+        double maxz =
+            m02 * (m02 < 0f ? _minExtent.x : _maxExtent.x) +
+            m12 * (m12 < 0f ? _minExtent.y : _maxExtent.y) +
+            m22 * (m22 < 0f ? _minExtent.z : _maxExtent.z) + m32;
+        result._minExtent.set(minx, miny, minz);
+        result._maxExtent.set(maxx, maxy, maxz);
+        return result;
+    }
 
     @Override // from IBox
     public Box project (IMatrix4 matrix) {
@@ -408,6 +419,22 @@ public class Box implements IBox, Serializable
         return true;
     }
 
+    @Override // from interface Externalizable
+    public void writeExternal (ObjectOutput out) throws IOException {
+        out.writeDouble(_minExtent.x);
+        out.writeDouble(_minExtent.y);
+        out.writeDouble(_minExtent.z);
+        out.writeDouble(_maxExtent.x);
+        out.writeDouble(_maxExtent.y);
+        out.writeDouble(_maxExtent.z);
+    }
+
+    @Override // from interface Externalizable
+    public void readExternal (ObjectInput in) throws IOException {
+        _minExtent.set(in.readDouble(), in.readDouble(), in.readDouble());
+        _maxExtent.set(in.readDouble(), in.readDouble(), in.readDouble());
+    }
+
     @Override // documentation inherited
     public String toString () {
         return "[min=" + _minExtent + ", max=" + _maxExtent + "]";
@@ -0,0 +1,293 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.d;
+
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable path which stores its segments in a single compact byte array, for keeping large
+ * numbers of paths resident. Segment types are packed two to a byte. Coordinates are quantized to
+ * 16 bits relative to the bounds of the path, and each is stored as the (variable length)
+ * difference from the corresponding coordinate of the previous point, so that most coordinates
+ * of small or smooth paths occupy one or two bytes, rather than four.
+ *
+ * <p> Quantization moves each point by at most {@link #quantizationError} in each axis; the
+ * bounds of the path are preserved exactly. Path iteration, {@link #contains} and {@link
+ * #intersects} decode the coordinates as they go, without allocating a heap copy.</p>
+ */
+public final class CompactPath implements IShape
+{
+    /** The number of bits to which coordinates are quantized. */
+    public static final int QUANTIZATION_BITS = 16;
+
+    /**
+     * Creates a compact copy of the supplied shape.
+     */
+    public CompactPath (IShape shape) {
+        this(shape instanceof Path ? (Path)shape : new Path(shape));
+    }
+
+    /**
+     * Creates a compact copy of the path described by the supplied iterator.
+     */
+    public CompactPath (PathIterator iter) {
+        this(toPath(iter));
+    }
+
+    /**
+     * Creates a compact copy of the supplied path.
+     */
+    public CompactPath (Path path) {
+        int segments = path.typeSize, coords = path.pointSize;
+        Rectangle bounds = path.bounds();
+        _x = bounds.x;
+        _y = bounds.y;
+        _width = bounds.width;
+        _height = bounds.height;
+        _rule = (byte)path.windingRule();
+        _segments = segments;
+
+        // quantized deltas occupy at most three bytes each
+        int typeBytes = (segments + 1) / 2;
+        byte[] data = new byte[typeBytes + 3*coords];
+        for (int ii = 0; ii < segments; ii++) {
+            data[ii/2] |= (byte)(path.types[ii] << ((ii % 2) * 4));
+        }
+        double xscale = (_width == 0f) ? 0f : QUANTUM_MAX / _width;
+        double yscale = (_height == 0f) ? 0f : QUANTUM_MAX / _height;
+        int off = typeBytes, px = 0, py = 0;
+        for (int ii = 0; ii < coords; ii += 2) {
+            int qx = quantize(path.points[ii], _x, xscale);
+            int qy = quantize(path.points[ii+1], _y, yscale);
+            off = writeDelta(data, off, qx - px);
+            off = writeDelta(data, off, qy - py);
+            px = qx;
+            py = qy;
+        }
+        _data = new byte[off];
+        System.arraycopy(data, 0, _data, 0, off);
+    }
+
+    /**
+     * Returns the winding rule of this path.
+     */
+    public int windingRule () {
+        return _rule;
+    }
+
+    /**
+     * Returns the number of segments in this path.
+     */
+    public int segmentCount () {
+        return _segments;
+    }
+
+    /**
+     * Returns the number of bytes used to store this path's segments.
+     */
+    public int encodedSize () {
+        return _data.length;
+    }
+
+    /**
+     * Returns the maximum distance (in each axis) by which quantization may have moved a point.
+     */
+    public double quantizationError () {
+        return Math.max(_width, _height) / QUANTUM_MAX / 2f;
+    }
+
+    /**
+     * Creates a (mutable) copy of this path as a {@link Path}.
+     */
+    public Path toPath () {
+        Path path = new Path(_rule, Math.max(_segments, 1));
+        path.append(pathIterator(null), false);
+        return path;
+    }
+
+    @Override // from interface IShape
+    public boolean isEmpty () {
+        return bounds().isEmpty();
+    }
+
+    @Override // from interface IShape
+    public boolean contains (double px, double py) {
+        if (px < _x || py < _y || px > _x + _width || py > _y + _height) return false;
+        return isInside(Crossing.crossShape(this, px, py));
+    }
+
+    @Override // from interface IShape
+    public boolean contains (XY p) {
+        return contains(p.x(), p.y());
+    }
+
+    @Override // from interface IShape
+    public boolean contains (double rx, double ry, double rw, double rh) {
+        if (rx < _x || ry < _y || rx + rw > _x + _width || ry + rh > _y + _height) return false;
+        int cross = Crossing.intersectShape(this, rx, ry, rw, rh);
+        return cross != Crossing.CROSSING && isInside(cross);
+    }
+
+    @Override // from interface IShape
+    public boolean contains (IRectangle r) {
+        return contains(r.x(), r.y(), r.width(), r.height());
+    }
+
+    @Override // from interface IShape
+    public boolean intersects (double rx, double ry, double rw, double rh) {
+        if (rx + rw < _x || ry + rh < _y || rx > _x + _width || ry > _y + _height) return false;
+        int cross = Crossing.intersectShape(this, rx, ry, rw, rh);
+        return cross == Crossing.CROSSING || isInside(cross);
+    }
+
+    @Override // from interface IShape
+    public boolean intersects (IRectangle r) {
+        return intersects(r.x(), r.y(), r.width(), r.height());
+    }
+
+    @Override // from interface IShape
+    public Rectangle bounds () {
+        return bounds(new Rectangle());
+    }
+
+    @Override // from interface IShape
+    public Rectangle bounds (Rectangle target) {
+        target.setBounds(_x, _y, _width, _height);
+        return target;
+    }
+
+    @Override // from interface IShape
+    public Rectangle tightBounds () {
+        return tightBounds(new Rectangle());
+    }
+
+    @Override // from interface IShape
+    public Rectangle tightBounds (Rectangle target) {
+        return Path.tightBounds(pathIterator(null), target);
+    }
+
+    @Override // from interface IShape
+    public PathIterator pathIterator (Transform t) {
+        return new Iterator(t);
+    }
+
+    @Override // from interface IShape
+    public PathIterator pathIterator (Transform t, double flatness) {
+        return new FlatteningPathIterator(pathIterator(t), flatness);
+    }
+
+    @Override // from Object
+    public String toString () {
+        return "CompactPath[segments=" + _segments + ", bytes=" + _data.length +
+            ", bounds=" + bounds() + "]";
+    }
+
+    protected boolean isInside (int cross) {
+        return (_rule == PathIterator.WIND_NON_ZERO) ? Crossing.isInsideNonZero(cross) :
+            Crossing.isInsideEvenOdd(cross);
+    }
+
+    protected static Path toPath (PathIterator iter) {
+        Path path = new Path(iter.windingRule());
+        path.append(iter, false);
+        return path;
+    }
+
+    protected static int quantize (double value, double min, double scale) {
+        return (int)Math.min(QUANTUM_MAX, Math.round((value - min) * scale));
+    }
+
+    /**
+     * Writes a zigzag encoded variable length integer to {@code data} at {@code off}.
+     *
+     * @return the offset following the written bytes.
+     */
+    protected static int writeDelta (byte[] data, int off, int delta) {
+        int zz = (delta << 1) ^ (delta >> 31);
+        while ((zz & ~0x7F) != 0) {
+            data[off++] = (byte)((zz & 0x7F) | 0x80);
+            zz >>>= 7;
+        }
+        data[off++] = (byte)zz;
+        return off;
+    }
+
+    /** Iterates over the segments of a compact path, decoding each as it is reached. */
+    protected class Iterator implements PathIterator
+    {
+        Iterator (Transform t) {
+            _t = t;
+            _off = (_segments + 1) / 2;
+            if (_segments > 0) decode();
+        }
+
+        @Override public int windingRule () {
+            return _rule;
+        }
+
+        @Override public boolean isDone () {
+            return _index >= _segments;
+        }
+
+        @Override public void next () {
+            if (++_index < _segments) decode();
+        }
+
+        @Override public int currentSegment (double[] coords) {
+            if (isDone()) {
+                throw new NoSuchElementException("Iterator out of bounds");
+            }
+            int count = Path.pointShift[_type];
+            System.arraycopy(_coords, 0, coords, 0, count);
+            if (_t != null) {
+                _t.transform(coords, 0, coords, 0, count / 2);
+            }
+            return _type;
+        }
+
+        /** Decodes the type and coordinates of the current segment. */
+        protected void decode () {
+            _type = (_data[_index/2] >> ((_index % 2) * 4)) & 0xF;
+            double xstep = _width / QUANTUM_MAX, ystep = _height / QUANTUM_MAX;
+            for (int ii = 0, count = Path.pointShift[_type]; ii < count; ii += 2) {
+                _qx += readDelta();
+                _qy += readDelta();
+                // the last quantum maps exactly to the far edge of the bounds
+                _coords[ii] = (_qx == QUANTUM_MAX) ? _x + _width : _x + _qx * xstep;
+                _coords[ii+1] = (_qy == QUANTUM_MAX) ? _y + _height : _y + _qy * ystep;
+            }
+        }
+
+        /** Reads a zigzag encoded variable length integer. */
+        protected int readDelta () {
+            int zz = 0, shift = 0, b;
+            do {
+                b = _data[_off++];
+                zz |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return (zz >>> 1) ^ -(zz & 1);
+        }
+
+        protected final Transform _t;
+        protected final double[] _coords = new double[6];
+        protected int _index, _type, _off, _qx, _qy;
+    }
+
+    /** The bounds of this path, against which coordinates are quantized. */
+    protected final double _x, _y, _width, _height;
+
+    /** The number of segments in this path. */
+    protected final int _segments;
+
+    /** The winding rule of this path. */
+    protected final byte _rule;
+
+    /** The packed segment types, followed by the encoded coordinates. */
+    protected final byte[] _data;
+
+    /** The largest quantized coordinate. */
+    protected static final int QUANTUM_MAX = (1 << QUANTIZATION_BITS) - 1;
+}
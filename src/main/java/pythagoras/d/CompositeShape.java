@@ -0,0 +1,329 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.d;
+
+/**
+ * A shape defined by a boolean operation on two other shapes, which may themselves be composite.
+ * Unlike {@link Area}, which computes the outline of every intermediate result, a composite shape
+ * merely records the expression: point containment is answered by evaluating the expression tree
+ * directly, and rectangle queries do the same wherever the operands' answers determine the
+ * result, skipping operands whose bounds exclude the query. Only when an outline is required
+ * (for path iteration, or for a rectangle query that the operands cannot decide) is the result
+ * computed, as an {@link Area}, which is then cached.
+ *
+ * <p> A composite shape is immutable, and it assumes its operands are too: its bounds and any
+ * computed outline are not updated if an operand is subsequently modified. It may be shared
+ * between threads.</p>
+ */
+public class CompositeShape implements IShape
+{
+    /** The operation which includes the points in either operand. */
+    public static final int UNION = 0;
+
+    /** The operation which includes the points in both operands. */
+    public static final int INTERSECTION = 1;
+
+    /** The operation which includes the points in the left operand but not the right. */
+    public static final int DIFFERENCE = 2;
+
+    /** The operation which includes the points in exactly one operand. */
+    public static final int EXCLUSIVE_OR = 3;
+
+    /**
+     * Creates a shape which is the union of the supplied shapes.
+     */
+    public static CompositeShape union (IShape left, IShape right) {
+        return new CompositeShape(UNION, left, right);
+    }
+
+    /**
+     * Creates a shape which is the intersection of the supplied shapes.
+     */
+    public static CompositeShape intersection (IShape left, IShape right) {
+        return new CompositeShape(INTERSECTION, left, right);
+    }
+
+    /**
+     * Creates a shape which is {@code left} with {@code right} removed.
+     */
+    public static CompositeShape difference (IShape left, IShape right) {
+        return new CompositeShape(DIFFERENCE, left, right);
+    }
+
+    /**
+     * Creates a shape which is the exclusive or of the supplied shapes.
+     */
+    public static CompositeShape exclusiveOr (IShape left, IShape right) {
+        return new CompositeShape(EXCLUSIVE_OR, left, right);
+    }
+
+    /**
+     * Creates a shape which combines the supplied shapes with the specified operation.
+     *
+     * @param op one of {@link #UNION}, {@link #INTERSECTION}, {@link #DIFFERENCE} or {@link
+     * #EXCLUSIVE_OR}.
+     */
+    public CompositeShape (int op, IShape left, IShape right) {
+        if (op < UNION || op > EXCLUSIVE_OR) {
+            throw new IllegalArgumentException("Invalid operation " + op);
+        }
+        _op = op;
+        _left = left;
+        _right = right;
+
+        // compute conservative bounds, which contain every point of the result
+        Rectangle lb = left.bounds(), rb = right.bounds();
+        switch (op) {
+        case UNION:
+        case EXCLUSIVE_OR:
+            if (left.isEmpty()) lb = rb;
+            else if (!right.isEmpty()) Rectangles.union(lb, rb, lb);
+            break;
+        case INTERSECTION:
+            Rectangles.intersect(lb, rb, lb);
+            break;
+        }
+        _minX = lb.x;
+        _minY = lb.y;
+        // the bounds of disjoint operands intersect "negatively"
+        _maxX = Math.max(lb.x, lb.x + lb.width);
+        _maxY = Math.max(lb.y, lb.y + lb.height);
+    }
+
+    /**
+     * Returns a shape which is the union of this shape and the supplied shape.
+     */
+    public CompositeShape add (IShape shape) {
+        return union(this, shape);
+    }
+
+    /**
+     * Returns a shape which is the intersection of this shape and the supplied shape.
+     */
+    public CompositeShape intersect (IShape shape) {
+        return intersection(this, shape);
+    }
+
+    /**
+     * Returns a shape which is this shape with the supplied shape removed.
+     */
+    public CompositeShape subtract (IShape shape) {
+        return difference(this, shape);
+    }
+
+    /**
+     * Returns a shape which is the exclusive or of this shape and the supplied shape.
+     */
+    public CompositeShape exclusiveOr (IShape shape) {
+        return exclusiveOr(this, shape);
+    }
+
+    /**
+     * Returns the operation by which this shape combines its operands.
+     */
+    public int operation () {
+        return _op;
+    }
+
+    /**
+     * Returns the left operand of this shape.
+     */
+    public IShape left () {
+        return _left;
+    }
+
+    /**
+     * Returns the right operand of this shape.
+     */
+    public IShape right () {
+        return _right;
+    }
+
+    /**
+     * Returns whether the outline of this shape has been computed.
+     */
+    public boolean isMaterialized () {
+        return _area != null;
+    }
+
+    /**
+     * Returns a new area containing the outline of this shape, computing (and caching) it if it
+     * has not already been computed.
+     */
+    public Area toArea () {
+        return area().clone();
+    }
+
+    @Override // from interface IShape
+    public boolean isEmpty () {
+        if (_minX >= _maxX || _minY >= _maxY) return true;
+        if (_op == UNION) return _left.isEmpty() && _right.isEmpty();
+        return area().isEmpty();
+    }
+
+    @Override // from interface IShape
+    public boolean contains (double x, double y) {
+        if (x < _minX || y < _minY || x > _maxX || y > _maxY) return false;
+        switch (_op) {
+        case UNION: return _left.contains(x, y) || _right.contains(x, y);
+        case INTERSECTION: return _left.contains(x, y) && _right.contains(x, y);
+        case DIFFERENCE: return _left.contains(x, y) && !_right.contains(x, y);
+        default: return _left.contains(x, y) != _right.contains(x, y);
+        }
+    }
+
+    @Override // from interface IShape
+    public boolean contains (XY p) {
+        return contains(p.x(), p.y());
+    }
+
+    @Override // from interface IShape
+    public boolean contains (double x, double y, double width, double height) {
+        if (x < _minX || y < _minY || x + width > _maxX || y + height > _maxY) return false;
+        switch (_op) {
+        case UNION:
+            if (_left.contains(x, y, width, height) || _right.contains(x, y, width, height)) {
+                return true;
+            }
+            // the rectangle may yet be covered by the operands together
+            break;
+        case INTERSECTION:
+            return _left.contains(x, y, width, height) && _right.contains(x, y, width, height);
+        case DIFFERENCE:
+            if (!_left.contains(x, y, width, height)) return false;
+            if (!_right.intersects(x, y, width, height)) return true;
+            break;
+        default:
+            boolean inLeft = _left.intersects(x, y, width, height);
+            boolean inRight = _right.intersects(x, y, width, height);
+            if (!inLeft && !inRight) return false;
+            if (inLeft != inRight) {
+                return inLeft ? _left.contains(x, y, width, height) :
+                    _right.contains(x, y, width, height);
+            }
+            break;
+        }
+        return area().contains(x, y, width, height);
+    }
+
+    @Override // from interface IShape
+    public boolean contains (IRectangle r) {
+        return contains(r.x(), r.y(), r.width(), r.height());
+    }
+
+    @Override // from interface IShape
+    public boolean intersects (double x, double y, double width, double height) {
+        if (x + width < _minX || y + height < _minY || x > _maxX || y > _maxY) return false;
+        switch (_op) {
+        case UNION:
+            return _left.intersects(x, y, width, height) || _right.intersects(x, y, width, height);
+        case INTERSECTION:
+            if (!_left.intersects(x, y, width, height) ||
+                !_right.intersects(x, y, width, height)) return false;
+            // if one operand covers the rectangle, the other decides
+            if (_left.contains(x, y, width, height)) return true;
+            if (_right.contains(x, y, width, height)) return true;
+            break;
+        case DIFFERENCE:
+            if (!_left.intersects(x, y, width, height)) return false;
+            if (!_right.intersects(x, y, width, height)) return true;
+            if (_right.contains(x, y, width, height)) return false;
+            break;
+        default:
+            boolean inLeft = _left.intersects(x, y, width, height);
+            boolean inRight = _right.intersects(x, y, width, height);
+            if (inLeft != inRight) return true;
+            if (!inLeft) return false;
+            break;
+        }
+        return area().intersects(x, y, width, height);
+    }
+
+    @Override // from interface IShape
+    public boolean intersects (IRectangle r) {
+        return intersects(r.x(), r.y(), r.width(), r.height());
+    }
+
+    @Override // from interface IShape
+    public Rectangle bounds () {
+        return bounds(new Rectangle());
+    }
+
+    @Override // from interface IShape
+    public Rectangle bounds (Rectangle target) {
+        target.setBounds(_minX, _minY, _maxX - _minX, _maxY - _minY);
+        return target;
+    }
+
+    @Override // from interface IShape
+    public Rectangle tightBounds () {
+        return tightBounds(new Rectangle());
+    }
+
+    @Override // from interface IShape
+    public Rectangle tightBounds (Rectangle target) {
+        return area().tightBounds(target);
+    }
+
+    @Override // from interface IShape
+    public PathIterator pathIterator (Transform t) {
+        return area().pathIterator(t);
+    }
+
+    @Override // from interface IShape
+    public PathIterator pathIterator (Transform t, double flatness) {
+        return area().pathIterator(t, flatness);
+    }
+
+    @Override // from Object
+    public String toString () {
+        return "CompositeShape[op=" + OP_NAMES[_op] + ", left=" + _left + ", right=" + _right +
+            "]";
+    }
+
+    /**
+     * Returns the (cached) outline of this shape, computing it if necessary.
+     */
+    protected Area area () {
+        Area area = _area;
+        if (area == null) {
+            area = toArea(_left);
+            // the operands' own cached areas must not be modified
+            Area right = (_right instanceof CompositeShape) ?
+                ((CompositeShape)_right).area() : toArea(_right);
+            switch (_op) {
+            case UNION: area.add(right); break;
+            case INTERSECTION: area.intersect(right); break;
+            case DIFFERENCE: area.subtract(right); break;
+            default: area.exclusiveOr(right); break;
+            }
+            _area = area;
+        }
+        return area;
+    }
+
+    protected static Area toArea (IShape shape) {
+        return (shape instanceof CompositeShape) ? ((CompositeShape)shape).toArea() :
+            new Area(shape);
+    }
+
+    /** The operation by which this shape combines its operands. */
+    protected final int _op;
+
+    /** The operands of this shape. */
+    protected final IShape _left, _right;
+
+    /** The conservative bounds of this shape. */
+    protected final double _minX, _minY, _maxX, _maxY;
+
+    /** The outline of this shape, once computed. This is volatile so that an outline computed by
+     * one thread is seen fully constructed by others; threads racing to compute it may each do
+     * so, but all compute the same outline. */
+    protected volatile Area _area;
+
+    /** The names of the operations, for {@link #toString}. */
+    protected static final String[] OP_NAMES = {
+        "UNION", "INTERSECTION", "DIFFERENCE", "EXCLUSIVE_OR" };
+}
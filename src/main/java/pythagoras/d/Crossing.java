@@ -185,8 +185,7 @@ class Crossing
         }
 
         public int solvePoint (double[] res, double px) {
-            double[] eqn = { -px, Bx, Ax };
-            return solveQuad(eqn, res);
+            return RootSolver.solveQuadratic(-px, Bx, Ax, -DELTA, 1 + DELTA, res, 0);
         }
 
         public int solveExtreme (double[] res) {
@@ -295,18 +294,15 @@ class Crossing
         }
 
         public int solvePoint (double[] res, double px) {
-            double[] eqn = { -px, Cx, Bx, Ax };
-            return solveCubic(eqn, res);
+            return RootSolver.solveCubic(-px, Cx, Bx, Ax, -DELTA, 1 + DELTA, res, 0);
         }
 
         public int solveExtremeX (double[] res) {
-            double[] eqn = { Cx, Bx2, Ax3 };
-            return solveQuad(eqn, res);
+            return RootSolver.solveQuadratic(Cx, Bx2, Ax3, -DELTA, 1 + DELTA, res, 0);
         }
 
         public int solveExtremeY (double[] res) {
-            double[] eqn = { Cy, By + By, Ay + Ay + Ay };
-            return solveQuad(eqn, res);
+            return RootSolver.solveQuadratic(Cy, By + By, Ay + Ay + Ay, -DELTA, 1 + DELTA, res, 0);
         }
 
         public int addBound (double[] bound, int bc, double[] res, int rc, double minX, double maxX,
@@ -91,6 +91,32 @@ public class CubicCurves
         }
     }
 
+    /**
+     * Expands {@code target} to contain the specified curve, which is bounded by its end points
+     * and the points at which it attains its extreme x and y values. {@code target} must already
+     * contain (at least) the first end point.
+     *
+     * @return {@code target}, for chaining.
+     */
+    public static Rectangle addBounds (double x1, double y1, double ctrlx1, double ctrly1,
+                                       double ctrlx2, double ctrly2, double x2, double y2,
+                                       Rectangle target) {
+        target.add(x2, y2);
+        // each coordinate is extreme where its (quadratic) derivative vanishes
+        double[] t = new double[4];
+        int count = RootSolver.solveQuadratic(
+            3f*(ctrlx1 - x1), 6f*(x1 - 2f*ctrlx1 + ctrlx2), 3f*(x2 - x1 + 3f*(ctrlx1 - ctrlx2)),
+            0f, 1f, t, 0);
+        count += RootSolver.solveQuadratic(
+            3f*(ctrly1 - y1), 6f*(y1 - 2f*ctrly1 + ctrly2), 3f*(y2 - y1 + 3f*(ctrly1 - ctrly2)),
+            0f, 1f, t, count);
+        for (int ii = 0; ii < count; ii++) {
+            target.add(GeometryUtil.cubic(t[ii], x1, ctrlx1, ctrlx2, x2),
+                       GeometryUtil.cubic(t[ii], y1, ctrly1, ctrly2, y2));
+        }
+        return target;
+    }
+
     public static int solveCubic (double[] eqn) {
         return solveCubic(eqn, eqn);
     }
@@ -132,41 +132,38 @@ public class Frustum
         return this;
     }
 
-    // /**
-    //  * Transforms this frustum in-place by the specified transformation.
-    //  *
-    //  * @return a reference to this frustum, for chaining.
-    //  */
-    // public Frustum transformLocal (Transform3D transform)
-    // {
-    //     return transform(transform, this);
-    // }
-
-    // /**
-    //  * Transforms this frustum by the specified transformation.
-    //  *
-    //  * @return a new frustum containing the result.
-    //  */
-    // public Frustum transform (Transform3D transform)
-    // {
-    //     return transform(transform, new Frustum());
-    // }
-
-    // /**
-    //  * Transforms this frustum by the specified transformation, placing the result in the object
-    //  * provided.
-    //  *
-    //  * @return a reference to the result frustum, for chaining.
-    //  */
-    // public Frustum transform (Transform3D transform, Frustum result)
-    // {
-    //     // transform all of the vertices
-    //     for (int ii = 0; ii < 8; ii++) {
-    //         transform.transformPoint(_vertices[ii], result._vertices[ii]);
-    //     }
-    //     result.updateDerivedState();
-    //     return result;
-    // }
+    /**
+     * Transforms this frustum in-place by the specified transformation.
+     *
+     * @return a reference to this frustum, for chaining.
+     */
+    public Frustum transformLocal (Transform3D transform) {
+        return transform(transform, this);
+    }
+
+    /**
+     * Transforms this frustum by the specified transformation.
+     *
+     * @return a new frustum containing the result.
+     */
+    public Frustum transform (Transform3D transform) {
+        return transform(transform, new Frustum());
+    }
+
+    /**
+     * Transforms this frustum by the specified transformation, placing the result in the object
+     * provided.
+     *
+     * @return a reference to the result frustum, for chaining.
+     */
+    public Frustum transform (Transform3D transform, Frustum result) {
+        // transform all of the vertices
+        for (int ii = 0; ii < 8; ii++) {
+            transform.transformPoint(_vertices[ii], result._vertices[ii]);
+        }
+        result.updateDerivedState();
+        return result;
+    }
 
     /**
      * Determines the maximum signed distance of the point from the planes of the frustum. If
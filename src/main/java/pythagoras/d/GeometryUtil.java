@@ -84,7 +84,6 @@ public class GeometryUtil
     public static int intersectLineAndQuad (double x1, double y1, double x2, double y2,
                                             double qx1, double qy1, double qx2, double qy2,
                                             double qx3, double qy3, double[] params) {
-        double[] eqn = new double[3];
         double[] t = new double[2];
         double[] s = new double[2];
         double dy = y2 - y1;
@@ -92,11 +91,11 @@ public class GeometryUtil
         int quantity = 0;
         int count = 0;
 
-        eqn[0] = dy * (qx1 - x1) - dx * (qy1 - y1);
-        eqn[1] = 2 * dy * (qx2 - qx1) - 2 * dx * (qy2 - qy1);
-        eqn[2] = dy * (qx1 - 2 * qx2 + qx3) - dx * (qy1 - 2 * qy2 + qy3);
+        double c0 = dy * (qx1 - x1) - dx * (qy1 - y1);
+        double c1 = 2 * dy * (qx2 - qx1) - 2 * dx * (qy2 - qy1);
+        double c2 = dy * (qx1 - 2 * qx2 + qx3) - dx * (qy1 - 2 * qy2 + qy3);
 
-        if ((count = Crossing.solveQuad(eqn, t)) == 0) {
+        if ((count = RootSolver.solveQuadratic(c0, c1, c2, 0, 1, t, 0)) == 0) {
             return 0;
         }
 
@@ -129,7 +128,6 @@ public class GeometryUtil
                                              double cx1, double cy1, double cx2, double cy2,
                                              double cx3, double cy3, double cx4, double cy4,
                                              double[] params) {
-        double[] eqn = new double[4];
         double[] t = new double[3];
         double[] s = new double[3];
         double dy = y2 - y1;
@@ -137,13 +135,12 @@ public class GeometryUtil
         int quantity = 0;
         int count = 0;
 
-        eqn[0] = (cy1 - y1) * dx + (x1 - cx1) * dy;
-        eqn[1] = -3 * (cy1 - cy2) * dx + 3 * (cx1 - cx2) * dy;
-        eqn[2] = (3 * cy1 - 6 * cy2 + 3 * cy3) * dx - (3 * cx1 - 6 * cx2 + 3 * cx3) * dy;
-        eqn[3] = (-3 * cy1 + 3 * cy2 - 3 * cy3 + cy4) * dx +
-            (3 * cx1 - 3 * cx2 + 3 * cx3 - cx4) * dy;
+        double c0 = (cy1 - y1) * dx + (x1 - cx1) * dy;
+        double c1 = -3 * (cy1 - cy2) * dx + 3 * (cx1 - cx2) * dy;
+        double c2 = (3 * cy1 - 6 * cy2 + 3 * cy3) * dx - (3 * cx1 - 6 * cx2 + 3 * cx3) * dy;
+        double c3 = (-cy1 + 3 * cy2 - 3 * cy3 + cy4) * dx + (cx1 - 3 * cx2 + 3 * cx3 - cx4) * dy;
 
-        if ((count = Crossing.solveCubic(eqn, t)) == 0) {
+        if ((count = RootSolver.solveCubic(c0, c1, c2, c3, 0, 1, t, 0)) == 0) {
             return 0;
         }
 
@@ -0,0 +1,135 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.d;
+
+/**
+ * Provides read-only access to a {@link DualQuaternion}.
+ */
+public interface IDualQuaternion
+{
+    /** Returns the x-component of the real (rotation) part of this dual quaternion. */
+    double x ();
+
+    /** Returns the y-component of the real (rotation) part of this dual quaternion. */
+    double y ();
+
+    /** Returns the z-component of the real (rotation) part of this dual quaternion. */
+    double z ();
+
+    /** Returns the w-component of the real (rotation) part of this dual quaternion. */
+    double w ();
+
+    /** Returns the x-component of the dual part of this dual quaternion. */
+    double dx ();
+
+    /** Returns the y-component of the dual part of this dual quaternion. */
+    double dy ();
+
+    /** Returns the z-component of the dual part of this dual quaternion. */
+    double dz ();
+
+    /** Returns the w-component of the dual part of this dual quaternion. */
+    double dw ();
+
+    /**
+     * Populates the supplied array, starting at the specified offset, with the eight components
+     * of this dual quaternion: the real part (x, y, z, w) followed by the dual part.
+     */
+    void get (double[] values, int offset);
+
+    /**
+     * Checks whether any of the components of this dual quaternion are not-numbers.
+     */
+    boolean hasNaN ();
+
+    /**
+     * Stores the rotation represented by this (unit) dual quaternion in the supplied object.
+     *
+     * @return a reference to the result, for chaining.
+     */
+    Quaternion rotation (Quaternion result);
+
+    /**
+     * Stores the translation represented by this (unit) dual quaternion in the supplied object.
+     *
+     * @return a reference to the result, for chaining.
+     */
+    Vector3 translation (Vector3 result);
+
+    /**
+     * Normalizes this dual quaternion.
+     *
+     * @return a new dual quaternion containing the result.
+     */
+    DualQuaternion normalize ();
+
+    /**
+     * Normalizes this dual quaternion, storing the result in the object provided. The real part
+     * is scaled to unit length and the dual part made orthogonal to it.
+     *
+     * @return a reference to the result, for chaining.
+     */
+    DualQuaternion normalize (DualQuaternion result);
+
+    /**
+     * Inverts this (unit) dual quaternion.
+     *
+     * @return a new dual quaternion containing the result.
+     */
+    DualQuaternion invert ();
+
+    /**
+     * Inverts this (unit) dual quaternion, storing the result in the object provided.
+     *
+     * @return a reference to the result, for chaining.
+     */
+    DualQuaternion invert (DualQuaternion result);
+
+    /**
+     * Multiplies this dual quaternion by another. The result applies the other transform first,
+     * then this one.
+     *
+     * @return a new dual quaternion containing the result.
+     */
+    DualQuaternion mult (IDualQuaternion other);
+
+    /**
+     * Multiplies this dual quaternion by another and stores the result in the provided object.
+     *
+     * @return a reference to the result, for chaining.
+     */
+    DualQuaternion mult (IDualQuaternion other, DualQuaternion result);
+
+    /**
+     * Transforms a point by this (unit) dual quaternion.
+     *
+     * @return a new vector containing the result.
+     */
+    Vector3 transformPoint (IVector3 point);
+
+    /**
+     * Transforms a point by this (unit) dual quaternion and places the result in the provided
+     * object.
+     *
+     * @return a reference to the result, for chaining.
+     */
+    Vector3 transformPoint (IVector3 point, Vector3 result);
+
+    /**
+     * Transforms a direction vector by this (unit) dual quaternion, applying only its rotation,
+     * and places the result in the provided object.
+     *
+     * @return a reference to the result, for chaining.
+     */
+    Vector3 transformVector (IVector3 vector, Vector3 result);
+
+    /**
+     * Stores the rigid transform represented by this (unit) dual quaternion in the supplied
+     * matrix.
+     *
+     * @return a reference to the result, for chaining.
+     */
+    Matrix4 toMatrix (Matrix4 result);
+}
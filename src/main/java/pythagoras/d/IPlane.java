@@ -27,20 +27,20 @@ public interface IPlane
      */
     double distance (IVector3 pt);
 
-    // /**
-    //  * Transforms this plane by the specified transformation.
-    //  *
-    //  * @return a new plane containing the result.
-    //  */
-    // Plane transform (Transform3D transform);
+    /**
+     * Transforms this plane by the specified transformation.
+     *
+     * @return a new plane containing the result.
+     */
+    Plane transform (Transform3D transform);
 
-    // /**
-    //  * Transforms this plane by the specified transformation, placing the result in the object
-    //  * provided.
-    //  *
-    //  * @return a reference to the result plane, for chaining.
-    //  */
-    // Plane transform (Transform3D transform, Plane result);
+    /**
+     * Transforms this plane by the specified transformation, placing the result in the object
+     * provided.
+     *
+     * @return a reference to the result plane, for chaining.
+     */
+    Plane transform (Transform3D transform, Plane result);
 
     /**
      * Negates this plane.
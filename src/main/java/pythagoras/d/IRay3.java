@@ -19,17 +19,17 @@ public interface IRay3
      */
     IVector3 direction ();
 
-    // /**
-    //  * Transforms this ray.
-    //  *
-    //  * @return a new ray containing the result.
-    //  */
-    // Ray3 transform (Transform3D transform);
+    /**
+     * Transforms this ray.
+     *
+     * @return a new ray containing the result.
+     */
+    Ray3 transform (Transform3D transform);
 
-    // /**
-    //  * Transforms this ray, placing the result in the object provided.
-    //  *
-    //  * @return a reference to the result ray, for chaining.
-    //  */
-    // Ray3 transform (Transform3D transform, Ray3 result);
+    /**
+     * Transforms this ray, placing the result in the object provided.
+     *
+     * @return a reference to the result ray, for chaining.
+     */
+    Ray3 transform (Transform3D transform, Ray3 result);
 }
@@ -0,0 +1,238 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.d;
+
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable snapshot of an {@link Area}, obtained via {@link Area#freeze}. Its segments are
+ * stored in arrays of exactly the required size, and its bounds and properties are computed up
+ * front. All of its state is final, so an immutable area may be safely shared between threads
+ * without synchronization, and any number of threads may concurrently query it: queries and path
+ * iterators use only their own local state.
+ *
+ * <p> Queries answer exactly as the area from which the snapshot was taken would.</p>
+ */
+public final class ImmutableArea implements IShape
+{
+    /**
+     * Creates an immutable area enclosing the same space as the supplied shape (whose subpaths
+     * are closed and interpreted with the even-odd winding rule, as {@link Area} does).
+     */
+    public ImmutableArea (IShape shape) {
+        this(shape instanceof Area ? (Area)shape : new Area(shape));
+    }
+
+    /**
+     * Creates an immutable snapshot of the supplied area.
+     */
+    ImmutableArea (Area area) {
+        // count the segments and coordinates, so that we can store them exactly
+        double[] coords = new double[6];
+        int segments = 0, ncoords = 0;
+        for (PathIterator iter = area.pathIterator(null); !iter.isDone(); iter.next()) {
+            ncoords += Path.pointShift[iter.currentSegment(coords)];
+            segments++;
+        }
+
+        _types = new byte[segments];
+        _coords = new double[ncoords];
+        boolean polygonal = true;
+        int moves = 0, off = 0, seg = 0;
+        for (PathIterator iter = area.pathIterator(null); !iter.isDone(); iter.next()) {
+            int type = iter.currentSegment(coords);
+            _types[seg++] = (byte)type;
+            if (type == PathIterator.SEG_MOVETO) moves++;
+            else if (type == PathIterator.SEG_QUADTO || type == PathIterator.SEG_CUBICTO) {
+                polygonal = false;
+            }
+            int count = Path.pointShift[type];
+            System.arraycopy(coords, 0, _coords, off, count);
+            off += count;
+        }
+        _polygonal = polygonal;
+        _singular = (moves <= 1);
+        _rectangular = area.isRectangular();
+
+        double minX = 0f, minY = 0f, maxX = 0f, maxY = 0f;
+        if (ncoords > 0) {
+            minX = maxX = _coords[0];
+            minY = maxY = _coords[1];
+            for (int ii = 2; ii < ncoords; ii += 2) {
+                minX = Math.min(minX, _coords[ii]);
+                maxX = Math.max(maxX, _coords[ii]);
+                minY = Math.min(minY, _coords[ii+1]);
+                maxY = Math.max(maxY, _coords[ii+1]);
+            }
+        }
+        _minX = minX;
+        _minY = minY;
+        _maxX = maxX;
+        _maxY = maxY;
+
+        Rectangle tight = Path.tightBounds(pathIterator(null), new Rectangle());
+        _tightX = tight.x;
+        _tightY = tight.y;
+        _tightWidth = tight.width;
+        _tightHeight = tight.height;
+    }
+
+    /**
+     * Returns true if this area is polygonal.
+     */
+    public boolean isPolygonal () {
+        return _polygonal;
+    }
+
+    /**
+     * Returns true if this area is rectangular.
+     */
+    public boolean isRectangular () {
+        return _rectangular;
+    }
+
+    /**
+     * Returns true if this area encloses only a single contiguous space.
+     */
+    public boolean isSingular () {
+        return _singular;
+    }
+
+    /**
+     * Creates a mutable copy of this area.
+     */
+    public Area toArea () {
+        return new Area(this);
+    }
+
+    @Override // from interface IShape
+    public boolean isEmpty () {
+        return _types.length == 0;
+    }
+
+    @Override // from interface IShape
+    public boolean contains (double x, double y) {
+        if (x < _minX || y < _minY || x > _maxX || y > _maxY || isEmpty()) return false;
+        return Crossing.isInsideEvenOdd(Crossing.crossPath(pathIterator(null), x, y));
+    }
+
+    @Override // from interface IShape
+    public boolean contains (XY p) {
+        return contains(p.x(), p.y());
+    }
+
+    @Override // from interface IShape
+    public boolean contains (double x, double y, double width, double height) {
+        if (x < _minX || y < _minY || x + width > _maxX || y + height > _maxY) return false;
+        int crossCount = Crossing.intersectPath(pathIterator(null), x, y, width, height);
+        return crossCount != Crossing.CROSSING && Crossing.isInsideEvenOdd(crossCount);
+    }
+
+    @Override // from interface IShape
+    public boolean contains (IRectangle r) {
+        return contains(r.x(), r.y(), r.width(), r.height());
+    }
+
+    @Override // from interface IShape
+    public boolean intersects (double x, double y, double width, double height) {
+        if (width <= 0f || height <= 0f) return false;
+        if (x + width <= _minX || y + height <= _minY || x >= _maxX || y >= _maxY) return false;
+        int crossCount = Crossing.intersectPath(pathIterator(null), x, y, width, height);
+        return Crossing.isInsideEvenOdd(crossCount);
+    }
+
+    @Override // from interface IShape
+    public boolean intersects (IRectangle r) {
+        return intersects(r.x(), r.y(), r.width(), r.height());
+    }
+
+    @Override // from interface IShape
+    public Rectangle bounds () {
+        return bounds(new Rectangle());
+    }
+
+    @Override // from interface IShape
+    public Rectangle bounds (Rectangle target) {
+        target.setBounds(_minX, _minY, _maxX - _minX, _maxY - _minY);
+        return target;
+    }
+
+    @Override // from interface IShape
+    public Rectangle tightBounds () {
+        return tightBounds(new Rectangle());
+    }
+
+    @Override // from interface IShape
+    public Rectangle tightBounds (Rectangle target) {
+        target.setBounds(_tightX, _tightY, _tightWidth, _tightHeight);
+        return target;
+    }
+
+    @Override // from interface IShape
+    public PathIterator pathIterator (Transform t) {
+        return new Iterator(t);
+    }
+
+    @Override // from interface IShape
+    public PathIterator pathIterator (Transform t, double flatness) {
+        return new FlatteningPathIterator(pathIterator(t), flatness);
+    }
+
+    @Override // from Object
+    public String toString () {
+        return "ImmutableArea[segments=" + _types.length + ", coords=" + _coords.length +
+            ", isPoly=" + _polygonal + "]";
+    }
+
+    /** Iterates over the segments of an immutable area. */
+    protected class Iterator implements PathIterator
+    {
+        Iterator (Transform t) {
+            _t = t;
+        }
+
+        @Override public int windingRule () {
+            return WIND_EVEN_ODD;
+        }
+
+        @Override public boolean isDone () {
+            return _index >= _types.length;
+        }
+
+        @Override public void next () {
+            _off += Path.pointShift[_types[_index++]];
+        }
+
+        @Override public int currentSegment (double[] coords) {
+            if (isDone()) {
+                throw new NoSuchElementException("Iterator out of bounds");
+            }
+            int type = _types[_index], count = Path.pointShift[type];
+            System.arraycopy(_coords, _off, coords, 0, count);
+            if (_t != null) {
+                _t.transform(coords, 0, coords, 0, count / 2);
+            }
+            return type;
+        }
+
+        protected final Transform _t;
+        protected int _index, _off;
+    }
+
+    /** The type of each segment. */
+    protected final byte[] _types;
+
+    /** The coordinates of all segments. */
+    protected final double[] _coords;
+
+    /** The bounds of all points (including control points). */
+    protected final double _minX, _minY, _maxX, _maxY;
+
+    /** The bounds of the outline. */
+    protected final double _tightX, _tightY, _tightWidth, _tightHeight;
+
+    /** Properties of the area, computed on creation. */
+    protected final boolean _polygonal, _rectangular, _singular;
+}
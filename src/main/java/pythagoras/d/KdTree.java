@@ -0,0 +1,431 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.d;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import pythagoras.util.Platform;
+
+/**
+ * An implicit k-d tree over two or three dimensional points, for nearest neighbor and radius
+ * queries. The tree has no node objects: construction copies the points into an array and
+ * arranges them so that the median of each subrange (along the axis of greatest spread, which is
+ * recorded in a parallel byte array) splits the remainder of the subrange in two. Large subranges
+ * are arranged in parallel.
+ *
+ * <p> Queries identify points by their index in the array from which the tree was built. A tree
+ * is immutable once built, and may be queried concurrently by any number of threads.</p>
+ */
+public class KdTree
+{
+    /** The default number of points below which a subtree is built by a single task. */
+    public static final int DEFAULT_GRAIN = 16384;
+
+    /**
+     * Creates a tree over the supplied two dimensional points.
+     */
+    public KdTree (XY[] points) {
+        this(pack(points), 0, points.length, 2, DEFAULT_GRAIN);
+    }
+
+    /**
+     * Creates a tree over the supplied three dimensional points.
+     */
+    public KdTree (IVector3[] points) {
+        this(pack(points), 0, points.length, 3, DEFAULT_GRAIN);
+    }
+
+    /**
+     * Creates a tree over the points stored consecutively in {@code coords}, starting at
+     * {@code offset}. The coordinates are copied.
+     *
+     * @param dimensions the number of coordinates of each point (2 or 3).
+     */
+    public KdTree (double[] coords, int offset, int count, int dimensions) {
+        this(coords, offset, count, dimensions, DEFAULT_GRAIN);
+    }
+
+    /**
+     * Creates a tree over the points stored consecutively in {@code coords}, starting at
+     * {@code offset}. The coordinates are copied.
+     *
+     * @param dimensions the number of coordinates of each point (2 or 3).
+     * @param grain the number of points below which a subtree is built by a single task.
+     */
+    public KdTree (double[] coords, int offset, int count, int dimensions, int grain) {
+        if (dimensions != 2 && dimensions != 3) {
+            throw new IllegalArgumentException("Unsupported dimensions " + dimensions);
+        }
+        _dims = dimensions;
+        _coords = new double[count * dimensions];
+        System.arraycopy(coords, offset, _coords, 0, _coords.length);
+        _indices = new int[count];
+        for (int ii = 0; ii < count; ii++) _indices[ii] = ii;
+        _axes = new byte[count];
+        _grain = Math.max(grain, 2);
+        new BuildTask(0, count).run();
+    }
+
+    /**
+     * Returns the number of points in this tree.
+     */
+    public int size () {
+        return _indices.length;
+    }
+
+    /**
+     * Returns the number of dimensions of the points in this tree.
+     */
+    public int dimensions () {
+        return _dims;
+    }
+
+    /**
+     * Returns the index of the point nearest to the specified two dimensional point, or -1 if the
+     * tree is empty.
+     */
+    public int nearest (double x, double y) {
+        int[] index = new int[1];
+        return (nearest(new double[] { x, y }, 1, 0f, index, null) == 0) ? -1 : index[0];
+    }
+
+    /**
+     * Returns the index of the point nearest to the specified three dimensional point, or -1 if
+     * the tree is empty.
+     */
+    public int nearest (double x, double y, double z) {
+        int[] index = new int[1];
+        return (nearest(new double[] { x, y, z }, 1, 0f, index, null) == 0) ? -1 : index[0];
+    }
+
+    /**
+     * Finds the {@code k} points nearest to the supplied query point.
+     *
+     * @param query the coordinates of the query point.
+     * @param epsilon if positive, the search may return approximate neighbors: the distance to
+     * each returned neighbor is within a factor of {@code 1 + epsilon} of the distance to the
+     * corresponding true neighbor. Larger values visit fewer points.
+     * @param indices receives the indices of the neighbors, nearest first.
+     * @param distancesSq if not null, receives the squared distances to the neighbors.
+     * @return the number of neighbors found (less than {@code k} only if the tree has fewer than
+     * {@code k} points).
+     */
+    public int nearest (double[] query, int k, double epsilon, int[] indices,
+                        double[] distancesSq) {
+        checkQuery(query);
+        k = Math.min(k, size());
+        if (k <= 0) return 0;
+        Search search = new Search(query, k, Double.POSITIVE_INFINITY, epsilon);
+        search.nearest(0, size());
+        return search.drain(indices, distancesSq);
+    }
+
+    /**
+     * Returns the indices of all points within {@code radius} of the supplied two dimensional
+     * point, in no particular order.
+     */
+    public int[] withinRadius (double x, double y, double radius) {
+        return withinRadius(new double[] { x, y }, radius);
+    }
+
+    /**
+     * Returns the indices of all points within {@code radius} of the supplied three dimensional
+     * point, in no particular order.
+     */
+    public int[] withinRadius (double x, double y, double z, double radius) {
+        return withinRadius(new double[] { x, y, z }, radius);
+    }
+
+    /**
+     * Returns the indices of all points within {@code radius} of the supplied query point, in no
+     * particular order.
+     */
+    public int[] withinRadius (double[] query, double radius) {
+        checkQuery(query);
+        Search search = new Search(query, 16, radius * radius, 0f);
+        search.within(0, size());
+        int[] indices = new int[search.count];
+        for (int ii = 0; ii < indices.length; ii++) indices[ii] = _indices[search.nodes[ii]];
+        return indices;
+    }
+
+    protected void checkQuery (double[] query) {
+        if (query.length < _dims) {
+            throw new IllegalArgumentException(
+                "Query has " + query.length + " coordinates, tree has " + _dims);
+        }
+    }
+
+    /**
+     * Arranges the subrange {@code [lo, hi)} so that its median element splits it.
+     *
+     * @return the index of the median.
+     */
+    protected int split (int lo, int hi) {
+        double[] c = _coords;
+        int dims = _dims, axis = 0;
+        double spread = -1f;
+        for (int aa = 0; aa < dims; aa++) {
+            double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+            for (int ii = lo*dims + aa, ll = hi*dims; ii < ll; ii += dims) {
+                double v = c[ii];
+                if (v < min) min = v;
+                if (v > max) max = v;
+            }
+            if (max - min > spread) {
+                spread = max - min;
+                axis = aa;
+            }
+        }
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, axis);
+        _axes[mid] = (byte)axis;
+        return mid;
+    }
+
+    /**
+     * Partially sorts the inclusive range {@code [lo, hi]} along the specified axis, such that
+     * the element at {@code k} is preceded by no greater elements and followed by no lesser.
+     */
+    protected void select (int lo, int hi, int k, int axis) {
+        double[] c = _coords;
+        int dims = _dims;
+        while (hi > lo) {
+            // partition around the median of the first, middle and last elements
+            double a = c[lo*dims + axis], b = c[((lo + hi) >>> 1)*dims + axis];
+            double d = c[hi*dims + axis];
+            double pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), d));
+            int ii = lo, jj = hi;
+            while (ii <= jj) {
+                while (c[ii*dims + axis] < pivot) ii++;
+                while (c[jj*dims + axis] > pivot) jj--;
+                if (ii <= jj) swap(ii++, jj--);
+            }
+            if (k <= jj) hi = jj;
+            else if (k >= ii) lo = ii;
+            else return;
+        }
+    }
+
+    protected void swap (int a, int b) {
+        double[] c = _coords;
+        int dims = _dims;
+        for (int ii = a*dims, jj = b*dims, ll = ii + dims; ii < ll; ii++, jj++) {
+            double t = c[ii];
+            c[ii] = c[jj];
+            c[jj] = t;
+        }
+        int t = _indices[a];
+        _indices[a] = _indices[b];
+        _indices[b] = t;
+    }
+
+    protected static double[] pack (XY[] points) {
+        double[] coords = new double[points.length * 2];
+        for (int ii = 0; ii < points.length; ii++) {
+            coords[ii*2] = points[ii].x();
+            coords[ii*2+1] = points[ii].y();
+        }
+        return coords;
+    }
+
+    protected static double[] pack (IVector3[] points) {
+        double[] coords = new double[points.length * 3];
+        for (int ii = 0; ii < points.length; ii++) {
+            coords[ii*3] = points[ii].x();
+            coords[ii*3+1] = points[ii].y();
+            coords[ii*3+2] = points[ii].z();
+        }
+        return coords;
+    }
+
+    /** Arranges a subrange of the tree, splitting large subranges into parallel subtasks. */
+    protected class BuildTask implements Runnable
+    {
+        public BuildTask (int lo, int hi) {
+            _lo = lo;
+            _hi = hi;
+        }
+
+        @Override public void run () {
+            build(_lo, _hi);
+        }
+
+        protected void build (int lo, int hi) {
+            if (hi - lo < 2) return;
+            int mid = split(lo, hi);
+            if (hi - lo > _grain) {
+                List<BuildTask> tasks = new ArrayList<BuildTask>(2);
+                tasks.add(new BuildTask(lo, mid));
+                tasks.add(new BuildTask(mid + 1, hi));
+                Platform.invokeAll(tasks);
+            } else {
+                build(lo, mid);
+                build(mid + 1, hi);
+            }
+        }
+
+        protected final int _lo, _hi;
+    }
+
+    /** The state of a single query. */
+    protected class Search
+    {
+        /** The tree positions of the points found, and their squared distances. For nearest
+         * neighbor searches, these form a max-heap on distance. */
+        public int[] nodes;
+        public double[] dists;
+        public int count;
+
+        public Search (double[] query, int capacity, double limit, double epsilon) {
+            _query = query;
+            nodes = new int[capacity];
+            dists = new double[capacity];
+            _limit = limit;
+            _scale = (1f + epsilon) * (1f + epsilon);
+        }
+
+        public void nearest (int lo, int hi) {
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                double distSq = distanceSq(mid);
+                if (count < nodes.length) push(mid, distSq);
+                else if (distSq < dists[0]) replaceTop(mid, distSq);
+                if (hi - lo == 1) return;
+
+                int axis = _axes[mid];
+                double diff = _query[axis] - _coords[mid*_dims + axis];
+                // search the side containing the query first, then the other if it may hold
+                // points nearer than the worst found so far
+                if (diff < 0f) {
+                    nearest(lo, mid);
+                    if (diff * diff * _scale >= worst()) return;
+                    lo = mid + 1;
+                } else {
+                    nearest(mid + 1, hi);
+                    if (diff * diff * _scale >= worst()) return;
+                    hi = mid;
+                }
+            }
+        }
+
+        public void within (int lo, int hi) {
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (distanceSq(mid) <= _limit) append(mid);
+                if (hi - lo == 1) return;
+
+                int axis = _axes[mid];
+                double diff = _query[axis] - _coords[mid*_dims + axis];
+                if (diff < 0f) {
+                    within(lo, mid);
+                    if (diff * diff > _limit) return;
+                    lo = mid + 1;
+                } else {
+                    within(mid + 1, hi);
+                    if (diff * diff > _limit) return;
+                    hi = mid;
+                }
+            }
+        }
+
+        /**
+         * Writes the found points to the supplied arrays, nearest first, emptying the heap.
+         *
+         * @return the number of points written.
+         */
+        public int drain (int[] indices, double[] distancesSq) {
+            int found = count;
+            for (int ii = found - 1; ii >= 0; ii--) {
+                indices[ii] = _indices[nodes[0]];
+                if (distancesSq != null) distancesSq[ii] = dists[0];
+                int last = --count;
+                if (last > 0) {
+                    nodes[0] = nodes[last];
+                    dists[0] = dists[last];
+                    siftDown(0);
+                }
+            }
+            return found;
+        }
+
+        protected double worst () {
+            return (count < nodes.length) ? _limit : dists[0];
+        }
+
+        protected double distanceSq (int node) {
+            double[] c = _coords, q = _query;
+            int off = node * _dims;
+            double dx = c[off] - q[0], dy = c[off+1] - q[1];
+            double distSq = dx*dx + dy*dy;
+            if (_dims == 3) {
+                double dz = c[off+2] - q[2];
+                distSq += dz*dz;
+            }
+            return distSq;
+        }
+
+        protected void append (int node) {
+            if (count == nodes.length) {
+                int[] nnodes = new int[count*2];
+                System.arraycopy(nodes, 0, nnodes, 0, count);
+                nodes = nnodes;
+            }
+            nodes[count++] = node;
+        }
+
+        protected void push (int node, double distSq) {
+            int ii = count++;
+            // sift the new entry up
+            while (ii > 0) {
+                int parent = (ii - 1) >>> 1;
+                if (dists[parent] >= distSq) break;
+                nodes[ii] = nodes[parent];
+                dists[ii] = dists[parent];
+                ii = parent;
+            }
+            nodes[ii] = node;
+            dists[ii] = distSq;
+        }
+
+        protected void replaceTop (int node, double distSq) {
+            nodes[0] = node;
+            dists[0] = distSq;
+            siftDown(0);
+        }
+
+        protected void siftDown (int ii) {
+            int node = nodes[ii];
+            double distSq = dists[ii];
+            for (int child; (child = ii*2 + 1) < count; ii = child) {
+                if (child + 1 < count && dists[child + 1] > dists[child]) child++;
+                if (dists[child] <= distSq) break;
+                nodes[ii] = nodes[child];
+                dists[ii] = dists[child];
+            }
+            nodes[ii] = node;
+            dists[ii] = distSq;
+        }
+
+        protected final double[] _query;
+        protected final double _limit, _scale;
+    }
+
+    /** The number of coordinates of each point. */
+    protected final int _dims;
+
+    /** The coordinates of the points, in tree order. */
+    protected final double[] _coords;
+
+    /** The original index of each point, in tree order. */
+    protected final int[] _indices;
+
+    /** The axis along which the median of each subrange splits it. */
+    protected final byte[] _axes;
+
+    /** The number of points below which a subtree is built by a single task. */
+    protected final int _grain;
+}
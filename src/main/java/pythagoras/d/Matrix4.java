@@ -4,7 +4,10 @@
 
 package pythagoras.d;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.nio.DoubleBuffer;
 
 import pythagoras.util.Platform;
@@ -12,10 +15,18 @@ import pythagoras.util.SingularMatrixException;
 
 /**
  * A 4x4 column-major matrix.
+ *
+ * <p>Matrices classify themselves (see {@link #type}) so that multiplication, inversion and point
+ * transformation can use cheaper algorithms for identity, translation, rigid and affine
+ * matrices. The classification is recorded by the builders and operations of this class, which
+ * know the type of their result, and is discarded by the methods that set the components
+ * wholesale, to be recomputed from the components when next needed (in which case a rotation is
+ * classified as merely affine). Code that writes the components directly must call {@link
+ * #resetType} afterwards.</p>
  */
-public final class Matrix4 implements IMatrix4, Serializable
+public final class Matrix4 implements IMatrix4, Externalizable
 {
-    private static final long serialVersionUID = 2376107607832772408L;
+    private static final long serialVersionUID = 1622955467146001174L;
 
     /** The identity matrix. */
     public static final IMatrix4 IDENTITY = new Matrix4();
@@ -23,6 +34,21 @@ public final class Matrix4 implements IMatrix4, Serializable
     /** An empty matrix array. */
     public static final Matrix4[] EMPTY_ARRAY = new Matrix4[0];
 
+    /** The {@link #type} of the identity matrix. */
+    public static final int TYPE_IDENTITY = 0;
+
+    /** The {@link #type} of a pure translation matrix. */
+    public static final int TYPE_TRANSLATION = 1;
+
+    /** The {@link #type} of a rigid (rotation and translation) matrix. */
+    public static final int TYPE_RIGID = 2;
+
+    /** The {@link #type} of an affine matrix. */
+    public static final int TYPE_AFFINE = 3;
+
+    /** The {@link #type} of a projective matrix. */
+    public static final int TYPE_PROJECTIVE = 4;
+
     /** The values of the matrix. The names take the form {@code mCOLROW}. */
     public double m00, m10, m20, m30;
     public double m01, m11, m21, m31;
@@ -80,7 +106,7 @@ public final class Matrix4 implements IMatrix4, Serializable
         return set(1f, 0f, 0f, 0f,
                    0f, 1f, 0f, 0f,
                    0f, 0f, 1f, 0f,
-                   0f, 0f, 0f, 1f);
+                   0f, 0f, 0f, 1f).setType(TYPE_IDENTITY);
     }
 
     /**
@@ -92,7 +118,7 @@ public final class Matrix4 implements IMatrix4, Serializable
         return set(0f, 0f, 0f, 0f,
                    0f, 0f, 0f, 0f,
                    0f, 0f, 0f, 0f,
-                   0f, 0f, 0f, 0f);
+                   0f, 0f, 0f, 0f).setType(TYPE_PROJECTIVE);
     }
 
     /**
@@ -110,11 +136,11 @@ public final class Matrix4 implements IMatrix4, Serializable
      * @return a reference to this matrix, for chaining.
      */
     public Matrix4 setToTransform (IVector3 translation, IQuaternion rotation, double scale) {
-        return setToRotation(rotation).set(
-            m00 * scale, m10 * scale, m20 * scale, translation.x(),
-            m01 * scale, m11 * scale, m21 * scale, translation.y(),
-            m02 * scale, m12 * scale, m22 * scale, translation.z(),
-            0f, 0f, 0f, 1f);
+        int type = setToRotation(rotation)._type;
+        return set(m00 * scale, m10 * scale, m20 * scale, translation.x(),
+                   m01 * scale, m11 * scale, m21 * scale, translation.y(),
+                   m02 * scale, m12 * scale, m22 * scale, translation.z(),
+                   0f, 0f, 0f, 1f).setType(scale == 1f ? type : TYPE_AFFINE);
 }
 
 /**
@@ -128,7 +154,7 @@ public final class Matrix4 implements IMatrix4, Serializable
             m00 * sx, m10 * sy, m20 * sz, translation.x(),
             m01 * sx, m11 * sy, m21 * sz, translation.y(),
             m02 * sx, m12 * sy, m22 * sz, translation.z(),
-            0f, 0f, 0f, 1f);
+            0f, 0f, 0f, 1f).setType(TYPE_AFFINE);
     }
 
     /**
@@ -149,7 +175,7 @@ public final class Matrix4 implements IMatrix4, Serializable
         return set(1f, 0f, 0f, x,
                    0f, 1f, 0f, y,
                    0f, 0f, 1f, z,
-                   0f, 0f, 0f, 1f);
+                   0f, 0f, 0f, 1f).setType(translationType(x, y, z));
     }
 
     /**
@@ -170,7 +196,9 @@ public final class Matrix4 implements IMatrix4, Serializable
         m30 = x;
         m31 = y;
         m32 = z;
-        return this;
+        // the translation only distinguishes identity from translation matrices
+        return (_type == TYPE_IDENTITY || _type == TYPE_TRANSLATION) ?
+            setType(translationType(x, y, z)) : this;
     }
 
     /**
@@ -215,7 +243,7 @@ public final class Matrix4 implements IMatrix4, Serializable
         return set(x*x*omc + c, xy*omc - zs, xz*omc + ys, 0f,
                    xy*omc + zs, y*y*omc + c, yz*omc - xs, 0f,
                    xz*omc - ys, yz*omc + xs, z*z*omc + c, 0f,
-                   0f, 0f, 0f, 1f);
+                   0f, 0f, 0f, 1f).setType(rotationType(x*x + y*y + z*z));
     }
 
     /**
@@ -232,7 +260,7 @@ public final class Matrix4 implements IMatrix4, Serializable
         return set(1f - 2f*(yy + zz), 2f*(xy - zw), 2f*(xz + yw), 0f,
                    2f*(xy + zw), 1f - 2f*(xx + zz), 2f*(yz - xw), 0f,
                    2f*(xz - yw), 2f*(yz + xw), 1f - 2f*(xx + yy), 0f,
-                   0f, 0f, 0f, 1f);
+                   0f, 0f, 0f, 1f).setType(rotationType(xx + yy + zz + w*w));
     }
 
     /**
@@ -443,10 +471,11 @@ public final class Matrix4 implements IMatrix4, Serializable
      * @return a reference to this matrix, for chaining.
      */
     public Matrix4 set (IMatrix4 other) {
+        int type = other.type();
         return set(other.m00(), other.m10(), other.m20(), other.m30(),
                    other.m01(), other.m11(), other.m21(), other.m31(),
                    other.m02(), other.m12(), other.m22(), other.m32(),
-                   other.m03(), other.m13(), other.m23(), other.m33());
+                   other.m03(), other.m13(), other.m23(), other.m33()).setType(type);
     }
 
     /**
@@ -471,7 +500,7 @@ public final class Matrix4 implements IMatrix4, Serializable
         m10 = buf.get(); m11 = buf.get(); m12 = buf.get(); m13 = buf.get();
         m20 = buf.get(); m21 = buf.get(); m22 = buf.get(); m23 = buf.get();
         m30 = buf.get(); m31 = buf.get(); m32 = buf.get(); m33 = buf.get();
-        return this;
+        return setType(TYPE_UNKNOWN);
     }
 
     /**
@@ -488,7 +517,17 @@ public final class Matrix4 implements IMatrix4, Serializable
         this.m10 = m10; this.m11 = m11; this.m12 = m12; this.m13 = m13;
         this.m20 = m20; this.m21 = m21; this.m22 = m22; this.m23 = m23;
         this.m30 = m30; this.m31 = m31; this.m32 = m32; this.m33 = m33;
-        return this;
+        return setType(TYPE_UNKNOWN);
+    }
+
+    /**
+     * Discards the recorded classification of this matrix, so that it is recomputed from the
+     * components when next needed. This must be called after writing the components directly.
+     *
+     * @return a reference to this matrix, for chaining.
+     */
+    public Matrix4 resetType () {
+        return setType(TYPE_UNKNOWN);
     }
 
     /**
@@ -656,6 +695,16 @@ public final class Matrix4 implements IMatrix4, Serializable
 
     @Override // from IMatrix4
     public Matrix4 mult (IMatrix4 other, Matrix4 result) {
+        int type = type(), otype = other.type();
+        if (type == TYPE_IDENTITY) return result.set(other);
+        if (otype == TYPE_IDENTITY) return result.set(this);
+        if (type != TYPE_PROJECTIVE && otype != TYPE_PROJECTIVE) {
+            if (type == TYPE_TRANSLATION && otype == TYPE_TRANSLATION) {
+                return result.setToTranslation(m30 + other.m30(), m31 + other.m31(),
+                                               m32 + other.m32());
+            }
+            return multAffine(other, result, type, otype);
+        }
         double m00 = this.m00, m10 = this.m10, m20 = this.m20, m30 = this.m30;
         double m01 = this.m01, m11 = this.m11, m21 = this.m21, m31 = this.m31;
         double m02 = this.m02, m12 = this.m12, m22 = this.m22, m32 = this.m32;
@@ -682,7 +731,7 @@ public final class Matrix4 implements IMatrix4, Serializable
                           m03*om00 + m13*om01 + m23*om02 + m33*om03,
                           m03*om10 + m13*om11 + m23*om12 + m33*om13,
                           m03*om20 + m13*om21 + m23*om22 + m33*om23,
-                          m03*om30 + m13*om31 + m23*om32 + m33*om33);
+                          m03*om30 + m13*om31 + m23*om32 + m33*om33).setType(TYPE_PROJECTIVE);
     }
 
     @Override // from IMatrix4
@@ -690,6 +739,12 @@ public final class Matrix4 implements IMatrix4, Serializable
         return (m03 == 0f && m13 == 0f && m23 == 0f && m33 == 1f);
     }
 
+    @Override // from IMatrix4
+    public int type () {
+        int type = _type;
+        return (type == TYPE_UNKNOWN) ? (_type = classify()) : type;
+    }
+
     @Override // from IMatrix4
     public boolean isMirrored () {
         return m00*(m11*m22 - m12*m21) + m01*(m12*m20 - m10*m22) + m02*(m10*m21 - m11*m20) < 0f;
@@ -702,6 +757,15 @@ public final class Matrix4 implements IMatrix4, Serializable
 
     @Override // from IMatrix4
     public Matrix4 multAffine (IMatrix4 other, Matrix4 result) {
+        return multAffine(other, result, type(), other.type());
+    }
+
+    /**
+     * Multiplies this by an affine matrix, given the types of both. The product of rigid matrices
+     * is rigid; any other product is affine.
+     */
+    private Matrix4 multAffine (IMatrix4 other, Matrix4 result, int type, int otype) {
+        int rtype = (type <= TYPE_RIGID && otype <= TYPE_RIGID) ? TYPE_RIGID : TYPE_AFFINE;
         double m00 = this.m00, m10 = this.m10, m20 = this.m20, m30 = this.m30;
         double m01 = this.m01, m11 = this.m11, m21 = this.m21, m31 = this.m31;
         double m02 = this.m02, m12 = this.m12, m22 = this.m22, m32 = this.m32;
@@ -723,7 +787,7 @@ public final class Matrix4 implements IMatrix4, Serializable
                           m02*om20 + m12*om21 + m22*om22,
                           m02*om30 + m12*om31 + m22*om32 + m32,
 
-                          0f, 0f, 0f, 1f);
+                          0f, 0f, 0f, 1f).setType(rtype);
     }
 
     @Override // from IMatrix4
@@ -737,6 +801,7 @@ public final class Matrix4 implements IMatrix4, Serializable
      */
     @Override // from IMatrix4
     public Matrix4 invert (Matrix4 result) throws SingularMatrixException {
+        if (type() != TYPE_PROJECTIVE) return invertAffine(result);
         double m00 = this.m00, m10 = this.m10, m20 = this.m20, m30 = this.m30;
         double m01 = this.m01, m11 = this.m11, m21 = this.m21, m31 = this.m31;
         double m02 = this.m02, m12 = this.m12, m22 = this.m22, m32 = this.m32;
@@ -771,7 +836,8 @@ public final class Matrix4 implements IMatrix4, Serializable
             -sd30 * rdet,
             +(m00*(m12*m23 - m13*m22) + m10*(m03*m22 - m02*m23) + m20*(m02*m13 - m03*m12)) * rdet,
             -(m00*(m11*m23 - m13*m21) + m10*(m03*m21 - m01*m23) + m20*(m01*m13 - m03*m11)) * rdet,
-            +(m00*(m11*m22 - m12*m21) + m10*(m02*m21 - m01*m22) + m20*(m01*m12 - m02*m11)) * rdet);
+            +(m00*(m11*m22 - m12*m21) + m10*(m02*m21 - m01*m22) + m20*(m01*m12 - m02*m11)) * rdet
+            ).setType(TYPE_PROJECTIVE);
     }
 
     @Override // from IMatrix4
@@ -781,6 +847,18 @@ public final class Matrix4 implements IMatrix4, Serializable
 
     @Override // from IMatrix4
     public Matrix4 invertAffine (Matrix4 result) throws SingularMatrixException {
+        switch (type()) {
+        case TYPE_IDENTITY:
+            return result.setToIdentity();
+        case TYPE_TRANSLATION:
+            return result.setToTranslation(-m30, -m31, -m32);
+        case TYPE_RIGID:
+            // the inverse of a rotation is its transpose
+            return result.set(m00, m01, m02, -(m00*m30 + m01*m31 + m02*m32),
+                              m10, m11, m12, -(m10*m30 + m11*m31 + m12*m32),
+                              m20, m21, m22, -(m20*m30 + m21*m31 + m22*m32),
+                              0f, 0f, 0f, 1f).setType(TYPE_RIGID);
+        }
         double m00 = this.m00, m10 = this.m10, m20 = this.m20, m30 = this.m30;
         double m01 = this.m01, m11 = this.m11, m21 = this.m21, m31 = this.m31;
         double m02 = this.m02, m12 = this.m12, m22 = this.m22, m32 = this.m32;
@@ -810,7 +888,7 @@ public final class Matrix4 implements IMatrix4, Serializable
             +(m00*m11 - m10*m01) * rdet,
             -(m00*(m11*m32 - m12*m31) + m10*(m02*m31 - m01*m32) + m30*sd20) * rdet,
 
-            0f, 0f, 0f, 1f);
+            0f, 0f, 0f, 1f).setType(TYPE_AFFINE);
     }
 
     @Override // from IMatrix4
@@ -894,6 +972,7 @@ public final class Matrix4 implements IMatrix4, Serializable
 
     @Override // from IMatrix4
     public Vector3 projectPoint (IVector3 point, Vector3 result) {
+        if (type() != TYPE_PROJECTIVE) return transformPoint(point, result);
         double px = point.x(), py = point.y(), pz = point.z();
         double rw = 1f / (m03*px + m13*py + m23*pz + m33);
         return result.set((m00*px + m10*py + m20*pz + m30) * rw,
@@ -914,6 +993,10 @@ public final class Matrix4 implements IMatrix4, Serializable
     @Override // from IMatrix4
     public Vector3 transformPoint (IVector3 point, Vector3 result) {
         double px = point.x(), py = point.y(), pz = point.z();
+        switch (type()) {
+        case TYPE_IDENTITY: return result.set(px, py, pz);
+        case TYPE_TRANSLATION: return result.set(px + m30, py + m31, pz + m32);
+        }
         return result.set(m00*px + m10*py + m20*pz + m30,
                           m01*px + m11*py + m21*pz + m31,
                           m02*px + m12*py + m22*pz + m32);
@@ -1072,6 +1155,47 @@ public final class Matrix4 implements IMatrix4, Serializable
                 Math.abs(m33 - other.m33()) < epsilon);
     }
 
+    @Override // from interface Externalizable
+    public void writeExternal (ObjectOutput out) throws IOException {
+        out.writeDouble(m00);
+        out.writeDouble(m01);
+        out.writeDouble(m02);
+        out.writeDouble(m03);
+        out.writeDouble(m10);
+        out.writeDouble(m11);
+        out.writeDouble(m12);
+        out.writeDouble(m13);
+        out.writeDouble(m20);
+        out.writeDouble(m21);
+        out.writeDouble(m22);
+        out.writeDouble(m23);
+        out.writeDouble(m30);
+        out.writeDouble(m31);
+        out.writeDouble(m32);
+        out.writeDouble(m33);
+    }
+
+    @Override // from interface Externalizable
+    public void readExternal (ObjectInput in) throws IOException {
+        m00 = in.readDouble();
+        m01 = in.readDouble();
+        m02 = in.readDouble();
+        m03 = in.readDouble();
+        m10 = in.readDouble();
+        m11 = in.readDouble();
+        m12 = in.readDouble();
+        m13 = in.readDouble();
+        m20 = in.readDouble();
+        m21 = in.readDouble();
+        m22 = in.readDouble();
+        m23 = in.readDouble();
+        m30 = in.readDouble();
+        m31 = in.readDouble();
+        m32 = in.readDouble();
+        m33 = in.readDouble();
+        _type = TYPE_UNKNOWN;
+    }
+
     @Override
     public String toString () {
         return ("[[" + m00 + ", " + m10 + ", " + m20 + ", " + m30 + "], " +
@@ -1103,4 +1227,38 @@ public final class Matrix4 implements IMatrix4, Serializable
                 m02 == omat.m02 && m12 == omat.m12 && m22 == omat.m22 && m32 == omat.m32 &&
                 m03 == omat.m03 && m13 == omat.m13 && m23 == omat.m23 && m33 == omat.m33);
     }
+
+    /**
+     * Determines the type of this matrix from its components. Rotations cannot be recognized
+     * cheaply, so this never returns {@link #TYPE_RIGID}.
+     */
+    private int classify () {
+        if (!isAffine()) return TYPE_PROJECTIVE;
+        if (m00 == 1f && m11 == 1f && m22 == 1f && m10 == 0f && m20 == 0f &&
+            m01 == 0f && m21 == 0f && m02 == 0f && m12 == 0f) {
+            return translationType(m30, m31, m32);
+        }
+        return TYPE_AFFINE;
+    }
+
+    private Matrix4 setType (int type) {
+        _type = type;
+        return this;
+    }
+
+    private static int translationType (double x, double y, double z) {
+        return (x == 0f && y == 0f && z == 0f) ? TYPE_IDENTITY : TYPE_TRANSLATION;
+    }
+
+    /** Returns the type of a rotation whose axis or quaternion has the supplied squared length. */
+    private static int rotationType (double lengthSquared) {
+        return (Math.abs(lengthSquared - 1f) < MathUtil.EPSILON) ? TYPE_RIGID : TYPE_AFFINE;
+    }
+
+    /** The type of this matrix (one of the {@code TYPE_} constants), or {@link #TYPE_UNKNOWN} if
+     * it has yet to be determined. */
+    private int _type;
+
+    /** Marks a matrix whose type is to be determined from its components. */
+    private static final int TYPE_UNKNOWN = -1;
 }
@@ -52,6 +52,7 @@ public final class Path implements IShape, Cloneable
     }
 
     public void moveTo (double x, double y) {
+        tightBounds = null;
         if (typeSize > 0 && types[typeSize - 1] == PathIterator.SEG_MOVETO) {
             points[pointSize - 2] = x;
             points[pointSize - 1] = y;
@@ -64,6 +65,7 @@ public final class Path implements IShape, Cloneable
     }
 
     public void lineTo (double x, double y) {
+        tightBounds = null;
         checkBuf(2, true);
         types[typeSize++] = PathIterator.SEG_LINETO;
         points[pointSize++] = x;
@@ -71,6 +73,7 @@ public final class Path implements IShape, Cloneable
     }
 
     public void quadTo (double x1, double y1, double x2, double y2) {
+        tightBounds = null;
         checkBuf(4, true);
         types[typeSize++] = PathIterator.SEG_QUADTO;
         points[pointSize++] = x1;
@@ -80,6 +83,7 @@ public final class Path implements IShape, Cloneable
     }
 
     public void curveTo (double x1, double y1, double x2, double y2, double x3, double y3) {
+        tightBounds = null;
         checkBuf(6, true);
         types[typeSize++] = PathIterator.SEG_CUBICTO;
         points[pointSize++] = x1;
@@ -153,14 +157,24 @@ public final class Path implements IShape, Cloneable
     }
 
     public void reset () {
+        tightBounds = null;
         typeSize = 0;
         pointSize = 0;
     }
 
     public void transform (Transform t) {
+        tightBounds = null;
         t.transform(points, 0, points, 0, pointSize / 2);
     }
 
+    /**
+     * Computes the area, centroid and second moments of area of this path, respecting its winding
+     * rule.
+     */
+    public MassProperties massProperties () {
+        return MassProperties.of(this);
+    }
+
     public IShape createTransformedShape (Transform t) {
         Path p = clone();
         if (t != null) {
@@ -202,6 +216,23 @@ public final class Path implements IShape, Cloneable
         return target;
     }
 
+    @Override // from interface IShape
+    public Rectangle tightBounds () {
+        return tightBounds(new Rectangle());
+    }
+
+    /**
+     * {@inheritDoc} The tight bounds are cached until the path is next modified.
+     */
+    @Override // from interface IShape
+    public Rectangle tightBounds (Rectangle target) {
+        if (tightBounds == null) {
+            tightBounds = tightBounds(pathIterator(null), new Rectangle());
+        }
+        target.setBounds(tightBounds);
+        return target;
+    }
+
     @Override // from interface IShape
     public boolean isEmpty () {
         // TODO: will this be insanely difficult to do correctly?
@@ -255,6 +286,46 @@ public final class Path implements IShape, Cloneable
         return new Path(rule, Platform.clone(types), Platform.clone(points), typeSize, pointSize);
     }
 
+    /**
+     * Computes the tight bounds of the path described by the supplied iterator: the bounds of its
+     * end points and of the extreme points of its curves.
+     *
+     * @return {@code target}, for chaining.
+     */
+    static Rectangle tightBounds (PathIterator iter, Rectangle target) {
+        double[] coords = new double[6];
+        double x = 0f, y = 0f;
+        boolean empty = true;
+        target.setBounds(0f, 0f, 0f, 0f);
+        for (; !iter.isDone(); iter.next()) {
+            int type = iter.currentSegment(coords);
+            if (type == PathIterator.SEG_CLOSE) continue;
+            if (empty) {
+                target.setBounds(coords[0], coords[1], 0f, 0f);
+                empty = false;
+            }
+            int last = 0;
+            switch (type) {
+            case PathIterator.SEG_MOVETO:
+            case PathIterator.SEG_LINETO:
+                target.add(coords[0], coords[1]);
+                break;
+            case PathIterator.SEG_QUADTO:
+                QuadCurves.addBounds(x, y, coords[0], coords[1], coords[2], coords[3], target);
+                last = 2;
+                break;
+            case PathIterator.SEG_CUBICTO:
+                CubicCurves.addBounds(x, y, coords[0], coords[1], coords[2], coords[3],
+                                      coords[4], coords[5], target);
+                last = 4;
+                break;
+            }
+            x = coords[last];
+            y = coords[last+1];
+        }
+        return target;
+    }
+
     /**
      * Checks points and types buffer size to add pointCount points. If necessary realloc buffers
      * to enlarge size.
@@ -288,7 +359,7 @@ public final class Path implements IShape, Cloneable
             Crossing.isInsideEvenOdd(cross);
     }
 
-    private Path (int rule, byte[] types, double[] points, int typeSize, int pointSize) {
+    Path (int rule, byte[] types, double[] points, int typeSize, int pointSize) {
         this.rule = rule;
         this.types = types;
         this.points = points;
@@ -362,6 +433,9 @@ public final class Path implements IShape, Cloneable
     /* The path rule. */
     protected int rule;
 
+    /** The cached tight bounds of the path, or null if they must be recomputed. */
+    protected Rectangle tightBounds;
+
     /** The space required in points buffer for different segment types. */
     protected static int[] pointShift = { 2, // MOVETO
                                           2, // LINETO
@@ -0,0 +1,202 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.d;
+
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads and writes {@link Path} and {@link Area} instances in a compact, versioned binary
+ * format. Records may be decoded into heap shapes via {@link #readPath} and {@link #readArea}, or
+ * wrapped in place via {@link #wrap}, which allows a (possibly memory-mapped) buffer to be
+ * iterated and hit tested without copying its coordinates onto the heap.
+ *
+ * <p> Each record is stored little-endian (regardless of the order of the supplied buffer), with
+ * the following layout:</p>
+ * <pre>
+ *  0  byte    'P'
+ *  1  byte    'Y'
+ *  2  byte    format version ({@link #VERSION})
+ *  3  byte    flags: bit 0 set for areas, bit 1 set for double precision coordinates,
+ *             bit 2 set for the non-zero winding rule
+ *  4  int     segment count
+ *  8  int     coordinate count
+ * 12  int     record length in bytes (including this header)
+ * 16  coord*4 bounds: x, y, width, height
+ *     byte*n  segment types, padded to a multiple of the coordinate size
+ *     coord*m coordinates
+ * </pre>
+ * Coordinates are written using this package's precision ({@code double}); records written with
+ * single precision (by {@code pythagoras.f.PathCodec}) may also be read, and are widened.
+ */
+public class PathCodec
+{
+    /** The version of the format written by this codec. */
+    public static final int VERSION = 1;
+
+    /**
+     * Returns the number of bytes needed to encode the supplied path.
+     */
+    public static int encodedSize (Path path) {
+        return encodedSize(path.typeSize, path.pointSize, COORD_SIZE);
+    }
+
+    /**
+     * Returns the number of bytes needed to encode the supplied area.
+     */
+    public static int encodedSize (Area area) {
+        return encodedSize(area.rulesSize(), area.coordsSize(), COORD_SIZE);
+    }
+
+    /**
+     * Writes the supplied path into {@code buf} at its current position, advancing the position
+     * past the written record.
+     * @throws BufferOverflowException if the buffer lacks {@link #encodedSize} bytes.
+     */
+    public static void write (Path path, ByteBuffer buf) {
+        ByteBuffer out = begin(buf, encodedSize(path));
+        int flags = FLAG_DOUBLE | (path.rule == Path.WIND_NON_ZERO ? FLAG_NON_ZERO : 0);
+        int coordOff = writeHeader(out, flags, path.typeSize, path.pointSize, path.bounds());
+        setPosition(out, TYPES_OFFSET);
+        out.put(path.types, 0, path.typeSize);
+        setPosition(out, coordOff);
+        out.asDoubleBuffer().put(path.points, 0, path.pointSize);
+        end(buf, out);
+    }
+
+    /**
+     * Writes the supplied area into {@code buf} at its current position, advancing the position
+     * past the written record.
+     * @throws BufferOverflowException if the buffer lacks {@link #encodedSize} bytes.
+     */
+    public static void write (Area area, ByteBuffer buf) {
+        ByteBuffer out = begin(buf, encodedSize(area));
+        int rulesSize = area.rulesSize(), coordsSize = area.coordsSize();
+        Rectangle bounds = area.isEmpty() ? new Rectangle() : area.bounds();
+        int coordOff = writeHeader(out, FLAG_AREA | FLAG_DOUBLE, rulesSize, coordsSize, bounds);
+        int[] rules = area.rules();
+        for (int ii = 0; ii < rulesSize; ii++) out.put(TYPES_OFFSET + ii, (byte)rules[ii]);
+        setPosition(out, coordOff);
+        out.asDoubleBuffer().put(area.coords(), 0, coordsSize);
+        end(buf, out);
+    }
+
+    /**
+     * Reads a path from {@code buf} at its current position, advancing the position past the
+     * record. Area records may also be read as paths.
+     * @throws IllegalArgumentException if the buffer does not contain a valid record.
+     */
+    public static Path readPath (ByteBuffer buf) {
+        EncodedShape shape = wrap(buf);
+        int segs = shape.segmentCount(), coords = shape.coordCount();
+        byte[] types = new byte[Math.max(segs, Path.BUFFER_SIZE)];
+        double[] points = new double[Math.max(coords, Path.BUFFER_SIZE*2)];
+        shape.getTypes(types);
+        shape.getCoords(points);
+        return new Path(shape.windingRule(), types, points, segs, coords);
+    }
+
+    /**
+     * Reads an area from {@code buf} at its current position, advancing the position past the
+     * record. Path records may also be read as areas, in which case they are converted as by
+     * {@link Area#Area(IShape)}.
+     * @throws IllegalArgumentException if the buffer does not contain a valid record.
+     */
+    public static Area readArea (ByteBuffer buf) {
+        EncodedShape shape = wrap(buf);
+        if (!shape.isArea()) return new Area(shape);
+        int segs = shape.segmentCount(), coords = shape.coordCount();
+        byte[] types = new byte[segs];
+        int[] rules = new int[Math.max(segs, 1)];
+        double[] points = new double[Math.max(coords, 2)];
+        shape.getTypes(types);
+        for (int ii = 0; ii < segs; ii++) rules[ii] = types[ii];
+        shape.getCoords(points);
+        return new Area(rules, segs, points, coords);
+    }
+
+    /**
+     * Wraps the record at the current position of {@code buf} in a read-only shape which reads
+     * its segments directly from the buffer, and advances the buffer's position past the record.
+     * The buffer's contents must not be changed while the returned shape is in use.
+     * @throws IllegalArgumentException if the buffer does not contain a valid record.
+     */
+    public static EncodedShape wrap (ByteBuffer buf) {
+        ByteBuffer in = buf.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (in.remaining() < HEADER_SIZE || in.get(0) != 'P' || in.get(1) != 'Y') {
+            throw new IllegalArgumentException("Buffer does not contain an encoded path");
+        }
+        int version = in.get(2);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported encoded path version " + version);
+        }
+        int length = in.getInt(LENGTH_OFFSET);
+        if (length > in.remaining()) {
+            throw new IllegalArgumentException(
+                "Truncated encoded path (need " + length + " bytes, have " + in.remaining() + ")");
+        }
+        setLimit(in, length);
+        setPosition(buf, buf.position() + length);
+        return new EncodedShape(in);
+    }
+
+    /** Returns the size of a record with the specified contents. */
+    static int encodedSize (int segments, int coords, int coordSize) {
+        return coordOffset(segments, coordSize) + coords * coordSize;
+    }
+
+    /** Returns the offset of the coordinates in a record with the specified contents. */
+    static int coordOffset (int segments, int coordSize) {
+        int typesEnd = HEADER_SIZE + 4 * coordSize + segments;
+        return (typesEnd + coordSize - 1) / coordSize * coordSize;
+    }
+
+    protected static ByteBuffer begin (ByteBuffer buf, int size) {
+        if (buf.remaining() < size) throw new BufferOverflowException();
+        ByteBuffer out = buf.slice().order(ByteOrder.LITTLE_ENDIAN);
+        setLimit(out, size);
+        return out;
+    }
+
+    protected static void end (ByteBuffer buf, ByteBuffer out) {
+        setPosition(buf, buf.position() + out.limit());
+    }
+
+    protected static int writeHeader (ByteBuffer out, int flags, int segments, int coords,
+                                      IRectangle bounds) {
+        out.put(0, (byte)'P');
+        out.put(1, (byte)'Y');
+        out.put(2, (byte)VERSION);
+        out.put(3, (byte)flags);
+        out.putInt(SEGMENTS_OFFSET, segments);
+        out.putInt(COORDS_OFFSET, coords);
+        out.putInt(LENGTH_OFFSET, out.limit());
+        out.putDouble(HEADER_SIZE, bounds.x());
+        out.putDouble(HEADER_SIZE + COORD_SIZE, bounds.y());
+        out.putDouble(HEADER_SIZE + 2*COORD_SIZE, bounds.width());
+        out.putDouble(HEADER_SIZE + 3*COORD_SIZE, bounds.height());
+        int coordOff = coordOffset(segments, COORD_SIZE);
+        // zero the padding between the types and coordinates so that output is deterministic
+        for (int ii = TYPES_OFFSET + segments; ii < coordOff; ii++) out.put(ii, (byte)0);
+        return coordOff;
+    }
+
+    // these are called via Buffer so that the JDK 9+ covariant ByteBuffer overrides are not linked
+    static void setPosition (Buffer buf, int position) {
+        buf.position(position);
+    }
+
+    static void setLimit (Buffer buf, int limit) {
+        buf.limit(limit);
+    }
+
+    static final int FLAG_AREA = 1, FLAG_DOUBLE = 2, FLAG_NON_ZERO = 4;
+    static final int SEGMENTS_OFFSET = 4, COORDS_OFFSET = 8, LENGTH_OFFSET = 12;
+    static final int HEADER_SIZE = 16;
+    static final int COORD_SIZE = 8;
+    static final int TYPES_OFFSET = HEADER_SIZE + 4 * COORD_SIZE;
+}
@@ -126,14 +126,14 @@ public class Plane implements IPlane, Serializable
         return set(normal, -normal.dot(pt));
     }
 
-    // /**
-    //  * Transforms this plane in-place by the specified transformation.
-    //  *
-    //  * @return a reference to this plane, for chaining.
-    //  */
-    // public Plane transformLocal (Transform3D transform) {
-    //     return transform(transform, this);
-    // }
+    /**
+     * Transforms this plane in-place by the specified transformation.
+     *
+     * @return a reference to this plane, for chaining.
+     */
+    public Plane transformLocal (Transform3D transform) {
+        return transform(transform, this);
+    }
 
     /**
      * Negates this plane in-place.
@@ -164,17 +164,30 @@ public class Plane implements IPlane, Serializable
         return _normal.dot(pt) + constant;
     }
 
-    // @Override // from IPlane
-    // public Plane transform (Transform3D transform) {
-    //     return transform(transform, new Plane());
-    // }
+    @Override // from IPlane
+    public Plane transform (Transform3D transform) {
+        return transform(transform, new Plane());
+    }
 
-    // @Override // from IPlane
-    // public Plane transform (Transform3D transform, Plane result) {
-    //     transform.transformPointLocal(_normal.mult(-constant, _v1));
-    //     transform.transformVector(_normal, _v2).normalizeLocal();
-    //     return result.fromPointNormal(_v1, _v2);
-    // }
+    @Override // from IPlane
+    public Plane transform (Transform3D transform, Plane result) {
+        if (transform.type() <= Transform3D.UNIFORM) {
+            transform.transformPointLocal(_normal.mult(-constant, _v1));
+            transform.transformVector(_normal, _v2).normalizeLocal();
+            return result.fromPointNormal(_v1, _v2);
+        }
+        // planes transform by the inverse transpose of the matrix
+        IMatrix4 inv = transform.invert().matrix();
+        double a = _normal.x, b = _normal.y, c = _normal.z, d = constant;
+        double na = a*inv.m00() + b*inv.m01() + c*inv.m02() + d*inv.m03();
+        double nb = a*inv.m10() + b*inv.m11() + c*inv.m12() + d*inv.m13();
+        double nc = a*inv.m20() + b*inv.m21() + c*inv.m22() + d*inv.m23();
+        double nd = a*inv.m30() + b*inv.m31() + c*inv.m32() + d*inv.m33();
+        double rlen = 1f / Math.sqrt(na*na + nb*nb + nc*nc);
+        result._normal.set(na * rlen, nb * rlen, nc * rlen);
+        result.constant = nd * rlen;
+        return result;
+    }
 
     @Override // from IPlane
     public Plane negate () {
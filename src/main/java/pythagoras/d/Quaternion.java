@@ -4,7 +4,10 @@
 
 package pythagoras.d;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.Random;
 
 import pythagoras.util.Platform;
@@ -13,9 +16,9 @@ import pythagoras.util.Platform;
  * A unit quaternion. Many of the formulas come from the
  * <a href="http://www.j3d.org/matrix_faq/matrfaq_latest.html">Matrix and Quaternion FAQ</a>.
  */
-public class Quaternion implements IQuaternion, Serializable
+public class Quaternion implements IQuaternion, Externalizable
 {
-    private static final long serialVersionUID = -2507768410601557773L;
+    private static final long serialVersionUID = 8950958958035863764L;
 
     /** The identity quaternion. */
     public static final IQuaternion IDENTITY = new Quaternion(0f, 0f, 0f, 1f);
@@ -494,6 +497,22 @@ public class Quaternion implements IQuaternion, Serializable
                           w + t*(-qx*x - qy*y - qz*z)).normalizeLocal();
     }
 
+    @Override // from interface Externalizable
+    public void writeExternal (ObjectOutput out) throws IOException {
+        out.writeDouble(x);
+        out.writeDouble(y);
+        out.writeDouble(z);
+        out.writeDouble(w);
+    }
+
+    @Override // from interface Externalizable
+    public void readExternal (ObjectInput in) throws IOException {
+        x = in.readDouble();
+        y = in.readDouble();
+        z = in.readDouble();
+        w = in.readDouble();
+    }
+
     @Override // documentation inherited
     public String toString () {
         return "[" + x + ", " + y + ", " + z + ", " + w + "]";
@@ -56,14 +56,14 @@ public class Ray3 implements IRay3
         return this;
     }
 
-    // /**
-    //  * Transforms this ray in-place.
-    //  *
-    //  * @return a reference to this ray, for chaining.
-    //  */
-    // public Ray3 transformLocal (Transform3D transform) {
-    //     return transform(transform, this);
-    // }
+    /**
+     * Transforms this ray in-place.
+     *
+     * @return a reference to this ray, for chaining.
+     */
+    public Ray3 transformLocal (Transform3D transform) {
+        return transform(transform, this);
+    }
 
     @Override // from IRay3
     public Vector3 origin () {
@@ -75,17 +75,24 @@ public class Ray3 implements IRay3
         return direction;
     }
 
-    // @Override // from IRay3
-    // public Ray3 transform (Transform3D transform) {
-    //     return transform(transform, new Ray3());
-    // }
+    @Override // from IRay3
+    public Ray3 transform (Transform3D transform) {
+        return transform(transform, new Ray3());
+    }
 
-    // @Override // from IRay3
-    // public Ray3 transform (Transform3D transform, Ray3 result) {
-    //     transform.transformPoint(origin, result.origin);
-    //     transform.transformVector(direction, result.direction).normalizeLocal();
-    //     return result;
-    // }
+    @Override // from IRay3
+    public Ray3 transform (Transform3D transform, Ray3 result) {
+        if (transform.type() == Transform3D.GENERAL) {
+            // directions are not preserved by projection, so transform a second point
+            Vector3 end = transform.transformPoint(origin.add(direction));
+            transform.transformPoint(origin, result.origin);
+            end.subtract(result.origin, result.direction).normalizeLocal();
+            return result;
+        }
+        transform.transformPoint(origin, result.origin);
+        transform.transformVector(direction, result.direction).normalizeLocal();
+        return result;
+    }
 
     @Override
     public String toString () {
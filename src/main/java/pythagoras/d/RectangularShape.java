@@ -169,6 +169,17 @@ public abstract class RectangularShape implements IRectangularShape
         return target;
     }
 
+    @Override // from interface IShape
+    public Rectangle tightBounds () {
+        return tightBounds(new Rectangle());
+    }
+
+    @Override // from interface IShape
+    public Rectangle tightBounds (Rectangle target) {
+        // the bounds of rectangular shapes are already tight
+        return bounds(target);
+    }
+
     @Override // from interface IShape
     public PathIterator pathIterator (Transform t, double flatness) {
         return new FlatteningPathIterator(pathIterator(t), flatness);
@@ -0,0 +1,221 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.d;
+
+/**
+ * Finds the real roots of polynomials of degree at most four that lie within a parameter interval
+ * (such as [0, 1] for B&eacute;zier curves). Coefficients are supplied lowest order first, so
+ * that {@code c0 + c1*t + c2*t^2 + ...} is solved. Roots are returned in ascending order, without
+ * duplicates.
+ *
+ * <p>Quadratics are solved in closed form using the numerically stable formulation. Higher
+ * degrees are solved by splitting the interval at the extrema of the polynomial (the roots of its
+ * derivative, found recursively) into monotonic pieces, each of which contains at most one root.
+ * Roots are then isolated by safeguarded Newton iteration, which avoids the trigonometric and
+ * cube root operations (and the spurious or duplicate roots) of the closed form cubic.</p>
+ */
+public class RootSolver
+{
+    /**
+     * Finds the root of {@code c0 + c1*t} in {@code [min, max]}.
+     *
+     * @return the number of roots (zero or one) written to {@code roots} at {@code offset}.
+     */
+    public static int solveLinear (double c0, double c1, double min, double max,
+                                   double[] roots, int offset) {
+        if (c1 == 0f) return 0;
+        double t = -c0 / c1;
+        if (t < min || t > max) return 0;
+        roots[offset] = t;
+        return 1;
+    }
+
+    /**
+     * Finds the roots of {@code c0 + c1*t + c2*t^2} in {@code [min, max]}.
+     *
+     * @return the number of roots (at most two) written to {@code roots} at {@code offset}.
+     */
+    public static int solveQuadratic (double c0, double c1, double c2, double min, double max,
+                                      double[] roots, int offset) {
+        if (c2 == 0f) return solveLinear(c0, c1, min, max, roots, offset);
+        double disc = c1*c1 - 4f*c2*c0;
+        if (disc < 0f) return 0;
+        double r1, r2;
+        if (disc == 0f) {
+            r1 = r2 = -c1 / (2f*c2);
+        } else {
+            // avoid the cancellation of -b + sqrt(b^2 - 4ac) when 4ac is small
+            double q = -0.5f * (c1 < 0f ? c1 - Math.sqrt(disc) : c1 + Math.sqrt(disc));
+            r1 = q / c2;
+            r2 = c0 / q;
+            if (r1 > r2) {
+                double tmp = r1;
+                r1 = r2;
+                r2 = tmp;
+            }
+        }
+        int count = 0;
+        if (r1 >= min && r1 <= max) roots[offset + count++] = r1;
+        if (r2 != r1 && r2 >= min && r2 <= max) roots[offset + count++] = r2;
+        return count;
+    }
+
+    /**
+     * Finds the roots of {@code c0 + c1*t + c2*t^2 + c3*t^3} in {@code [min, max]}.
+     *
+     * @return the number of roots (at most three) written to {@code roots} at {@code offset}.
+     */
+    public static int solveCubic (double c0, double c1, double c2, double c3,
+                                  double min, double max, double[] roots, int offset) {
+        if (c3 == 0f) return solveQuadratic(c0, c1, c2, min, max, roots, offset);
+        // use the output array as scratch space for the extrema
+        int ne = solveQuadratic(c1, 2f*c2, 3f*c3, min, max, roots, offset);
+        double e0 = (ne > 0) ? roots[offset] : 0f, e1 = (ne > 1) ? roots[offset+1] : 0f;
+        return solvePieces(c0, c1, c2, c3, 0f, min, max, e0, e1, 0f, ne, roots, offset);
+    }
+
+    /**
+     * Finds the roots of {@code c0 + c1*t + c2*t^2 + c3*t^3 + c4*t^4} in {@code [min, max]}.
+     *
+     * @return the number of roots (at most four) written to {@code roots} at {@code offset}.
+     */
+    public static int solveQuartic (double c0, double c1, double c2, double c3, double c4,
+                                    double min, double max, double[] roots, int offset) {
+        if (c4 == 0f) return solveCubic(c0, c1, c2, c3, min, max, roots, offset);
+        int ne = solveCubic(c1, 2f*c2, 3f*c3, 4f*c4, min, max, roots, offset);
+        double e0 = (ne > 0) ? roots[offset] : 0f, e1 = (ne > 1) ? roots[offset+1] : 0f;
+        double e2 = (ne > 2) ? roots[offset+2] : 0f;
+        return solvePieces(c0, c1, c2, c3, c4, min, max, e0, e1, e2, ne, roots, offset);
+    }
+
+    /**
+     * Finds the roots in {@code [min, max]} of the polynomial of the specified degree (at most
+     * four) whose coefficients are stored (lowest order first) in {@code coeffs} at {@code
+     * coeffOffset}.
+     *
+     * @return the number of roots (at most {@code degree}) written to {@code roots} at {@code
+     * rootOffset}.
+     */
+    public static int solve (int degree, double[] coeffs, int coeffOffset, double min, double max,
+                             double[] roots, int rootOffset) {
+        int cc = coeffOffset;
+        switch (degree) {
+        case 0:
+            return 0;
+        case 1:
+            return solveLinear(coeffs[cc], coeffs[cc+1], min, max, roots, rootOffset);
+        case 2:
+            return solveQuadratic(coeffs[cc], coeffs[cc+1], coeffs[cc+2], min, max,
+                                  roots, rootOffset);
+        case 3:
+            return solveCubic(coeffs[cc], coeffs[cc+1], coeffs[cc+2], coeffs[cc+3], min, max,
+                              roots, rootOffset);
+        case 4:
+            return solveQuartic(coeffs[cc], coeffs[cc+1], coeffs[cc+2], coeffs[cc+3],
+                                coeffs[cc+4], min, max, roots, rootOffset);
+        default:
+            throw new IllegalArgumentException("Unsupported degree: " + degree);
+        }
+    }
+
+    /**
+     * Solves {@code count} polynomials of the specified degree (at most four) whose coefficients
+     * are packed consecutively ({@code degree + 1} per polynomial, lowest order first) in {@code
+     * coeffs} starting at {@code coeffOffset}. The roots in {@code [min, max]} of the {@code i}th
+     * polynomial are written to {@code roots} starting at {@code i*degree}, and their number to
+     * {@code counts[i]}.
+     *
+     * @return the total number of roots found.
+     */
+    public static int solveAll (int degree, double[] coeffs, int coeffOffset, int count,
+                                double min, double max, double[] roots, int[] counts) {
+        int total = 0;
+        for (int ii = 0, cc = coeffOffset; ii < count; ii++, cc += degree+1) {
+            int rc = solve(degree, coeffs, cc, min, max, roots, ii*degree);
+            counts[ii] = rc;
+            total += rc;
+        }
+        return total;
+    }
+
+    /**
+     * Finds the roots of a polynomial in the pieces of {@code [min, max]} delimited by its
+     * {@code ne} extrema (in ascending order), on each of which it is monotonic.
+     */
+    protected static int solvePieces (double c0, double c1, double c2, double c3, double c4,
+                                      double min, double max, double e0, double e1, double e2,
+                                      int ne, double[] roots, int offset) {
+        int count = 0;
+        double lo = min, vlo = eval(c0, c1, c2, c3, c4, lo);
+        boolean zlo = isZero(c0, c1, c2, c3, c4, lo, vlo);
+        if (zlo) roots[offset + count++] = lo;
+        for (int ii = 0; ii <= ne; ii++) {
+            double hi = (ii == ne) ? max : (ii == 0 ? e0 : (ii == 1 ? e1 : e2));
+            double vhi = eval(c0, c1, c2, c3, c4, hi);
+            boolean zhi = isZero(c0, c1, c2, c3, c4, hi, vhi);
+            // a sign change brackets a root; a value is only taken to be a root itself when it
+            // cannot be distinguished from zero in the precision of the evaluation
+            if (!zlo && !zhi && (vlo < 0f) != (vhi < 0f)) {
+                roots[offset + count++] = polish(c0, c1, c2, c3, c4, lo, hi, vlo);
+            }
+            if (zhi && (count == 0 || hi > roots[offset + count - 1])) {
+                roots[offset + count++] = hi;
+            }
+            lo = hi;
+            vlo = vhi;
+            zlo = zhi;
+        }
+        return count;
+    }
+
+    /**
+     * Isolates the single root of a polynomial in {@code (lo, hi)}, given that the polynomial
+     * changes sign over the interval and has value {@code vlo} at {@code lo}. Newton steps are
+     * taken when they remain within the bracketing interval, and bisection steps otherwise.
+     */
+    protected static double polish (double c0, double c1, double c2, double c3, double c4,
+                                   double lo, double hi, double vlo) {
+        boolean negLo = vlo < 0f;
+        double t = 0.5f * (lo + hi);
+        for (int ii = 0; ii < MAX_ITERATIONS; ii++) {
+            double v = (((c4*t + c3)*t + c2)*t + c1)*t + c0;
+            if (v == 0f) break;
+            if ((v < 0f) == negLo) lo = t;
+            else hi = t;
+            double d = ((4f*c4*t + 3f*c3)*t + 2f*c2)*t + c1;
+            double nt = t - v/d;
+            // fall back to bisection if the step leaves the bracket (or the derivative is zero)
+            if (!(nt > lo && nt < hi)) nt = 0.5f * (lo + hi);
+            if (Math.abs(nt - t) <= ROOT_TOLERANCE * Math.max(1f, Math.abs(nt))) return nt;
+            t = nt;
+        }
+        return t;
+    }
+
+    /**
+     * Returns true if {@code v}, the value of a polynomial at {@code t}, is within the rounding
+     * error of its evaluation, and thus indistinguishable from zero.
+     */
+    protected static boolean isZero (double c0, double c1, double c2, double c3, double c4, double t, double v) {
+        double at = Math.abs(t);
+        double sum = (((Math.abs(c4)*at + Math.abs(c3))*at + Math.abs(c2))*at + Math.abs(c1))*at +
+            Math.abs(c0);
+        return Math.abs(v) <= EVAL_EPSILON * sum;
+    }
+
+    protected static double eval (double c0, double c1, double c2, double c3, double c4, double t) {
+        return (((c4*t + c3)*t + c2)*t + c1)*t + c0;
+    }
+
+    /** The maximum number of iterations used to isolate a root. */
+    protected static final int MAX_ITERATIONS = 64;
+
+    /** The relative change in a root below which iteration stops. */
+    protected static final double ROOT_TOLERANCE = 1e-15;
+
+    /** The relative rounding error bound of a polynomial evaluation: a few units in the last
+     * place of the sum of the magnitudes of its terms. */
+    protected static final double EVAL_EPSILON = 8.881784197001252e-16;
+}
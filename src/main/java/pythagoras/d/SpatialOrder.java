@@ -0,0 +1,401 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.d;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import pythagoras.util.Platform;
+
+/**
+ * Computes space filling curve (Morton and Hilbert) keys for points, and sorts points by those
+ * keys, so that points which are near one another in space are near one another in memory.
+ *
+ * <p> Coordinates are quantized against a bounding {@link IRectangle} or {@link IBox}: to {@link
+ * #BITS_2D} bits per axis in two dimensions and {@link #BITS_3D} bits per axis in three, giving
+ * keys of 32 and 63 bits respectively, which are always non-negative {@code long}s. Coordinates
+ * outside the bounds are clamped to them. Hilbert keys are more expensive to compute than Morton
+ * keys but preserve locality better: successive Hilbert keys are always adjacent cells.</p>
+ *
+ * <p> Sorting uses a stable least significant digit radix sort, which skips digits that are the
+ * same for all keys, and which distributes the work of each pass among parallel tasks for large
+ * inputs.</p>
+ */
+public class SpatialOrder
+{
+    /** Identifies the Morton (Z-order) curve. */
+    public static final int MORTON = 0;
+
+    /** Identifies the Hilbert curve. */
+    public static final int HILBERT = 1;
+
+    /** The number of bits per axis of two dimensional keys. */
+    public static final int BITS_2D = 16;
+
+    /** The number of bits per axis of three dimensional keys. */
+    public static final int BITS_3D = 21;
+
+    /** The default number of keys processed by each task of a parallel sort. */
+    public static final int DEFAULT_GRAIN = 65536;
+
+    /**
+     * Returns the Morton key of the specified cell, whose coordinates must be in the range [0,
+     * 2^{@link #BITS_2D}).
+     */
+    public static long morton (int x, int y) {
+        return spread2(x) | (spread2(y) << 1);
+    }
+
+    /**
+     * Returns the Morton key of the specified cell, whose coordinates must be in the range [0,
+     * 2^{@link #BITS_3D}).
+     */
+    public static long morton (int x, int y, int z) {
+        return spread3(x) | (spread3(y) << 1) | (spread3(z) << 2);
+    }
+
+    /**
+     * Returns the Hilbert key of the specified cell, whose coordinates must be in the range [0,
+     * 2^{@link #BITS_2D}).
+     */
+    public static long hilbert (int x, int y) {
+        // transform the coordinates into the "transpose" of the Hilbert index (after Skilling,
+        // "Programming the Hilbert curve", 2004), then interleave them
+        for (int q = 1 << (BITS_2D - 1); q > 1; q >>= 1) {
+            int p = q - 1;
+            if ((x & q) != 0) x ^= p;
+            if ((y & q) != 0) x ^= p;
+            else {
+                int t = (x ^ y) & p;
+                x ^= t;
+                y ^= t;
+            }
+        }
+        y ^= x;
+        int t = 0;
+        for (int q = 1 << (BITS_2D - 1); q > 1; q >>= 1) {
+            if ((y & q) != 0) t ^= q - 1;
+        }
+        return morton(y ^ t, x ^ t);
+    }
+
+    /**
+     * Returns the Hilbert key of the specified cell, whose coordinates must be in the range [0,
+     * 2^{@link #BITS_3D}).
+     */
+    public static long hilbert (int x, int y, int z) {
+        for (int q = 1 << (BITS_3D - 1); q > 1; q >>= 1) {
+            int p = q - 1;
+            if ((x & q) != 0) x ^= p;
+            if ((y & q) != 0) x ^= p;
+            else {
+                int t = (x ^ y) & p;
+                x ^= t;
+                y ^= t;
+            }
+            if ((z & q) != 0) x ^= p;
+            else {
+                int t = (x ^ z) & p;
+                x ^= t;
+                z ^= t;
+            }
+        }
+        y ^= x;
+        z ^= y;
+        int t = 0;
+        for (int q = 1 << (BITS_3D - 1); q > 1; q >>= 1) {
+            if ((z & q) != 0) t ^= q - 1;
+        }
+        return morton(z ^ t, y ^ t, x ^ t);
+    }
+
+    /**
+     * Returns the key of the supplied point on the specified curve, quantized against the
+     * supplied bounds.
+     *
+     * @param curve {@link #MORTON} or {@link #HILBERT}.
+     */
+    public static long key (int curve, IRectangle bounds, double x, double y) {
+        int qx = quantize(x, bounds.x(), bounds.width(), BITS_2D);
+        int qy = quantize(y, bounds.y(), bounds.height(), BITS_2D);
+        return (curve == HILBERT) ? hilbert(qx, qy) : morton(qx, qy);
+    }
+
+    /**
+     * Returns the key of the supplied point on the specified curve, quantized against the
+     * supplied bounds.
+     */
+    public static long key (int curve, IRectangle bounds, XY point) {
+        return key(curve, bounds, point.x(), point.y());
+    }
+
+    /**
+     * Returns the key of the center of the supplied rectangle on the specified curve, quantized
+     * against the supplied bounds.
+     */
+    public static long key (int curve, IRectangle bounds, IRectangle rect) {
+        return key(curve, bounds, rect.centerX(), rect.centerY());
+    }
+
+    /**
+     * Returns the key of the supplied point on the specified curve, quantized against the
+     * supplied bounds.
+     */
+    public static long key (int curve, IBox bounds, double x, double y, double z) {
+        IVector3 min = bounds.minimumExtent(), max = bounds.maximumExtent();
+        int qx = quantize(x, min.x(), max.x() - min.x(), BITS_3D);
+        int qy = quantize(y, min.y(), max.y() - min.y(), BITS_3D);
+        int qz = quantize(z, min.z(), max.z() - min.z(), BITS_3D);
+        return (curve == HILBERT) ? hilbert(qx, qy, qz) : morton(qx, qy, qz);
+    }
+
+    /**
+     * Returns the key of the supplied point on the specified curve, quantized against the
+     * supplied bounds.
+     */
+    public static long key (int curve, IBox bounds, IVector3 point) {
+        return key(curve, bounds, point.x(), point.y(), point.z());
+    }
+
+    /**
+     * Returns the key of the center of the supplied box on the specified curve, quantized
+     * against the supplied bounds.
+     */
+    public static long key (int curve, IBox bounds, IBox box) {
+        IVector3 min = box.minimumExtent(), max = box.maximumExtent();
+        return key(curve, bounds, (min.x() + max.x()) / 2f, (min.y() + max.y()) / 2f,
+                   (min.z() + max.z()) / 2f);
+    }
+
+    /**
+     * Computes the keys of the two dimensional points stored as consecutive x, y pairs in {@code
+     * xy}, starting at {@code offset}.
+     *
+     * @return {@code keys}, or a new array if it is null or too small.
+     */
+    public static long[] keys (int curve, IRectangle bounds, double[] xy, int offset, int count,
+                               long[] keys) {
+        if (keys == null || keys.length < count) keys = new long[count];
+        for (int ii = 0, off = offset; ii < count; ii++, off += 2) {
+            keys[ii] = key(curve, bounds, xy[off], xy[off+1]);
+        }
+        return keys;
+    }
+
+    /**
+     * Computes the keys of the three dimensional points stored as consecutive x, y, z triples in
+     * {@code xyz}, starting at {@code offset}.
+     *
+     * @return {@code keys}, or a new array if it is null or too small.
+     */
+    public static long[] keys (int curve, IBox bounds, double[] xyz, int offset, int count,
+                               long[] keys) {
+        if (keys == null || keys.length < count) keys = new long[count];
+        for (int ii = 0, off = offset; ii < count; ii++, off += 3) {
+            keys[ii] = key(curve, bounds, xyz[off], xyz[off+1], xyz[off+2]);
+        }
+        return keys;
+    }
+
+    /**
+     * Sorts the two dimensional points stored as consecutive x, y pairs in {@code xy} (starting
+     * at {@code offset}) into the order of the specified curve.
+     *
+     * @return the order of the sorted points: element {@code i} is the original index of the
+     * point now at index {@code i}, with which associated data may be reordered.
+     */
+    public static int[] sort (int curve, IRectangle bounds, double[] xy, int offset, int count) {
+        int[] order = sort(keys(curve, bounds, xy, offset, count, null), count, DEFAULT_GRAIN);
+        reorder(xy, offset, 2, order);
+        return order;
+    }
+
+    /**
+     * Sorts the three dimensional points stored as consecutive x, y, z triples in {@code xyz}
+     * (starting at {@code offset}) into the order of the specified curve.
+     *
+     * @return the order of the sorted points: element {@code i} is the original index of the
+     * point now at index {@code i}, with which associated data may be reordered.
+     */
+    public static int[] sort (int curve, IBox bounds, double[] xyz, int offset, int count) {
+        int[] order = sort(keys(curve, bounds, xyz, offset, count, null), count, DEFAULT_GRAIN);
+        reorder(xyz, offset, 3, order);
+        return order;
+    }
+
+    /**
+     * Sorts the first {@code count} of the supplied (non-negative) keys, in place.
+     *
+     * @param grain the number of keys processed by each task, if the sort is parallelized.
+     * @return the order of the sorted keys: element {@code i} is the original index of the key
+     * now at index {@code i}. Keys that are equal retain their original order.
+     */
+    public static int[] sort (long[] keys, int count, int grain) {
+        int[] order = new int[count];
+        for (int ii = 0; ii < count; ii++) order[ii] = ii;
+        if (count < 2) return order;
+
+        long bits = 0;
+        for (int ii = 0; ii < count; ii++) bits |= keys[ii];
+        int chunks = Math.max(1, Math.min(MAX_CHUNKS, (count + grain - 1) / grain));
+        RadixSort sort = new RadixSort(keys, order, count, chunks);
+        for (int shift = 0; shift < 64 && (bits >>> shift) != 0; shift += RADIX_BITS) {
+            sort.pass(shift);
+        }
+        if (sort.keys != keys) System.arraycopy(sort.keys, 0, keys, 0, count);
+        return sort.order;
+    }
+
+    /**
+     * Rearranges the records of {@code stride} values stored in {@code data} (starting at {@code
+     * offset}) into the supplied order, as returned by {@link #sort}.
+     */
+    public static void reorder (double[] data, int offset, int stride, int[] order) {
+        double[] copy = new double[order.length * stride];
+        System.arraycopy(data, offset, copy, 0, copy.length);
+        for (int ii = 0, off = offset; ii < order.length; ii++, off += stride) {
+            System.arraycopy(copy, order[ii] * stride, data, off, stride);
+        }
+    }
+
+    /**
+     * Quantizes a coordinate to the specified number of bits, relative to the supplied range.
+     */
+    protected static int quantize (double value, double min, double extent, int bits) {
+        if (!(extent > 0f)) return 0;
+        int max = (1 << bits) - 1;
+        double scaled = (value - min) / extent * (max + 1);
+        return (scaled <= 0f) ? 0 : ((scaled >= max) ? max : (int)scaled);
+    }
+
+    /** Spreads the low 16 bits of the supplied value to the even bits of the result. */
+    protected static long spread2 (int value) {
+        long v = value & 0xFFFFL;
+        v = (v | (v << 8)) & 0x00FF00FFL;
+        v = (v | (v << 4)) & 0x0F0F0F0FL;
+        v = (v | (v << 2)) & 0x33333333L;
+        v = (v | (v << 1)) & 0x55555555L;
+        return v;
+    }
+
+    /** Spreads the low 21 bits of the supplied value to every third bit of the result. */
+    protected static long spread3 (int value) {
+        long v = value & 0x1FFFFFL;
+        v = (v | (v << 32)) & 0x1F00000000FFFFL;
+        v = (v | (v << 16)) & 0x1F0000FF0000FFL;
+        v = (v | (v << 8)) & 0x100F00F00F00F00FL;
+        v = (v | (v << 4)) & 0x10C30C30C30C30C3L;
+        v = (v | (v << 2)) & 0x1249249249249249L;
+        return v;
+    }
+
+    /** The state of a radix sort, whose passes may be divided among parallel tasks. */
+    protected static class RadixSort
+    {
+        /** The keys and order, as of the last completed pass. */
+        public long[] keys;
+        public int[] order;
+
+        public RadixSort (long[] keys, int[] order, int count, int chunks) {
+            this.keys = keys;
+            this.order = order;
+            _count = count;
+            _chunks = chunks;
+            _keys = new long[count];
+            _order = new int[count];
+            _counts = new int[chunks][RADIX];
+            _tasks = new ArrayList<Task>(chunks);
+            for (int ii = 0; ii < chunks; ii++) _tasks.add(new Task(ii));
+        }
+
+        /** Sorts by the digit at the specified shift, unless all keys have the same digit. */
+        public void pass (int shift) {
+            _shift = shift;
+            _scatter = false;
+            run();
+
+            // if every key has the same digit, this pass would change nothing
+            for (int digit = 0; digit < RADIX; digit++) {
+                int total = 0;
+                for (int chunk = 0; chunk < _chunks; chunk++) total += _counts[chunk][digit];
+                if (total == _count) return;
+                if (total > 0) break;
+            }
+
+            // convert the digit counts into the first index of each chunk's keys of each digit,
+            // keeping the keys of earlier chunks before those of later chunks, for stability
+            int pos = 0;
+            for (int digit = 0; digit < RADIX; digit++) {
+                for (int chunk = 0; chunk < _chunks; chunk++) {
+                    int count = _counts[chunk][digit];
+                    _counts[chunk][digit] = pos;
+                    pos += count;
+                }
+            }
+
+            _scatter = true;
+            run();
+            long[] keys = this.keys;
+            this.keys = _keys;
+            _keys = keys;
+            int[] order = this.order;
+            this.order = _order;
+            _order = order;
+        }
+
+        protected void run () {
+            if (_chunks == 1) _tasks.get(0).run();
+            else Platform.invokeAll(_tasks);
+        }
+
+        /** Counts or scatters one chunk of the keys. */
+        protected class Task implements Runnable
+        {
+            public Task (int chunk) {
+                _chunk = chunk;
+            }
+
+            @Override public void run () {
+                int start = (int)((long)_count * _chunk / _chunks);
+                int end = (int)((long)_count * (_chunk + 1) / _chunks);
+                long[] keys = RadixSort.this.keys;
+                int[] counts = _counts[_chunk], order = RadixSort.this.order;
+                int shift = _shift;
+                if (!_scatter) {
+                    for (int ii = 0; ii < RADIX; ii++) counts[ii] = 0;
+                    for (int ii = start; ii < end; ii++) {
+                        counts[(int)(keys[ii] >>> shift) & RADIX_MASK]++;
+                    }
+                } else {
+                    long[] nkeys = _keys;
+                    int[] norder = _order;
+                    for (int ii = start; ii < end; ii++) {
+                        long key = keys[ii];
+                        int pos = counts[(int)(key >>> shift) & RADIX_MASK]++;
+                        nkeys[pos] = key;
+                        norder[pos] = order[ii];
+                    }
+                }
+            }
+
+            protected final int _chunk;
+        }
+
+        protected final int _count, _chunks;
+        protected final int[][] _counts;
+        protected final List<Task> _tasks;
+        protected long[] _keys;
+        protected int[] _order;
+        protected int _shift;
+        protected boolean _scatter;
+    }
+
+    /** The number of bits sorted by each pass of the radix sort. */
+    protected static final int RADIX_BITS = 8;
+    protected static final int RADIX = 1 << RADIX_BITS, RADIX_MASK = RADIX - 1;
+
+    /** The maximum number of tasks among which a radix sort pass is divided. */
+    protected static final int MAX_CHUNKS = 64;
+}
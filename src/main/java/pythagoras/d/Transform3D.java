@@ -0,0 +1,417 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.d;
+
+import pythagoras.util.Platform;
+import pythagoras.util.SingularMatrixException;
+
+/**
+ * A 3D transform which tracks how general it is: identity, rigid (rotation and translation),
+ * uniform (rigid plus uniform scale), affine or general (projective). Identity, rigid and
+ * uniform transforms are stored as a translation, rotation and scale; affine and general
+ * transforms as a matrix. Composition, inversion and point transformation use the cheapest
+ * algorithm for the types involved, so that (for instance) inverting a rigid transform never
+ * pays for a general matrix inversion. The type of the result of a composition is the more
+ * general of the types of its operands.
+ */
+public final class Transform3D
+{
+    /** The type of the identity transform. */
+    public static final int IDENTITY = 0;
+
+    /** The type of a rigid transform (rotation and translation). */
+    public static final int RIGID = 1;
+
+    /** The type of a uniform transform (rotation, translation and uniform scale). */
+    public static final int UNIFORM = 2;
+
+    /** The type of an affine transform. */
+    public static final int AFFINE = 3;
+
+    /** The type of a general (projective) transform. */
+    public static final int GENERAL = 4;
+
+    /**
+     * Creates an identity transform.
+     */
+    public Transform3D () {
+        setToIdentity();
+    }
+
+    /**
+     * Creates a rigid transform, which rotates and then translates.
+     */
+    public Transform3D (IVector3 translation, IQuaternion rotation) {
+        set(translation, rotation);
+    }
+
+    /**
+     * Creates a uniform transform, which scales, then rotates, then translates.
+     */
+    public Transform3D (IVector3 translation, IQuaternion rotation, double scale) {
+        set(translation, rotation, scale);
+    }
+
+    /**
+     * Creates an affine or general transform from the supplied matrix.
+     */
+    public Transform3D (IMatrix4 matrix) {
+        set(matrix);
+    }
+
+    /**
+     * Copy constructor.
+     */
+    public Transform3D (Transform3D other) {
+        set(other);
+    }
+
+    /**
+     * Sets this to the identity transform.
+     *
+     * @return a reference to this transform, for chaining.
+     */
+    public Transform3D setToIdentity () {
+        _translation.set(0f, 0f, 0f);
+        _rotation.set(0f, 0f, 0f, 1f);
+        _scale = 1f;
+        return setType(IDENTITY);
+    }
+
+    /**
+     * Copies the contents of another transform.
+     *
+     * @return a reference to this transform, for chaining.
+     */
+    public Transform3D set (Transform3D other) {
+        if (other == this) return this;
+        if (other._type >= AFFINE) {
+            _matrix.set(other._matrix);
+        } else {
+            _translation.set(other._translation);
+            _rotation.set(other._rotation);
+            _scale = other._scale;
+        }
+        return setType(other._type);
+    }
+
+    /**
+     * Sets this to a rigid transform, which rotates and then translates.
+     *
+     * @return a reference to this transform, for chaining.
+     */
+    public Transform3D set (IVector3 translation, IQuaternion rotation) {
+        _translation.set(translation);
+        _rotation.set(rotation);
+        _scale = 1f;
+        return setType(RIGID);
+    }
+
+    /**
+     * Sets this to a uniform transform, which scales, then rotates, then translates.
+     *
+     * @return a reference to this transform, for chaining.
+     */
+    public Transform3D set (IVector3 translation, IQuaternion rotation, double scale) {
+        _translation.set(translation);
+        _rotation.set(rotation);
+        _scale = scale;
+        return setType(UNIFORM);
+    }
+
+    /**
+     * Sets this to an affine transform (if the matrix is affine) or a general transform.
+     *
+     * @return a reference to this transform, for chaining.
+     */
+    public Transform3D set (IMatrix4 matrix) {
+        _matrix.set(matrix);
+        return setType(matrix.isAffine() ? AFFINE : GENERAL);
+    }
+
+    /**
+     * Returns the type of this transform: {@link #IDENTITY}, {@link #RIGID}, {@link #UNIFORM},
+     * {@link #AFFINE} or {@link #GENERAL}. These increase monotonically with generality.
+     */
+    public int type () {
+        return _type;
+    }
+
+    /**
+     * Stores the translation of this transform in {@code result}.
+     *
+     * @return a reference to the result, for chaining.
+     */
+    public Vector3 translation (Vector3 result) {
+        if (_type < AFFINE) return result.set(_translation);
+        return result.set(_matrix.m30, _matrix.m31, _matrix.m32);
+    }
+
+    /**
+     * Stores the rotation of this transform in {@code result}. The rotation is extracted, and
+     * therefore approximate, for affine and general transforms.
+     *
+     * @return a reference to the result, for chaining.
+     */
+    public Quaternion rotation (Quaternion result) {
+        if (_type < AFFINE) return result.set(_rotation);
+        return _matrix.extractRotation(result);
+    }
+
+    /**
+     * Returns the uniform scale of this transform. The scale is approximated for affine and
+     * general transforms.
+     */
+    public double uniformScale () {
+        return (_type < AFFINE) ? _scale : _matrix.approximateUniformScale();
+    }
+
+    /**
+     * Returns the matrix representation of this transform. For identity, rigid and uniform
+     * transforms, the matrix is computed on demand and cached. The returned matrix must not be
+     * modified.
+     */
+    public IMatrix4 matrix () {
+        if (_type < AFFINE && !_matrixValid) {
+            _matrix.setToTransform(_translation, _rotation, _scale);
+            _matrixValid = true;
+        }
+        return _matrix;
+    }
+
+    /**
+     * Composes this transform with another (i.e. computes {@code this x other}, which applies
+     * {@code other} first) in-place.
+     *
+     * @return a reference to this transform, for chaining.
+     */
+    public Transform3D composeLocal (Transform3D other) {
+        return compose(other, this);
+    }
+
+    /**
+     * Composes this transform with another.
+     *
+     * @return a new transform containing the result.
+     */
+    public Transform3D compose (Transform3D other) {
+        return compose(other, new Transform3D());
+    }
+
+    /**
+     * Composes this transform with another (i.e. computes {@code this x other}, which applies
+     * {@code other} first), placing the result in the object provided.
+     *
+     * @return a reference to the result, for chaining.
+     */
+    public Transform3D compose (Transform3D other, Transform3D result) {
+        if (_type == IDENTITY) return result.set(other);
+        if (other._type == IDENTITY) return result.set(this);
+        int type = Math.max(_type, other._type);
+        if (type < AFFINE) {
+            // note: the translation must be computed before the rotation is overwritten
+            double scale = _scale * other._scale;
+            _rotation.transformScaleAndAdd(other._translation, _scale, _translation,
+                                           result._translation);
+            _rotation.mult(other._rotation, result._rotation);
+            result._scale = scale;
+        } else if (type == AFFINE) {
+            matrix().multAffine(other.matrix(), result._matrix);
+        } else {
+            matrix().mult(other.matrix(), result._matrix);
+        }
+        return result.setType(type);
+    }
+
+    /**
+     * Inverts this transform in-place.
+     *
+     * @return a reference to this transform, for chaining.
+     */
+    public Transform3D invertLocal () {
+        return invert(this);
+    }
+
+    /**
+     * Inverts this transform.
+     *
+     * @return a new transform containing the result.
+     */
+    public Transform3D invert () {
+        return invert(new Transform3D());
+    }
+
+    /**
+     * Inverts this transform, placing the result in the object provided.
+     *
+     * @return a reference to the result, for chaining.
+     * @throws SingularMatrixException if the transform is an affine or general transform whose
+     * matrix is singular.
+     */
+    public Transform3D invert (Transform3D result) throws SingularMatrixException {
+        switch (_type) {
+        default:
+        case IDENTITY:
+            return result.setToIdentity();
+        case RIGID:
+        case UNIFORM:
+            double rscale = 1f / _scale;
+            _rotation.invert(result._rotation);
+            result._rotation.transformScaleAndAdd(_translation, -rscale, Vector3.ZERO,
+                                                  result._translation);
+            result._scale = rscale;
+            return result.setType(_type);
+        case AFFINE:
+            _matrix.invertAffine(result._matrix);
+            return result.setType(AFFINE);
+        case GENERAL:
+            _matrix.invert(result._matrix);
+            return result.setType(GENERAL);
+        }
+    }
+
+    /**
+     * Linearly interpolates between this and another transform, placing the result in the
+     * object provided. Rigid and uniform transforms interpolate their rotations spherically.
+     *
+     * @return a reference to the result, for chaining.
+     */
+    public Transform3D lerp (Transform3D other, double t, Transform3D result) {
+        int type = Math.max(_type, other._type);
+        if (type < AFFINE) {
+            double scale = _scale + t*(other._scale - _scale);
+            _translation.lerp(other._translation, t, result._translation);
+            _rotation.slerp(other._rotation, t, result._rotation);
+            result._scale = scale;
+        } else if (type == AFFINE) {
+            matrix().lerpAffine(other.matrix(), t, result._matrix);
+        } else {
+            matrix().lerp(other.matrix(), t, result._matrix);
+        }
+        return result.setType(type);
+    }
+
+    /**
+     * Transforms a point in-place by this transform.
+     *
+     * @return a reference to the point, for chaining.
+     */
+    public Vector3 transformPointLocal (Vector3 point) {
+        return transformPoint(point, point);
+    }
+
+    /**
+     * Transforms a point by this transform.
+     *
+     * @return a new vector containing the result.
+     */
+    public Vector3 transformPoint (IVector3 point) {
+        return transformPoint(point, new Vector3());
+    }
+
+    /**
+     * Transforms a point by this transform, placing the result in the object provided. General
+     * transforms divide the result by its w component.
+     *
+     * @return a reference to the result, for chaining.
+     */
+    public Vector3 transformPoint (IVector3 point, Vector3 result) {
+        switch (_type) {
+        default:
+        case IDENTITY: return result.set(point);
+        case RIGID: return _rotation.transformAndAdd(point, _translation, result);
+        case UNIFORM: return _rotation.transformScaleAndAdd(point, _scale, _translation, result);
+        case AFFINE: return _matrix.transformPoint(point, result);
+        case GENERAL: return _matrix.projectPoint(point, result);
+        }
+    }
+
+    /**
+     * Transforms a vector in-place by this transform.
+     *
+     * @return a reference to the vector, for chaining.
+     */
+    public Vector3 transformVectorLocal (Vector3 vector) {
+        return transformVector(vector, vector);
+    }
+
+    /**
+     * Transforms a vector (direction) by this transform.
+     *
+     * @return a new vector containing the result.
+     */
+    public Vector3 transformVector (IVector3 vector) {
+        return transformVector(vector, new Vector3());
+    }
+
+    /**
+     * Transforms a vector (direction) by this transform, placing the result in the object
+     * provided. Translation is not applied, nor is the projective part of general transforms.
+     *
+     * @return a reference to the result, for chaining.
+     */
+    public Vector3 transformVector (IVector3 vector, Vector3 result) {
+        switch (_type) {
+        default:
+        case IDENTITY: return result.set(vector);
+        case RIGID: return _rotation.transform(vector, result);
+        case UNIFORM:
+            return _rotation.transformScaleAndAdd(vector, _scale, Vector3.ZERO, result);
+        case AFFINE:
+        case GENERAL: return _matrix.transformVector(vector, result);
+        }
+    }
+
+    @Override // documentation inherited
+    public String toString () {
+        switch (_type) {
+        default:
+        case IDENTITY: return "[identity]";
+        case RIGID: return "[translation=" + _translation + ", rotation=" + _rotation + "]";
+        case UNIFORM: return "[translation=" + _translation + ", rotation=" + _rotation +
+            ", scale=" + _scale + "]";
+        case AFFINE:
+        case GENERAL: return "[matrix=" + _matrix + "]";
+        }
+    }
+
+    @Override // documentation inherited
+    public int hashCode () {
+        return _type ^ (_type < AFFINE ? _translation.hashCode() ^ _rotation.hashCode() ^
+                        Platform.hashCode(_scale) : _matrix.hashCode());
+    }
+
+    @Override // documentation inherited
+    public boolean equals (Object other) {
+        if (!(other instanceof Transform3D)) {
+            return false;
+        }
+        Transform3D otrans = (Transform3D)other;
+        if (_type != otrans._type) return false;
+        return (_type < AFFINE) ? (_translation.equals(otrans._translation) &&
+                                   _rotation.equals(otrans._rotation) &&
+                                   _scale == otrans._scale) : _matrix.equals(otrans._matrix);
+    }
+
+    protected Transform3D setType (int type) {
+        _type = type;
+        _matrixValid = false;
+        return this;
+    }
+
+    /** The type of this transform. */
+    protected int _type;
+
+    /** The translation, rotation and scale of identity, rigid and uniform transforms. */
+    protected final Vector3 _translation = new Vector3();
+    protected final Quaternion _rotation = new Quaternion();
+    protected double _scale;
+
+    /** The matrix of affine and general transforms; a cache for the other types. */
+    protected final Matrix4 _matrix = new Matrix4();
+
+    /** Whether {@link #_matrix} is up to date, for identity, rigid and uniform transforms. */
+    protected boolean _matrixValid;
+}
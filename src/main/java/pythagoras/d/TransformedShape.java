@@ -0,0 +1,234 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.d;
+
+/**
+ * A view of a shape as transformed by a {@link Transform}. Unlike {@link
+ * Transforms#createTransformedShape}, which copies every point of the shape, a view is created in
+ * constant time and tracks its transform: the transform may be modified (for example, each frame
+ * of an animation) and the view reflects the change on its next use.
+ *
+ * <p> Point queries are answered by inverse transforming the point and querying the source shape.
+ * Rectangle queries are answered likewise when the transform maps axis-aligned rectangles to
+ * axis-aligned rectangles (i.e. it scales, translates and rotates only by multiples of ninety
+ * degrees). Otherwise, and for bounds, the transformed points are computed and cached, until the
+ * transform is next changed. Path iteration transforms the source's segments on the fly.</p>
+ *
+ * <p> A view of a view is flattened into a single view of the underlying source, which applies
+ * both transforms.</p>
+ */
+public class TransformedShape implements IShape
+{
+    /**
+     * Creates a view of {@code source} transformed by {@code transform}. The transform is
+     * referenced, not copied.
+     */
+    public TransformedShape (IShape source, Transform transform) {
+        if (source instanceof TransformedShape) {
+            TransformedShape view = (TransformedShape)source;
+            int count = view._transforms.length;
+            _source = view._source;
+            _transforms = new Transform[count + 1];
+            System.arraycopy(view._transforms, 0, _transforms, 0, count);
+            _transforms[count] = transform;
+        } else {
+            _source = source;
+            _transforms = new Transform[] { transform };
+        }
+    }
+
+    /**
+     * Returns the shape viewed by this view (the underlying source, if views were nested).
+     */
+    public IShape source () {
+        return _source;
+    }
+
+    /**
+     * Returns the transform which maps the source into this view (the composition of all
+     * transforms, if views were nested), as of the time of the call.
+     */
+    public AffineTransform transform () {
+        validate();
+        return _composed.copy();
+    }
+
+    @Override // from interface IShape
+    public boolean isEmpty () {
+        return _source.isEmpty();
+    }
+
+    @Override // from interface IShape
+    public boolean contains (double x, double y) {
+        validate();
+        if (!_invertible) return false;
+        Point p = _composed.inverseTransform(_point.set(x, y), _point);
+        return _source.contains(p.x, p.y);
+    }
+
+    @Override // from interface IShape
+    public boolean contains (XY p) {
+        return contains(p.x(), p.y());
+    }
+
+    @Override // from interface IShape
+    public boolean contains (double x, double y, double width, double height) {
+        validate();
+        if (!_invertible) return false;
+        if (_rectilinear) {
+            Rectangle r = inverseTransform(x, y, width, height);
+            return _source.contains(r.x, r.y, r.width, r.height);
+        }
+        return path().contains(x, y, width, height);
+    }
+
+    @Override // from interface IShape
+    public boolean contains (IRectangle r) {
+        return contains(r.x(), r.y(), r.width(), r.height());
+    }
+
+    @Override // from interface IShape
+    public boolean intersects (double x, double y, double width, double height) {
+        validate();
+        if (!_invertible) return false;
+        if (_rectilinear) {
+            Rectangle r = inverseTransform(x, y, width, height);
+            return _source.intersects(r.x, r.y, r.width, r.height);
+        }
+        return path().intersects(x, y, width, height);
+    }
+
+    @Override // from interface IShape
+    public boolean intersects (IRectangle r) {
+        return intersects(r.x(), r.y(), r.width(), r.height());
+    }
+
+    @Override // from interface IShape
+    public Rectangle bounds () {
+        return bounds(new Rectangle());
+    }
+
+    @Override // from interface IShape
+    public Rectangle bounds (Rectangle target) {
+        validate();
+        // the bounds of a rectilinear mapping are the mapped bounds of the source
+        if (_rectilinear) return transform(_source.bounds(target), target);
+        return path().bounds(target);
+    }
+
+    @Override // from interface IShape
+    public Rectangle tightBounds () {
+        return tightBounds(new Rectangle());
+    }
+
+    @Override // from interface IShape
+    public Rectangle tightBounds (Rectangle target) {
+        validate();
+        if (_rectilinear) return transform(_source.tightBounds(target), target);
+        return path().tightBounds(target);
+    }
+
+    @Override // from interface IShape
+    public PathIterator pathIterator (Transform t) {
+        validate();
+        return _source.pathIterator(t == null ? _composed.copy() : t.concatenate(_composed));
+    }
+
+    @Override // from interface IShape
+    public PathIterator pathIterator (Transform t, double flatness) {
+        return new FlatteningPathIterator(pathIterator(t), flatness);
+    }
+
+    @Override // from Object
+    public String toString () {
+        validate();
+        return "TransformedShape[source=" + _source + ", transform=" + _composed + "]";
+    }
+
+    /**
+     * Computes the composition of our transforms and, if it has changed since it was last
+     * computed, discards everything cached for the previous transform.
+     */
+    protected void validate () {
+        double[] m = _scratch, t = _matrix;
+        _transforms[0].get(m);
+        for (int ii = 1; ii < _transforms.length; ii++) {
+            _transforms[ii].get(t);
+            double m00 = m[0], m01 = m[1], m10 = m[2], m11 = m[3], tx = m[4], ty = m[5];
+            m[0] = t[0]*m00 + t[2]*m01;
+            m[1] = t[1]*m00 + t[3]*m01;
+            m[2] = t[0]*m10 + t[2]*m11;
+            m[3] = t[1]*m10 + t[3]*m11;
+            m[4] = t[0]*tx + t[2]*ty + t[4];
+            m[5] = t[1]*tx + t[3]*ty + t[5];
+        }
+
+        AffineTransform c = _composed;
+        if (_valid && m[0] == c.m00 && m[1] == c.m01 && m[2] == c.m10 && m[3] == c.m11 &&
+            m[4] == c.tx && m[5] == c.ty) return;
+        c.setTransform(m[0], m[1], m[2], m[3], m[4], m[5]);
+        _invertible = (m[0]*m[3] - m[2]*m[1]) != 0f;
+        _rectilinear = (m[1] == 0f && m[2] == 0f) || (m[0] == 0f && m[3] == 0f);
+        _path = null;
+        _valid = true;
+    }
+
+    /**
+     * Returns the (cached) transformed points of the source.
+     */
+    protected Path path () {
+        if (_path == null) {
+            PathIterator iter = _source.pathIterator(_composed);
+            _path = new Path(iter.windingRule());
+            _path.append(iter, false);
+        }
+        return _path;
+    }
+
+    /**
+     * Maps the supplied rectangle into the source's space, which requires a rectilinear
+     * transform.
+     */
+    protected Rectangle inverseTransform (double x, double y, double width, double height) {
+        Point p = _composed.inverseTransform(_point.set(x, y), _point);
+        Rectangle r = _rect;
+        r.setBounds(p.x, p.y, 0f, 0f);
+        r.add(_composed.inverseTransform(_point.set(x + width, y + height), _point));
+        return r;
+    }
+
+    /**
+     * Maps the supplied rectangle through our (rectilinear) transform, into {@code target}.
+     */
+    protected Rectangle transform (IRectangle r, Rectangle target) {
+        double x = r.x(), y = r.y(), maxX = r.maxX(), maxY = r.maxY();
+        Point p = _composed.transform(_point.set(x, y), _point);
+        double px = p.x, py = p.y;
+        _composed.transform(_point.set(maxX, maxY), _point);
+        target.setBounds(Math.min(px, p.x), Math.min(py, p.y),
+                         Math.abs(p.x - px), Math.abs(p.y - py));
+        return target;
+    }
+
+    /** The shape being viewed. */
+    protected final IShape _source;
+
+    /** The transforms applied to the source, in order of application. */
+    protected final Transform[] _transforms;
+
+    /** The composition of our transforms, as of the last validation. */
+    protected final AffineTransform _composed = new AffineTransform();
+
+    /** Whether {@link #_composed} has been computed, and properties of it. */
+    protected boolean _valid, _invertible, _rectilinear;
+
+    /** The transformed points of the source, computed on demand. */
+    protected Path _path;
+
+    /** Scratch storage, to avoid allocating when answering queries. */
+    protected final double[] _scratch = new double[6], _matrix = new double[6];
+    protected final Point _point = new Point();
+    protected final Rectangle _rect = new Rectangle();
+}
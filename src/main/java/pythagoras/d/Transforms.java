@@ -11,7 +11,7 @@ public class Transforms
 {
     /**
      * Creates and returns a new shape that is the supplied shape transformed by this transform's
-     * matrix.
+     * matrix. See {@link TransformedShape} for a view which does not copy the shape's points.
      */
     public static IShape createTransformedShape (Transform t, IShape src) {
         if (src == null) {
@@ -4,7 +4,10 @@
 
 package pythagoras.d;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.nio.DoubleBuffer;
 
 import pythagoras.util.Platform;
@@ -12,9 +15,9 @@ import pythagoras.util.Platform;
 /**
  * A three element vector.
  */
-public class Vector3 implements IVector3, Serializable
+public class Vector3 implements IVector3, Externalizable
 {
-    private static final long serialVersionUID = -6374261949619913930L;
+    private static final long serialVersionUID = -5529837392401008406L;
 
     /** A unit vector in the X+ direction. */
     public static final IVector3 UNIT_X = new Vector3(1f, 0f, 0f);
@@ -397,6 +400,20 @@ public class Vector3 implements IVector3, Serializable
         return buf.put(x).put(y).put(z);
     }
 
+    @Override // from interface Externalizable
+    public void writeExternal (ObjectOutput out) throws IOException {
+        out.writeDouble(x);
+        out.writeDouble(y);
+        out.writeDouble(z);
+    }
+
+    @Override // from interface Externalizable
+    public void readExternal (ObjectInput in) throws IOException {
+        x = in.readDouble();
+        y = in.readDouble();
+        z = in.readDouble();
+    }
+
     @Override
     public String toString () {
         return "[" + x + ", " + y + ", " + z + "]";
@@ -0,0 +1,570 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.d;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads and writes the OGC well-known text (WKT) and well-known binary (WKB) geometry formats.
+ * Parsing scans the supplied character sequence or buffer (which may be memory-mapped) in place
+ * and appends directly to a {@link Path}, without allocating per coordinate.
+ *
+ * <p> When reading, polygon rings become closed subpaths and line strings open subpaths; points
+ * have no outline and are skipped. Z and M coordinates (in both the ISO and the extended, PostGIS
+ * style, WKB encodings) are skipped. Paths created by this codec use the even-odd winding rule,
+ * so that polygon holes are holes regardless of the orientation of their rings.</p>
+ *
+ * <p> When writing, curved segments are flattened. Closed subpaths become polygon rings and open
+ * subpaths line strings. A closed subpath whose orientation is opposite to that of the preceding
+ * outer ring is written as a hole in that ring's polygon; otherwise it starts a new polygon.
+ * Multiple geometries are written as a {@code MULTIPOLYGON}, a {@code MULTILINESTRING} or (if
+ * both kinds are present) a {@code GEOMETRYCOLLECTION}.</p>
+ */
+public class WellKnownCodec
+{
+    /** The WKB type codes of the supported geometries. */
+    public static final int POINT = 1, LINE_STRING = 2, POLYGON = 3, MULTI_POINT = 4,
+        MULTI_LINE_STRING = 5, MULTI_POLYGON = 6, GEOMETRY_COLLECTION = 7;
+
+    /**
+     * Parses the supplied well-known text into a new path.
+     *
+     * @throws IllegalArgumentException if the text is malformed.
+     */
+    public static Path parseWKT (CharSequence text) {
+        return parseWKT(text, new Path(Path.WIND_EVEN_ODD));
+    }
+
+    /**
+     * Parses the supplied well-known text, appending its outline to {@code into}.
+     *
+     * @return {@code into}, for chaining.
+     * @throws IllegalArgumentException if the text is malformed.
+     */
+    public static Path parseWKT (CharSequence text, Path into) {
+        WKTParser parser = new WKTParser(text, into);
+        parser.readGeometry();
+        if (parser.peek() != 0) throw parser.error("Unexpected trailing characters");
+        return into;
+    }
+
+    /**
+     * Reads a well-known binary geometry from {@code buf} at its current position into a new
+     * path, advancing the position past the geometry.
+     *
+     * @throws IllegalArgumentException if the geometry is malformed.
+     */
+    public static Path readWKB (ByteBuffer buf) {
+        return readWKB(buf, new Path(Path.WIND_EVEN_ODD));
+    }
+
+    /**
+     * Reads a well-known binary geometry from {@code buf} at its current position, appending its
+     * outline to {@code into} and advancing the position past the geometry. The byte order of
+     * the buffer is neither used nor modified: each geometry specifies its own.
+     *
+     * @return {@code into}, for chaining.
+     * @throws IllegalArgumentException if the geometry is malformed.
+     */
+    public static Path readWKB (ByteBuffer buf, Path into) {
+        try {
+            readGeometry(buf, into);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated WKB geometry");
+        }
+        return into;
+    }
+
+    /**
+     * Returns the well-known text describing the supplied shape, with curves flattened to the
+     * specified flatness.
+     */
+    public static String toWKT (IShape shape, double flatness) {
+        return writeWKT(shape.pathIterator(null), flatness, new StringBuilder()).toString();
+    }
+
+    /**
+     * Appends the well-known text describing the path of the supplied iterator, with curves
+     * flattened to the specified flatness, to {@code out}.
+     *
+     * @return {@code out}, for chaining.
+     */
+    public static StringBuilder writeWKT (PathIterator iter, double flatness, StringBuilder out) {
+        Rings rings = new Rings(iter, flatness);
+        if (rings.geoms == 0) return out.append("GEOMETRYCOLLECTION EMPTY");
+        if (rings.geoms == 1) return rings.writeWKT(0, true, out);
+        int type = rings.collectionType();
+        out.append(TYPE_NAMES[type]).append(" (");
+        for (int gg = 0; gg < rings.geoms; gg++) {
+            if (gg > 0) out.append(", ");
+            rings.writeWKT(gg, type == GEOMETRY_COLLECTION, out);
+        }
+        return out.append(')');
+    }
+
+    /**
+     * Returns the well-known binary encoding (in little-endian byte order) of the supplied shape,
+     * with curves flattened to the specified flatness.
+     */
+    public static byte[] toWKB (IShape shape, double flatness) {
+        Rings rings = new Rings(shape.pathIterator(null), flatness);
+        byte[] data = new byte[rings.wkbSize()];
+        rings.writeWKB(ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN));
+        return data;
+    }
+
+    /**
+     * Writes the well-known binary encoding of the path of the supplied iterator, with curves
+     * flattened to the specified flatness, into {@code buf} at its current position (in the
+     * buffer's byte order), advancing the position past the geometry.
+     *
+     * @throws BufferOverflowException if the buffer has insufficient space.
+     */
+    public static void writeWKB (PathIterator iter, double flatness, ByteBuffer buf) {
+        new Rings(iter, flatness).writeWKB(buf);
+    }
+
+    protected static void readGeometry (ByteBuffer buf, Path into) {
+        boolean swap = readOrder(buf);
+        int code = readInt(buf, swap);
+        // extended WKB flags the presence of Z, M and an SRID in the high bits
+        int dims = 2;
+        if ((code & EWKB_Z) != 0) dims++;
+        if ((code & EWKB_M) != 0) dims++;
+        if ((code & EWKB_SRID) != 0) readInt(buf, swap);
+        code &= 0xFFFF;
+        // ISO WKB adds 1000 for Z, 2000 for M and 3000 for both
+        int type = code % 1000, iso = code / 1000;
+        if (iso == 1 || iso == 2) dims++;
+        else if (iso == 3) dims += 2;
+
+        switch (type) {
+        case POINT:
+            buf.position(buf.position() + 8*dims);
+            break;
+        case LINE_STRING:
+            readPoints(buf, swap, dims, false, into);
+            break;
+        case POLYGON:
+            for (int ii = 0, rings = readCount(buf, swap); ii < rings; ii++) {
+                readPoints(buf, swap, dims, true, into);
+            }
+            break;
+        case MULTI_POINT:
+        case MULTI_LINE_STRING:
+        case MULTI_POLYGON:
+        case GEOMETRY_COLLECTION:
+            for (int ii = 0, count = readCount(buf, swap); ii < count; ii++) {
+                readGeometry(buf, into);
+            }
+            break;
+        default:
+            throw new IllegalArgumentException("Unsupported WKB geometry type " + code);
+        }
+    }
+
+    protected static void readPoints (ByteBuffer buf, boolean swap, int dims, boolean ring,
+                                      Path into) {
+        int count = readCount(buf, swap);
+        if (count == 0) return;
+        double x0 = readDouble(buf, swap), y0 = readDouble(buf, swap);
+        buf.position(buf.position() + 8*(dims-2));
+        into.moveTo(x0, y0);
+        for (int ii = 1; ii < count; ii++) {
+            double x = readDouble(buf, swap), y = readDouble(buf, swap);
+            buf.position(buf.position() + 8*(dims-2));
+            // rings repeat their first point, which closing the subpath makes redundant
+            if (!ring || ii < count-1 || x != x0 || y != y0) into.lineTo(x, y);
+        }
+        if (ring) into.closePath();
+    }
+
+    /**
+     * Reads a byte order marker.
+     *
+     * @return true if the data that follows must be byte swapped when read from {@code buf}.
+     */
+    protected static boolean readOrder (ByteBuffer buf) {
+        int order = buf.get();
+        if (order != 0 && order != 1) {
+            throw new IllegalArgumentException("Invalid WKB byte order " + order);
+        }
+        return (order == 1) != (buf.order() == ByteOrder.LITTLE_ENDIAN);
+    }
+
+    protected static int readCount (ByteBuffer buf, boolean swap) {
+        int count = readInt(buf, swap);
+        // each element occupies at least four bytes, which bounds any valid count
+        if (count < 0 || count > buf.remaining() / 4) {
+            throw new IllegalArgumentException("Invalid WKB element count " + count);
+        }
+        return count;
+    }
+
+    protected static int readInt (ByteBuffer buf, boolean swap) {
+        int value = buf.getInt();
+        return swap ? Integer.reverseBytes(value) : value;
+    }
+
+    protected static double readDouble (ByteBuffer buf, boolean swap) {
+        long bits = buf.getLong();
+        return Double.longBitsToDouble(swap ? Long.reverseBytes(bits) : bits);
+    }
+
+    /** Parses well-known text into a path. */
+    protected static class WKTParser extends TextReader
+    {
+        public WKTParser (CharSequence text, Path path) {
+            super(text);
+            _path = path;
+        }
+
+        public void readGeometry () {
+            int type = readType();
+            // skip the dimension qualifier, if any
+            int start = readWord();
+            if (start < _pos && !matches(start, "EMPTY")) {
+                if (!matches(start, "Z") && !matches(start, "M") && !matches(start, "ZM")) {
+                    _pos = start;
+                    throw error("Expected dimension");
+                }
+                start = readWord();
+            }
+            if (start < _pos) {
+                if (!matches(start, "EMPTY")) {
+                    _pos = start;
+                    throw error("Expected EMPTY");
+                }
+                return;
+            }
+
+            switch (type) {
+            case POINT:
+                expect('(');
+                readPoint(false);
+                expect(')');
+                break;
+            case LINE_STRING:
+                readPoints(false);
+                break;
+            case POLYGON:
+                readPolygon();
+                break;
+            case MULTI_POINT:
+                expect('(');
+                do {
+                    // points may or may not be parenthesized
+                    boolean paren = accept('(');
+                    readPoint(false);
+                    if (paren) expect(')');
+                } while (accept(','));
+                expect(')');
+                break;
+            case MULTI_LINE_STRING:
+                expect('(');
+                do readPoints(false); while (accept(','));
+                expect(')');
+                break;
+            case MULTI_POLYGON:
+                expect('(');
+                do readPolygon(); while (accept(','));
+                expect(')');
+                break;
+            case GEOMETRY_COLLECTION:
+                expect('(');
+                do readGeometry(); while (accept(','));
+                expect(')');
+                break;
+            }
+        }
+
+        protected int readType () {
+            int start = readWord();
+            for (int ii = 1; ii < TYPE_NAMES.length; ii++) {
+                if (matches(start, TYPE_NAMES[ii])) return ii;
+            }
+            _pos = start;
+            throw error("Expected geometry type");
+        }
+
+        protected void readPolygon () {
+            if (acceptEmpty()) return;
+            expect('(');
+            do readPoints(true); while (accept(','));
+            expect(')');
+        }
+
+        protected void readPoints (boolean ring) {
+            if (acceptEmpty()) return;
+            expect('(');
+            readPoint(true);
+            double x0 = _x, y0 = _y;
+            _path.moveTo(x0, y0);
+            while (accept(',')) {
+                readPoint(true);
+                // defer each point, so that a ring's repeated first point can be dropped
+                if (_pending) _path.lineTo(_px, _py);
+                _px = _x;
+                _py = _y;
+                _pending = true;
+            }
+            if (_pending && (!ring || _px != x0 || _py != y0)) _path.lineTo(_px, _py);
+            _pending = false;
+            if (ring) _path.closePath();
+            expect(')');
+        }
+
+        /** Reads the coordinates of a point, skipping any beyond the first two. */
+        protected void readPoint (boolean store) {
+            double x = readNumber(), y = readNumber();
+            for (char c = peek(); c != ',' && c != ')' && c != 0; c = peek()) readNumber();
+            if (store) {
+                _x = x;
+                _y = y;
+            }
+        }
+
+        protected boolean acceptEmpty () {
+            int start = readWord();
+            if (start == _pos) return false;
+            if (matches(start, "EMPTY")) return true;
+            _pos = start;
+            throw error("Expected '(' or EMPTY");
+        }
+
+        /**
+         * Consumes a word (a run of letters), if there is one.
+         *
+         * @return the position at which the word starts (equal to the current position if there
+         * was no word).
+         */
+        protected int readWord () {
+            skipSpace();
+            int start = _pos;
+            while (_pos < _length && Character.isLetter(_text.charAt(_pos))) _pos++;
+            return start;
+        }
+
+        /**
+         * Returns true if the characters from {@code start} to the current position match the
+         * supplied (upper case) word, ignoring case.
+         */
+        protected boolean matches (int start, String word) {
+            if (_pos - start != word.length()) return false;
+            for (int ii = 0; ii < word.length(); ii++) {
+                if (Character.toUpperCase(_text.charAt(start + ii)) != word.charAt(ii)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        protected final Path _path;
+
+        /** The most recently read point, and the deferred point of the current point list. */
+        protected double _x, _y, _px, _py;
+        protected boolean _pending;
+    }
+
+    /** The subpaths of a flattened path, grouped into polygons and line strings. */
+    protected static class Rings
+    {
+        /** The points of all rings, as x/y pairs. Closed rings omit their repeated start. */
+        public double[] coords = new double[64];
+        public int points;
+
+        /** The first point of each ring (with an extra entry marking the end of the last), and
+         * whether each ring is closed. */
+        public int[] ringStarts = new int[9];
+        public boolean[] closed = new boolean[8];
+        public int rings;
+
+        /** The first ring of each geometry (with an extra entry marking the end of the last), and
+         * the type ({@link #POLYGON} or {@link #LINE_STRING}) of each geometry. */
+        public int[] geomStarts = new int[9];
+        public int[] types = new int[8];
+        public int geoms;
+
+        public Rings (PathIterator iter, double flatness) {
+            double[] seg = new double[6];
+            double mx = 0f, my = 0f;
+            boolean open = false;
+            for (iter = new FlatteningPathIterator(iter, flatness); !iter.isDone(); iter.next()) {
+                switch (iter.currentSegment(seg)) {
+                case PathIterator.SEG_MOVETO:
+                    endRing(false);
+                    startRing(mx = seg[0], my = seg[1]);
+                    open = true;
+                    break;
+                case PathIterator.SEG_LINETO:
+                    // a line following a close continues from the start of the closed ring
+                    if (!open) startRing(mx, my);
+                    open = true;
+                    addPoint(seg[0], seg[1]);
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    if (open) endRing(true);
+                    open = false;
+                    break;
+                }
+            }
+            if (open) endRing(false);
+            groupRings();
+        }
+
+        public int collectionType () {
+            boolean polys = false, lines = false;
+            for (int gg = 0; gg < geoms; gg++) {
+                if (types[gg] == POLYGON) polys = true;
+                else lines = true;
+            }
+            return (polys && lines) ? GEOMETRY_COLLECTION :
+                (polys ? MULTI_POLYGON : MULTI_LINE_STRING);
+        }
+
+        public StringBuilder writeWKT (int geom, boolean tagged, StringBuilder out) {
+            if (tagged) out.append(TYPE_NAMES[types[geom]]).append(' ');
+            if (types[geom] == POLYGON) out.append('(');
+            for (int rr = geomStarts[geom]; rr < geomStarts[geom+1]; rr++) {
+                if (rr > geomStarts[geom]) out.append(", ");
+                out.append('(');
+                int start = ringStarts[rr], end = ringStarts[rr+1];
+                for (int pp = start; pp < end; pp++) {
+                    if (pp > start) out.append(", ");
+                    appendPoint(out, pp);
+                }
+                if (closed[rr]) appendPoint(out.append(", "), start);
+                out.append(')');
+            }
+            if (types[geom] == POLYGON) out.append(')');
+            return out;
+        }
+
+        public int wkbSize () {
+            int size = 0;
+            for (int gg = 0; gg < geoms; gg++) size += wkbSize(gg);
+            return (geoms == 1) ? size : 9 + size;
+        }
+
+        public void writeWKB (ByteBuffer buf) {
+            if (buf.remaining() < wkbSize()) throw new BufferOverflowException();
+            byte order = (byte)(buf.order() == ByteOrder.LITTLE_ENDIAN ? 1 : 0);
+            if (geoms != 1) {
+                buf.put(order).putInt(collectionType()).putInt(geoms);
+            }
+            for (int gg = 0; gg < geoms; gg++) {
+                buf.put(order).putInt(types[gg]);
+                int first = geomStarts[gg], last = geomStarts[gg+1];
+                if (types[gg] == POLYGON) buf.putInt(last - first);
+                for (int rr = first; rr < last; rr++) {
+                    int start = ringStarts[rr], end = ringStarts[rr+1];
+                    buf.putInt(end - start + (closed[rr] ? 1 : 0));
+                    for (int pp = start; pp < end; pp++) {
+                        buf.putDouble(coords[pp*2]).putDouble(coords[pp*2+1]);
+                    }
+                    if (closed[rr]) buf.putDouble(coords[start*2]).putDouble(coords[start*2+1]);
+                }
+            }
+        }
+
+        protected int wkbSize (int geom) {
+            int size = 5 + (types[geom] == POLYGON ? 4 : 0);
+            for (int rr = geomStarts[geom]; rr < geomStarts[geom+1]; rr++) {
+                int count = ringStarts[rr+1] - ringStarts[rr] + (closed[rr] ? 1 : 0);
+                size += 4 + 16*count;
+            }
+            return size;
+        }
+
+        protected void appendPoint (StringBuilder out, int point) {
+            SvgPathCodec.appendNumber(out, coords[point*2]);
+            SvgPathCodec.appendNumber(out.append(' '), coords[point*2+1]);
+        }
+
+        protected void startRing (double x, double y) {
+            if (rings + 1 == closed.length) {
+                int[] nstarts = new int[ringStarts.length*2];
+                System.arraycopy(ringStarts, 0, nstarts, 0, ringStarts.length);
+                ringStarts = nstarts;
+                boolean[] nclosed = new boolean[closed.length*2];
+                System.arraycopy(closed, 0, nclosed, 0, closed.length);
+                closed = nclosed;
+            }
+            ringStarts[rings] = points;
+            addPoint(x, y);
+        }
+
+        protected void endRing (boolean close) {
+            int start = ringStarts[rings], count = points - start;
+            if (count == 0) return;
+            // a closed ring's repeated start point is implied
+            if (close && count > 1 && coords[start*2] == coords[points*2-2] &&
+                coords[start*2+1] == coords[points*2-1]) {
+                points--;
+                count--;
+            }
+            if (count < 2) {
+                // discard rings with no extent
+                points = start;
+                return;
+            }
+            // rings of two points have no area, and are written as lines
+            closed[rings] = close && count > 2;
+            ringStarts[++rings] = points;
+        }
+
+        protected void addPoint (double x, double y) {
+            int off = points*2;
+            if (points > ringStarts[rings] && coords[off-2] == x && coords[off-1] == y) return;
+            if (off + 2 > coords.length) {
+                double[] ncoords = new double[coords.length*2];
+                System.arraycopy(coords, 0, ncoords, 0, off);
+                coords = ncoords;
+            }
+            coords[off] = x;
+            coords[off+1] = y;
+            points++;
+        }
+
+        protected void groupRings () {
+            geomStarts = new int[rings + 1];
+            types = new int[rings];
+            double outerArea = 0f;
+            for (int rr = 0; rr < rings; rr++) {
+                if (closed[rr]) {
+                    double area = signedArea(rr);
+                    // a ring wound opposite to the preceding outer ring is a hole in it
+                    if (geoms > 0 && types[geoms-1] == POLYGON && (area < 0f) != (outerArea < 0f)) {
+                        continue;
+                    }
+                    outerArea = area;
+                }
+                types[geoms] = closed[rr] ? POLYGON : LINE_STRING;
+                geomStarts[geoms++] = rr;
+            }
+            geomStarts[geoms] = rings;
+        }
+
+        protected double signedArea (int ring) {
+            double sum = 0f;
+            int start = ringStarts[ring], end = ringStarts[ring+1];
+            for (int pp = start, prev = end-1; pp < end; prev = pp++) {
+                sum += coords[prev*2]*coords[pp*2+1] - coords[pp*2]*coords[prev*2+1];
+            }
+            return sum / 2f;
+        }
+    }
+
+    /** The flag bits of extended WKB type codes. */
+    protected static final int EWKB_Z = 0x80000000, EWKB_M = 0x40000000, EWKB_SRID = 0x20000000;
+
+    /** The WKT names of the geometry types, indexed by WKB type code. */
+    protected static final String[] TYPE_NAMES = {
+        null, "POINT", "LINESTRING", "POLYGON", "MULTIPOINT", "MULTILINESTRING", "MULTIPOLYGON",
+        "GEOMETRYCOLLECTION" };
+}
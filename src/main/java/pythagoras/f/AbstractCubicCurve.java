@@ -110,6 +110,19 @@ public abstract class AbstractCubicCurve implements ICubicCurve
         return target;
     }
 
+    @Override // from interface IShape
+    public Rectangle tightBounds () {
+        return tightBounds(new Rectangle());
+    }
+
+    @Override // from interface IShape
+    public Rectangle tightBounds (Rectangle target) {
+        float x1 = x1(), y1 = y1();
+        target.setBounds(x1, y1, 0, 0);
+        return CubicCurves.addBounds(x1, y1, ctrlX1(), ctrlY1(), ctrlX2(), ctrlY2(), x2(), y2(),
+                                     target);
+    }
+
     @Override // from interface IShape
     public PathIterator pathIterator (Transform t) {
         return new Iterator(this, t);
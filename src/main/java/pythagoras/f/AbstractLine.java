@@ -149,6 +149,16 @@ public abstract class AbstractLine implements ILine
         return target;
     }
 
+    @Override // from interface IShape
+    public Rectangle tightBounds () {
+        return tightBounds(new Rectangle());
+    }
+
+    @Override // from interface IShape
+    public Rectangle tightBounds (Rectangle target) {
+        return bounds(target);
+    }
+
     @Override // from interface IShape
     public PathIterator pathIterator (Transform at) {
         return new Iterator(this, at);
@@ -4,6 +4,11 @@
 
 package pythagoras.f;
 
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
 import pythagoras.util.NoninvertibleTransformException;
 
 /**
@@ -14,8 +19,10 @@ import pythagoras.util.NoninvertibleTransformException;
  * [   0,   0,  1 ]
  * }</pre>
  */
-public class AffineTransform extends AbstractTransform
+public class AffineTransform extends AbstractTransform implements Externalizable
 {
+    private static final long serialVersionUID = 6282842658209986681L;
+
     /** Identifies the affine transform in {@link #generality}. */
     public static final int GENERALITY = 4;
 
@@ -255,19 +262,61 @@ public class AffineTransform extends AbstractTransform
 
     @Override // from Transform
     public AffineTransform invert () {
-        // compute the determinant, storing the subdeterminants for later use
+        return copy().invertLocal();
+    }
+
+    /**
+     * Inverts this transform in-place.
+     *
+     * @return this instance, for chaining.
+     * @throws NoninvertibleTransformException if the transform is not invertible.
+     */
+    public AffineTransform invertLocal () {
         float det = m00*m11 - m10*m01;
         if (Math.abs(det) == 0f) {
             // determinant is zero; matrix is not invertible
             throw new NoninvertibleTransformException(this.toString());
         }
         float rdet = 1f / det;
-        return new AffineTransform(
-            +m11 * rdet,              -m10 * rdet,
-            -m01 * rdet,              +m00 * rdet,
+        return setTransform(
+            +m11 * rdet,              -m01 * rdet,
+            -m10 * rdet,              +m00 * rdet,
             (m10*ty - m11*tx) * rdet, (m01*tx - m00*ty) * rdet);
     }
 
+    /**
+     * Concatenates {@code other} to this transform in-place (i.e. computes {@code this x other},
+     * which applies {@code other} first). Unlike {@link #concatenate}, this allocates nothing.
+     *
+     * @return this instance, for chaining.
+     */
+    public AffineTransform concatenateLocal (Transform other) {
+        if (other instanceof AffineTransform) {
+            return Transforms.multiply(this, (AffineTransform)other, this);
+        }
+        float sina = FloatMath.sin(other.rotation()), cosa = FloatMath.cos(other.rotation());
+        float sx = other.scaleX(), sy = other.scaleY();
+        return Transforms.multiply(this, cosa * sx, sina * sy, -sina * sx, cosa * sy,
+                                   other.tx(), other.ty(), this);
+    }
+
+    /**
+     * Pre-concatenates {@code other} to this transform in-place (i.e. computes {@code other x
+     * this}, which applies {@code other} last). Unlike {@link #preConcatenate}, this allocates
+     * nothing.
+     *
+     * @return this instance, for chaining.
+     */
+    public AffineTransform preConcatenateLocal (Transform other) {
+        if (other instanceof AffineTransform) {
+            return Transforms.multiply((AffineTransform)other, this, this);
+        }
+        float sina = FloatMath.sin(other.rotation()), cosa = FloatMath.cos(other.rotation());
+        float sx = other.scaleX(), sy = other.scaleY();
+        return Transforms.multiply(cosa * sx, sina * sy, -sina * sx, cosa * sy,
+                                   other.tx(), other.ty(), this, this);
+    }
+
     @Override // from Transform
     public Transform concatenate (Transform other) {
         if (generality() < other.generality()) {
@@ -378,6 +427,26 @@ public class AffineTransform extends AbstractTransform
         return GENERALITY;
     }
 
+    @Override // from interface Externalizable
+    public void writeExternal (ObjectOutput out) throws IOException {
+        out.writeFloat(m00);
+        out.writeFloat(m01);
+        out.writeFloat(m10);
+        out.writeFloat(m11);
+        out.writeFloat(tx);
+        out.writeFloat(ty);
+    }
+
+    @Override // from interface Externalizable
+    public void readExternal (ObjectInput in) throws IOException {
+        m00 = in.readFloat();
+        m01 = in.readFloat();
+        m10 = in.readFloat();
+        m11 = in.readFloat();
+        tx = in.readFloat();
+        ty = in.readFloat();
+    }
+
     @Override
     public String toString () {
         if (m00 != 1 || m01 != 0 || m10 != 0 || m11 != 1) return "affine [" +
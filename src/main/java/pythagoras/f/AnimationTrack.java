@@ -0,0 +1,311 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.nio.FloatBuffer;
+
+/**
+ * A sequence of keyframes, each of which specifies a translation, rotation and scale at a point
+ * in time. The keyframes are stored in packed float arrays, and may be sampled one track at a
+ * time or for many tracks at once via {@link #sample(float, Interpolation, AnimationTrack[],
+ * int[], Matrix4[], int, int)}, which allocates nothing per track.
+ *
+ * <p> Sampling is accelerated by a cursor: the index of the keyframe found by the previous
+ * sample, which is checked (along with its successor) before resorting to a binary search. The
+ * cursors are supplied by the caller, so a single track may be sampled concurrently at different
+ * times by different users.</p>
+ */
+public class AnimationTrack
+{
+    /** The methods by which rotations may be interpolated between keyframes. */
+    public static enum Interpolation {
+        /** Spherical linear interpolation, which has constant angular velocity, but requires an
+         * arc cosine and three sines. */
+        SLERP,
+
+        /** Normalized linear interpolation, which follows the same path as slerp, but with
+         * angular velocity that varies between keyframes. */
+        NLERP,
+
+        /** Normalized linear interpolation with the interpolation parameter adjusted by a
+         * polynomial fit so that it closely approximates slerp (to within about 1e-3 radians). */
+        CORRECTED_NLERP
+    }
+
+    /**
+     * Creates an empty track.
+     */
+    public AnimationTrack () {
+        this(8);
+    }
+
+    /**
+     * Creates an empty track with space for the specified number of keyframes.
+     */
+    public AnimationTrack (int capacity) {
+        capacity = Math.max(capacity, 1);
+        _times = new float[capacity];
+        _trans = new float[capacity*3];
+        _rots = new float[capacity*4];
+        _scales = new float[capacity*3];
+    }
+
+    /**
+     * Returns the number of keyframes in this track.
+     */
+    public int keyCount () {
+        return _count;
+    }
+
+    /**
+     * Returns the time of the specified keyframe.
+     */
+    public float keyTime (int key) {
+        return _times[key];
+    }
+
+    /**
+     * Returns the time of the last keyframe, or zero if the track is empty.
+     */
+    public float duration () {
+        return (_count == 0) ? 0f : _times[_count-1];
+    }
+
+    /**
+     * Appends a keyframe to this track.
+     *
+     * @throws IllegalArgumentException if the time precedes that of the last keyframe.
+     * @return a reference to this track, for chaining.
+     */
+    public AnimationTrack addKey (float time, IVector3 translation, IQuaternion rotation,
+                                  IVector3 scale) {
+        if (_count > 0 && time < _times[_count-1]) {
+            throw new IllegalArgumentException(
+                "Keyframes must be added in order [time=" + time + ", last=" + duration() + "]");
+        }
+        if (_count == _times.length) grow(_count*2);
+        int key = _count++, tidx = key*3, ridx = key*4;
+        _times[key] = time;
+        _trans[tidx] = translation.x();
+        _trans[tidx+1] = translation.y();
+        _trans[tidx+2] = translation.z();
+        _rots[ridx] = rotation.x();
+        _rots[ridx+1] = rotation.y();
+        _rots[ridx+2] = rotation.z();
+        _rots[ridx+3] = rotation.w();
+        _scales[tidx] = scale.x();
+        _scales[tidx+1] = scale.y();
+        _scales[tidx+2] = scale.z();
+        return this;
+    }
+
+    /**
+     * Returns the index of the keyframe at or immediately before the specified time (or the first
+     * keyframe if the time precedes it). The cursor should be the index returned by the previous
+     * search (or zero); the search is constant time if the time falls in the same or the next
+     * interval.
+     */
+    public int findKey (float time, int cursor) {
+        int last = _count - 1;
+        if (last <= 0 || time <= _times[0]) return 0;
+        if (time >= _times[last]) return last;
+        if (cursor >= 0 && cursor < last && _times[cursor] <= time) {
+            if (time < _times[cursor+1]) return cursor;
+            if (cursor+1 < last && time < _times[cursor+2]) return cursor+1;
+        }
+        // binary search for the last key with time <= the specified time
+        int low = 0, high = last;
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (_times[mid] <= time) low = mid;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Samples this track at the specified time, storing the results in the supplied objects.
+     *
+     * @return the index of the keyframe found, to be used as the cursor in the next sample.
+     */
+    public int sample (float time, Interpolation interp, int cursor, Vector3 translation,
+                       Quaternion rotation, Vector3 scale) {
+        int key = findKey(time, cursor);
+        sample(key, alpha(key, time), interp, null, translation, rotation, scale);
+        return key;
+    }
+
+    /**
+     * Samples this track at the specified time and stores the resulting transform (which first
+     * scales, then rotates, then translates) in {@code result}.
+     *
+     * @return the index of the keyframe found, to be used as the cursor in the next sample.
+     */
+    public int sample (float time, Interpolation interp, int cursor, Matrix4 result) {
+        int key = findKey(time, cursor);
+        sample(key, alpha(key, time), interp, result, null, null, null);
+        return key;
+    }
+
+    /**
+     * Samples {@code count} tracks, starting at {@code offset}, at the specified time, storing
+     * the resulting transforms in the corresponding elements of {@code results} (allocating
+     * matrices for null elements). The corresponding elements of {@code cursors} are used to
+     * accelerate the keyframe searches, and are updated with the keyframes found.
+     */
+    public static void sample (float time, Interpolation interp, AnimationTrack[] tracks,
+                               int[] cursors, Matrix4[] results, int offset, int count) {
+        for (int ii = offset, ll = offset + count; ii < ll; ii++) {
+            AnimationTrack track = tracks[ii];
+            int key = cursors[ii] = track.findKey(time, cursors[ii]);
+            if (results[ii] == null) results[ii] = new Matrix4();
+            track.sample(key, track.alpha(key, time), interp, results[ii], null, null, null);
+        }
+    }
+
+    /**
+     * Samples {@code count} tracks, starting at {@code offset}, at the specified time, writing
+     * the resulting transforms to {@code buf} as sixteen column-major floats apiece (as by {@link
+     * Matrix4#get(FloatBuffer)}). The corresponding elements of {@code cursors} are used to
+     * accelerate the keyframe searches, and are updated with the keyframes found.
+     *
+     * @return the supplied buffer.
+     */
+    public static FloatBuffer sample (float time, Interpolation interp, AnimationTrack[] tracks,
+                                      int[] cursors, FloatBuffer buf, int offset, int count) {
+        Matrix4 m = new Matrix4();
+        for (int ii = offset, ll = offset + count; ii < ll; ii++) {
+            AnimationTrack track = tracks[ii];
+            int key = cursors[ii] = track.findKey(time, cursors[ii]);
+            track.sample(key, track.alpha(key, time), interp, m, null, null, null);
+            m.get(buf);
+        }
+        return buf;
+    }
+
+    /** Returns the interpolation parameter for the specified time between {@code key} and the
+     * following keyframe. */
+    protected float alpha (int key, float time) {
+        if (key + 1 >= _count) return 0f;
+        float t0 = _times[key], dt = _times[key+1] - t0;
+        return (dt > 0f) ? Math.min(Math.max((time - t0) / dt, 0f), 1f) : 0f;
+    }
+
+    /**
+     * Interpolates between {@code key} and its successor. If {@code matrix} is non-null, the
+     * resulting transform is stored in it; otherwise the translation, rotation and scale are
+     * stored in the supplied objects. The sample is computed in local variables, so that
+     * sampling allocates nothing and may proceed concurrently.
+     */
+    protected void sample (int key, float t, Interpolation interp, Matrix4 matrix,
+                           Vector3 translation, Quaternion rotation, Vector3 scale) {
+        float tx = 0f, ty = 0f, tz = 0f, rx = 0f, ry = 0f, rz = 0f, rw = 1f;
+        float sx = 1f, sy = 1f, sz = 1f;
+        if (_count > 0) {
+            int tidx = key*3, ridx = key*4;
+            tx = _trans[tidx];
+            ty = _trans[tidx+1];
+            tz = _trans[tidx+2];
+            rx = _rots[ridx];
+            ry = _rots[ridx+1];
+            rz = _rots[ridx+2];
+            rw = _rots[ridx+3];
+            sx = _scales[tidx];
+            sy = _scales[tidx+1];
+            sz = _scales[tidx+2];
+            if (t != 0f) {
+                tx += t*(_trans[tidx+3] - tx);
+                ty += t*(_trans[tidx+4] - ty);
+                tz += t*(_trans[tidx+5] - tz);
+                sx += t*(_scales[tidx+3] - sx);
+                sy += t*(_scales[tidx+4] - sy);
+                sz += t*(_scales[tidx+5] - sz);
+                float x = rx, y = ry, z = rz, w = rw;
+                float ox = _rots[ridx+4], oy = _rots[ridx+5], oz = _rots[ridx+6];
+                float ow = _rots[ridx+7];
+                float cosa = x*ox + y*oy + z*oz + w*ow;
+                // take the shorter path
+                if (cosa < 0f) {
+                    cosa = -cosa;
+                    ox = -ox;
+                    oy = -oy;
+                    oz = -oz;
+                    ow = -ow;
+                }
+                float s0, s1;
+                if (interp == Interpolation.SLERP) {
+                    if ((1f - cosa) > MathUtil.EPSILON) {
+                        float angle = FloatMath.acos(cosa), sina = FloatMath.sin(angle);
+                        s0 = FloatMath.sin((1f - t) * angle) / sina;
+                        s1 = FloatMath.sin(t * angle) / sina;
+                    } else {
+                        s0 = 1f - t;
+                        s1 = t;
+                    }
+                } else {
+                    if (interp == Interpolation.CORRECTED_NLERP) {
+                        // fit from http://zeux.io/2015/07/23/approximating-slerp/
+                        float a = 1.0904f +
+                            cosa * (-3.2452f + cosa * (3.55645f - cosa * 1.43519f));
+                        float b = 0.848013f + cosa * (-1.06021f + cosa * 0.215638f);
+                        float k = a * (t - 0.5f) * (t - 0.5f) + b;
+                        t = t + t * (t - 0.5f) * (t - 1f) * k;
+                    }
+                    s0 = 1f - t;
+                    s1 = t;
+                }
+                rx = s0*x + s1*ox;
+                ry = s0*y + s1*oy;
+                rz = s0*z + s1*oz;
+                rw = s0*w + s1*ow;
+                if (interp != Interpolation.SLERP) {
+                    float rlen = 1f / FloatMath.sqrt(rx*rx + ry*ry + rz*rz + rw*rw);
+                    rx *= rlen;
+                    ry *= rlen;
+                    rz *= rlen;
+                    rw *= rlen;
+                }
+            }
+        }
+        if (matrix == null) {
+            translation.set(tx, ty, tz);
+            rotation.set(rx, ry, rz, rw);
+            scale.set(sx, sy, sz);
+            return;
+        }
+        // compose the transform, which first scales, then rotates, then translates
+        float xx = rx*rx, yy = ry*ry, zz = rz*rz;
+        float xy = rx*ry, xz = rx*rz, xw = rx*rw;
+        float yz = ry*rz, yw = ry*rw, zw = rz*rw;
+        matrix.set((1f - 2f*(yy + zz))*sx, 2f*(xy - zw)*sy, 2f*(xz + yw)*sz, tx,
+                   2f*(xy + zw)*sx, (1f - 2f*(xx + zz))*sy, 2f*(yz - xw)*sz, ty,
+                   2f*(xz - yw)*sx, 2f*(yz + xw)*sy, (1f - 2f*(xx + yy))*sz, tz,
+                   0f, 0f, 0f, 1f);
+    }
+
+    protected void grow (int capacity) {
+        float[] times = new float[capacity];
+        System.arraycopy(_times, 0, times, 0, _count);
+        _times = times;
+        float[] trans = new float[capacity*3];
+        System.arraycopy(_trans, 0, trans, 0, _count*3);
+        _trans = trans;
+        float[] rots = new float[capacity*4];
+        System.arraycopy(_rots, 0, rots, 0, _count*4);
+        _rots = rots;
+        float[] scales = new float[capacity*3];
+        System.arraycopy(_scales, 0, scales, 0, _count*3);
+        _scales = scales;
+    }
+
+    /** The number of keyframes. */
+    protected int _count;
+
+    /** The time of each keyframe. */
+    protected float[] _times;
+
+    /** The translation (x, y, z), rotation (x, y, z, w) and scale (x, y, z) of each keyframe. */
+    protected float[] _trans, _rots, _scales;
+}
@@ -0,0 +1,390 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+/**
+ * A table mapping arc length to position along the outline of a shape (a line, curve or path),
+ * for moving along it at constant speed. The table is built once, after which {@link #length},
+ * {@link #pointAt} and {@link #tangentAt} take time logarithmic in the number of segments and
+ * allocate nothing (with the exception of the allocating convenience variants).
+ *
+ * <p> Each segment is represented (exactly) as a cubic B&eacute;zier curve and divided into
+ * uniform parameter intervals, the lengths of which are computed by Gauss-Legendre quadrature.
+ * Within an interval, the parameter at a given distance is found by Newton iteration. Segments
+ * closing a subpath are included in the outline; moves between subpaths are not.</p>
+ *
+ * <p> A table created for a {@link Path} tracks the path: segments appended to the path are
+ * added to the table when it is next queried, without reprocessing the existing segments. If
+ * existing segments are modified (for example, by {@link Path#transform} or {@link Path#reset}
+ * followed by appends), {@link #rebuild} must be called.</p>
+ */
+public class ArcLengthTable
+{
+    /**
+     * Creates a table for the outline of the specified shape (for example, a {@link Line}, {@link
+     * QuadCurve} or {@link CubicCurve}). The table is a snapshot: subsequent changes to the shape
+     * are not reflected.
+     */
+    public ArcLengthTable (IShape shape) {
+        init();
+        float[] coords = new float[6];
+        for (PathIterator iter = shape.pathIterator(null); !iter.isDone(); iter.next()) {
+            addSegment(iter.currentSegment(coords), coords, 0);
+        }
+    }
+
+    /**
+     * Creates a table for the specified path, which tracks segments subsequently appended to the
+     * path.
+     */
+    public ArcLengthTable (Path path) {
+        _path = path;
+        init();
+        update();
+    }
+
+    /**
+     * Discards the table and rebuilds it from the tracked path. This is only necessary if
+     * existing segments of the path have been modified.
+     *
+     * @return a reference to this table, for chaining.
+     */
+    public ArcLengthTable rebuild () {
+        if (_path != null) {
+            _segCount = _knotCount = 0;
+            _typeIndex = _pointIndex = 0;
+            update();
+        }
+        return this;
+    }
+
+    /**
+     * Returns the total length of the outline.
+     */
+    public float length () {
+        update();
+        return (_knotCount == 0) ? 0f : _knotDists[_knotCount-1];
+    }
+
+    /**
+     * Returns the point at the specified distance along the outline.
+     */
+    public Point pointAt (float distance) {
+        return pointAt(distance, new Point());
+    }
+
+    /**
+     * Computes the point at the specified distance along the outline, which is clamped to the
+     * range {@code [0, length()]}.
+     *
+     * @return {@code result}, for chaining.
+     * @throws IllegalStateException if the outline is empty.
+     */
+    public Point pointAt (float distance, Point result) {
+        int knot = locate(distance);
+        int off = _knotSegs[knot] * 8;
+        float t = parameter(knot, distance), u = 1f - t;
+        float[] c = _coords;
+        float b0 = u*u*u, b1 = 3f*u*u*t, b2 = 3f*u*t*t, b3 = t*t*t;
+        return result.set(b0*c[off  ] + b1*c[off+2] + b2*c[off+4] + b3*c[off+6],
+                          b0*c[off+1] + b1*c[off+3] + b2*c[off+5] + b3*c[off+7]);
+    }
+
+    /**
+     * Returns the unit tangent at the specified distance along the outline.
+     */
+    public Vector tangentAt (float distance) {
+        return tangentAt(distance, new Vector());
+    }
+
+    /**
+     * Computes the unit tangent (the direction of travel) at the specified distance along the
+     * outline, which is clamped to the range {@code [0, length()]}.
+     *
+     * @return {@code result}, for chaining.
+     * @throws IllegalStateException if the outline is empty.
+     */
+    public Vector tangentAt (float distance, Vector result) {
+        int knot = locate(distance);
+        int off = _knotSegs[knot] * 8;
+        float t = parameter(knot, distance);
+        float dx = derivative(_coords, off, t), dy = derivative(_coords, off+1, t);
+        if (dx == 0f && dy == 0f) {
+            // the derivative vanishes where control points coincide with end points; nudge
+            // toward the middle of the segment
+            t += (t < 0.5f) ? NUDGE : -NUDGE;
+            dx = derivative(_coords, off, t);
+            dy = derivative(_coords, off+1, t);
+        }
+        float len = FloatMath.sqrt(dx*dx + dy*dy);
+        return result.set(dx / len, dy / len);
+    }
+
+    /**
+     * Computes the points at {@code count} distances along the outline, storing them as
+     * consecutive x/y pairs.
+     *
+     * @throws IllegalStateException if the outline is empty.
+     */
+    public void pointsAt (float[] distances, int distOff, float[] result, int resultOff,
+                          int count) {
+        Point p = new Point();
+        for (int ii = 0; ii < count; ii++) {
+            pointAt(distances[distOff++], p);
+            result[resultOff++] = p.x;
+            result[resultOff++] = p.y;
+        }
+    }
+
+    @Override
+    public String toString () {
+        return "[segments=" + _segCount + ", length=" + length() + "]";
+    }
+
+    /**
+     * Allocates the initial buffers.
+     */
+    protected void init () {
+        _coords = new float[INITIAL_SEGMENTS * 8];
+        _segKnots = new int[INITIAL_SEGMENTS];
+        _knotDists = new float[INITIAL_SEGMENTS * SUBDIVISIONS];
+        _knotSegs = new int[INITIAL_SEGMENTS * SUBDIVISIONS];
+    }
+
+    /**
+     * Adds any segments appended to the tracked path since the last update.
+     */
+    protected void update () {
+        Path path = _path;
+        if (path == null || path.typeSize == _typeIndex) return;
+        if (path.typeSize < _typeIndex) {
+            rebuild();
+            return;
+        }
+        // a move that ends the path may have been replaced by a subsequent move
+        if (_typeIndex > 0 && path.types[_typeIndex-1] == PathIterator.SEG_MOVETO) {
+            _moveX = _curX = path.points[_pointIndex-2];
+            _moveY = _curY = path.points[_pointIndex-1];
+        }
+        for (; _typeIndex < path.typeSize; _typeIndex++) {
+            int type = path.types[_typeIndex];
+            addSegment(type, path.points, _pointIndex);
+            _pointIndex += Path.pointShift[type];
+        }
+    }
+
+    /**
+     * Adds a segment of the specified type, whose coordinates are stored in {@code coords} at
+     * {@code off}, to the table.
+     */
+    protected void addSegment (int type, float[] coords, int off) {
+        float x0 = _curX, y0 = _curY;
+        switch (type) {
+        case PathIterator.SEG_MOVETO:
+            _moveX = _curX = coords[off];
+            _moveY = _curY = coords[off+1];
+            return;
+        case PathIterator.SEG_CLOSE:
+            addLine(x0, y0, _moveX, _moveY);
+            _curX = _moveX;
+            _curY = _moveY;
+            return;
+        case PathIterator.SEG_LINETO:
+            addLine(x0, y0, _curX = coords[off], _curY = coords[off+1]);
+            return;
+        case PathIterator.SEG_QUADTO:
+            // elevate the quadratic to the equivalent cubic
+            float qx = coords[off], qy = coords[off+1];
+            _curX = coords[off+2];
+            _curY = coords[off+3];
+            addCubic(x0, y0, x0 + 2f/3f*(qx - x0), y0 + 2f/3f*(qy - y0),
+                     _curX + 2f/3f*(qx - _curX), _curY + 2f/3f*(qy - _curY), _curX, _curY,
+                     SUBDIVISIONS);
+            return;
+        case PathIterator.SEG_CUBICTO:
+            _curX = coords[off+4];
+            _curY = coords[off+5];
+            addCubic(x0, y0, coords[off], coords[off+1], coords[off+2], coords[off+3],
+                     _curX, _curY, SUBDIVISIONS);
+            return;
+        }
+    }
+
+    /**
+     * Adds a line segment, represented as a cubic with uniform speed.
+     */
+    protected void addLine (float x0, float y0, float x1, float y1) {
+        float dx = (x1 - x0) / 3f, dy = (y1 - y0) / 3f;
+        addCubic(x0, y0, x0 + dx, y0 + dy, x1 - dx, y1 - dy, x1, y1, 1);
+    }
+
+    /**
+     * Adds a cubic segment, divided into the specified number of parameter intervals. Segments of
+     * zero length are omitted.
+     */
+    protected void addCubic (float x0, float y0, float x1, float y1, float x2, float y2,
+                             float x3, float y3, int knots) {
+        if (x0 == x1 && x0 == x2 && x0 == x3 && y0 == y1 && y0 == y2 && y0 == y3) return;
+
+        int seg = _segCount;
+        if (seg == _segKnots.length) {
+            _segKnots = grow(_segKnots, seg*2);
+            float[] ncoords = new float[seg*2 * 8];
+            System.arraycopy(_coords, 0, ncoords, 0, seg*8);
+            _coords = ncoords;
+        }
+        if (_knotCount + knots > _knotDists.length) {
+            int ncap = Math.max(_knotDists.length*2, _knotCount + knots);
+            float[] ndists = new float[ncap];
+            System.arraycopy(_knotDists, 0, ndists, 0, _knotCount);
+            _knotDists = ndists;
+            _knotSegs = grow(_knotSegs, ncap);
+        }
+
+        int off = seg * 8;
+        float[] c = _coords;
+        c[off  ] = x0; c[off+1] = y0; c[off+2] = x1; c[off+3] = y1;
+        c[off+4] = x2; c[off+5] = y2; c[off+6] = x3; c[off+7] = y3;
+        _segKnots[seg] = _knotCount;
+        float dist = (_knotCount == 0) ? 0f : _knotDists[_knotCount-1];
+        for (int ii = 0; ii < knots; ii++) {
+            dist += length(c, off, ii / (float)knots, (ii+1) / (float)knots);
+            _knotDists[_knotCount] = dist;
+            _knotSegs[_knotCount++] = seg;
+        }
+        _segCount++;
+    }
+
+    /**
+     * Returns the index of the knot interval containing the specified distance (clamped to the
+     * length of the outline).
+     */
+    protected int locate (float distance) {
+        update();
+        if (_knotCount == 0) throw new IllegalStateException("Outline is empty");
+        float[] dists = _knotDists;
+        int low = 0, high = _knotCount - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (dists[mid] < distance) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Returns the parameter, within the segment containing the specified knot interval, of the
+     * point at the specified distance (clamped to the interval).
+     */
+    protected float parameter (int knot, float distance) {
+        int seg = _knotSegs[knot], first = _segKnots[seg];
+        int knots = ((seg+1 < _segCount) ? _segKnots[seg+1] : _knotCount) - first;
+        float t0 = (knot - first) / (float)knots, t1 = (knot - first + 1) / (float)knots;
+        float d0 = (knot == 0) ? 0f : _knotDists[knot-1], d1 = _knotDists[knot];
+        if (distance <= d0) return t0;
+        if (distance >= d1) return t1;
+
+        // start with the linear estimate and refine it by Newton iteration
+        int off = seg * 8;
+        float t = t0 + (t1 - t0) * (distance - d0) / (d1 - d0);
+        for (int ii = 0; ii < MAX_ITERATIONS; ii++) {
+            float speed = speed(_coords, off, t);
+            if (speed == 0f) break;
+            float nt = t - (d0 + length(_coords, off, t0, t) - distance) / speed;
+            nt = Math.max(t0, Math.min(t1, nt));
+            boolean done = Math.abs(nt - t) <= PARAMETER_TOLERANCE;
+            t = nt;
+            if (done) break;
+        }
+        return t;
+    }
+
+    /**
+     * Computes the length of the cubic at {@code off} between the specified parameters by
+     * five-point Gauss-Legendre quadrature.
+     */
+    protected static float length (float[] c, int off, float t0, float t1) {
+        float half = 0.5f * (t1 - t0), mid = 0.5f * (t0 + t1), sum = 0f;
+        for (int ii = 0; ii < GAUSS_NODES.length; ii++) {
+            sum += GAUSS_WEIGHTS[ii] * speed(c, off, mid + half * GAUSS_NODES[ii]);
+        }
+        return half * sum;
+    }
+
+    /**
+     * Returns the magnitude of the derivative of the cubic at {@code off} at the specified
+     * parameter.
+     */
+    protected static float speed (float[] c, int off, float t) {
+        float dx = derivative(c, off, t), dy = derivative(c, off+1, t);
+        return FloatMath.sqrt(dx*dx + dy*dy);
+    }
+
+    /**
+     * Returns the derivative of one coordinate (whose first value is at {@code off}, the rest
+     * following at a stride of two) of a cubic at the specified parameter.
+     */
+    protected static float derivative (float[] c, int off, float t) {
+        float u = 1f - t;
+        return 3f * (u*u*(c[off+2] - c[off]) + 2f*u*t*(c[off+4] - c[off+2]) +
+                     t*t*(c[off+6] - c[off+4]));
+    }
+
+    protected static int[] grow (int[] values, int ncap) {
+        int[] nvalues = new int[ncap];
+        System.arraycopy(values, 0, nvalues, 0, values.length);
+        return nvalues;
+    }
+
+    /** The path tracked by this table, or null. */
+    protected Path _path;
+
+    /** The index of the next segment type and point to be read from the tracked path. */
+    protected int _typeIndex, _pointIndex;
+
+    /** The current point and start of the current subpath while building. */
+    protected float _curX, _curY, _moveX, _moveY;
+
+    /** The control points of each segment, as cubics (eight floats per segment). */
+    protected float[] _coords;
+
+    /** The index of the first knot interval of each segment. */
+    protected int[] _segKnots;
+
+    /** The number of segments in the table. */
+    protected int _segCount;
+
+    /** The cumulative distance at the end of each knot interval. */
+    protected float[] _knotDists;
+
+    /** The segment to which each knot interval belongs. */
+    protected int[] _knotSegs;
+
+    /** The number of knot intervals in the table. */
+    protected int _knotCount;
+
+    /** The number of parameter intervals into which curves are divided. */
+    protected static final int SUBDIVISIONS = 8;
+
+    /** The number of segments for which space is initially allocated. */
+    protected static final int INITIAL_SEGMENTS = 4;
+
+    /** The maximum number of Newton iterations used to find a parameter. */
+    protected static final int MAX_ITERATIONS = 4;
+
+    /** The change in parameter below which Newton iteration stops. */
+    protected static final float PARAMETER_TOLERANCE = 1e-6f;
+
+    /** The distance by which to move the parameter to avoid a vanishing derivative. */
+    protected static final float NUDGE = 1e-3f;
+
+    /** The abscissae of five-point Gauss-Legendre quadrature. */
+    protected static final float[] GAUSS_NODES = {
+        -0.9061798459f, -0.5384693101f, 0f, 0.5384693101f, 0.9061798459f };
+
+    /** The weights of five-point Gauss-Legendre quadrature. */
+    protected static final float[] GAUSS_WEIGHTS = {
+        0.2369268851f, 0.4786286705f, 0.5688888889f, 0.4786286705f, 0.2369268851f };
+}
@@ -119,6 +119,13 @@ public class Area implements IShape, Cloneable
         copy(new Area(Transforms.createTransformedShape(t, this)), this);
     }
 
+    /**
+     * Computes the area, centroid and second moments of area of this area.
+     */
+    public MassProperties massProperties () {
+        return MassProperties.of(this);
+    }
+
     /**
      * Creates a new area equal to this area transformed by the supplied transform.
      */
@@ -126,6 +133,14 @@ public class Area implements IShape, Cloneable
         return new Area(Transforms.createTransformedShape(t, this));
     }
 
+    /**
+     * Returns an immutable snapshot of this area, which may be shared between threads and
+     * queried concurrently. Subsequent changes to this area do not affect the snapshot.
+     */
+    public ImmutableArea freeze () {
+        return new ImmutableArea(this);
+    }
+
     /**
      * Adds the supplied area to this area.
      */
@@ -257,7 +272,18 @@ public class Area implements IShape, Cloneable
             minY = Math.min(minY, _coords[i]);
             maxY = Math.max(maxY, _coords[i++]);
         }
-        return new Rectangle(minX, minY, maxX - minX, maxY - minY);
+        target.setBounds(minX, minY, maxX - minX, maxY - minY);
+        return target;
+    }
+
+    @Override // from interface IShape
+    public Rectangle tightBounds () {
+        return tightBounds(new Rectangle());
+    }
+
+    @Override // from interface IShape
+    public Rectangle tightBounds (Rectangle target) {
+        return Path.tightBounds(pathIterator(null), target);
     }
 
     @Override // from interface IShape
@@ -295,6 +321,58 @@ public class Area implements IShape, Cloneable
             ", isPoly=" + _isPolygonal + "]";
     }
 
+    /**
+     * Creates an area which uses the supplied segment types and coordinates directly (they are not
+     * copied). Used by {@link PathCodec} to decode areas.
+     */
+    Area (int[] rules, int rulesSize, float[] coords, int coordsSize) {
+        _rules = rules;
+        _rulesSize = rulesSize;
+        _coords = coords;
+        _coordsSize = coordsSize;
+        _offsets = new int[Math.max(rulesSize, 1)];
+        for (int ii = 0, offset = 0; ii < rulesSize; ii++) {
+            _offsets[ii] = offset;
+            switch (rules[ii]) {
+            case PathIterator.SEG_MOVETO:
+                ++_moveToCount;
+                offset += 2;
+                break;
+            case PathIterator.SEG_LINETO:
+                offset += 2;
+                break;
+            case PathIterator.SEG_QUADTO:
+                offset += 4;
+                _isPolygonal = false;
+                break;
+            case PathIterator.SEG_CUBICTO:
+                offset += 6;
+                _isPolygonal = false;
+                break;
+            }
+        }
+    }
+
+    /** Returns the number of valid entries in {@link #rules}. */
+    int rulesSize () {
+        return _rulesSize;
+    }
+
+    /** Returns this area's segment types array (not a copy). */
+    int[] rules () {
+        return _rules;
+    }
+
+    /** Returns the number of valid entries in {@link #coords}. */
+    int coordsSize () {
+        return _coordsSize;
+    }
+
+    /** Returns this area's coordinates array (not a copy). */
+    float[] coords () {
+        return _coords;
+    }
+
     private void addCurvePolygon (Area area) {
         CurveCrossingHelper crossHelper = new CurveCrossingHelper(
             new float[][] {_coords, area._coords},
@@ -1054,6 +1132,7 @@ public class Area implements IShape, Cloneable
         dst._rules = Platform.clone(src._rules);
         dst._moveToCount = src._moveToCount;
         dst._offsets = Platform.clone(src._offsets);
+        dst._isPolygonal = src._isPolygonal;
     }
 
     private int containsExact (float x, float y) {
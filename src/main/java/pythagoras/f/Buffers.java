@@ -0,0 +1,293 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Bulk reads and writes arrays of vectors, quaternions, matrices, boxes and affine transforms
+ * from and to NIO buffers. Each element is stored as a run of floats in the same order used by
+ * the element's own {@code get(FloatBuffer)} method (where it has one): vectors and quaternions
+ * as {@code x, y, z[, w]}, matrices as {@code m00, m01, m02, m10, ...}, boxes as the minimum then
+ * maximum extent, and affine transforms as {@code m00, m01, m10, m11, tx, ty}.
+ *
+ * <p> The {@link ByteBuffer} variants always use little-endian order (regardless of the order of
+ * the supplied buffer) and advance the buffer's position past the elements read or written.
+ * Reads into an array reuse the instances already present in the array, allocating only for null
+ * entries.</p>
+ */
+public class Buffers
+{
+    /** The number of floats used to store each type of element. */
+    public static final int VECTOR3_SIZE = 3, QUATERNION_SIZE = 4, MATRIX3_SIZE = 9,
+        MATRIX4_SIZE = 16, BOX_SIZE = 6, AFFINE_SIZE = 6;
+
+    /**
+     * Writes {@code count} vectors from {@code src}, starting at {@code offset}, into {@code buf}.
+     * @return the supplied buffer.
+     */
+    public static FloatBuffer put (FloatBuffer buf, IVector3[] src, int offset, int count) {
+        for (int ii = offset, ll = offset + count; ii < ll; ii++) {
+            IVector3 v = src[ii];
+            buf.put(v.x()).put(v.y()).put(v.z());
+        }
+        return buf;
+    }
+
+    /**
+     * Reads {@code count} vectors from {@code buf} into {@code dst}, starting at {@code offset}.
+     * @return the supplied buffer.
+     */
+    public static FloatBuffer get (FloatBuffer buf, Vector3[] dst, int offset, int count) {
+        for (int ii = offset, ll = offset + count; ii < ll; ii++) {
+            Vector3 v = dst[ii];
+            if (v == null) dst[ii] = v = new Vector3();
+            v.set(buf.get(), buf.get(), buf.get());
+        }
+        return buf;
+    }
+
+    /**
+     * Writes {@code count} quaternions from {@code src}, starting at {@code offset}, into
+     * {@code buf}.
+     * @return the supplied buffer.
+     */
+    public static FloatBuffer put (FloatBuffer buf, IQuaternion[] src, int offset, int count) {
+        for (int ii = offset, ll = offset + count; ii < ll; ii++) {
+            IQuaternion q = src[ii];
+            buf.put(q.x()).put(q.y()).put(q.z()).put(q.w());
+        }
+        return buf;
+    }
+
+    /**
+     * Reads {@code count} quaternions from {@code buf} into {@code dst}, starting at {@code
+     * offset}.
+     * @return the supplied buffer.
+     */
+    public static FloatBuffer get (FloatBuffer buf, Quaternion[] dst, int offset, int count) {
+        for (int ii = offset, ll = offset + count; ii < ll; ii++) {
+            Quaternion q = dst[ii];
+            if (q == null) dst[ii] = q = new Quaternion();
+            q.set(buf.get(), buf.get(), buf.get(), buf.get());
+        }
+        return buf;
+    }
+
+    /**
+     * Writes {@code count} matrices from {@code src}, starting at {@code offset}, into {@code
+     * buf}.
+     * @return the supplied buffer.
+     */
+    public static FloatBuffer put (FloatBuffer buf, IMatrix3[] src, int offset, int count) {
+        for (int ii = offset, ll = offset + count; ii < ll; ii++) src[ii].get(buf);
+        return buf;
+    }
+
+    /**
+     * Reads {@code count} matrices from {@code buf} into {@code dst}, starting at {@code offset}.
+     * @return the supplied buffer.
+     */
+    public static FloatBuffer get (FloatBuffer buf, Matrix3[] dst, int offset, int count) {
+        for (int ii = offset, ll = offset + count; ii < ll; ii++) {
+            Matrix3 m = dst[ii];
+            if (m == null) dst[ii] = m = new Matrix3();
+            m.m00 = buf.get(); m.m01 = buf.get(); m.m02 = buf.get();
+            m.m10 = buf.get(); m.m11 = buf.get(); m.m12 = buf.get();
+            m.m20 = buf.get(); m.m21 = buf.get(); m.m22 = buf.get();
+            m.resetType();
+        }
+        return buf;
+    }
+
+    /**
+     * Writes {@code count} matrices from {@code src}, starting at {@code offset}, into {@code
+     * buf}.
+     * @return the supplied buffer.
+     */
+    public static FloatBuffer put (FloatBuffer buf, IMatrix4[] src, int offset, int count) {
+        for (int ii = offset, ll = offset + count; ii < ll; ii++) src[ii].get(buf);
+        return buf;
+    }
+
+    /**
+     * Reads {@code count} matrices from {@code buf} into {@code dst}, starting at {@code offset}.
+     * @return the supplied buffer.
+     */
+    public static FloatBuffer get (FloatBuffer buf, Matrix4[] dst, int offset, int count) {
+        for (int ii = offset, ll = offset + count; ii < ll; ii++) {
+            Matrix4 m = dst[ii];
+            if (m == null) dst[ii] = m = new Matrix4();
+            m.set(buf);
+        }
+        return buf;
+    }
+
+    /**
+     * Writes {@code count} boxes from {@code src}, starting at {@code offset}, into {@code buf}.
+     * @return the supplied buffer.
+     */
+    public static FloatBuffer put (FloatBuffer buf, IBox[] src, int offset, int count) {
+        for (int ii = offset, ll = offset + count; ii < ll; ii++) {
+            IVector3 min = src[ii].minimumExtent(), max = src[ii].maximumExtent();
+            buf.put(min.x()).put(min.y()).put(min.z());
+            buf.put(max.x()).put(max.y()).put(max.z());
+        }
+        return buf;
+    }
+
+    /**
+     * Reads {@code count} boxes from {@code buf} into {@code dst}, starting at {@code offset}.
+     * @return the supplied buffer.
+     */
+    public static FloatBuffer get (FloatBuffer buf, Box[] dst, int offset, int count) {
+        for (int ii = offset, ll = offset + count; ii < ll; ii++) {
+            Box b = dst[ii];
+            if (b == null) dst[ii] = b = new Box();
+            b._minExtent.set(buf.get(), buf.get(), buf.get());
+            b._maxExtent.set(buf.get(), buf.get(), buf.get());
+        }
+        return buf;
+    }
+
+    /**
+     * Writes {@code count} transforms from {@code src}, starting at {@code offset}, into {@code
+     * buf}.
+     * @return the supplied buffer.
+     */
+    public static FloatBuffer put (FloatBuffer buf, AffineTransform[] src, int offset, int count) {
+        for (int ii = offset, ll = offset + count; ii < ll; ii++) {
+            AffineTransform t = src[ii];
+            buf.put(t.m00).put(t.m01).put(t.m10).put(t.m11).put(t.tx).put(t.ty);
+        }
+        return buf;
+    }
+
+    /**
+     * Reads {@code count} transforms from {@code buf} into {@code dst}, starting at {@code
+     * offset}.
+     * @return the supplied buffer.
+     */
+    public static FloatBuffer get (FloatBuffer buf, AffineTransform[] dst, int offset, int count) {
+        for (int ii = offset, ll = offset + count; ii < ll; ii++) {
+            AffineTransform t = dst[ii];
+            if (t == null) dst[ii] = t = new AffineTransform();
+            t.setTransform(buf.get(), buf.get(), buf.get(), buf.get(), buf.get(), buf.get());
+        }
+        return buf;
+    }
+
+    /**
+     * Writes {@code count} vectors into {@code buf} in little-endian order.
+     * @see #put(FloatBuffer,IVector3[],int,int)
+     */
+    public static ByteBuffer put (ByteBuffer buf, IVector3[] src, int offset, int count) {
+        return advance(buf, put(floats(buf), src, offset, count));
+    }
+
+    /**
+     * Reads {@code count} little-endian vectors from {@code buf}.
+     * @see #get(FloatBuffer,Vector3[],int,int)
+     */
+    public static ByteBuffer get (ByteBuffer buf, Vector3[] dst, int offset, int count) {
+        return advance(buf, get(floats(buf), dst, offset, count));
+    }
+
+    /**
+     * Writes {@code count} quaternions into {@code buf} in little-endian order.
+     * @see #put(FloatBuffer,IQuaternion[],int,int)
+     */
+    public static ByteBuffer put (ByteBuffer buf, IQuaternion[] src, int offset, int count) {
+        return advance(buf, put(floats(buf), src, offset, count));
+    }
+
+    /**
+     * Reads {@code count} little-endian quaternions from {@code buf}.
+     * @see #get(FloatBuffer,Quaternion[],int,int)
+     */
+    public static ByteBuffer get (ByteBuffer buf, Quaternion[] dst, int offset, int count) {
+        return advance(buf, get(floats(buf), dst, offset, count));
+    }
+
+    /**
+     * Writes {@code count} matrices into {@code buf} in little-endian order.
+     * @see #put(FloatBuffer,IMatrix3[],int,int)
+     */
+    public static ByteBuffer put (ByteBuffer buf, IMatrix3[] src, int offset, int count) {
+        return advance(buf, put(floats(buf), src, offset, count));
+    }
+
+    /**
+     * Reads {@code count} little-endian matrices from {@code buf}.
+     * @see #get(FloatBuffer,Matrix3[],int,int)
+     */
+    public static ByteBuffer get (ByteBuffer buf, Matrix3[] dst, int offset, int count) {
+        return advance(buf, get(floats(buf), dst, offset, count));
+    }
+
+    /**
+     * Writes {@code count} matrices into {@code buf} in little-endian order.
+     * @see #put(FloatBuffer,IMatrix4[],int,int)
+     */
+    public static ByteBuffer put (ByteBuffer buf, IMatrix4[] src, int offset, int count) {
+        return advance(buf, put(floats(buf), src, offset, count));
+    }
+
+    /**
+     * Reads {@code count} little-endian matrices from {@code buf}.
+     * @see #get(FloatBuffer,Matrix4[],int,int)
+     */
+    public static ByteBuffer get (ByteBuffer buf, Matrix4[] dst, int offset, int count) {
+        return advance(buf, get(floats(buf), dst, offset, count));
+    }
+
+    /**
+     * Writes {@code count} boxes into {@code buf} in little-endian order.
+     * @see #put(FloatBuffer,IBox[],int,int)
+     */
+    public static ByteBuffer put (ByteBuffer buf, IBox[] src, int offset, int count) {
+        return advance(buf, put(floats(buf), src, offset, count));
+    }
+
+    /**
+     * Reads {@code count} little-endian boxes from {@code buf}.
+     * @see #get(FloatBuffer,Box[],int,int)
+     */
+    public static ByteBuffer get (ByteBuffer buf, Box[] dst, int offset, int count) {
+        return advance(buf, get(floats(buf), dst, offset, count));
+    }
+
+    /**
+     * Writes {@code count} transforms into {@code buf} in little-endian order.
+     * @see #put(FloatBuffer,AffineTransform[],int,int)
+     */
+    public static ByteBuffer put (ByteBuffer buf, AffineTransform[] src, int offset, int count) {
+        return advance(buf, put(floats(buf), src, offset, count));
+    }
+
+    /**
+     * Reads {@code count} little-endian transforms from {@code buf}.
+     * @see #get(FloatBuffer,AffineTransform[],int,int)
+     */
+    public static ByteBuffer get (ByteBuffer buf, AffineTransform[] dst, int offset, int count) {
+        return advance(buf, get(floats(buf), dst, offset, count));
+    }
+
+    /** Returns a little-endian float view of {@code buf}, starting at its position. */
+    protected static FloatBuffer floats (ByteBuffer buf) {
+        return buf.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+    }
+
+    /** Advances the position of {@code buf} past the floats consumed from {@code view}. */
+    protected static ByteBuffer advance (ByteBuffer buf, FloatBuffer view) {
+        // called via Buffer so that the JDK 9+ covariant ByteBuffer override is not linked
+        Buffer bbuf = buf;
+        bbuf.position(bbuf.position() + view.position() * 4);
+        return buf;
+    }
+}
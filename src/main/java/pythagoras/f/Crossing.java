@@ -185,8 +185,7 @@ class Crossing
         }
 
         public int solvePoint (float[] res, float px) {
-            float[] eqn = { -px, Bx, Ax };
-            return solveQuad(eqn, res);
+            return RootSolver.solveQuadratic(-px, Bx, Ax, -DELTA, 1 + DELTA, res, 0);
         }
 
         public int solveExtreme (float[] res) {
@@ -295,18 +294,15 @@ class Crossing
         }
 
         public int solvePoint (float[] res, float px) {
-            float[] eqn = { -px, Cx, Bx, Ax };
-            return solveCubic(eqn, res);
+            return RootSolver.solveCubic(-px, Cx, Bx, Ax, -DELTA, 1 + DELTA, res, 0);
         }
 
         public int solveExtremeX (float[] res) {
-            float[] eqn = { Cx, Bx2, Ax3 };
-            return solveQuad(eqn, res);
+            return RootSolver.solveQuadratic(Cx, Bx2, Ax3, -DELTA, 1 + DELTA, res, 0);
         }
 
         public int solveExtremeY (float[] res) {
-            float[] eqn = { Cy, By + By, Ay + Ay + Ay };
-            return solveQuad(eqn, res);
+            return RootSolver.solveQuadratic(Cy, By + By, Ay + Ay + Ay, -DELTA, 1 + DELTA, res, 0);
         }
 
         public int addBound (float[] bound, int bc, float[] res, int rc, float minX, float maxX,
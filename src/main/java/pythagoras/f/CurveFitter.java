@@ -0,0 +1,437 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+/**
+ * Fits piecewise cubic B&eacute;zier curves to polylines, using the least-squares method of
+ * Schneider (<em>An Algorithm for Automatically Fitting Digitized Curves</em>, Graphics Gems).
+ * This is useful for compressing densely sampled polylines that approximate smooth curves.
+ *
+ * <p> Each polyline is first split at its corners (vertices at which the direction changes by
+ * more than the corner angle), and each corner-free run is fitted with a single cubic, which is
+ * split at (or near) the point of maximum error until every point lies within the tolerance of
+ * the fitted curves. Runs of two points are output as lines. Fitting {@code n} points takes
+ * {@code O(n log n)} time.</p>
+ *
+ * <p> A fitter reuses its internal buffers from one fit to the next, so it is not thread-safe;
+ * use one fitter per thread.</p>
+ */
+public class CurveFitter
+{
+    /** The default angle (in radians) by which a polyline must turn to form a corner. */
+    public static final float DEFAULT_CORNER_ANGLE = MathUtil.HALF_PI * 2f / 3f;
+
+    /**
+     * Creates a fitter with the specified tolerance and the default corner angle.
+     */
+    public CurveFitter (float tolerance) {
+        this(tolerance, DEFAULT_CORNER_ANGLE);
+    }
+
+    /**
+     * Creates a fitter.
+     *
+     * @param tolerance the maximum distance between an input point and the fitted curves.
+     * @param cornerAngle the angle (in radians) by which the direction of the polyline must
+     * change at a vertex for the vertex to be treated as a corner, at which the fitted curves
+     * need not be smooth.
+     */
+    public CurveFitter (float tolerance, float cornerAngle) {
+        if (tolerance <= 0f) throw new IllegalArgumentException("Tolerance must be positive");
+        _tolerance = tolerance;
+        _cornerAngle = cornerAngle;
+        _cornerCos = FloatMath.cos(cornerAngle);
+    }
+
+    /**
+     * Returns the maximum distance between an input point and the fitted curves.
+     */
+    public float tolerance () {
+        return _tolerance;
+    }
+
+    /**
+     * Returns the angle (in radians) at which vertices are treated as corners.
+     */
+    public float cornerAngle () {
+        return _cornerAngle;
+    }
+
+    /**
+     * Fits curves to a polyline of {@code count} points, stored as consecutive x/y pairs in
+     * {@code points} at {@code offset}.
+     *
+     * @return a new path containing the fitted curves.
+     */
+    public Path fit (float[] points, int offset, int count) {
+        return fit(points, offset, count, new Path());
+    }
+
+    /**
+     * Fits curves to a polyline of {@code count} points, stored as consecutive x/y pairs in
+     * {@code points} at {@code offset}, and appends them to {@code into} as a new subpath.
+     *
+     * @return {@code into}, for chaining.
+     */
+    public Path fit (float[] points, int offset, int count, Path into) {
+        _size = 0;
+        for (int ii = 0; ii < count; ii++, offset += 2) addPoint(points[offset], points[offset+1]);
+        fitPoints(into, false);
+        return into;
+    }
+
+    /**
+     * Fits curves to the polylines described by the supplied iterator (one per subpath). Curved
+     * segments contribute only their end points, so curved input should be flattened first (via
+     * {@link IShape#pathIterator(Transform, float)}).
+     *
+     * @return a new path containing the fitted curves.
+     */
+    public Path fit (PathIterator iter) {
+        return fit(iter, new Path(iter.windingRule()));
+    }
+
+    /**
+     * Fits curves to the polylines described by the supplied iterator (one per subpath), and
+     * appends them to {@code into}.
+     *
+     * @return {@code into}, for chaining.
+     */
+    public Path fit (PathIterator iter, Path into) {
+        float[] coords = new float[6];
+        _size = 0;
+        for (; !iter.isDone(); iter.next()) {
+            switch (iter.currentSegment(coords)) {
+            case PathIterator.SEG_MOVETO:
+                fitPoints(into, false);
+                _size = 0;
+                addPoint(coords[0], coords[1]);
+                break;
+            case PathIterator.SEG_LINETO:
+                addPoint(coords[0], coords[1]);
+                break;
+            case PathIterator.SEG_QUADTO:
+                addPoint(coords[2], coords[3]);
+                break;
+            case PathIterator.SEG_CUBICTO:
+                addPoint(coords[4], coords[5]);
+                break;
+            case PathIterator.SEG_CLOSE:
+                if (_size > 0) {
+                    float x = _pts[0], y = _pts[1];
+                    addPoint(x, y);
+                    fitPoints(into, true);
+                    // a subsequent segment without a move starts from the start of this subpath
+                    _size = 0;
+                    addPoint(x, y);
+                }
+                break;
+            }
+        }
+        fitPoints(into, false);
+        return into;
+    }
+
+    /**
+     * Appends a point to the polyline being collected, omitting duplicates of the previous point.
+     */
+    protected void addPoint (float x, float y) {
+        int off = _size * 2;
+        if (_size > 0 && _pts[off-2] == x && _pts[off-1] == y) return;
+        if (off + 2 > _pts.length) {
+            float[] npts = new float[Math.max(off + 2, _pts.length * 2)];
+            System.arraycopy(_pts, 0, npts, 0, off);
+            _pts = npts;
+        }
+        _pts[off] = x;
+        _pts[off+1] = y;
+        _size++;
+    }
+
+    /**
+     * Fits curves to the collected polyline (if it contains at least two points), splitting it
+     * at its corners, and appends them to {@code into}.
+     */
+    protected void fitPoints (Path into, boolean close) {
+        int size = _size;
+        if (size < 2) return;
+        float[] pts = _pts;
+        into.moveTo(pts[0], pts[1]);
+        int first = 0;
+        for (int ii = 1; ii < size; ii++) {
+            if (ii < size-1 && !isCorner(ii)) continue;
+            fitRun(into, first, ii);
+            first = ii;
+        }
+        if (close) into.closePath();
+    }
+
+    /**
+     * Returns true if the direction of the polyline changes by more than the corner angle at the
+     * specified (interior) point.
+     */
+    protected boolean isCorner (int idx) {
+        float[] pts = _pts;
+        int off = idx * 2;
+        float ax = pts[off] - pts[off-2], ay = pts[off+1] - pts[off-1];
+        float bx = pts[off+2] - pts[off], by = pts[off+3] - pts[off+1];
+        float dot = ax*bx + ay*by;
+        return dot < _cornerCos * FloatMath.sqrt((ax*ax + ay*ay) * (bx*bx + by*by));
+    }
+
+    /**
+     * Fits curves to the points from {@code first} to {@code last} (inclusive), which contain no
+     * corners, and appends them to {@code into}. Rather than recursing, the subranges produced by
+     * splitting are kept on an explicit stack, so that long polylines cannot exhaust the call
+     * stack.
+     */
+    protected void fitRun (Path into, int first, int last) {
+        float[] pts = _pts;
+        if (last - first == 1) {
+            into.lineTo(pts[last*2], pts[last*2+1]);
+            return;
+        }
+        ensureCapacity(last - first + 1);
+
+        // the tangents at the ends of the run point inward
+        _stackSize = 0;
+        direction(first, first+1);
+        float s1x = _dir[0], s1y = _dir[1];
+        direction(last, last-1);
+        push(first, last, s1x, s1y, _dir[0], _dir[1]);
+        while (_stackSize > 0) {
+            int top = --_stackSize;
+            int lo = _ranges[top*2], hi = _ranges[top*2+1];
+            int toff = top*4;
+            float t1x = _tangents[toff], t1y = _tangents[toff+1];
+            float t2x = _tangents[toff+2], t2y = _tangents[toff+3];
+            int split = fitRange(lo, hi, t1x, t1y, t2x, t2y);
+            if (split < 0) {
+                into.curveTo(_ctrl[0], _ctrl[1], _ctrl[2], _ctrl[3], pts[hi*2], pts[hi*2+1]);
+                continue;
+            }
+            // split at the point of maximum error, with a common tangent there; push the right
+            // half first, so that the left half is fitted (and appended) first
+            direction(split+1, split-1);
+            float cx = _dir[0], cy = _dir[1];
+            push(split, hi, -cx, -cy, t2x, t2y);
+            push(lo, split, t1x, t1y, cx, cy);
+        }
+    }
+
+    /**
+     * Attempts to fit a single cubic to the points from {@code first} to {@code last}, with the
+     * specified end tangents. If the fit is within the tolerance, its control points are stored
+     * in {@link #_ctrl} and -1 is returned. Otherwise, the index of the point at which the range
+     * should be split is returned: the point of maximum error, moved into the middle half of the
+     * range, so that splitting takes at most a logarithmic number of levels.
+     */
+    protected int fitRange (int first, int last, float t1x, float t1y, float t2x, float t2y) {
+        float[] pts = _pts;
+        int count = last - first + 1;
+        if (count == 2) {
+            // place the control points a third of the way along the tangents
+            float dist = Points.distance(pts[first*2], pts[first*2+1], pts[last*2], pts[last*2+1]);
+            setControls(first, last, t1x, t1y, t2x, t2y, dist / 3f, dist / 3f);
+            return -1;
+        }
+
+        chordLengthParameterize(first, last);
+        generate(first, last, t1x, t1y, t2x, t2y);
+        float tolSq = _tolerance * _tolerance;
+        float error = computeMaxError(first, last);
+        if (error < tolSq) return -1;
+
+        // if the error is not too large, try improving the parameterization
+        if (error < tolSq * REPARAMETERIZE_FACTOR) {
+            for (int ii = 0; ii < MAX_REPARAMETERIZATIONS; ii++) {
+                reparameterize(first, last);
+                generate(first, last, t1x, t1y, t2x, t2y);
+                error = computeMaxError(first, last);
+                if (error < tolSq) return -1;
+            }
+        }
+        // a split near an end would leave nearly the whole range to be fitted again (which, for
+        // noisy input, makes fitting quadratic), so keep it to the middle half of the range
+        int quarter = (last - first) / 4;
+        return Math.max(first + quarter, Math.min(last - quarter, _split));
+    }
+
+    /**
+     * Assigns parameters to the points of a range in proportion to their distance along it.
+     */
+    protected void chordLengthParameterize (int first, int last) {
+        float[] pts = _pts, u = _u;
+        u[0] = 0f;
+        for (int ii = first+1; ii <= last; ii++) {
+            int off = ii*2;
+            u[ii-first] = u[ii-first-1] +
+                Points.distance(pts[off-2], pts[off-1], pts[off], pts[off+1]);
+        }
+        float total = u[last-first];
+        for (int ii = 1, nn = last-first; ii <= nn; ii++) u[ii] /= total;
+    }
+
+    /**
+     * Computes, by least squares, the distances along the end tangents of the control points of
+     * the cubic that best fits the range given the current parameterization, and stores the
+     * control points in {@link #_ctrl}.
+     */
+    protected void generate (int first, int last, float t1x, float t1y, float t2x, float t2y) {
+        float[] pts = _pts, u = _u;
+        float x0 = pts[first*2], y0 = pts[first*2+1], x3 = pts[last*2], y3 = pts[last*2+1];
+        float c00 = 0f, c01 = 0f, c11 = 0f, xr0 = 0f, xr1 = 0f;
+        for (int ii = first; ii <= last; ii++) {
+            float t = u[ii-first], s = 1f - t;
+            float b0 = s*s*s, b1 = 3f*s*s*t, b2 = 3f*s*t*t, b3 = t*t*t;
+            float a0x = t1x*b1, a0y = t1y*b1, a1x = t2x*b2, a1y = t2y*b2;
+            c00 += a0x*a0x + a0y*a0y;
+            c01 += a0x*a1x + a0y*a1y;
+            c11 += a1x*a1x + a1y*a1y;
+            float rx = pts[ii*2] - (x0*(b0 + b1) + x3*(b2 + b3));
+            float ry = pts[ii*2+1] - (y0*(b0 + b1) + y3*(b2 + b3));
+            xr0 += a0x*rx + a0y*ry;
+            xr1 += a1x*rx + a1y*ry;
+        }
+        float det = c00*c11 - c01*c01;
+        float alpha1 = (det == 0f) ? 0f : (xr0*c11 - xr1*c01) / det;
+        float alpha2 = (det == 0f) ? 0f : (c00*xr1 - c01*xr0) / det;
+
+        // fall back to the heuristic if the solution is degenerate or points backwards
+        float segLength = Points.distance(x0, y0, x3, y3), epsilon = 1e-6f * segLength;
+        if (alpha1 < epsilon || alpha2 < epsilon) alpha1 = alpha2 = segLength / 3f;
+        setControls(first, last, t1x, t1y, t2x, t2y, alpha1, alpha2);
+    }
+
+    /**
+     * Stores the control points at the specified distances along the end tangents of a range.
+     */
+    protected void setControls (int first, int last, float t1x, float t1y, float t2x, float t2y,
+                                float alpha1, float alpha2) {
+        float[] pts = _pts;
+        _ctrl[0] = pts[first*2] + t1x*alpha1;
+        _ctrl[1] = pts[first*2+1] + t1y*alpha1;
+        _ctrl[2] = pts[last*2] + t2x*alpha2;
+        _ctrl[3] = pts[last*2+1] + t2y*alpha2;
+    }
+
+    /**
+     * Returns the maximum squared distance between the points of a range and their parameterized
+     * positions on the current curve, storing the index of the point of maximum distance (which
+     * is never an end point) in {@link #_split}.
+     */
+    protected float computeMaxError (int first, int last) {
+        float[] pts = _pts, u = _u, ctrl = _ctrl;
+        float x0 = pts[first*2], y0 = pts[first*2+1], x3 = pts[last*2], y3 = pts[last*2+1];
+        float maxError = 0f;
+        _split = (first + last) / 2;
+        for (int ii = first+1; ii < last; ii++) {
+            float t = u[ii-first];
+            float dx = GeometryUtil.cubic(t, x0, ctrl[0], ctrl[2], x3) - pts[ii*2];
+            float dy = GeometryUtil.cubic(t, y0, ctrl[1], ctrl[3], y3) - pts[ii*2+1];
+            float error = dx*dx + dy*dy;
+            if (error >= maxError) {
+                maxError = error;
+                _split = ii;
+            }
+        }
+        return maxError;
+    }
+
+    /**
+     * Improves the parameter of each point of a range by a step of Newton-Raphson iteration
+     * toward the nearest point on the current curve.
+     */
+    protected void reparameterize (int first, int last) {
+        float[] pts = _pts, u = _u, ctrl = _ctrl;
+        float x0 = pts[first*2], y0 = pts[first*2+1], x3 = pts[last*2], y3 = pts[last*2+1];
+        float x1 = ctrl[0], y1 = ctrl[1], x2 = ctrl[2], y2 = ctrl[3];
+        for (int ii = first+1; ii < last; ii++) {
+            float t = u[ii-first], s = 1f - t;
+            float qx = GeometryUtil.cubic(t, x0, x1, x2, x3) - pts[ii*2];
+            float qy = GeometryUtil.cubic(t, y0, y1, y2, y3) - pts[ii*2+1];
+            // first and second derivatives of the curve
+            float d1x = 3f*(s*s*(x1 - x0) + 2f*s*t*(x2 - x1) + t*t*(x3 - x2));
+            float d1y = 3f*(s*s*(y1 - y0) + 2f*s*t*(y2 - y1) + t*t*(y3 - y2));
+            float d2x = 6f*(s*(x2 - 2f*x1 + x0) + t*(x3 - 2f*x2 + x1));
+            float d2y = 6f*(s*(y2 - 2f*y1 + y0) + t*(y3 - 2f*y2 + y1));
+            float num = qx*d1x + qy*d1y;
+            float den = d1x*d1x + d1y*d1y + qx*d2x + qy*d2y;
+            if (den != 0f) u[ii-first] = Math.max(0f, Math.min(1f, t - num/den));
+        }
+    }
+
+    /**
+     * Stores the unit vector from point {@code from} toward point {@code to} in {@link #_dir}.
+     */
+    protected void direction (int from, int to) {
+        float[] pts = _pts;
+        float dx = pts[to*2] - pts[from*2], dy = pts[to*2+1] - pts[from*2+1];
+        float len = FloatMath.sqrt(dx*dx + dy*dy);
+        _dir[0] = dx / len;
+        _dir[1] = dy / len;
+    }
+
+    /**
+     * Pushes a range, with its end tangents, onto the stack of ranges to be fitted.
+     */
+    protected void push (int first, int last, float t1x, float t1y, float t2x, float t2y) {
+        int top = _stackSize++;
+        if (_stackSize * 2 > _ranges.length) {
+            int[] nranges = new int[_ranges.length * 2];
+            System.arraycopy(_ranges, 0, nranges, 0, _ranges.length);
+            _ranges = nranges;
+            float[] ntangents = new float[_tangents.length * 2];
+            System.arraycopy(_tangents, 0, ntangents, 0, _tangents.length);
+            _tangents = ntangents;
+        }
+        _ranges[top*2] = first;
+        _ranges[top*2+1] = last;
+        _tangents[top*4] = t1x;
+        _tangents[top*4+1] = t1y;
+        _tangents[top*4+2] = t2x;
+        _tangents[top*4+3] = t2y;
+    }
+
+    protected void ensureCapacity (int count) {
+        if (_u.length < count) _u = new float[Math.max(count, _u.length * 2)];
+    }
+
+    /** The maximum distance between an input point and the fitted curves. */
+    protected final float _tolerance;
+
+    /** The angle at which vertices are treated as corners, and its cosine. */
+    protected final float _cornerAngle, _cornerCos;
+
+    /** The collected polyline, as x/y pairs. */
+    protected float[] _pts = new float[64];
+
+    /** The number of points in {@link #_pts}. */
+    protected int _size;
+
+    /** The parameters of the points of the range being fitted. */
+    protected float[] _u = new float[64];
+
+    /** The inner control points of the most recently generated curve. */
+    protected final float[] _ctrl = new float[4];
+
+    /** The most recently computed direction. */
+    protected final float[] _dir = new float[2];
+
+    /** The index at which to split the most recently fitted range. */
+    protected int _split;
+
+    /** The stack of ranges remaining to be fitted, and their end tangents. */
+    protected int[] _ranges = new int[32];
+    protected float[] _tangents = new float[64];
+    protected int _stackSize;
+
+    /** The ratio of squared error to squared tolerance below which reparameterization is tried
+     * before splitting. */
+    protected static final float REPARAMETERIZE_FACTOR = 16f;
+
+    /** The number of times the parameterization may be improved before splitting. */
+    protected static final int MAX_REPARAMETERIZATIONS = 4;
+}
@@ -0,0 +1,940 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import pythagoras.util.Platform;
+
+/**
+ * A Delaunay triangulation of a set of points, optionally constrained to include specified edges,
+ * and its dual Voronoi diagram.
+ *
+ * <p> Points are inserted incrementally (by the Bowyer-Watson algorithm). Points supplied in bulk
+ * are inserted in the order of their keys on a Hilbert curve (see {@link SpatialOrder}), so that
+ * each is near its predecessor and is located in roughly constant time. The hull is closed with
+ * "ghost" triangles sharing a vertex at infinity, so that points outside the hull are inserted
+ * the same way as those inside. All decisions are made with exact orientation and in-circle
+ * predicates, so the triangulation is valid for any input, including many cocircular or collinear
+ * points. Points that coincide with an existing vertex are not inserted: such points are
+ * represented by the earlier vertex.</p>
+ *
+ * <p> Constrained edges are inserted by flipping the edges they cross (Sloan's algorithm) and
+ * then restoring the Delaunay property of the new edges. A constrained edge may pass through
+ * existing vertices, but may not cross another constrained edge.</p>
+ *
+ * <p> A triangulation is not safe for use by multiple threads while it is being modified. Once
+ * modification is complete, its queries may be made concurrently.</p>
+ */
+public class Delaunay
+{
+    /**
+     * Creates an empty triangulation.
+     */
+    public Delaunay () {
+    }
+
+    /**
+     * Creates a triangulation of the supplied points. Vertex {@code i} of the triangulation is
+     * {@code points[i]}.
+     */
+    public Delaunay (XY[] points) {
+        this(pack(points), 0, points.length);
+    }
+
+    /**
+     * Creates a triangulation of the points stored as consecutive x, y pairs in {@code xy},
+     * starting at {@code offset}. Vertex {@code i} of the triangulation is the {@code i}th point.
+     */
+    public Delaunay (float[] xy, int offset, int count) {
+        ensureVertices(count);
+        System.arraycopy(xy, offset, _coords, 0, count * 2);
+        for (int ii = 0; ii < count; ii++) {
+            _reps[ii] = ii;
+            _edges[ii] = -1;
+        }
+        _vertexCount = count;
+        if (count == 0) return;
+
+        // insert the points in the order of their keys on a Hilbert curve
+        Rectangle bounds = new Rectangle(_coords[0], _coords[1], 0f, 0f);
+        for (int ii = 1; ii < count; ii++) bounds.add(_coords[ii*2], _coords[ii*2+1]);
+        long[] keys = SpatialOrder.keys(SpatialOrder.HILBERT, bounds, _coords, 0, count, null);
+        insertAll(SpatialOrder.sort(keys, count, SpatialOrder.DEFAULT_GRAIN), count);
+    }
+
+    /**
+     * Returns the number of vertices, including those that coincide with an earlier vertex.
+     */
+    public int vertexCount () {
+        return _vertexCount;
+    }
+
+    /**
+     * Returns the number of triangles.
+     */
+    public int triangleCount () {
+        int count = 0;
+        for (int tt = 0; tt < _slots; tt++) if (isReal(tt)) count++;
+        return count;
+    }
+
+    /**
+     * Returns whether there are any triangles: there are none until three non-collinear points
+     * have been added.
+     */
+    public boolean isEmpty () {
+        return _last < 0;
+    }
+
+    /**
+     * Returns the index of the vertex that represents the specified vertex in the triangulation:
+     * the vertex itself, unless it coincides with an earlier vertex.
+     */
+    public int representative (int vertex) {
+        return _reps[vertex];
+    }
+
+    /**
+     * Stores the location of the specified vertex in {@code target}.
+     *
+     * @return the target, for chaining.
+     */
+    public Point vertex (int vertex, Point target) {
+        return target.set(_coords[vertex*2], _coords[vertex*2+1]);
+    }
+
+    /**
+     * Adds a point to the triangulation.
+     *
+     * @return the index of the new vertex.
+     */
+    public int add (float x, float y) {
+        int vertex = _vertexCount;
+        ensureVertices(vertex + 1);
+        _coords[vertex*2] = x;
+        _coords[vertex*2+1] = y;
+        _reps[vertex] = vertex;
+        _edges[vertex] = -1;
+        _vertexCount++;
+
+        if (_last >= 0) insert(vertex);
+        else {
+            // until we have a triangle, (re)try to start with all of the points added so far
+            int[] order = new int[_vertexCount];
+            for (int ii = 0; ii < order.length; ii++) order[ii] = ii;
+            insertAll(order, order.length);
+        }
+        return vertex;
+    }
+
+    /**
+     * Constrains the triangulation to include the edge between the specified vertices. If the
+     * edge passes through other vertices, it is divided into edges between them.
+     *
+     * @throws IllegalStateException if the triangulation is empty.
+     * @throws IllegalArgumentException if the edge crosses an existing constrained edge, in which
+     * case the triangulation is unchanged.
+     */
+    public void constrain (int a, int b) {
+        if (_last < 0) throw new IllegalStateException("Triangulation has no triangles");
+        int[] V = _verts;
+        a = _reps[a];
+        b = _reps[b];
+
+        // check the whole segment before changing anything, so that a failed call has no effect
+        for (int from = a; from != b; ) {
+            if (findEdge(from, b) >= 0) break;
+            int enter = entering(from, b);
+            if (V[enter] == from) from = V[next(enter)];
+            else if ((from = crossings(from, b, enter, false)) < 0) {
+                throw new IllegalArgumentException(
+                    "Edge " + a + "-" + b + " crosses a constrained edge");
+            }
+        }
+
+        while (a != b) {
+            int edge = findEdge(a, b);
+            if (edge >= 0) {
+                fix(edge);
+                return;
+            }
+            int enter = entering(a, b);
+            if (V[enter] == a) {
+                // the segment passes through a vertex, so constrain the edge to it and continue
+                fix(enter);
+                a = V[next(enter)];
+                continue;
+            }
+            int end = crossings(a, b, enter, true);
+            removeCrossings(a, end);
+            a = end;
+        }
+    }
+
+    /**
+     * Adds the vertices of the outline of the supplied shape, flattened to within {@code
+     * flatness}, and constrains the triangulation to include its edges. The triangles inside the
+     * shape can then be obtained via {@link #triangles(IShape)}.
+     *
+     * @return the indices of the vertices of the outline, in order.
+     * @throws IllegalArgumentException if an edge of the outline crosses a constrained edge. The
+     * vertices, and the edges constrained before the failing edge, remain.
+     */
+    public int[] constrain (IShape shape, float flatness) {
+        float[] coords = new float[12];
+        boolean[] closes = new boolean[6];
+        int count = 0;
+        float[] seg = new float[6];
+        for (PathIterator iter = shape.pathIterator(null, flatness); !iter.isDone();
+             iter.next()) {
+            switch (iter.currentSegment(seg)) {
+            case PathIterator.SEG_MOVETO:
+            case PathIterator.SEG_LINETO:
+                if (count == closes.length) {
+                    float[] ncoords = new float[count*4];
+                    System.arraycopy(coords, 0, ncoords, 0, count*2);
+                    coords = ncoords;
+                    boolean[] ncloses = new boolean[count*2];
+                    System.arraycopy(closes, 0, ncloses, 0, count);
+                    closes = ncloses;
+                }
+                coords[count*2] = seg[0];
+                coords[count*2+1] = seg[1];
+                closes[count++] = false;
+                break;
+            case PathIterator.SEG_CLOSE:
+                if (count > 0) closes[count-1] = true;
+                break;
+            }
+        }
+
+        // add all of the vertices before constraining any edges, so that the first edges are not
+        // constrained in a triangulation that doesn't yet exist
+        int[] vertices = new int[count];
+        boolean[] moves = new boolean[count];
+        PathIterator iter = shape.pathIterator(null, flatness);
+        for (int ii = 0; !iter.isDone(); iter.next()) {
+            int type = iter.currentSegment(seg);
+            if (type == PathIterator.SEG_CLOSE) continue;
+            moves[ii] = (type == PathIterator.SEG_MOVETO);
+            vertices[ii] = add(coords[ii*2], coords[ii*2+1]);
+            ii++;
+        }
+        for (int ii = 0, first = 0; ii < count; ii++) {
+            if (moves[ii]) first = ii;
+            else constrain(vertices[ii-1], vertices[ii]);
+            if (closes[ii]) constrain(vertices[ii], vertices[first]);
+        }
+        return vertices;
+    }
+
+    /**
+     * Returns whether the edge between the specified vertices is constrained.
+     */
+    public boolean isConstrained (int a, int b) {
+        if (_last < 0) return false;
+        int edge = findEdge(_reps[a], _reps[b]);
+        return edge >= 0 && _fixed[edge];
+    }
+
+    /**
+     * Returns the triangles, as consecutive triples of vertex indices. The vertices of each
+     * triangle are ordered such that it has positive signed area.
+     */
+    public int[] triangles () {
+        return triangles(null);
+    }
+
+    /**
+     * Returns the triangles whose centroids lie in the supplied region (all triangles, if it is
+     * null), as consecutive triples of vertex indices. Given a region whose outline is
+     * constrained, this yields the triangles that cover the region.
+     */
+    public int[] triangles (IShape region) {
+        int[] V = _verts, tris = new int[triangleCount() * 3];
+        int count = 0;
+        for (int tt = 0; tt < _slots; tt++) {
+            if (!isReal(tt)) continue;
+            int a = V[tt*3], b = V[tt*3+1], c = V[tt*3+2];
+            if (region != null) {
+                float cx = (_coords[a*2] + _coords[b*2] + _coords[c*2]) / 3f;
+                float cy = (_coords[a*2+1] + _coords[b*2+1] + _coords[c*2+1]) / 3f;
+                if (!region.contains(cx, cy)) continue;
+            }
+            tris[count++] = a;
+            tris[count++] = b;
+            tris[count++] = c;
+        }
+        if (count == tris.length) return tris;
+        int[] ntris = new int[count];
+        System.arraycopy(tris, 0, ntris, 0, count);
+        return ntris;
+    }
+
+    /**
+     * Returns the index of the vertex nearest to the specified point, or -1 if there are no
+     * vertices. The search walks the triangulation, so it is exact only for unconstrained
+     * triangulations: constrained edges may hide the nearest vertex.
+     */
+    public int nearest (float x, float y) {
+        if (_last < 0) {
+            int best = -1;
+            double bestDist = Double.POSITIVE_INFINITY;
+            for (int vv = 0; vv < _vertexCount; vv++) {
+                double dist = distanceSq(vv, x, y);
+                if (dist < bestDist) {
+                    best = vv;
+                    bestDist = dist;
+                }
+            }
+            return best;
+        }
+
+        int[] V = _verts, T = _twins;
+        int tt = locate(x, y), best = -1;
+        double bestDist = Double.POSITIVE_INFINITY;
+        for (int ii = tt*3; ii < tt*3 + 3; ii++) {
+            if (V[ii] >= 0 && distanceSq(V[ii], x, y) < bestDist) {
+                best = V[ii];
+                bestDist = distanceSq(best, x, y);
+            }
+        }
+        // move to a nearer neighbor until there are none; in a Delaunay triangulation, this finds
+        // the nearest vertex
+        for (boolean moved = true; moved; ) {
+            moved = false;
+            int start = _edges[best], ee = start;
+            do {
+                int nv = V[next(ee)];
+                if (nv >= 0) {
+                    double dist = distanceSq(nv, x, y);
+                    if (dist < bestDist) {
+                        best = nv;
+                        bestDist = dist;
+                        moved = true;
+                        break;
+                    }
+                }
+                ee = T[prev(ee)];
+            } while (ee != start);
+        }
+        return best;
+    }
+
+    /**
+     * Returns the Voronoi cell of the specified vertex, clipped to the supplied rectangle: the
+     * region of the rectangle nearer to the vertex than to any other. A vertex that coincides with
+     * an earlier vertex has the cell of that vertex. The cells of a constrained triangulation are
+     * those of the constrained Delaunay neighbors of each vertex, and may overlap.
+     */
+    public Path voronoiCell (int vertex, IRectangle clip) {
+        return voronoiCell(vertex, clip, new double[2][16]);
+    }
+
+    /**
+     * Returns the Voronoi cells of all vertices, clipped to the supplied rectangle. See {@link
+     * #voronoiCell}. Large diagrams are computed in parallel.
+     */
+    public Path[] voronoi (IRectangle clip) {
+        final Path[] cells = new Path[_vertexCount];
+        final IRectangle fclip = clip;
+        int chunks = Math.max(1, Math.min(MAX_CHUNKS, cells.length / VORONOI_GRAIN));
+        List<Runnable> tasks = new ArrayList<Runnable>(chunks);
+        for (int ii = 0; ii < chunks; ii++) {
+            final int lo = (int)((long)cells.length * ii / chunks);
+            final int hi = (int)((long)cells.length * (ii + 1) / chunks);
+            tasks.add(new Runnable() {
+                @Override public void run () {
+                    double[][] scratch = new double[2][16];
+                    for (int vv = lo; vv < hi; vv++) cells[vv] = voronoiCell(vv, fclip, scratch);
+                }
+            });
+        }
+        Platform.invokeAll(tasks);
+        return cells;
+    }
+
+    protected Path voronoiCell (int vertex, IRectangle clip, double[][] scratch) {
+        int vv = _reps[vertex];
+        double vx = _coords[vv*2], vy = _coords[vv*2+1];
+        double[] poly = scratch[0];
+        poly[0] = clip.x();
+        poly[1] = clip.y();
+        poly[2] = clip.maxX();
+        poly[3] = clip.y();
+        poly[4] = clip.maxX();
+        poly[5] = clip.maxY();
+        poly[6] = clip.x();
+        poly[7] = clip.maxY();
+        int count = 4;
+
+        // clip the rectangle to the half of the plane nearer to the vertex than to each neighbor
+        if (_edges[vv] >= 0) {
+            int[] V = _verts, T = _twins;
+            int start = _edges[vv], ee = start;
+            do {
+                int nv = V[next(ee)];
+                if (nv >= 0) {
+                    count = clipToBisector(scratch, count, vx, vy, _coords[nv*2], _coords[nv*2+1]);
+                }
+                ee = T[prev(ee)];
+            } while (ee != start && count > 0);
+        } else {
+            // the triangulation is degenerate, so any vertex may be a neighbor
+            for (int nv = 0; nv < _vertexCount && count > 0; nv++) {
+                if (_reps[nv] != nv || nv == vv) continue;
+                count = clipToBisector(scratch, count, vx, vy, _coords[nv*2], _coords[nv*2+1]);
+            }
+        }
+
+        poly = scratch[0];
+        Path cell = new Path();
+        if (count == 0) return cell;
+        cell.moveTo((float)poly[0], (float)poly[1]);
+        for (int ii = 1; ii < count; ii++) cell.lineTo((float)poly[ii*2], (float)poly[ii*2+1]);
+        cell.closePath();
+        return cell;
+    }
+
+    /**
+     * Clips the convex polygon in {@code scratch[0]} to the points nearer to {@code v} than to
+     * {@code n}, storing the result in {@code scratch[0]}.
+     *
+     * @return the number of points in the clipped polygon.
+     */
+    protected static int clipToBisector (double[][] scratch, int count, double vx, double vy,
+                                         double nx, double ny) {
+        double dx = nx - vx, dy = ny - vy, mx = (vx + nx) / 2, my = (vy + ny) / 2;
+        double[] src = scratch[0], dst = scratch[1];
+        if (dst.length < count*2 + 2) dst = scratch[1] = new double[count*4 + 4];
+        int ncount = 0;
+        double px = src[count*2-2], py = src[count*2-1];
+        double pside = (px - mx) * dx + (py - my) * dy;
+        for (int ii = 0; ii < count; ii++) {
+            double cx = src[ii*2], cy = src[ii*2+1], side = (cx - mx) * dx + (cy - my) * dy;
+            if ((side <= 0) != (pside <= 0)) {
+                double t = pside / (pside - side);
+                dst[ncount*2] = px + (cx - px) * t;
+                dst[ncount*2+1] = py + (cy - py) * t;
+                ncount++;
+            }
+            if (side <= 0) {
+                dst[ncount*2] = cx;
+                dst[ncount*2+1] = cy;
+                ncount++;
+            }
+            px = cx;
+            py = cy;
+            pside = side;
+        }
+        scratch[0] = dst;
+        scratch[1] = src;
+        return ncount;
+    }
+
+    /**
+     * Inserts the specified (not yet inserted) vertices, in order, starting the triangulation if
+     * it has not yet been started.
+     */
+    protected void insertAll (int[] order, int count) {
+        if (_last < 0 && !begin(order, count)) return;
+        for (int ii = 0; ii < count; ii++) {
+            int vertex = order[ii];
+            if (_edges[vertex] < 0 && _reps[vertex] == vertex) insert(vertex);
+        }
+    }
+
+    /**
+     * Creates the first triangle (and its surrounding ghosts) from the first three non-collinear
+     * of the specified vertices.
+     *
+     * @return false if all of the vertices are collinear.
+     */
+    protected boolean begin (int[] order, int count) {
+        int a = order[0], b = -1, c = -1;
+        for (int ii = 1; ii < count && b < 0; ii++) {
+            int vv = order[ii];
+            if (_coords[vv*2] != _coords[a*2] || _coords[vv*2+1] != _coords[a*2+1]) b = vv;
+        }
+        if (b < 0) return false;
+        double side = 0;
+        for (int ii = 1; ii < count && c < 0; ii++) {
+            side = orient(a, b, order[ii]);
+            if (side != 0) c = order[ii];
+        }
+        if (c < 0) return false;
+        if (side < 0) {
+            int t = b;
+            b = c;
+            c = t;
+        }
+
+        int tt = newTriangle(a, b, c);
+        int g0 = newTriangle(b, a, INFINITE), g1 = newTriangle(c, b, INFINITE);
+        int g2 = newTriangle(a, c, INFINITE);
+        link(tt*3, g0*3);
+        link(tt*3+1, g1*3);
+        link(tt*3+2, g2*3);
+        link(g0*3+1, g2*3+2);
+        link(g2*3+1, g1*3+2);
+        link(g1*3+1, g0*3+2);
+        _edges[a] = tt*3;
+        _edges[b] = tt*3+1;
+        _edges[c] = tt*3+2;
+        _last = tt;
+        return true;
+    }
+
+    /**
+     * Inserts the specified vertex, replacing the triangles whose circumcircles contain it (and
+     * which are not hidden from it by a constrained edge) with a fan of triangles around it.
+     */
+    protected void insert (int vertex) {
+        float x = _coords[vertex*2], y = _coords[vertex*2+1];
+        int[] V = _verts, T = _twins;
+        int tt = locate(x, y);
+        if (isReal(tt)) {
+            for (int ii = tt*3; ii < tt*3 + 3; ii++) {
+                int vv = V[ii];
+                if (_coords[vv*2] == x && _coords[vv*2+1] == y) {
+                    _reps[vertex] = vv;
+                    return;
+                }
+            }
+        }
+
+        // find the cavity: the triangles whose circumcircles contain the point
+        int stamp = ++_stamp, cavityCount = 1, boundaryCount = 0, splitA = -1, splitB = -1;
+        _marks[tt] = stamp;
+        _cavity[0] = tt;
+        for (int ii = 0; ii < cavityCount; ii++) {
+            int ct = _cavity[ii];
+            for (int ee = ct*3; ee < ct*3 + 3; ee++) {
+                int nt = T[ee] / 3;
+                if (_marks[nt] == stamp) continue;
+                boolean open = !_fixed[ee];
+                if (!open && onEdge(ee, x, y)) {
+                    // the point divides a constrained edge, which must be divided in turn
+                    open = true;
+                    splitA = V[ee];
+                    splitB = V[next(ee)];
+                }
+                if (open && inCircumcircle(nt, x, y)) {
+                    _marks[nt] = stamp;
+                    if (cavityCount == _cavity.length) _cavity = grow(_cavity, cavityCount);
+                    _cavity[cavityCount++] = nt;
+                } else {
+                    // note the edge's vertices, twin and whether it is constrained, as the
+                    // cavity's triangles will be reused
+                    if (boundaryCount*4 == _boundary.length) {
+                        _boundary = grow(_boundary, boundaryCount*4);
+                    }
+                    int[] B = _boundary;
+                    B[boundaryCount*4] = V[ee];
+                    B[boundaryCount*4+1] = V[next(ee)];
+                    B[boundaryCount*4+2] = T[ee];
+                    B[boundaryCount*4+3] = _fixed[ee] ? 1 : 0;
+                    boundaryCount++;
+                }
+            }
+        }
+
+        // replace the cavity with a fan of triangles from its boundary edges to the vertex
+        for (int ii = 0; ii < cavityCount; ii++) freeTriangle(_cavity[ii]);
+        int[] B = _boundary;
+        int infiniteStart = -1;
+        for (int ii = 0; ii < boundaryCount*4; ii += 4) {
+            int from = B[ii], to = B[ii+1], nt = newTriangle(from, to, vertex);
+            link(nt*3, B[ii+2]);
+            _fixed[nt*3] = (B[ii+3] != 0);
+            B[ii+3] = nt;
+            if (from == INFINITE) infiniteStart = nt;
+            else {
+                _star[from] = nt;
+                _edges[from] = nt*3;
+                if (to != INFINITE) _last = nt;
+            }
+        }
+        for (int ii = 0; ii < boundaryCount*4; ii += 4) {
+            int to = B[ii+1];
+            link(B[ii+3]*3 + 1, (to == INFINITE ? infiniteStart : _star[to])*3 + 2);
+        }
+        _edges[vertex] = B[3]*3 + 2;
+
+        if (splitA >= 0) {
+            fix(_star[splitA]*3 + 2);
+            fix(_star[splitB]*3 + 2);
+        }
+    }
+
+    /**
+     * Returns a triangle containing the specified point: a real triangle if the point is inside
+     * the hull, otherwise a ghost triangle whose hull edge the point lies beyond.
+     */
+    protected int locate (float x, float y) {
+        int[] V = _verts, T = _twins;
+        int tt = _last, rand = 0;
+        for (boolean moved = true; moved && isReal(tt); ) {
+            moved = false;
+            // start with a varying edge, so that the walk cannot cycle
+            rand = rand * 1103515245 + 12345;
+            int base = tt*3, first = (rand >>> 16) % 3;
+            for (int ii = 0; ii < 3 && !moved; ii++) {
+                int ee = base + (first + ii) % 3, a = V[ee], b = V[next(ee)];
+                if (Predicates.orient(_coords[a*2], _coords[a*2+1], _coords[b*2], _coords[b*2+1],
+                                      x, y) < 0) {
+                    tt = T[ee] / 3;
+                    moved = true;
+                }
+            }
+        }
+        return tt;
+    }
+
+    /**
+     * Returns the half-edge by which the segment from vertex {@code a} to {@code b} leaves the
+     * fan of triangles around {@code a}: the edge from {@code a} to a vertex that lies on the
+     * segment, or otherwise the edge opposite {@code a} that the segment crosses.
+     */
+    protected int entering (int a, int b) {
+        int[] V = _verts, T = _twins;
+        int start = _edges[a], ee = start;
+        do {
+            // the edge to x may be a hull edge (and its triangle a ghost), so check whether the
+            // segment passes through x before requiring a real triangle
+            int x = V[next(ee)], y = V[prev(ee)];
+            if (x >= 0) {
+                double ox = orient(a, b, x);
+                if (ox == 0 && inDirection(a, b, x)) return ee;
+                if (y >= 0 && ox < 0 && orient(a, b, y) > 0) return next(ee);
+            }
+            ee = T[prev(ee)];
+        } while (ee != start);
+        throw new IllegalStateException("No triangle around " + a + " faces " + b);
+    }
+
+    /**
+     * Walks the edges crossed by the segment from vertex {@code a} toward {@code b}, starting
+     * with {@code enter}, up to {@code b} or the first vertex that lies on the segment.
+     *
+     * @param collect whether to record the crossed edges via {@link #addCrossing}.
+     * @return the vertex at which the walk ended, or -1 if a crossed edge is constrained.
+     */
+    protected int crossings (int a, int b, int enter, boolean collect) {
+        int[] V = _verts, T = _twins;
+        if (collect) _crossCount = 0;
+        for (int he = enter;;) {
+            if (_fixed[he]) return -1;
+            if (collect) addCrossing(V[he], V[next(he)]);
+            int twin = T[he], z = V[prev(twin)];
+            double oz = orient(a, b, z);
+            if (oz == 0) return z;
+            // the crossed edges run from right to left of the segment
+            he = (oz < 0) ? prev(twin) : next(twin);
+        }
+    }
+
+    /**
+     * Returns whether the specified point lies inside the circumcircle of the specified triangle.
+     * The "circumcircle" of a ghost triangle is the open half-plane beyond its hull edge, plus the
+     * interior of the edge.
+     */
+    protected boolean inCircumcircle (int tt, float x, float y) {
+        int[] V = _verts;
+        int a = V[tt*3], b = V[tt*3+1], c = V[tt*3+2];
+        if (a == INFINITE) return beyondHullEdge(b, c, x, y);
+        if (b == INFINITE) return beyondHullEdge(c, a, x, y);
+        if (c == INFINITE) return beyondHullEdge(a, b, x, y);
+        float[] p = _coords;
+        return Predicates.inCircle(p[a*2], p[a*2+1], p[b*2], p[b*2+1], p[c*2], p[c*2+1],
+                                   x, y) > 0;
+    }
+
+    protected boolean beyondHullEdge (int a, int b, float x, float y) {
+        float[] p = _coords;
+        double side = Predicates.orient(p[a*2], p[a*2+1], p[b*2], p[b*2+1], x, y);
+        return side > 0 || (side == 0 && between(a, b, x, y));
+    }
+
+    /**
+     * Returns whether the specified point lies strictly inside the specified (real) edge.
+     */
+    protected boolean onEdge (int edge, float x, float y) {
+        int a = _verts[edge], b = _verts[next(edge)];
+        if (a == INFINITE || b == INFINITE) return false;
+        float[] p = _coords;
+        return Predicates.orient(p[a*2], p[a*2+1], p[b*2], p[b*2+1], x, y) == 0 &&
+            between(a, b, x, y);
+    }
+
+    /**
+     * Returns whether a point collinear with vertices {@code a} and {@code b} lies strictly
+     * between them.
+     */
+    protected boolean between (int a, int b, float x, float y) {
+        float[] p = _coords;
+        float ax = p[a*2], bx = p[b*2];
+        if (ax != bx) return (ax < x && x < bx) || (bx < x && x < ax);
+        float ay = p[a*2+1], by = p[b*2+1];
+        return (ay < y && y < by) || (by < y && y < ay);
+    }
+
+    /**
+     * Returns whether vertex {@code c}, which is collinear with {@code a} and {@code b}, lies in
+     * the direction of {@code b} from {@code a}.
+     */
+    protected boolean inDirection (int a, int b, int c) {
+        float[] p = _coords;
+        return (p[b*2] - p[a*2]) * (double)(p[c*2] - p[a*2]) +
+            (p[b*2+1] - p[a*2+1]) * (double)(p[c*2+1] - p[a*2+1]) > 0;
+    }
+
+    /**
+     * Flips the edges collected by {@link #addCrossing}, all of which cross the segment from
+     * {@code a} to {@code b}, until none do, then constrains that edge and restores the Delaunay
+     * property of the edges created in the process.
+     */
+    protected void removeCrossings (int a, int b) {
+        int[] V = _verts, T = _twins, queue = _crossings;
+        int capacity = _crossCount, head = 0, size = _crossCount, created = 0;
+        int[] edges = new int[capacity*2];
+        while (size > 0) {
+            int u = queue[head*2], w = queue[head*2+1];
+            head = (head + 1) % capacity;
+            size--;
+            int edge = findEdge(u, w), c = V[prev(edge)], d = V[prev(T[edge])];
+            int tail = (head + size) % capacity;
+            if (oppositeSides(c, d, u, w)) {
+                // the quadrilateral is convex, so the edge can be flipped
+                flip(edge);
+                if (c != a && c != b && d != a && d != b && oppositeSides(a, b, c, d)) {
+                    queue[tail*2] = c;
+                    queue[tail*2+1] = d;
+                    size++;
+                } else {
+                    edges[created*2] = c;
+                    edges[created*2+1] = d;
+                    created++;
+                }
+            } else {
+                queue[tail*2] = u;
+                queue[tail*2+1] = w;
+                size++;
+            }
+        }
+        fix(findEdge(a, b));
+
+        for (boolean flipped = true; flipped; ) {
+            flipped = false;
+            for (int ii = 0; ii < created; ii++) {
+                int u = edges[ii*2], w = edges[ii*2+1];
+                int edge = findEdge(u, w);
+                if (_fixed[edge]) continue;
+                int c = V[prev(edge)], d = V[prev(T[edge])];
+                if (c == INFINITE || d == INFINITE) continue;
+                float[] p = _coords;
+                if (Predicates.inCircle(p[u*2], p[u*2+1], p[w*2], p[w*2+1], p[c*2], p[c*2+1],
+                                        p[d*2], p[d*2+1]) > 0) {
+                    flip(edge);
+                    edges[ii*2] = c;
+                    edges[ii*2+1] = d;
+                    flipped = true;
+                }
+            }
+        }
+    }
+
+    protected void addCrossing (int u, int w) {
+        if (_crossCount*2 == _crossings.length) _crossings = grow(_crossings, _crossCount*2);
+        _crossings[_crossCount*2] = u;
+        _crossings[_crossCount*2+1] = w;
+        _crossCount++;
+    }
+
+    /**
+     * Returns whether vertices {@code c} and {@code d} lie strictly on opposite sides of the line
+     * through {@code a} and {@code b}.
+     */
+    protected boolean oppositeSides (int a, int b, int c, int d) {
+        double sc = orient(a, b, c), sd = orient(a, b, d);
+        return (sc > 0 && sd < 0) || (sc < 0 && sd > 0);
+    }
+
+    /**
+     * Replaces the specified edge, the diagonal of the quadrilateral formed by its two triangles,
+     * with the other diagonal.
+     */
+    protected void flip (int edge) {
+        int[] V = _verts, T = _twins;
+        boolean[] F = _fixed;
+        // the triangles (a, b, c) and (b, a, d) become (d, b, c) and (c, a, d)
+        int twin = T[edge], e1 = next(edge), e2 = prev(edge), f1 = next(twin), f2 = prev(twin);
+        int a = V[edge], b = V[twin], c = V[e2], d = V[f2];
+        int te2 = T[e2], tf2 = T[f2];
+        boolean fe2 = F[e2], ff2 = F[f2];
+        V[edge] = d;
+        V[twin] = c;
+        link(edge, tf2);
+        F[edge] = ff2;
+        link(twin, te2);
+        F[twin] = fe2;
+        link(e2, f2);
+        F[e2] = F[f2] = false;
+        _edges[a] = f1;
+        _edges[b] = e1;
+        _edges[c] = e2;
+        _edges[d] = edge;
+    }
+
+    /**
+     * Returns the half-edge from {@code a} to {@code b}, or -1 if there is none.
+     */
+    protected int findEdge (int a, int b) {
+        int[] V = _verts, T = _twins;
+        int start = _edges[a], ee = start;
+        do {
+            if (V[next(ee)] == b) return ee;
+            ee = T[prev(ee)];
+        } while (ee != start);
+        return -1;
+    }
+
+    protected void fix (int edge) {
+        _fixed[edge] = _fixed[_twins[edge]] = true;
+    }
+
+    protected void link (int e, int f) {
+        _twins[e] = f;
+        _twins[f] = e;
+    }
+
+    protected double orient (int a, int b, int c) {
+        float[] p = _coords;
+        return Predicates.orient(p[a*2], p[a*2+1], p[b*2], p[b*2+1], p[c*2], p[c*2+1]);
+    }
+
+    protected double distanceSq (int vertex, float x, float y) {
+        double dx = _coords[vertex*2] - x, dy = _coords[vertex*2+1] - y;
+        return dx*dx + dy*dy;
+    }
+
+    protected boolean isReal (int tt) {
+        int[] V = _verts;
+        return V[tt*3] >= 0 && V[tt*3+1] >= 0 && V[tt*3+2] >= 0;
+    }
+
+    protected int newTriangle (int a, int b, int c) {
+        int tt;
+        if (_freeCount > 0) tt = _free[--_freeCount];
+        else {
+            tt = _slots++;
+            if (_slots > _marks.length) {
+                int capacity = Math.max(_slots * 2, 16);
+                _verts = grow(_verts, capacity * 3);
+                _twins = grow(_twins, capacity * 3);
+                boolean[] fixed = new boolean[capacity * 3];
+                System.arraycopy(_fixed, 0, fixed, 0, _fixed.length);
+                _fixed = fixed;
+                _marks = grow(_marks, capacity);
+            }
+        }
+        _verts[tt*3] = a;
+        _verts[tt*3+1] = b;
+        _verts[tt*3+2] = c;
+        _fixed[tt*3] = _fixed[tt*3+1] = _fixed[tt*3+2] = false;
+        return tt;
+    }
+
+    protected void freeTriangle (int tt) {
+        _verts[tt*3] = _verts[tt*3+1] = _verts[tt*3+2] = FREE;
+        if (_freeCount == _free.length) _free = grow(_free, _freeCount);
+        _free[_freeCount++] = tt;
+    }
+
+    protected void ensureVertices (int count) {
+        if (count <= _reps.length) return;
+        int capacity = Math.max(count, _reps.length * 2);
+        float[] coords = new float[capacity * 2];
+        System.arraycopy(_coords, 0, coords, 0, _vertexCount * 2);
+        _coords = coords;
+        _reps = grow(_reps, capacity);
+        _edges = grow(_edges, capacity);
+        _star = new int[capacity];
+    }
+
+    protected static int[] grow (int[] values, int capacity) {
+        int[] nvalues = new int[Math.max(capacity, values.length * 2)];
+        System.arraycopy(values, 0, nvalues, 0, values.length);
+        return nvalues;
+    }
+
+    protected static int next (int edge) {
+        return (edge % 3 == 2) ? edge - 2 : edge + 1;
+    }
+
+    protected static int prev (int edge) {
+        return (edge % 3 == 0) ? edge + 2 : edge - 1;
+    }
+
+    protected static float[] pack (XY[] points) {
+        float[] xy = new float[points.length * 2];
+        for (int ii = 0; ii < points.length; ii++) {
+            xy[ii*2] = points[ii].x();
+            xy[ii*2+1] = points[ii].y();
+        }
+        return xy;
+    }
+
+    /** The coordinates of the vertices, as x, y pairs. */
+    protected float[] _coords = new float[0];
+    protected int _vertexCount;
+
+    /** The vertex that represents each vertex in the triangulation. */
+    protected int[] _reps = new int[0];
+
+    /** A half-edge leaving each vertex, or -1 for vertices not (yet) in the triangulation. */
+    protected int[] _edges = new int[0];
+
+    /** The vertices of the triangles, in threes. Half-edge {@code e} leaves vertex {@code
+     * _verts[e]} and belongs to triangle {@code e / 3}. Ghost triangles include {@link
+     * #INFINITE}, and free triangles {@link #FREE}. */
+    protected int[] _verts = new int[0];
+
+    /** The opposite of each half-edge. */
+    protected int[] _twins = new int[0];
+
+    /** Whether each half-edge is constrained. */
+    protected boolean[] _fixed = new boolean[0];
+
+    /** The number of triangle slots in use, and a stack of those that are free. */
+    protected int _slots, _freeCount;
+    protected int[] _free = new int[16];
+
+    /** A recently created real triangle, from which to start walks; -1 until there are
+     * triangles. */
+    protected int _last = -1;
+
+    /** Scratch storage for insertion: cavity marks, cavity triangles, cavity boundary edges (in
+     * fours: from, to, twin and constrained, then the fan triangle built on the edge) and the
+     * triangle of the new fan that starts at each vertex. */
+    protected int[] _marks = new int[0], _cavity = new int[16], _boundary = new int[16];
+    protected int[] _star = new int[0];
+    protected int _stamp;
+
+    /** Scratch storage for constraints: the edges crossed by a constrained edge, in pairs. */
+    protected int[] _crossings = new int[16];
+    protected int _crossCount;
+
+    /** The vertex at infinity, shared by the ghost triangles. */
+    protected static final int INFINITE = -1;
+
+    /** The vertex of free triangles. */
+    protected static final int FREE = -2;
+
+    /** The number of cells computed by each task, and the maximum number of tasks. */
+    protected static final int VORONOI_GRAIN = 4096, MAX_CHUNKS = 64;
+}
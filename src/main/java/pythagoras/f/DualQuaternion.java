@@ -0,0 +1,375 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+import pythagoras.util.Platform;
+
+/**
+ * A dual quaternion, which (when of unit length) represents a rigid transform: a rotation
+ * followed by a translation. Unlike matrices, dual quaternions may be blended linearly (see
+ * {@link #blend}) without introducing scale or shear, which makes them well suited to skinning
+ * (see {@link Skinning}). The formulas follow Kavan et al., <a
+ * href="https://users.cs.utah.edu/~ladislav/kavan07skinning/kavan07skinning.pdf">Skinning with
+ * Dual Quaternions</a>.
+ */
+public class DualQuaternion implements IDualQuaternion, Externalizable
+{
+    private static final long serialVersionUID = -4407916870617302446L;
+
+    /** The identity dual quaternion. */
+    public static final IDualQuaternion IDENTITY = new DualQuaternion();
+
+    /** The components of the real part. */
+    public float x, y, z, w;
+
+    /** The components of the dual part. */
+    public float dx, dy, dz, dw;
+
+    /**
+     * Creates a dual quaternion which rotates and then translates.
+     */
+    public DualQuaternion (IQuaternion rotation, IVector3 translation) {
+        set(rotation, translation);
+    }
+
+    /**
+     * Copy constructor.
+     */
+    public DualQuaternion (IDualQuaternion other) {
+        set(other);
+    }
+
+    /**
+     * Creates an identity dual quaternion.
+     */
+    public DualQuaternion () {
+        setToIdentity();
+    }
+
+    /**
+     * Sets this to the identity dual quaternion.
+     *
+     * @return a reference to this dual quaternion, for chaining.
+     */
+    public DualQuaternion setToIdentity () {
+        return set(0f, 0f, 0f, 1f, 0f, 0f, 0f, 0f);
+    }
+
+    /**
+     * Sets this to a dual quaternion which rotates and then translates.
+     *
+     * @return a reference to this dual quaternion, for chaining.
+     */
+    public DualQuaternion set (IQuaternion rotation, IVector3 translation) {
+        float x = rotation.x(), y = rotation.y(), z = rotation.z(), w = rotation.w();
+        float tx = translation.x(), ty = translation.y(), tz = translation.z();
+        return set(x, y, z, w,
+                   0.5f * (tx*w + ty*z - tz*y),
+                   0.5f * (ty*w + tz*x - tx*z),
+                   0.5f * (tz*w + tx*y - ty*x),
+                   -0.5f * (tx*x + ty*y + tz*z));
+    }
+
+    /**
+     * Copies the elements of another dual quaternion.
+     *
+     * @return a reference to this dual quaternion, for chaining.
+     */
+    public DualQuaternion set (IDualQuaternion other) {
+        return set(other.x(), other.y(), other.z(), other.w(),
+                   other.dx(), other.dy(), other.dz(), other.dw());
+    }
+
+    /**
+     * Copies eight elements of an array, starting at the specified offset.
+     *
+     * @return a reference to this dual quaternion, for chaining.
+     */
+    public DualQuaternion set (float[] values, int offset) {
+        return set(values[offset], values[offset+1], values[offset+2], values[offset+3],
+                   values[offset+4], values[offset+5], values[offset+6], values[offset+7]);
+    }
+
+    /**
+     * Sets all of the elements of the dual quaternion.
+     *
+     * @return a reference to this dual quaternion, for chaining.
+     */
+    public DualQuaternion set (float x, float y, float z, float w,
+                               float dx, float dy, float dz, float dw) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.w = w;
+        this.dx = dx;
+        this.dy = dy;
+        this.dz = dz;
+        this.dw = dw;
+        return this;
+    }
+
+    /**
+     * Normalizes this dual quaternion in-place.
+     *
+     * @return a reference to this dual quaternion, for chaining.
+     */
+    public DualQuaternion normalizeLocal () {
+        return normalize(this);
+    }
+
+    /**
+     * Inverts this dual quaternion in-place.
+     *
+     * @return a reference to this dual quaternion, for chaining.
+     */
+    public DualQuaternion invertLocal () {
+        return invert(this);
+    }
+
+    /**
+     * Multiplies this dual quaternion in-place by another.
+     *
+     * @return a reference to this dual quaternion, for chaining.
+     */
+    public DualQuaternion multLocal (IDualQuaternion other) {
+        return mult(other, this);
+    }
+
+    /**
+     * Blends {@code count} dual quaternions, starting at {@code offset}, according to the
+     * supplied weights (dual quaternion linear blending), and stores the normalized result in
+     * {@code result}. Each dual quaternion is negated if necessary so that all are blended in the
+     * hemisphere of the first.
+     *
+     * @return a reference to the result, for chaining.
+     */
+    public static DualQuaternion blend (IDualQuaternion[] dqs, float[] weights, int offset,
+                                        int count, DualQuaternion result) {
+        float x = 0f, y = 0f, z = 0f, w = 0f, dx = 0f, dy = 0f, dz = 0f, dw = 0f;
+        IDualQuaternion first = dqs[offset];
+        for (int ii = offset, ll = offset + count; ii < ll; ii++) {
+            IDualQuaternion dq = dqs[ii];
+            float weight = weights[ii];
+            if (first.x()*dq.x() + first.y()*dq.y() + first.z()*dq.z() + first.w()*dq.w() < 0f) {
+                weight = -weight;
+            }
+            x += weight * dq.x();
+            y += weight * dq.y();
+            z += weight * dq.z();
+            w += weight * dq.w();
+            dx += weight * dq.dx();
+            dy += weight * dq.dy();
+            dz += weight * dq.dz();
+            dw += weight * dq.dw();
+        }
+        return result.set(x, y, z, w, dx, dy, dz, dw).normalizeLocal();
+    }
+
+    @Override // from IDualQuaternion
+    public float x () {
+        return x;
+    }
+
+    @Override // from IDualQuaternion
+    public float y () {
+        return y;
+    }
+
+    @Override // from IDualQuaternion
+    public float z () {
+        return z;
+    }
+
+    @Override // from IDualQuaternion
+    public float w () {
+        return w;
+    }
+
+    @Override // from IDualQuaternion
+    public float dx () {
+        return dx;
+    }
+
+    @Override // from IDualQuaternion
+    public float dy () {
+        return dy;
+    }
+
+    @Override // from IDualQuaternion
+    public float dz () {
+        return dz;
+    }
+
+    @Override // from IDualQuaternion
+    public float dw () {
+        return dw;
+    }
+
+    @Override // from IDualQuaternion
+    public void get (float[] values, int offset) {
+        values[offset] = x;
+        values[offset+1] = y;
+        values[offset+2] = z;
+        values[offset+3] = w;
+        values[offset+4] = dx;
+        values[offset+5] = dy;
+        values[offset+6] = dz;
+        values[offset+7] = dw;
+    }
+
+    @Override // from IDualQuaternion
+    public boolean hasNaN () {
+        return Float.isNaN(x) || Float.isNaN(y) || Float.isNaN(z) || Float.isNaN(w) ||
+            Float.isNaN(dx) || Float.isNaN(dy) || Float.isNaN(dz) || Float.isNaN(dw);
+    }
+
+    @Override // from IDualQuaternion
+    public Quaternion rotation (Quaternion result) {
+        return result.set(x, y, z, w);
+    }
+
+    @Override // from IDualQuaternion
+    public Vector3 translation (Vector3 result) {
+        // twice the vector part of the dual part times the conjugate of the real part
+        return result.set(2f * (w*dx - dw*x + y*dz - z*dy),
+                          2f * (w*dy - dw*y + z*dx - x*dz),
+                          2f * (w*dz - dw*z + x*dy - y*dx));
+    }
+
+    @Override // from IDualQuaternion
+    public DualQuaternion normalize () {
+        return normalize(new DualQuaternion());
+    }
+
+    @Override // from IDualQuaternion
+    public DualQuaternion normalize (DualQuaternion result) {
+        float rlen = 1f / FloatMath.sqrt(x*x + y*y + z*z + w*w);
+        float nx = x*rlen, ny = y*rlen, nz = z*rlen, nw = w*rlen;
+        float ndx = dx*rlen, ndy = dy*rlen, ndz = dz*rlen, ndw = dw*rlen;
+        // remove the component of the dual part parallel to the real part
+        float dot = nx*ndx + ny*ndy + nz*ndz + nw*ndw;
+        return result.set(nx, ny, nz, nw, ndx - nx*dot, ndy - ny*dot, ndz - nz*dot, ndw - nw*dot);
+    }
+
+    @Override // from IDualQuaternion
+    public DualQuaternion invert () {
+        return invert(new DualQuaternion());
+    }
+
+    @Override // from IDualQuaternion
+    public DualQuaternion invert (DualQuaternion result) {
+        return result.set(-x, -y, -z, w, -dx, -dy, -dz, dw);
+    }
+
+    @Override // from IDualQuaternion
+    public DualQuaternion mult (IDualQuaternion other) {
+        return mult(other, new DualQuaternion());
+    }
+
+    @Override // from IDualQuaternion
+    public DualQuaternion mult (IDualQuaternion other, DualQuaternion result) {
+        float ox = other.x(), oy = other.y(), oz = other.z(), ow = other.w();
+        float odx = other.dx(), ody = other.dy(), odz = other.dz(), odw = other.dw();
+        // real = r * or, dual = r * od + d * or
+        return result.set(w*ox + x*ow + y*oz - z*oy,
+                          w*oy + y*ow + z*ox - x*oz,
+                          w*oz + z*ow + x*oy - y*ox,
+                          w*ow - x*ox - y*oy - z*oz,
+                          w*odx + x*odw + y*odz - z*ody + dw*ox + dx*ow + dy*oz - dz*oy,
+                          w*ody + y*odw + z*odx - x*odz + dw*oy + dy*ow + dz*ox - dx*oz,
+                          w*odz + z*odw + x*ody - y*odx + dw*oz + dz*ow + dx*oy - dy*ox,
+                          w*odw - x*odx - y*ody - z*odz + dw*ow - dx*ox - dy*oy - dz*oz);
+    }
+
+    @Override // from IDualQuaternion
+    public Vector3 transformPoint (IVector3 point) {
+        return transformPoint(point, new Vector3());
+    }
+
+    @Override // from IDualQuaternion
+    public Vector3 transformPoint (IVector3 point, Vector3 result) {
+        float px = point.x(), py = point.y(), pz = point.z();
+        // p + 2r x (r x p + wp) + 2(wd - dw r + r x d), where r and d are the vector parts
+        float cx = y*pz - z*py + w*px, cy = z*px - x*pz + w*py, cz = x*py - y*px + w*pz;
+        return result.set(px + 2f * (y*cz - z*cy + w*dx - dw*x + y*dz - z*dy),
+                          py + 2f * (z*cx - x*cz + w*dy - dw*y + z*dx - x*dz),
+                          pz + 2f * (x*cy - y*cx + w*dz - dw*z + x*dy - y*dx));
+    }
+
+    @Override // from IDualQuaternion
+    public Vector3 transformVector (IVector3 vector, Vector3 result) {
+        float vx = vector.x(), vy = vector.y(), vz = vector.z();
+        float cx = y*vz - z*vy + w*vx, cy = z*vx - x*vz + w*vy, cz = x*vy - y*vx + w*vz;
+        return result.set(vx + 2f * (y*cz - z*cy),
+                          vy + 2f * (z*cx - x*cz),
+                          vz + 2f * (x*cy - y*cx));
+    }
+
+    @Override // from IDualQuaternion
+    public Matrix4 toMatrix (Matrix4 result) {
+        float xx = x*x, yy = y*y, zz = z*z;
+        float xy = x*y, xz = x*z, xw = x*w;
+        float yz = y*z, yw = y*w, zw = z*w;
+        return result.set(1f - 2f*(yy + zz), 2f*(xy - zw), 2f*(xz + yw),
+                          2f * (w*dx - dw*x + y*dz - z*dy),
+                          2f*(xy + zw), 1f - 2f*(xx + zz), 2f*(yz - xw),
+                          2f * (w*dy - dw*y + z*dx - x*dz),
+                          2f*(xz - yw), 2f*(yz + xw), 1f - 2f*(xx + yy),
+                          2f * (w*dz - dw*z + x*dy - y*dx),
+                          0f, 0f, 0f, 1f);
+    }
+
+    @Override // from interface Externalizable
+    public void writeExternal (ObjectOutput out) throws IOException {
+        out.writeFloat(x);
+        out.writeFloat(y);
+        out.writeFloat(z);
+        out.writeFloat(w);
+        out.writeFloat(dx);
+        out.writeFloat(dy);
+        out.writeFloat(dz);
+        out.writeFloat(dw);
+    }
+
+    @Override // from interface Externalizable
+    public void readExternal (ObjectInput in) throws IOException {
+        x = in.readFloat();
+        y = in.readFloat();
+        z = in.readFloat();
+        w = in.readFloat();
+        dx = in.readFloat();
+        dy = in.readFloat();
+        dz = in.readFloat();
+        dw = in.readFloat();
+    }
+
+    @Override // documentation inherited
+    public String toString () {
+        return "[" + x + ", " + y + ", " + z + ", " + w + "; " +
+            dx + ", " + dy + ", " + dz + ", " + dw + "]";
+    }
+
+    @Override // documentation inherited
+    public int hashCode () {
+        return Platform.hashCode(x) ^ Platform.hashCode(y) ^ Platform.hashCode(z) ^
+            Platform.hashCode(w) ^ Platform.hashCode(dx) ^ Platform.hashCode(dy) ^
+            Platform.hashCode(dz) ^ Platform.hashCode(dw);
+    }
+
+    @Override // documentation inherited
+    public boolean equals (Object other) {
+        if (!(other instanceof DualQuaternion)) {
+            return false;
+        }
+        DualQuaternion odq = (DualQuaternion)other;
+        return x == odq.x && y == odq.y && z == odq.z && w == odq.w &&
+            dx == odq.dx && dy == odq.dy && dz == odq.dz && dw == odq.dw;
+    }
+}
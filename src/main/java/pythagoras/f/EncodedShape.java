@@ -0,0 +1,239 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only shape which reads its segments directly from a buffer containing a record written
+ * by {@link PathCodec}. No coordinates are copied onto the heap: path iteration and hit testing
+ * read from the buffer, which may be memory-mapped. Obtain instances via {@link PathCodec#wrap}.
+ */
+public final class EncodedShape implements IShape
+{
+    /**
+     * Returns true if this shape was encoded from an {@link Area}.
+     */
+    public boolean isArea () {
+        return (_flags & PathCodec.FLAG_AREA) != 0;
+    }
+
+    /**
+     * Returns the winding rule of this shape.
+     */
+    public int windingRule () {
+        return (_flags & PathCodec.FLAG_NON_ZERO) != 0 ?
+            PathIterator.WIND_NON_ZERO : PathIterator.WIND_EVEN_ODD;
+    }
+
+    /**
+     * Returns the number of segments in this shape.
+     */
+    public int segmentCount () {
+        return _segments;
+    }
+
+    /**
+     * Returns the number of coordinates (twice the number of points) in this shape.
+     */
+    public int coordCount () {
+        return _coords;
+    }
+
+    /**
+     * Returns the number of bytes occupied by this shape's record.
+     */
+    public int encodedSize () {
+        return _buf.limit();
+    }
+
+    /**
+     * Creates a heap copy of this shape as a {@link Path}.
+     */
+    public Path toPath () {
+        return PathCodec.readPath(_buf.duplicate());
+    }
+
+    /**
+     * Creates a heap copy of this shape as an {@link Area}.
+     */
+    public Area toArea () {
+        return PathCodec.readArea(_buf.duplicate());
+    }
+
+    @Override // from interface IShape
+    public boolean isEmpty () {
+        return bounds().isEmpty();
+    }
+
+    @Override // from interface IShape
+    public boolean contains (float px, float py) {
+        return isInside(Crossing.crossShape(this, px, py));
+    }
+
+    @Override // from interface IShape
+    public boolean contains (XY p) {
+        return contains(p.x(), p.y());
+    }
+
+    @Override // from interface IShape
+    public boolean contains (float rx, float ry, float rw, float rh) {
+        int cross = Crossing.intersectShape(this, rx, ry, rw, rh);
+        return cross != Crossing.CROSSING && isInside(cross);
+    }
+
+    @Override // from interface IShape
+    public boolean contains (IRectangle r) {
+        return contains(r.x(), r.y(), r.width(), r.height());
+    }
+
+    @Override // from interface IShape
+    public boolean intersects (float rx, float ry, float rw, float rh) {
+        if (!bounds().intersects(rx, ry, rw, rh)) return false;
+        int cross = Crossing.intersectShape(this, rx, ry, rw, rh);
+        return cross == Crossing.CROSSING || isInside(cross);
+    }
+
+    @Override // from interface IShape
+    public boolean intersects (IRectangle r) {
+        return intersects(r.x(), r.y(), r.width(), r.height());
+    }
+
+    @Override // from interface IShape
+    public Rectangle bounds () {
+        return bounds(new Rectangle());
+    }
+
+    @Override // from interface IShape
+    public Rectangle bounds (Rectangle target) {
+        int off = PathCodec.HEADER_SIZE, size = _coordSize;
+        target.setBounds(coord(off), coord(off + size), coord(off + 2*size), coord(off + 3*size));
+        return target;
+    }
+
+    @Override // from interface IShape
+    public Rectangle tightBounds () {
+        return tightBounds(new Rectangle());
+    }
+
+    @Override // from interface IShape
+    public Rectangle tightBounds (Rectangle target) {
+        return Path.tightBounds(pathIterator(null), target);
+    }
+
+    @Override // from interface IShape
+    public PathIterator pathIterator (Transform t) {
+        return new Iterator(t);
+    }
+
+    @Override // from interface IShape
+    public PathIterator pathIterator (Transform t, float flatness) {
+        return new FlatteningPathIterator(pathIterator(t), flatness);
+    }
+
+    @Override // from Object
+    public String toString () {
+        return "EncodedShape[segments=" + _segments + ", coords=" + _coords +
+            ", area=" + isArea() + "]";
+    }
+
+    EncodedShape (ByteBuffer buf) {
+        _buf = buf;
+        _flags = buf.get(3);
+        _segments = buf.getInt(PathCodec.SEGMENTS_OFFSET);
+        _coords = buf.getInt(PathCodec.COORDS_OFFSET);
+        _coordSize = (_flags & PathCodec.FLAG_DOUBLE) != 0 ? 8 : 4;
+        _typesOffset = PathCodec.HEADER_SIZE + 4 * _coordSize;
+        _coordsOffset = PathCodec.coordOffset(_segments, _coordSize);
+        if (PathCodec.encodedSize(_segments, _coords, _coordSize) != buf.limit()) {
+            throw new IllegalArgumentException("Corrupt encoded path (length mismatch)");
+        }
+        // check the segment types up front, so that iteration can trust them
+        int coords = 0;
+        for (int ii = 0; ii < _segments; ii++) {
+            int type = buf.get(_typesOffset + ii);
+            if (type < PathIterator.SEG_MOVETO || type > PathIterator.SEG_CLOSE) {
+                throw new IllegalArgumentException(
+                    "Corrupt encoded path (invalid segment type " + type + ")");
+            }
+            coords += Path.pointShift[type];
+        }
+        if (coords != _coords) {
+            throw new IllegalArgumentException("Corrupt encoded path (coordinate count mismatch)");
+        }
+    }
+
+    /** Copies this shape's segment types into {@code types}. */
+    void getTypes (byte[] types) {
+        ByteBuffer in = _buf.duplicate();
+        PathCodec.setPosition(in, _typesOffset);
+        in.get(types, 0, _segments);
+    }
+
+    /** Copies this shape's coordinates into {@code coords}. */
+    void getCoords (float[] coords) {
+        if (_coordSize == 4) {
+            ByteBuffer in = _buf.duplicate().order(_buf.order());
+            PathCodec.setPosition(in, _coordsOffset);
+            in.asFloatBuffer().get(coords, 0, _coords);
+        } else {
+            for (int ii = 0; ii < _coords; ii++) coords[ii] = coord(_coordsOffset + 8*ii);
+        }
+    }
+
+    /** Reads the coordinate at the specified byte offset. */
+    float coord (int offset) {
+        return _coordSize == 4 ? _buf.getFloat(offset) : (float)_buf.getDouble(offset);
+    }
+
+    protected boolean isInside (int cross) {
+        return (windingRule() == PathIterator.WIND_NON_ZERO) ? Crossing.isInsideNonZero(cross) :
+            Crossing.isInsideEvenOdd(cross);
+    }
+
+    /** Iterates over the segments of an encoded shape. */
+    protected class Iterator implements PathIterator
+    {
+        Iterator (Transform t) {
+            _t = t;
+        }
+
+        @Override public int windingRule () {
+            return EncodedShape.this.windingRule();
+        }
+
+        @Override public boolean isDone () {
+            return _typeIdx >= _segments;
+        }
+
+        @Override public void next () {
+            _coordIdx += Path.pointShift[_buf.get(_typesOffset + _typeIdx)];
+            _typeIdx++;
+        }
+
+        @Override public int currentSegment (float[] coords) {
+            if (isDone()) {
+                throw new NoSuchElementException("Iterator out of bounds");
+            }
+            int type = _buf.get(_typesOffset + _typeIdx), count = Path.pointShift[type];
+            for (int ii = 0, off = _coordsOffset + _coordIdx*_coordSize; ii < count; ii++) {
+                coords[ii] = coord(off + ii*_coordSize);
+            }
+            if (_t != null) {
+                _t.transform(coords, 0, coords, 0, count / 2);
+            }
+            return type;
+        }
+
+        protected final Transform _t;
+        protected int _typeIdx, _coordIdx;
+    }
+
+    /** A little-endian view of this shape's record, with position zero at its start. */
+    protected final ByteBuffer _buf;
+
+    protected final int _flags, _segments, _coords, _coordSize, _typesOffset, _coordsOffset;
+}
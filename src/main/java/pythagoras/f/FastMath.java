@@ -0,0 +1,201 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+/**
+ * Fast single-precision approximations of the transcendental functions in {@link FloatMath}.
+ * These are evaluated entirely in float arithmetic using minimax polynomials (after the Cephes
+ * single-precision library), rather than widening to double and calling {@link Math}.
+ *
+ * <p> The maximum error of each function, relative to the correctly rounded float result, is
+ * documented on the function and verified by {@code FastMathTest}. Arguments outside the ranges
+ * for which the error bounds hold (including NaN and infinities) are passed to {@link Math}.</p>
+ *
+ * <p> These may be called directly, or selected globally for the corresponding {@link FloatMath}
+ * methods via {@link FloatMath#setFastMath}.</p>
+ */
+public class FastMath
+{
+    /** The magnitude beyond which {@link #sin} and {@link #cos} defer to {@link Math}. */
+    public static final float MAX_TRIG_ARGUMENT = 8192f;
+
+    /**
+     * Returns the sine of the supplied angle, with a maximum error of 2 ulp for angles in [-PI,
+     * PI], and a maximum absolute error of 1e-7 for angles of magnitude up to {@link
+     * #MAX_TRIG_ARGUMENT}.
+     */
+    public static float sin (float a) {
+        float x = Math.abs(a);
+        if (!(x <= MAX_TRIG_ARGUMENT)) return (float)Math.sin(a);
+        int j = octant(x);
+        float r = reduce(x, j), z = r*r;
+        float v = ((j & 2) == 0) ? sinPoly(r, z) : cosPoly(z);
+        if ((j & 4) != 0) v = -v;
+        return (a < 0f) ? -v : v;
+    }
+
+    /**
+     * Returns the cosine of the supplied angle, with a maximum error of 2 ulp for angles in [-PI,
+     * PI], and a maximum absolute error of 1e-7 for angles of magnitude up to {@link
+     * #MAX_TRIG_ARGUMENT}.
+     */
+    public static float cos (float a) {
+        float x = Math.abs(a);
+        if (!(x <= MAX_TRIG_ARGUMENT)) return (float)Math.cos(a);
+        int j = octant(x);
+        float r = reduce(x, j), z = r*r;
+        float v = ((j & 2) == 0) ? cosPoly(z) : sinPoly(r, z);
+        return (((j + 2) & 4) != 0) ? -v : v;
+    }
+
+    /**
+     * Computes the cosine and sine of the supplied angle at once (sharing the argument reduction)
+     * and stores them in the x and y components (respectively) of {@code result}. The error
+     * bounds are those of {@link #sin} and {@link #cos}.
+     *
+     * @return a reference to the result, for chaining.
+     */
+    public static Vector sincos (float a, Vector result) {
+        float x = Math.abs(a);
+        if (!(x <= MAX_TRIG_ARGUMENT)) return result.set((float)Math.cos(a), (float)Math.sin(a));
+        int j = octant(x);
+        float r = reduce(x, j), z = r*r;
+        float sp = sinPoly(r, z), cp = cosPoly(z), s, c;
+        if ((j & 2) == 0) {
+            s = sp;
+            c = cp;
+        } else {
+            s = cp;
+            c = sp;
+        }
+        if ((j & 4) != 0) s = -s;
+        if (((j + 2) & 4) != 0) c = -c;
+        return result.set(c, (a < 0f) ? -s : s);
+    }
+
+    /**
+     * Returns the arc sine of the supplied value, with a maximum error of 3 ulp.
+     */
+    public static float asin (float v) {
+        float a = Math.abs(v);
+        if (!(a <= 1f)) return (float)Math.asin(v);
+        if (a < 1e-4f) return v;
+        float r;
+        if (a > 0.5f) {
+            float z = 0.5f * (1f - a), s = FloatMath.sqrt(z);
+            r = HALF_PI - 2f * asinPoly(s, z);
+        } else {
+            r = asinPoly(a, a*a);
+        }
+        return (v < 0f) ? -r : r;
+    }
+
+    /**
+     * Returns the arc cosine of the supplied value, with a maximum error of 2 ulp.
+     */
+    public static float acos (float v) {
+        if (!(Math.abs(v) <= 1f)) return (float)Math.acos(v);
+        if (v < -0.5f) {
+            float z = 0.5f * (1f + v);
+            return PI - 2f * asinPoly(FloatMath.sqrt(z), z);
+        } else if (v > 0.5f) {
+            float z = 0.5f * (1f - v);
+            return 2f * asinPoly(FloatMath.sqrt(z), z);
+        } else {
+            return HALF_PI - asin(v);
+        }
+    }
+
+    /**
+     * Returns the arc tangent of the supplied value, with a maximum error of 3 ulp.
+     */
+    public static float atan (float v) {
+        float a = Math.abs(v);
+        if (!(a <= Float.MAX_VALUE)) return (float)Math.atan(v);
+        float r = atanPositive(a);
+        return (v < 0f) ? -r : r;
+    }
+
+    /**
+     * Returns the angle of the point {@code (x, y)}, as by {@link Math#atan2}, with a maximum
+     * error of 4 ulp.
+     */
+    public static float atan2 (float y, float x) {
+        float ax = Math.abs(x), ay = Math.abs(y);
+        // zeros (whose signs matter), infinities and NaNs are handled by Math
+        if (!(ax <= Float.MAX_VALUE && ay <= Float.MAX_VALUE) || ax == 0f || ay == 0f) {
+            return (float)Math.atan2(y, x);
+        }
+        float r = (ay <= ax) ? atanPositive(ay / ax) : HALF_PI - atanPositive(ax / ay);
+        if (x < 0f) r = PI - r;
+        return (y < 0f) ? -r : r;
+    }
+
+    /**
+     * Returns the square root of the supplied value. This is exact: the square root of a widened
+     * float compiles to a single instruction on common JVMs, so no approximation is faster.
+     */
+    public static float sqrt (float v) {
+        return (float)Math.sqrt(v);
+    }
+
+    /** Returns {@code floor(x * 4/PI)}, rounded up to an even value. */
+    protected static int octant (float x) {
+        int j = (int)(x * FOUR_OVER_PI);
+        return j + (j & 1);
+    }
+
+    /** Reduces {@code x} to the range [-PI/4, PI/4] in extended precision. */
+    protected static float reduce (float x, int j) {
+        float y = j;
+        return ((x - y*DP1) - y*DP2) - y*DP3;
+    }
+
+    /** Evaluates sine for {@code r} in [-PI/4, PI/4], where {@code z = r*r}. */
+    protected static float sinPoly (float r, float z) {
+        return ((-1.9515295891e-4f * z + 8.3321608736e-3f) * z - 1.6666654611e-1f) * z * r + r;
+    }
+
+    /** Evaluates cosine for {@code r} in [-PI/4, PI/4], where {@code z = r*r}. */
+    protected static float cosPoly (float z) {
+        return ((2.443315711809948e-5f * z - 1.388731625493765e-3f) * z +
+                4.166664568298827e-2f) * z * z - 0.5f * z + 1f;
+    }
+
+    /** Evaluates arc sine for {@code s} in [0, 0.5], where {@code z = s*s}. */
+    protected static float asinPoly (float s, float z) {
+        return ((((4.2163199048e-2f * z + 2.4181311049e-2f) * z + 4.5470025998e-2f) * z +
+                 7.4953002686e-2f) * z + 1.6666752422e-1f) * z * s + s;
+    }
+
+    /** Evaluates arc tangent for finite, non-negative {@code a}. */
+    protected static float atanPositive (float a) {
+        float base;
+        if (a > TAN_3PI_8) {
+            base = HALF_PI;
+            a = -1f / a;
+        } else if (a > TAN_PI_8) {
+            base = QUARTER_PI;
+            a = (a - 1f) / (a + 1f);
+        } else {
+            base = 0f;
+        }
+        float z = a*a;
+        return (((8.05374449538e-2f * z - 1.38776856032e-1f) * z + 1.99777106478e-1f) * z -
+                3.33329491539e-1f) * z * a + a + base;
+    }
+
+    protected static final float PI = FloatMath.PI;
+    protected static final float HALF_PI = FloatMath.HALF_PI;
+    protected static final float QUARTER_PI = (float)(Math.PI / 4);
+    protected static final float FOUR_OVER_PI = (float)(4 / Math.PI);
+    protected static final float TAN_PI_8 = 0.4142135623730950f;
+    protected static final float TAN_3PI_8 = 2.414213562373095f;
+
+    /** PI/4 split into three parts, the first two of which have exact products with the octant. */
+    protected static final float DP1 = 0.78515625f;
+    protected static final float DP2 = 2.4187564849853515625e-4f;
+    protected static final float DP3 = 3.77489497744594108e-8f;
+}
@@ -0,0 +1,468 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import pythagoras.util.Platform;
+
+/**
+ * Caches the flattened outlines of shapes, for shapes (such as glyphs and icons) which are
+ * repeatedly flattened at one of a few scales. Outlines are flattened in the shape's own
+ * coordinates, to a flatness which accounts for the scale of the transform, so that one entry
+ * serves any transform of similar scale (translations and rotations do not matter). Scales are
+ * grouped in buckets of a quarter octave, and each entry is flattened for the largest scale in
+ * its bucket, so results are always at least as flat as requested.
+ *
+ * <p> The cache is bounded by the total number of points it holds, evicting the least recently
+ * used entries when full. It may be used concurrently by any number of threads: entries are
+ * divided among a number of independently locked stripes, and the (immutable) flattened outlines
+ * are computed without holding a lock. Each stripe holds an equal share of the points, and an
+ * outline with more points than that share is never cached, but flattened anew on each lookup.</p>
+ *
+ * <p> Entries are keyed on the shape (via {@link Object#equals}), or on a caller supplied key. As
+ * {@link Path} uses identity equality, a cached path which is subsequently modified must be
+ * {@link #invalidate}d.</p>
+ */
+public class FlatteningCache
+{
+    /**
+     * Creates a cache which holds at most the specified number of points, divided among sixteen
+     * stripes.
+     */
+    public FlatteningCache (int maxPoints) {
+        this(maxPoints, 16);
+    }
+
+    /**
+     * Creates a cache which holds at most the specified number of points, divided among the
+     * specified number of stripes (which is rounded up to a power of two). Outlines with more
+     * than {@code maxPoints / stripes} points are not cached.
+     */
+    public FlatteningCache (int maxPoints, int stripes) {
+        if (maxPoints <= 0 || stripes <= 0) {
+            throw new IllegalArgumentException("Invalid cache size " + maxPoints + "/" + stripes);
+        }
+        int count = 1;
+        while (count < stripes) count <<= 1;
+        _stripes = new Stripe[count];
+        for (int ii = 0; ii < count; ii++) {
+            _stripes[ii] = new Stripe(Math.max(1, maxPoints / count));
+        }
+    }
+
+    /**
+     * Returns a view of the supplied shape whose flattening path iterator is supplied by this
+     * cache, and which otherwise defers to the shape. The view may be passed to anything which
+     * flattens shapes via {@link IShape#pathIterator(Transform,float)}.
+     */
+    public IShape cached (IShape shape) {
+        return new CachedShape(shape, shape);
+    }
+
+    /**
+     * Returns a view of the supplied shape whose flattening path iterator is supplied by this
+     * cache (using the supplied key), and which otherwise defers to the shape.
+     */
+    public IShape cached (Object key, IShape shape) {
+        return new CachedShape(key, shape);
+    }
+
+    /**
+     * Returns an iterator over the flattened outline of the supplied shape, as transformed by
+     * {@code t}, flattening the shape and caching the result if it is not already cached.
+     */
+    public PathIterator pathIterator (IShape shape, Transform t, float flatness) {
+        return pathIterator(shape, shape, t, flatness);
+    }
+
+    /**
+     * Returns an iterator over the flattened outline of the supplied shape, as transformed by
+     * {@code t}, caching it under the supplied key (which must identify the shape's outline).
+     */
+    public PathIterator pathIterator (Object key, IShape shape, Transform t, float flatness) {
+        if (flatness <= 0f) {
+            throw new IllegalArgumentException("Flatness must be positive: " + flatness);
+        }
+        float scale = (t == null) ? 1f : scale(t);
+        // a degenerate transform needs no detail at all; use the coarsest bucket we have
+        int bucket = (scale > 0f) ?
+            (int)Math.ceil(Math.log(scale) / LOG2 * BUCKETS_PER_OCTAVE) : MIN_BUCKET;
+        bucket = Math.max(MIN_BUCKET, Math.min(MAX_BUCKET, bucket));
+
+        Key ckey = new Key(key, bucket, flatness);
+        Stripe stripe = stripe(ckey);
+        Outline outline = stripe.get(ckey);
+        if (outline == null) {
+            float bscale = (float)Math.pow(2, bucket / (double)BUCKETS_PER_OCTAVE);
+            outline = new Outline(shape.pathIterator(null, flatness / bscale));
+            outline = stripe.put(ckey, outline);
+        }
+        return new OutlineIterator(outline, t);
+    }
+
+    /**
+     * Removes all cached outlines of the shape with the supplied key.
+     */
+    public void invalidate (Object key) {
+        for (Stripe stripe : _stripes) stripe.remove(key);
+    }
+
+    /**
+     * Removes all cached outlines.
+     */
+    public void clear () {
+        for (Stripe stripe : _stripes) stripe.clear();
+    }
+
+    /**
+     * Returns the number of outlines in the cache.
+     */
+    public int size () {
+        int size = 0;
+        for (Stripe stripe : _stripes) size += stripe.size();
+        return size;
+    }
+
+    /**
+     * Returns the total number of points in the outlines in the cache.
+     */
+    public int points () {
+        int points = 0;
+        for (Stripe stripe : _stripes) points += stripe.points();
+        return points;
+    }
+
+    /**
+     * Returns the number of lookups which found a cached outline.
+     */
+    public long hits () {
+        long hits = 0;
+        for (Stripe stripe : _stripes) hits += stripe.hits();
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups which had to flatten a shape.
+     */
+    public long misses () {
+        long misses = 0;
+        for (Stripe stripe : _stripes) misses += stripe.misses();
+        return misses;
+    }
+
+    /**
+     * Returns the number of outlines evicted to make room for others.
+     */
+    public long evictions () {
+        long evictions = 0;
+        for (Stripe stripe : _stripes) evictions += stripe.evictions();
+        return evictions;
+    }
+
+    /**
+     * Returns the fraction of lookups which found a cached outline (zero if there have been no
+     * lookups).
+     */
+    public float hitRate () {
+        long hits = hits(), lookups = hits + misses();
+        return (lookups == 0) ? 0f : hits / (float)lookups;
+    }
+
+    @Override // from Object
+    public String toString () {
+        return "FlatteningCache[size=" + size() + ", points=" + points() + ", hits=" + hits() +
+            ", misses=" + misses() + ", evictions=" + evictions() + "]";
+    }
+
+    /**
+     * Returns an upper bound on the factor by which the supplied transform stretches distances:
+     * the Frobenius norm of its linear part. The norms of its columns alone would underestimate
+     * the stretch of a sheared transform.
+     */
+    protected static float scale (Transform t) {
+        float[] m = new float[6];
+        t.get(m);
+        return FloatMath.sqrt(m[0]*m[0] + m[1]*m[1] + m[2]*m[2] + m[3]*m[3]);
+    }
+
+    protected Stripe stripe (Key key) {
+        int hash = key.hashCode();
+        // spread the high bits, as the low bits of identity hashes are poorly distributed
+        hash ^= (hash >>> 16);
+        return _stripes[hash & (_stripes.length - 1)];
+    }
+
+    /** Identifies a cached outline. */
+    protected static final class Key
+    {
+        public final Object shape;
+        public final int bucket;
+        public final float flatness;
+
+        public Key (Object shape, int bucket, float flatness) {
+            this.shape = shape;
+            this.bucket = bucket;
+            this.flatness = flatness;
+            _hash = (shape.hashCode() * 31 + bucket) * 31 + Platform.hashCode(flatness);
+        }
+
+        @Override public int hashCode () {
+            return _hash;
+        }
+
+        @Override public boolean equals (Object other) {
+            if (!(other instanceof Key)) return false;
+            Key okey = (Key)other;
+            return okey._hash == _hash && okey.bucket == bucket && okey.flatness == flatness &&
+                okey.shape.equals(shape);
+        }
+
+        protected final int _hash;
+    }
+
+    /** A flattened outline, which is immutable once created. */
+    protected static final class Outline
+    {
+        public final byte[] types;
+        public final float[] coords;
+        public final int rule;
+
+        public Outline (PathIterator iter) {
+            byte[] types = new byte[16];
+            float[] coords = new float[32], seg = new float[6];
+            int count = 0, off = 0;
+            for (; !iter.isDone(); iter.next()) {
+                int type = iter.currentSegment(seg);
+                if (count == types.length) {
+                    byte[] ntypes = new byte[count*2];
+                    System.arraycopy(types, 0, ntypes, 0, count);
+                    types = ntypes;
+                }
+                types[count++] = (byte)type;
+                if (type == PathIterator.SEG_CLOSE) continue;
+                if (off + 2 > coords.length) {
+                    float[] ncoords = new float[coords.length*2];
+                    System.arraycopy(coords, 0, ncoords, 0, off);
+                    coords = ncoords;
+                }
+                coords[off++] = seg[0];
+                coords[off++] = seg[1];
+            }
+            this.types = new byte[count];
+            System.arraycopy(types, 0, this.types, 0, count);
+            this.coords = new float[off];
+            System.arraycopy(coords, 0, this.coords, 0, off);
+            this.rule = iter.windingRule();
+        }
+
+        /** Returns the weight of this outline, for the purposes of bounding the cache. */
+        public int weight () {
+            return coords.length / 2 + 1;
+        }
+    }
+
+    /** Iterates over a (transformed) outline. */
+    protected static class OutlineIterator implements PathIterator
+    {
+        public OutlineIterator (Outline outline, Transform t) {
+            _outline = outline;
+            _t = t;
+        }
+
+        @Override public int windingRule () {
+            return _outline.rule;
+        }
+
+        @Override public boolean isDone () {
+            return _index >= _outline.types.length;
+        }
+
+        @Override public void next () {
+            if (_outline.types[_index++] != SEG_CLOSE) _off += 2;
+        }
+
+        @Override public int currentSegment (float[] coords) {
+            if (isDone()) {
+                throw new NoSuchElementException("Iterator out of bounds");
+            }
+            int type = _outline.types[_index];
+            if (type != SEG_CLOSE) {
+                coords[0] = _outline.coords[_off];
+                coords[1] = _outline.coords[_off+1];
+                if (_t != null) _t.transform(coords, 0, coords, 0, 1);
+            }
+            return type;
+        }
+
+        protected final Outline _outline;
+        protected final Transform _t;
+        protected int _index, _off;
+    }
+
+    /** One independently locked portion of the cache. */
+    protected static class Stripe
+    {
+        public Stripe (int capacity) {
+            _capacity = capacity;
+        }
+
+        public synchronized Outline get (Key key) {
+            Outline outline = _entries.get(key);
+            if (outline == null) _misses++;
+            else _hits++;
+            return outline;
+        }
+
+        /**
+         * Adds the supplied outline, unless another thread added one with the same key first.
+         *
+         * @return the outline in the cache (or {@code outline} if it was too large to cache).
+         */
+        public synchronized Outline put (Key key, Outline outline) {
+            Outline existing = _entries.get(key);
+            if (existing != null) return existing;
+            int weight = outline.weight();
+            if (weight > _capacity) return outline;
+            _entries.put(key, outline);
+            _points += weight;
+            // evict the least recently used entries until we are back within capacity
+            for (Iterator<Outline> iter = _entries.values().iterator();
+                 _points > _capacity && iter.hasNext(); ) {
+                _points -= iter.next().weight();
+                iter.remove();
+                _evictions++;
+            }
+            return outline;
+        }
+
+        public synchronized void remove (Object shape) {
+            for (Iterator<Map.Entry<Key,Outline>> iter = _entries.entrySet().iterator();
+                 iter.hasNext(); ) {
+                Map.Entry<Key,Outline> entry = iter.next();
+                if (entry.getKey().shape.equals(shape)) {
+                    _points -= entry.getValue().weight();
+                    iter.remove();
+                }
+            }
+        }
+
+        public synchronized void clear () {
+            _entries.clear();
+            _points = 0;
+        }
+
+        public synchronized int size () {
+            return _entries.size();
+        }
+
+        public synchronized int points () {
+            return _points;
+        }
+
+        public synchronized long hits () {
+            return _hits;
+        }
+
+        public synchronized long misses () {
+            return _misses;
+        }
+
+        public synchronized long evictions () {
+            return _evictions;
+        }
+
+        /** The entries, in least to most recently used order. */
+        protected final LinkedHashMap<Key,Outline> _entries =
+            new LinkedHashMap<Key,Outline>(16, 0.75f, true);
+
+        protected final int _capacity;
+        protected int _points;
+        protected long _hits, _misses, _evictions;
+    }
+
+    /** A shape whose flattening path iterator is supplied by this cache. */
+    protected class CachedShape implements IShape
+    {
+        public CachedShape (Object key, IShape shape) {
+            _key = key;
+            _shape = shape;
+        }
+
+        @Override public boolean isEmpty () {
+            return _shape.isEmpty();
+        }
+
+        @Override public boolean contains (float x, float y) {
+            return _shape.contains(x, y);
+        }
+
+        @Override public boolean contains (XY point) {
+            return _shape.contains(point);
+        }
+
+        @Override public boolean contains (float x, float y, float width, float height) {
+            return _shape.contains(x, y, width, height);
+        }
+
+        @Override public boolean contains (IRectangle r) {
+            return _shape.contains(r);
+        }
+
+        @Override public boolean intersects (float x, float y, float width, float height) {
+            return _shape.intersects(x, y, width, height);
+        }
+
+        @Override public boolean intersects (IRectangle r) {
+            return _shape.intersects(r);
+        }
+
+        @Override public Rectangle bounds () {
+            return _shape.bounds();
+        }
+
+        @Override public Rectangle bounds (Rectangle target) {
+            return _shape.bounds(target);
+        }
+
+        @Override public Rectangle tightBounds () {
+            return _shape.tightBounds();
+        }
+
+        @Override public Rectangle tightBounds (Rectangle target) {
+            return _shape.tightBounds(target);
+        }
+
+        @Override public PathIterator pathIterator (Transform at) {
+            return _shape.pathIterator(at);
+        }
+
+        @Override public PathIterator pathIterator (Transform at, float flatness) {
+            return FlatteningCache.this.pathIterator(_key, _shape, at, flatness);
+        }
+
+        @Override public String toString () {
+            return "CachedShape[" + _shape + "]";
+        }
+
+        protected final Object _key;
+        protected final IShape _shape;
+    }
+
+    /** The stripes among which entries are divided. */
+    protected final Stripe[] _stripes;
+
+    /** The number of scale buckets per doubling of scale. */
+    protected static final int BUCKETS_PER_OCTAVE = 4;
+
+    /** The range of scale buckets (scales of 2^-16 to 2^16). */
+    protected static final int MIN_BUCKET = -16 * BUCKETS_PER_OCTAVE;
+    protected static final int MAX_BUCKET = 16 * BUCKETS_PER_OCTAVE;
+
+    protected static final double LOG2 = Math.log(2);
+}
@@ -7,6 +7,10 @@ package pythagoras.f;
 /**
  * Utility methods and constants for single-precision floating point math. Extends {@link MathUtil}
  * with shim methods that call through to {@link Math} and convert the results to float.
+ *
+ * <p> The trigonometric methods may instead be configured (see {@link #setFastMath}) to use the
+ * faster, slightly less accurate approximations in {@link FastMath}. This affects all code that
+ * calls these methods, including the geometry classes in this package.</p>
  */
 public class FloatMath extends MathUtil
 {
@@ -23,7 +27,7 @@ public class FloatMath extends MathUtil
      */
     public static float sin (float a)
     {
-        return (float)Math.sin(a);
+        return FAST_MATH ? FastMath.sin(a) : (float)Math.sin(a);
     }
 
     /**
@@ -33,7 +37,19 @@ public class FloatMath extends MathUtil
      */
     public static float cos (float a)
     {
-        return (float)Math.cos(a);
+        return FAST_MATH ? FastMath.cos(a) : (float)Math.cos(a);
+    }
+
+    /**
+     * Computes the cosine and sine of the given angle and stores them in the x and y components
+     * (respectively) of {@code result}.
+     *
+     * @return a reference to the result, for chaining.
+     */
+    public static Vector sincos (float a, Vector result)
+    {
+        if (FAST_MATH) return FastMath.sincos(a, result);
+        return result.set((float)Math.cos(a), (float)Math.sin(a));
     }
 
     /**
@@ -53,7 +69,7 @@ public class FloatMath extends MathUtil
      */
     public static float asin (float a)
     {
-        return (float)Math.asin(a);
+        return FAST_MATH ? FastMath.asin(a) : (float)Math.asin(a);
     }
 
     /**
@@ -63,7 +79,7 @@ public class FloatMath extends MathUtil
      */
     public static float acos (float a)
     {
-        return (float)Math.acos(a);
+        return FAST_MATH ? FastMath.acos(a) : (float)Math.acos(a);
     }
 
     /**
@@ -73,7 +89,7 @@ public class FloatMath extends MathUtil
      */
     public static float atan (float a)
     {
-        return (float)Math.atan(a);
+        return FAST_MATH ? FastMath.atan(a) : (float)Math.atan(a);
     }
 
     /**
@@ -83,7 +99,7 @@ public class FloatMath extends MathUtil
      */
     public static float atan2 (float y, float x)
     {
-        return (float)Math.atan2(y, x);
+        return FAST_MATH ? FastMath.atan2(y, x) : (float)Math.atan2(y, x);
     }
 
     /**
@@ -195,4 +211,25 @@ public class FloatMath extends MathUtil
     {
         return (float)Math.ceil(v);
     }
+
+    /**
+     * Configures whether {@link #sin}, {@link #cos}, {@link #sincos}, {@link #asin}, {@link
+     * #acos}, {@link #atan} and {@link #atan2} use the approximations in {@link FastMath} (whose
+     * error bounds are documented there) rather than {@link Math}. By default they use {@link
+     * Math}. This should generally be configured once, at startup.
+     */
+    public static void setFastMath (boolean fast)
+    {
+        FAST_MATH = fast;
+    }
+
+    /**
+     * Returns whether the trigonometric methods use the approximations in {@link FastMath}.
+     */
+    public static boolean isFastMath ()
+    {
+        return FAST_MATH;
+    }
+
+    protected static boolean FAST_MATH = false;
 }
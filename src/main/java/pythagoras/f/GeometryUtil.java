@@ -84,7 +84,6 @@ public class GeometryUtil
     public static int intersectLineAndQuad (float x1, float y1, float x2, float y2,
                                             float qx1, float qy1, float qx2, float qy2,
                                             float qx3, float qy3, float[] params) {
-        float[] eqn = new float[3];
         float[] t = new float[2];
         float[] s = new float[2];
         float dy = y2 - y1;
@@ -92,11 +91,11 @@ public class GeometryUtil
         int quantity = 0;
         int count = 0;
 
-        eqn[0] = dy * (qx1 - x1) - dx * (qy1 - y1);
-        eqn[1] = 2 * dy * (qx2 - qx1) - 2 * dx * (qy2 - qy1);
-        eqn[2] = dy * (qx1 - 2 * qx2 + qx3) - dx * (qy1 - 2 * qy2 + qy3);
+        float c0 = dy * (qx1 - x1) - dx * (qy1 - y1);
+        float c1 = 2 * dy * (qx2 - qx1) - 2 * dx * (qy2 - qy1);
+        float c2 = dy * (qx1 - 2 * qx2 + qx3) - dx * (qy1 - 2 * qy2 + qy3);
 
-        if ((count = Crossing.solveQuad(eqn, t)) == 0) {
+        if ((count = RootSolver.solveQuadratic(c0, c1, c2, 0, 1, t, 0)) == 0) {
             return 0;
         }
 
@@ -129,7 +128,6 @@ public class GeometryUtil
                                              float cx1, float cy1, float cx2, float cy2,
                                              float cx3, float cy3, float cx4, float cy4,
                                              float[] params) {
-        float[] eqn = new float[4];
         float[] t = new float[3];
         float[] s = new float[3];
         float dy = y2 - y1;
@@ -137,13 +135,12 @@ public class GeometryUtil
         int quantity = 0;
         int count = 0;
 
-        eqn[0] = (cy1 - y1) * dx + (x1 - cx1) * dy;
-        eqn[1] = -3 * (cy1 - cy2) * dx + 3 * (cx1 - cx2) * dy;
-        eqn[2] = (3 * cy1 - 6 * cy2 + 3 * cy3) * dx - (3 * cx1 - 6 * cx2 + 3 * cx3) * dy;
-        eqn[3] = (-3 * cy1 + 3 * cy2 - 3 * cy3 + cy4) * dx +
-            (3 * cx1 - 3 * cx2 + 3 * cx3 - cx4) * dy;
+        float c0 = (cy1 - y1) * dx + (x1 - cx1) * dy;
+        float c1 = -3 * (cy1 - cy2) * dx + 3 * (cx1 - cx2) * dy;
+        float c2 = (3 * cy1 - 6 * cy2 + 3 * cy3) * dx - (3 * cx1 - 6 * cx2 + 3 * cx3) * dy;
+        float c3 = (-cy1 + 3 * cy2 - 3 * cy3 + cy4) * dx + (cx1 - 3 * cx2 + 3 * cx3 - cx4) * dy;
 
-        if ((count = Crossing.solveCubic(eqn, t)) == 0) {
+        if ((count = RootSolver.solveCubic(c0, c1, c2, c3, 0, 1, t, 0)) == 0) {
             return 0;
         }
 
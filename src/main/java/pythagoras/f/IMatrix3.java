@@ -96,6 +96,14 @@ interface IMatrix3
      */
     boolean isAffine ();
 
+    /**
+     * Classifies this matrix, as a 2D transform, as one of {@link Matrix3#TYPE_IDENTITY}, {@link
+     * Matrix3#TYPE_TRANSLATION}, {@link Matrix3#TYPE_RIGID}, {@link Matrix3#TYPE_AFFINE} or {@link
+     * Matrix3#TYPE_PROJECTIVE}, which increase monotonically with generality. A rigid matrix may
+     * be classified as affine if it was not built as such by the methods of {@link Matrix3}.
+     */
+    int type ();
+
     /**
      * Multiplies this matrix by another, treating the matrices as affine.
      *
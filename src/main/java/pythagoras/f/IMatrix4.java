@@ -92,6 +92,14 @@ public interface IMatrix4
      */
     boolean isAffine ();
 
+    /**
+     * Classifies this matrix as one of {@link Matrix4#TYPE_IDENTITY}, {@link
+     * Matrix4#TYPE_TRANSLATION}, {@link Matrix4#TYPE_RIGID}, {@link Matrix4#TYPE_AFFINE} or {@link
+     * Matrix4#TYPE_PROJECTIVE}, which increase monotonically with generality. A rigid matrix may
+     * be classified as affine if it was not built as such by the methods of {@link Matrix4}.
+     */
+    int type ();
+
     /**
      * Determines whether the matrix is mirrored.
      */
@@ -37,6 +37,15 @@ public interface IShape
      * @return the supplied rectangle. */
     Rectangle bounds (Rectangle target);
 
+    /** Returns a copy of the tight bounding rectangle for this shape: the smallest rectangle that
+     * contains its outline. Unlike {@link #bounds}, which may include the control points of
+     * curved segments, this bounds curves by their extreme points. */
+    Rectangle tightBounds ();
+
+    /** Initializes the supplied rectangle with this shape's tight bounding rectangle.
+     * @return the supplied rectangle. */
+    Rectangle tightBounds (Rectangle target);
+
     /**
      * Returns an iterator over the path described by this shape.
      *
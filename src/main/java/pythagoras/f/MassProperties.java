@@ -0,0 +1,355 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+/**
+ * Computes the mass properties (area, centroid and second moments of area) of shapes. Each
+ * segment's contribution is integrated exactly via Green's theorem: in closed form for lines, and
+ * by Gauss-Legendre quadrature of sufficient order to be exact for quadratic and cubic curves, so
+ * curves need not be flattened. Sums are accumulated in double precision, relative to the first
+ * point of the shape, to avoid cancellation far from the origin.
+ *
+ * <p> {@link #compute} respects the winding rule of the shape, making a second pass over the
+ * shape to determine how its subpaths nest. It requires that subpaths not cross one another
+ * (though they may nest to any depth, in either orientation), as is the case for the outlines
+ * produced by {@link Area}. {@link #accumulate} makes a single pass, weighting each part of the
+ * shape by its winding number: it gives the same results when the shape's holes are wound
+ * opposite to their enclosing outlines, and always gives the same results for a single
+ * subpath, modulo sign.</p>
+ */
+public class MassProperties
+{
+    /**
+     * Computes the mass properties of the supplied shape.
+     */
+    public static MassProperties of (IShape shape) {
+        return new MassProperties().compute(shape);
+    }
+
+    /**
+     * Computes the mass properties of the supplied shape, respecting its winding rule, replacing
+     * any previously computed properties.
+     *
+     * @return this instance, for chaining.
+     */
+    public MassProperties compute (IShape shape) {
+        reset();
+        PathIterator iter = shape.pathIterator(null);
+        int rule = iter.windingRule();
+        walk(iter, STORE);
+        if (_ringCount == 0) return this;
+
+        // determine the winding number of the other subpaths around a point on each subpath
+        int[] cross = _crossings;
+        if (cross.length < _ringCount) cross = _crossings = new int[_rings.length / 6];
+        for (int ii = 0; ii < _ringCount; ii++) cross[ii] = 0;
+        if (_ringCount > 1) walk(shape.pathIterator(null), CROSS);
+
+        double[] rings = _rings;
+        for (int ii = 0; ii < _ringCount; ii++) {
+            int off = ii*6, orient = (rings[off] > 0) ? 1 : ((rings[off] < 0) ? -1 : 0);
+            // Crossing counts crossings opposite to the orientation of our signed area
+            int outside = -cross[ii], inside = outside + orient;
+            int weight = (isFilled(inside, rule) ? 1 : 0) - (isFilled(outside, rule) ? 1 : 0);
+            if (weight == 0) continue;
+            weight *= orient;
+            _a += weight * rings[off];
+            _sx += weight * rings[off+1];
+            _sy += weight * rings[off+2];
+            _sxx += weight * rings[off+3];
+            _syy += weight * rings[off+4];
+            _sxy += weight * rings[off+5];
+        }
+        return this;
+    }
+
+    /**
+     * Adds the (winding number weighted) mass properties of the supplied path to those already
+     * accumulated. Subpaths wound clockwise (in a y-up coordinate system) have negative area.
+     *
+     * @return this instance, for chaining.
+     */
+    public MassProperties accumulate (PathIterator iter) {
+        walk(iter, ACCUMULATE);
+        return this;
+    }
+
+    /**
+     * Clears the accumulated properties.
+     *
+     * @return this instance, for chaining.
+     */
+    public MassProperties reset () {
+        _a = _sx = _sy = _sxx = _syy = _sxy = 0;
+        _hasOrigin = false;
+        _ringCount = 0;
+        return this;
+    }
+
+    /**
+     * Returns the area.
+     */
+    public float area () {
+        return (float)_a;
+    }
+
+    /**
+     * Returns the x coordinate of the centroid (or zero if the area is zero).
+     */
+    public float centroidX () {
+        return (_a == 0) ? 0f : (float)(_ox + _sx / _a);
+    }
+
+    /**
+     * Returns the y coordinate of the centroid (or zero if the area is zero).
+     */
+    public float centroidY () {
+        return (_a == 0) ? 0f : (float)(_oy + _sy / _a);
+    }
+
+    /**
+     * Returns the centroid (the origin if the area is zero).
+     */
+    public Point centroid () {
+        return centroid(new Point());
+    }
+
+    /**
+     * Writes the centroid (the origin if the area is zero) into {@code into}.
+     *
+     * @return {@code into}, for chaining.
+     */
+    public Point centroid (Point into) {
+        return into.set(centroidX(), centroidY());
+    }
+
+    /**
+     * Returns the second moment of area about the horizontal axis through the centroid: the
+     * integral of (y - cy)^2 over the area.
+     */
+    public float momentXX () {
+        return (_a == 0) ? 0f : (float)(_syy - _sy * _sy / _a);
+    }
+
+    /**
+     * Returns the second moment of area about the vertical axis through the centroid: the
+     * integral of (x - cx)^2 over the area.
+     */
+    public float momentYY () {
+        return (_a == 0) ? 0f : (float)(_sxx - _sx * _sx / _a);
+    }
+
+    /**
+     * Returns the product moment of area about the centroid: the integral of (x - cx)(y - cy)
+     * over the area.
+     */
+    public float momentXY () {
+        return (_a == 0) ? 0f : (float)(_sxy - _sx * _sy / _a);
+    }
+
+    /**
+     * Returns the polar moment of area about the centroid, which when multiplied by a density
+     * yields the moment of inertia of a lamina of that density about its center of mass.
+     */
+    public float polarMoment () {
+        return momentXX() + momentYY();
+    }
+
+    @Override // from Object
+    public String toString () {
+        return "MassProperties[area=" + area() + ", centroid=" + centroidX() + "," +
+            centroidY() + ", Ixx=" + momentXX() + ", Iyy=" + momentYY() + ", Ixy=" +
+            momentXY() + "]";
+    }
+
+    /**
+     * Walks the subpaths of the supplied path, implicitly closing any left open, and either
+     * accumulates their integrals, stores them (and a point on each), or counts the crossings
+     * of each subpath around the stored points of the others.
+     */
+    protected void walk (PathIterator iter, int mode) {
+        float[] c = _coords;
+        float mx = 0f, my = 0f, cx = 0f, cy = 0f;
+        int ring = 0;
+        boolean open = false;
+        for (; !iter.isDone(); iter.next()) {
+            int type = iter.currentSegment(c);
+            if (!_hasOrigin && type != PathIterator.SEG_CLOSE) {
+                _ox = c[0];
+                _oy = c[1];
+                _hasOrigin = true;
+            }
+            switch (type) {
+            case PathIterator.SEG_MOVETO:
+                if (open) ring = endRing(cx, cy, mx, my, ring, mode);
+                mx = cx = c[0];
+                my = cy = c[1];
+                open = false;
+                break;
+            case PathIterator.SEG_LINETO:
+                segment(cx, cy, cx, cy, c[0], c[1], c[0], c[1], true, ring, mode);
+                cx = c[0];
+                cy = c[1];
+                open = true;
+                break;
+            case PathIterator.SEG_QUADTO:
+                // elevate to a cubic, which has the same points
+                segment(cx, cy, cx + 2f/3f * (c[0] - cx), cy + 2f/3f * (c[1] - cy),
+                        c[2] + 2f/3f * (c[0] - c[2]), c[3] + 2f/3f * (c[1] - c[3]), c[2], c[3],
+                        false, ring, mode);
+                cx = c[2];
+                cy = c[3];
+                open = true;
+                break;
+            case PathIterator.SEG_CUBICTO:
+                segment(cx, cy, c[0], c[1], c[2], c[3], c[4], c[5], false, ring, mode);
+                cx = c[4];
+                cy = c[5];
+                open = true;
+                break;
+            case PathIterator.SEG_CLOSE:
+                if (open) ring = endRing(cx, cy, mx, my, ring, mode);
+                cx = mx;
+                cy = my;
+                open = false;
+                break;
+            }
+        }
+        if (open) endRing(cx, cy, mx, my, ring, mode);
+    }
+
+    /**
+     * Closes the current subpath with a line back to its start, and completes it.
+     *
+     * @return the index of the next subpath.
+     */
+    protected int endRing (float cx, float cy, float mx, float my, int ring, int mode) {
+        if (cx != mx || cy != my) segment(cx, cy, cx, cy, mx, my, mx, my, true, ring, mode);
+        double[] sums = _sums;
+        switch (mode) {
+        case ACCUMULATE:
+            _a += sums[0];
+            _sx += sums[1];
+            _sy += sums[2];
+            _sxx += sums[3];
+            _syy += sums[4];
+            _sxy += sums[5];
+            break;
+        case STORE:
+            if ((ring + 1) * 6 > _rings.length) {
+                double[] nrings = new double[_rings.length * 2];
+                System.arraycopy(_rings, 0, nrings, 0, _rings.length);
+                _rings = nrings;
+                float[] nsamples = new float[_samples.length * 2];
+                System.arraycopy(_samples, 0, nsamples, 0, _samples.length);
+                _samples = nsamples;
+            }
+            System.arraycopy(sums, 0, _rings, ring*6, 6);
+            _samples[ring*2] = mx;
+            _samples[ring*2+1] = my;
+            _ringCount = ring + 1;
+            break;
+        }
+        for (int ii = 0; ii < 6; ii++) sums[ii] = 0;
+        return ring + 1;
+    }
+
+    /**
+     * Processes a line (if {@code line} is true) or cubic segment of the specified subpath.
+     */
+    protected void segment (float x0, float y0, float x1, float y1, float x2, float y2,
+                            float x3, float y3, boolean line, int ring, int mode) {
+        if (mode == CROSS) {
+            for (int ii = 0, count = _ringCount; ii < count; ii++) {
+                if (ii == ring) continue;
+                float px = _samples[ii*2], py = _samples[ii*2+1];
+                _crossings[ii] += line ? Crossing.crossLine(x0, y0, x3, y3, px, py) :
+                    Crossing.crossCubic(x0, y0, x1, y1, x2, y2, x3, y3, px, py);
+            }
+        } else if (line) {
+            integrateLine(x0 - _ox, y0 - _oy, x3 - _ox, y3 - _oy);
+        } else {
+            integrateCubic(x0 - _ox, y0 - _oy, x1 - _ox, y1 - _oy, x2 - _ox, y2 - _oy,
+                           x3 - _ox, y3 - _oy);
+        }
+    }
+
+    /**
+     * Adds the integrals over the triangle formed by the origin and the supplied line.
+     */
+    protected void integrateLine (double x0, double y0, double x1, double y1) {
+        double cross = x0*y1 - x1*y0;
+        double[] sums = _sums;
+        sums[0] += cross / 2;
+        sums[1] += cross * (x0 + x1) / 6;
+        sums[2] += cross * (y0 + y1) / 6;
+        sums[3] += cross * (x0*x0 + x0*x1 + x1*x1) / 12;
+        sums[4] += cross * (y0*y0 + y0*y1 + y1*y1) / 12;
+        sums[5] += cross * (2*x0*y0 + x0*y1 + x1*y0 + 2*x1*y1) / 24;
+    }
+
+    /**
+     * Adds the integrals over the region swept by the line from the origin to a point moving
+     * along the supplied cubic. The integrands are polynomials of degree at most eleven, so the
+     * six point quadrature is exact.
+     */
+    protected void integrateCubic (double x0, double y0, double x1, double y1, double x2,
+                                   double y2, double x3, double y3) {
+        double[] sums = _sums;
+        for (int ii = 0; ii < GAUSS_NODES.length; ii++) {
+            double t = GAUSS_NODES[ii], w = GAUSS_WEIGHTS[ii], mt = 1 - t;
+            double b0 = mt*mt*mt, b1 = 3*mt*mt*t, b2 = 3*mt*t*t, b3 = t*t*t;
+            double x = b0*x0 + b1*x1 + b2*x2 + b3*x3, y = b0*y0 + b1*y1 + b2*y2 + b3*y3;
+            double d0 = 3*mt*mt, d1 = 6*mt*t, d2 = 3*t*t;
+            double dx = d0*(x1 - x0) + d1*(x2 - x1) + d2*(x3 - x2);
+            double dy = d0*(y1 - y0) + d1*(y2 - y1) + d2*(y3 - y2);
+            // integrating f (x dy - y dx) / (k + 2), for f homogeneous of degree k, yields the
+            // integral of f over the swept region
+            double cross = w * (x*dy - y*dx);
+            sums[0] += cross / 2;
+            sums[1] += cross * x / 3;
+            sums[2] += cross * y / 3;
+            sums[3] += cross * x*x / 4;
+            sums[4] += cross * y*y / 4;
+            sums[5] += cross * x*y / 4;
+        }
+    }
+
+    protected static boolean isFilled (int winding, int rule) {
+        return (rule == PathIterator.WIND_NON_ZERO) ? (winding != 0) : ((winding & 1) != 0);
+    }
+
+    /** The accumulated integrals of 1, x, y, x^2, y^2 and xy, relative to the origin. */
+    protected double _a, _sx, _sy, _sxx, _syy, _sxy;
+
+    /** The origin relative to which integrals are accumulated. */
+    protected double _ox, _oy;
+    protected boolean _hasOrigin;
+
+    /** The integrals of the current subpath. */
+    protected final double[] _sums = new double[6];
+
+    /** The integrals of each stored subpath, and a point on each. */
+    protected double[] _rings = new double[6*4];
+    protected float[] _samples = new float[2*4];
+    protected int _ringCount;
+
+    /** The crossings of the other subpaths around the point on each subpath. */
+    protected int[] _crossings = new int[4];
+
+    protected final float[] _coords = new float[6];
+
+    /** The modes in which a path may be walked. */
+    protected static final int ACCUMULATE = 0, STORE = 1, CROSS = 2;
+
+    /** The six point Gauss-Legendre quadrature nodes and weights, mapped to [0, 1]. */
+    protected static final double[] GAUSS_NODES = {
+        (1 - 0.9324695142031521) / 2, (1 - 0.6612093864662645) / 2,
+        (1 - 0.2386191860831969) / 2, (1 + 0.2386191860831969) / 2,
+        (1 + 0.6612093864662645) / 2, (1 + 0.9324695142031521) / 2 };
+    protected static final double[] GAUSS_WEIGHTS = {
+        0.1713244923791704 / 2, 0.3607615730481386 / 2, 0.4679139345726910 / 2,
+        0.4679139345726910 / 2, 0.3607615730481386 / 2, 0.1713244923791704 / 2 };
+}
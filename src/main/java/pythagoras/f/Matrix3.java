@@ -4,7 +4,10 @@
 
 package pythagoras.f;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.nio.FloatBuffer;
 
 import pythagoras.util.Platform;
@@ -12,14 +15,37 @@ import pythagoras.util.SingularMatrixException;
 
 /**
  * A 3x3 column-major matrix.
+ *
+ * <p>Matrices classify themselves as 2D transforms (see {@link #type}) so that multiplication,
+ * inversion and point transformation can use cheaper algorithms for identity, translation, rigid
+ * and affine matrices. The classification is recorded by the builders and operations of this
+ * class, which know the type of their result, and is discarded by the methods that set the
+ * components, to be recomputed from the components when next needed (in which case a rotation is
+ * classified as merely affine). Code that writes the components directly must call {@link
+ * #resetType} afterwards.</p>
  */
-public class Matrix3 implements IMatrix3, Serializable
+public class Matrix3 implements IMatrix3, Externalizable
 {
-    private static final long serialVersionUID = 2090355290484132872L;
+    private static final long serialVersionUID = 4004582025732001437L;
 
     /** the identity matrix. */
     public static final Matrix3 IDENTITY = new Matrix3();
 
+    /** The {@link #type} of the identity matrix. */
+    public static final int TYPE_IDENTITY = 0;
+
+    /** The {@link #type} of a pure 2D translation matrix. */
+    public static final int TYPE_TRANSLATION = 1;
+
+    /** The {@link #type} of a 2D rigid (rotation and translation) matrix. */
+    public static final int TYPE_RIGID = 2;
+
+    /** The {@link #type} of a 2D affine matrix. */
+    public static final int TYPE_AFFINE = 3;
+
+    /** The {@link #type} of a 2D projective matrix (or a general 3x3 matrix). */
+    public static final int TYPE_PROJECTIVE = 4;
+
     /** The values of the matrix. The names take the form {@code mCOLROW}. */
     public float m00, m10, m20;
     public float m01, m11, m21;
@@ -61,6 +87,7 @@ public class Matrix3 implements IMatrix3, Serializable
      * Sets the matrix element at the specified row and column.
      */
     public void setElement (int row, int col, float value) {
+        _type = TYPE_UNKNOWN;
         switch (col) {
         case 0:
             switch (row) {
@@ -91,6 +118,7 @@ public class Matrix3 implements IMatrix3, Serializable
      * Sets the specified row (0, 1, 2) to the supplied values.
      */
     public void setRow (int row, float x, float y, float z) {
+        _type = TYPE_UNKNOWN;
         switch (row) {
         case 0: m00 = x; m10 = y; m20 = z; break;
         case 1: m01 = x; m11 = y; m21 = z; break;
@@ -110,6 +138,7 @@ public class Matrix3 implements IMatrix3, Serializable
      * Sets the specified column (0, 1, 2) to the supplied values.
      */
     public void setColumn (int col, float x, float y, float z) {
+        _type = TYPE_UNKNOWN;
         switch (col) {
         case 0: m00 = x; m01 = y; m02 = z; break;
         case 1: m10 = x; m11 = y; m12 = z; break;
@@ -133,7 +162,7 @@ public class Matrix3 implements IMatrix3, Serializable
     public Matrix3 setToIdentity () {
         return set(1f, 0f, 0f,
                    0f, 1f, 0f,
-                   0f, 0f, 1f);
+                   0f, 0f, 1f).setType(TYPE_IDENTITY);
     }
 
     /**
@@ -263,9 +292,10 @@ public class Matrix3 implements IMatrix3, Serializable
      * @return a reference to this matrix, for chaining.
      */
     public Matrix3 setToTransform (IVector translation, float rotation, float scale) {
-        return setToRotation(rotation).set(m00 * scale, m10 * scale, translation.x(),
-                                           m01 * scale, m11 * scale, translation.y(),
-                                           0f, 0f, 1f);
+        setToRotation(rotation);
+        return set(m00 * scale, m10 * scale, translation.x(),
+                   m01 * scale, m11 * scale, translation.y(),
+                   0f, 0f, 1f).setType(scale == 1f ? TYPE_RIGID : TYPE_AFFINE);
     }
 
     /**
@@ -277,7 +307,7 @@ public class Matrix3 implements IMatrix3, Serializable
         float sx = scale.x(), sy = scale.y();
         return setToRotation(rotation).set(m00 * sx, m10 * sy, translation.x(),
                                            m01 * sx, m11 * sy, translation.y(),
-                                           0f, 0f, 1f);
+                                           0f, 0f, 1f).setType(TYPE_AFFINE);
     }
 
     /**
@@ -297,7 +327,7 @@ public class Matrix3 implements IMatrix3, Serializable
     public Matrix3 setToTranslation (float x, float y) {
         return set(1f, 0f, x,
                    0f, 1f, y,
-                   0f, 0f, 1f);
+                   0f, 0f, 1f).setType(translationType(x, y));
     }
 
     /**
@@ -317,7 +347,9 @@ public class Matrix3 implements IMatrix3, Serializable
     public Matrix3 setTranslation (float x, float y) {
         m20 = x;
         m21 = y;
-        return this;
+        // the translation only distinguishes identity from translation matrices
+        return (_type == TYPE_IDENTITY || _type == TYPE_TRANSLATION) ?
+            setType(translationType(x, y)) : this;
     }
 
     /**
@@ -329,7 +361,7 @@ public class Matrix3 implements IMatrix3, Serializable
         float sina = FloatMath.sin(angle), cosa = FloatMath.cos(angle);
         return set(cosa, -sina, 0f,
                    sina, cosa, 0f,
-                   0f, 0f, 1f);
+                   0f, 0f, 1f).setType(TYPE_RIGID);
     }
 
     /**
@@ -412,9 +444,10 @@ public class Matrix3 implements IMatrix3, Serializable
      * @return a reference to this matrix, for chaining.
      */
     public Matrix3 set (IMatrix3 other) {
+        int type = other.type();
         return set(other.m00(), other.m10(), other.m20(),
                    other.m01(), other.m11(), other.m21(),
-                   other.m02(), other.m12(), other.m22());
+                   other.m02(), other.m12(), other.m22()).setType(type);
     }
 
     /**
@@ -440,7 +473,17 @@ public class Matrix3 implements IMatrix3, Serializable
         this.m00 = m00; this.m01 = m01; this.m02 = m02;
         this.m10 = m10; this.m11 = m11; this.m12 = m12;
         this.m20 = m20; this.m21 = m21; this.m22 = m22;
-        return this;
+        return setType(TYPE_UNKNOWN);
+    }
+
+    /**
+     * Discards the recorded classification of this matrix, so that it is recomputed from the
+     * components when next needed. This must be called after writing the components directly.
+     *
+     * @return a reference to this matrix, for chaining.
+     */
+    public Matrix3 resetType () {
+        return setType(TYPE_UNKNOWN);
     }
 
     @Override // from IMatrix3
@@ -555,6 +598,15 @@ public class Matrix3 implements IMatrix3, Serializable
 
     @Override // from IMatrix3
     public Matrix3 mult (IMatrix3 other, Matrix3 result) {
+        int type = type(), otype = other.type();
+        if (type == TYPE_IDENTITY) return result.set(other);
+        if (otype == TYPE_IDENTITY) return result.set(this);
+        if (type != TYPE_PROJECTIVE && otype != TYPE_PROJECTIVE) {
+            if (type == TYPE_TRANSLATION && otype == TYPE_TRANSLATION) {
+                return result.setToTranslation(m20 + other.m20(), m21 + other.m21());
+            }
+            return multAffine(other, result, type, otype);
+        }
         float m00 = this.m00, m01 = this.m01, m02 = this.m02;
         float m10 = this.m10, m11 = this.m11, m12 = this.m12;
         float m20 = this.m20, m21 = this.m21, m22 = this.m22;
@@ -571,7 +623,7 @@ public class Matrix3 implements IMatrix3, Serializable
 
                           m02*om00 + m12*om01 + m22*om02,
                           m02*om10 + m12*om11 + m22*om12,
-                          m02*om20 + m12*om21 + m22*om22);
+                          m02*om20 + m12*om21 + m22*om22).setType(TYPE_PROJECTIVE);
     }
 
     @Override // from IMatrix3
@@ -591,6 +643,12 @@ public class Matrix3 implements IMatrix3, Serializable
         return (m02 == 0f && m12 == 0f && m22 == 1f);
     }
 
+    @Override // from IMatrix3
+    public int type () {
+        int type = _type;
+        return (type == TYPE_UNKNOWN) ? (_type = classify()) : type;
+    }
+
     @Override // from IMatrix3
     public Matrix3 multAffine (IMatrix3 other) {
         return multAffine(other, new Matrix3());
@@ -598,6 +656,15 @@ public class Matrix3 implements IMatrix3, Serializable
 
     @Override // from IMatrix3
     public Matrix3 multAffine (IMatrix3 other, Matrix3 result) {
+        return multAffine(other, result, type(), other.type());
+    }
+
+    /**
+     * Multiplies this by an affine matrix, given the types of both. The product of rigid matrices
+     * is rigid; any other product is affine.
+     */
+    private Matrix3 multAffine (IMatrix3 other, Matrix3 result, int type, int otype) {
+        int rtype = (type <= TYPE_RIGID && otype <= TYPE_RIGID) ? TYPE_RIGID : TYPE_AFFINE;
         float m00 = this.m00, m01 = this.m01;
         float m10 = this.m10, m11 = this.m11;
         float m20 = this.m20, m21 = this.m21;
@@ -612,7 +679,7 @@ public class Matrix3 implements IMatrix3, Serializable
                           m01*om10 + m11*om11,
                           m01*om20 + m11*om21 + m21,
 
-                          0f, 0f, 1f);
+                          0f, 0f, 1f).setType(rtype);
     }
 
     @Override // from IMatrix3
@@ -626,6 +693,7 @@ public class Matrix3 implements IMatrix3, Serializable
      */
     @Override // from IMatrix3
     public Matrix3 invert (Matrix3 result) throws SingularMatrixException {
+        if (type() != TYPE_PROJECTIVE) return invertAffine(result);
         float m00 = this.m00, m01 = this.m01, m02 = this.m02;
         float m10 = this.m10, m11 = this.m11, m12 = this.m12;
         float m20 = this.m20, m21 = this.m21, m22 = this.m22;
@@ -649,7 +717,7 @@ public class Matrix3 implements IMatrix3, Serializable
 
                           +sd20 * rdet,
                           -(m00*m12 - m10*m02) * rdet,
-                          +(m00*m11 - m10*m01) * rdet);
+                          +(m00*m11 - m10*m01) * rdet).setType(TYPE_PROJECTIVE);
     }
 
     @Override // from IMatrix3
@@ -659,6 +727,17 @@ public class Matrix3 implements IMatrix3, Serializable
 
     @Override // from IMatrix3
     public Matrix3 invertAffine (Matrix3 result) throws SingularMatrixException {
+        switch (type()) {
+        case TYPE_IDENTITY:
+            return result.setToIdentity();
+        case TYPE_TRANSLATION:
+            return result.setToTranslation(-m20, -m21);
+        case TYPE_RIGID:
+            // the inverse of a rotation is its transpose
+            return result.set(m00, m01, -(m00*m20 + m01*m21),
+                              m10, m11, -(m10*m20 + m11*m21),
+                              0f, 0f, 1f).setType(TYPE_RIGID);
+        }
         float m00 = this.m00, m01 = this.m01;
         float m10 = this.m10, m11 = this.m11;
         float m20 = this.m20, m21 = this.m21;
@@ -677,7 +756,7 @@ public class Matrix3 implements IMatrix3, Serializable
                           +m00 * rdet,
                           -(m00*m21 - m20*m01) * rdet,
 
-                          0f, 0f, 1f);
+                          0f, 0f, 1f).setType(TYPE_AFFINE);
     }
 
     @Override // from IMatrix3
@@ -769,6 +848,10 @@ public class Matrix3 implements IMatrix3, Serializable
     @Override // from IMatrix3
     public Vector transformPoint (IVector point, Vector result) {
         float px = point.x(), py = point.y();
+        switch (type()) {
+        case TYPE_IDENTITY: return result.set(px, py);
+        case TYPE_TRANSLATION: return result.set(px + m20, py + m21);
+        }
         return result.set(m00*px + m10*py + m20, m01*px + m11*py + m21);
     }
 
@@ -845,6 +928,33 @@ public class Matrix3 implements IMatrix3, Serializable
         return (cp < 0f) ? -FloatMath.sqrt(-cp) : FloatMath.sqrt(cp);
     }
 
+    @Override // from interface Externalizable
+    public void writeExternal (ObjectOutput out) throws IOException {
+        out.writeFloat(m00);
+        out.writeFloat(m01);
+        out.writeFloat(m02);
+        out.writeFloat(m10);
+        out.writeFloat(m11);
+        out.writeFloat(m12);
+        out.writeFloat(m20);
+        out.writeFloat(m21);
+        out.writeFloat(m22);
+    }
+
+    @Override // from interface Externalizable
+    public void readExternal (ObjectInput in) throws IOException {
+        m00 = in.readFloat();
+        m01 = in.readFloat();
+        m02 = in.readFloat();
+        m10 = in.readFloat();
+        m11 = in.readFloat();
+        m12 = in.readFloat();
+        m20 = in.readFloat();
+        m21 = in.readFloat();
+        m22 = in.readFloat();
+        _type = TYPE_UNKNOWN;
+    }
+
     @Override
     public String toString () {
         return ("[[" + m00 + ", " + m10 + ", " + m20 + "], " +
@@ -869,4 +979,30 @@ public class Matrix3 implements IMatrix3, Serializable
                 m01 == omat.m01 && m11 == omat.m11 && m21 == omat.m21 &&
                 m02 == omat.m02 && m12 == omat.m12 && m22 == omat.m22);
     }
+
+    /**
+     * Determines the type of this matrix from its components. Rotations cannot be recognized
+     * cheaply, so this never returns {@link #TYPE_RIGID}.
+     */
+    private int classify () {
+        if (!isAffine()) return TYPE_PROJECTIVE;
+        if (m00 == 1f && m11 == 1f && m10 == 0f && m01 == 0f) return translationType(m20, m21);
+        return TYPE_AFFINE;
+    }
+
+    private Matrix3 setType (int type) {
+        _type = type;
+        return this;
+    }
+
+    private static int translationType (float x, float y) {
+        return (x == 0f && y == 0f) ? TYPE_IDENTITY : TYPE_TRANSLATION;
+    }
+
+    /** The type of this matrix as a 2D transform (one of the {@code TYPE_} constants), or {@link
+     * #TYPE_UNKNOWN} if it has yet to be determined. */
+    private int _type;
+
+    /** Marks a matrix whose type is to be determined from its components. */
+    private static final int TYPE_UNKNOWN = -1;
 }
@@ -0,0 +1,200 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+/**
+ * Robust orientation and in-circle predicates, after Shewchuk's <em>Adaptive Precision
+ * Floating-Point Arithmetic and Fast Robust Geometric Predicates</em>. Each predicate is first
+ * evaluated in double precision and, only when the result is too near zero for its sign to be
+ * trusted, evaluated again exactly using floating-point expansions. The sign of the result is
+ * therefore always correct; its magnitude is approximate.
+ */
+class Predicates
+{
+    /**
+     * Returns a positive value if the triangle {@code a, b, c} has positive signed area (i.e.
+     * {@code c} lies to the left of the line from {@code a} to {@code b}, in a coordinate system
+     * where y increases upward), a negative value if it has negative signed area, and zero if the
+     * points are collinear.
+     */
+    public static double orient (float ax, float ay, float bx, float by, float cx, float cy) {
+        double detLeft = (ax - (double)cx) * (by - (double)cy);
+        double detRight = (ay - (double)cy) * (bx - (double)cx);
+        double det = detLeft - detRight, detSum;
+        if (detLeft > 0) {
+            if (detRight <= 0) return det;
+            detSum = detLeft + detRight;
+        } else if (detLeft < 0) {
+            if (detRight >= 0) return det;
+            detSum = -detLeft - detRight;
+        } else {
+            return det;
+        }
+        double bound = CCW_BOUND * detSum;
+        if (det >= bound || -det >= bound) return det;
+        return orientExact(ax, ay, bx, by, cx, cy);
+    }
+
+    /**
+     * Returns a positive value if {@code d} lies inside the circle through {@code a, b, c}, a
+     * negative value if it lies outside, and zero if the four points are cocircular. The points
+     * {@code a, b, c} must have positive signed area (see {@link #orient}); otherwise the sign of
+     * the result is reversed.
+     */
+    public static double inCircle (float ax, float ay, float bx, float by, float cx, float cy,
+                                   float dx, float dy) {
+        double adx = ax - (double)dx, ady = ay - (double)dy;
+        double bdx = bx - (double)dx, bdy = by - (double)dy;
+        double cdx = cx - (double)dx, cdy = cy - (double)dy;
+        double bdxcdy = bdx * cdy, cdxbdy = cdx * bdy, alift = adx * adx + ady * ady;
+        double cdxady = cdx * ady, adxcdy = adx * cdy, blift = bdx * bdx + bdy * bdy;
+        double adxbdy = adx * bdy, bdxady = bdx * ady, clift = cdx * cdx + cdy * cdy;
+        double det = alift * (bdxcdy - cdxbdy) + blift * (cdxady - adxcdy) +
+            clift * (adxbdy - bdxady);
+        double permanent = (Math.abs(bdxcdy) + Math.abs(cdxbdy)) * alift +
+            (Math.abs(cdxady) + Math.abs(adxcdy)) * blift +
+            (Math.abs(adxbdy) + Math.abs(bdxady)) * clift;
+        double bound = ICC_BOUND * permanent;
+        if (det > bound || -det > bound) return det;
+        return inCircleExact(ax, ay, bx, by, cx, cy, dx, dy);
+    }
+
+    protected static double orientExact (double ax, double ay, double bx, double by,
+                                         double cx, double cy) {
+        // expand the determinant into products of the coordinates (the cx*cy terms cancel), each
+        // of which is exactly the sum of two doubles
+        double[] h = new double[12];
+        int hlen = addProduct(h, 0, ax, by);
+        hlen = addProduct(h, hlen, -ax, cy);
+        hlen = addProduct(h, hlen, -cx, by);
+        hlen = addProduct(h, hlen, -ay, bx);
+        hlen = addProduct(h, hlen, ay, cx);
+        hlen = addProduct(h, hlen, cy, bx);
+        return h[hlen - 1];
+    }
+
+    protected static double inCircleExact (double ax, double ay, double bx, double by,
+                                           double cx, double cy, double dx, double dy) {
+        double[] adx = diff(ax, dx), ady = diff(ay, dy);
+        double[] bdx = diff(bx, dx), bdy = diff(by, dy);
+        double[] cdx = diff(cx, dx), cdy = diff(cy, dy);
+        double[] det = new double[1536];
+        int dlen = addTerm(det, 0, adx, ady, bdx, bdy, cdx, cdy);
+        dlen = addTerm(det, dlen, bdx, bdy, cdx, cdy, adx, ady);
+        dlen = addTerm(det, dlen, cdx, cdy, adx, ady, bdx, bdy);
+        return det[dlen - 1];
+    }
+
+    /**
+     * Adds {@code (px² + py²) * (qx * ry - rx * qy)} to the expansion {@code h}.
+     */
+    protected static int addTerm (double[] h, int hlen, double[] px, double[] py,
+                                  double[] qx, double[] qy, double[] rx, double[] ry) {
+        double[] lift = new double[16], cross = new double[16], prod = new double[8];
+        int llen = add(lift, 0, prod, multiply(px, 2, px, 2, prod));
+        llen = add(lift, llen, prod, multiply(py, 2, py, 2, prod));
+        int clen = add(cross, 0, prod, multiply(qx, 2, ry, 2, prod));
+        double[] nqy = { -qy[0], -qy[1] };
+        clen = add(cross, clen, prod, multiply(rx, 2, nqy, 2, prod));
+        double[] term = new double[2 * llen * clen];
+        return add(h, hlen, term, multiply(lift, llen, cross, clen, term));
+    }
+
+    /**
+     * Returns the exact difference {@code a - b} as a two component expansion.
+     */
+    protected static double[] diff (double a, double b) {
+        double x = a - b, bv = a - x, av = x + bv, br = bv - b, ar = a - av;
+        return new double[] { ar + br, x };
+    }
+
+    /**
+     * Adds the exact product {@code a * b} to the expansion {@code h}.
+     */
+    protected static int addProduct (double[] h, int hlen, double a, double b) {
+        double x = a * b;
+        hlen = grow(h, hlen, productTail(a, b, x));
+        return grow(h, hlen, x);
+    }
+
+    /**
+     * Computes the exact product of the expansions {@code e} and {@code f} into {@code h}, which
+     * must have room for {@code 2 * elen * flen} components.
+     *
+     * @return the length of the product.
+     */
+    protected static int multiply (double[] e, int elen, double[] f, int flen, double[] h) {
+        double[] scaled = new double[2 * elen];
+        int hlen = 0;
+        for (int ii = 0; ii < flen; ii++) {
+            hlen = add(h, hlen, scaled, scale(e, elen, f[ii], scaled));
+        }
+        return hlen;
+    }
+
+    /**
+     * Computes the exact product of the expansion {@code e} and {@code b} into {@code h}.
+     *
+     * @return the length of the product.
+     */
+    protected static int scale (double[] e, int elen, double b, double[] h) {
+        int hlen = 0;
+        for (int ii = 0; ii < elen; ii++) {
+            double x = e[ii] * b;
+            hlen = grow(h, hlen, productTail(e[ii], b, x));
+            hlen = grow(h, hlen, x);
+        }
+        return hlen;
+    }
+
+    /**
+     * Adds the first {@code flen} components of {@code f} to the expansion {@code h}.
+     *
+     * @return the length of the sum.
+     */
+    protected static int add (double[] h, int hlen, double[] f, int flen) {
+        for (int ii = 0; ii < flen; ii++) hlen = grow(h, hlen, f[ii]);
+        return hlen;
+    }
+
+    /**
+     * Adds {@code b} to the nonoverlapping expansion {@code h} (stored least significant
+     * component first), in place, eliminating zero components.
+     *
+     * @return the length of the sum.
+     */
+    protected static int grow (double[] h, int hlen, double b) {
+        double q = b;
+        int nlen = 0;
+        for (int ii = 0; ii < hlen; ii++) {
+            double e = h[ii], x = q + e, bv = x - q, av = x - bv, tail = (q - av) + (e - bv);
+            if (tail != 0) h[nlen++] = tail;
+            q = x;
+        }
+        if (q != 0 || nlen == 0) h[nlen++] = q;
+        return nlen;
+    }
+
+    /**
+     * Returns the roundoff error of the product {@code x = a * b}, such that {@code x + tail} is
+     * exactly {@code a * b}.
+     */
+    protected static double productTail (double a, double b, double x) {
+        double c = SPLITTER * a, ahi = c - (c - a), alo = a - ahi;
+        c = SPLITTER * b;
+        double bhi = c - (c - b), blo = b - bhi;
+        return alo * blo - (((x - ahi * bhi) - alo * bhi) - ahi * blo);
+    }
+
+    /** Half the distance between 1 and the next larger double. */
+    protected static final double EPSILON = 1.1102230246251565e-16;
+
+    /** Used to split a double into two halves of 26 significant bits. */
+    protected static final double SPLITTER = 134217729.0;
+
+    /** Relative error bounds of the double precision evaluations. */
+    protected static final double CCW_BOUND = (3.0 + 16.0 * EPSILON) * EPSILON;
+    protected static final double ICC_BOUND = (10.0 + 96.0 * EPSILON) * EPSILON;
+}
@@ -84,6 +84,28 @@ public class QuadCurves
         }
     }
 
+    /**
+     * Expands {@code target} to contain the specified curve, which is bounded by its end points
+     * and the points at which it attains its extreme x and y values. {@code target} must already
+     * contain (at least) the first end point.
+     *
+     * @return {@code target}, for chaining.
+     */
+    public static Rectangle addBounds (float x1, float y1, float ctrlx, float ctrly,
+                                       float x2, float y2, Rectangle target) {
+        target.add(x2, y2);
+        // each coordinate is extreme where its (linear) derivative vanishes; a degenerate
+        // derivative yields a NaN or infinite parameter, which fails the range checks
+        float tx = (x1 - ctrlx) / (x1 - 2f*ctrlx + x2), ty = (y1 - ctrly) / (y1 - 2f*ctrly + y2);
+        if (tx > 0f && tx < 1f) {
+            target.add(GeometryUtil.quad(tx, x1, ctrlx, x2), GeometryUtil.quad(tx, y1, ctrly, y2));
+        }
+        if (ty > 0f && ty < 1f) {
+            target.add(GeometryUtil.quad(ty, x1, ctrlx, x2), GeometryUtil.quad(ty, y1, ctrly, y2));
+        }
+        return target;
+    }
+
     public static int solveQuadratic (float[] eqn) {
         return solveQuadratic(eqn, eqn);
     }
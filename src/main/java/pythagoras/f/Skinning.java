@@ -0,0 +1,120 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+/**
+ * Transforms packed vertex arrays by weighted blends of bone transforms represented as dual
+ * quaternions (dual quaternion linear blending). Blending dual quaternions rather than matrices
+ * avoids the volume loss of linear blend skinning, and requires fewer operations per vertex.
+ */
+public class Skinning
+{
+    /** The number of floats used to store each bone transform in a packed bone array. */
+    public static final int BONE_SIZE = 8;
+
+    /**
+     * Packs {@code count} dual quaternions, starting at {@code offset}, into {@code bones} (eight
+     * floats per bone, as by {@link IDualQuaternion#get}), for use with {@link #skin}.
+     *
+     * @return the supplied array.
+     */
+    public static float[] pack (IDualQuaternion[] dqs, int offset, int count, float[] bones) {
+        for (int ii = 0; ii < count; ii++) dqs[offset + ii].get(bones, ii*BONE_SIZE);
+        return bones;
+    }
+
+    /**
+     * Skins {@code vertexCount} vertices. Each vertex is influenced by {@code influences} bones,
+     * whose indices and weights are stored consecutively for each vertex in {@code indices} and
+     * {@code weights}. Weights of zero are skipped, and the weights for each vertex need not sum
+     * to one, as the blended transform is normalized.
+     *
+     * @param bones the bone transforms, as packed by {@link #pack}.
+     * @param positions the vertex positions, three floats per vertex.
+     * @param normals the vertex normals, three floats per vertex, or null.
+     * @param outPositions receives the transformed positions (may be the same as {@code
+     * positions}).
+     * @param outNormals receives the transformed normals (may be the same as {@code normals});
+     * ignored if {@code normals} is null.
+     */
+    public static void skin (float[] bones, int influences, int[] indices, float[] weights,
+                             float[] positions, float[] normals, int vertexCount,
+                             float[] outPositions, float[] outNormals) {
+        for (int vv = 0; vv < vertexCount; vv++) {
+            float x = 0f, y = 0f, z = 0f, w = 0f, dx = 0f, dy = 0f, dz = 0f, dw = 0f;
+            float fx = 0f, fy = 0f, fz = 0f, fw = 0f;
+            boolean first = true;
+            for (int ii = vv*influences, ll = ii + influences; ii < ll; ii++) {
+                float weight = weights[ii];
+                if (weight == 0f) continue;
+                int bidx = indices[ii] * BONE_SIZE;
+                float bx = bones[bidx], by = bones[bidx+1], bz = bones[bidx+2], bw = bones[bidx+3];
+                if (first) {
+                    fx = bx;
+                    fy = by;
+                    fz = bz;
+                    fw = bw;
+                    first = false;
+                } else if (fx*bx + fy*by + fz*bz + fw*bw < 0f) {
+                    // blend in the hemisphere of the first bone
+                    weight = -weight;
+                }
+                x += weight * bx;
+                y += weight * by;
+                z += weight * bz;
+                w += weight * bw;
+                dx += weight * bones[bidx+4];
+                dy += weight * bones[bidx+5];
+                dz += weight * bones[bidx+6];
+                dw += weight * bones[bidx+7];
+            }
+
+            int pidx = vv*3;
+            float px = positions[pidx], py = positions[pidx+1], pz = positions[pidx+2];
+            if (first) {
+                // no influences: leave the vertex untransformed
+                outPositions[pidx] = px;
+                outPositions[pidx+1] = py;
+                outPositions[pidx+2] = pz;
+                if (normals != null) {
+                    outNormals[pidx] = normals[pidx];
+                    outNormals[pidx+1] = normals[pidx+1];
+                    outNormals[pidx+2] = normals[pidx+2];
+                }
+                continue;
+            }
+
+            // normalize by the length of the real part
+            float rlen = 1f / FloatMath.sqrt(x*x + y*y + z*z + w*w);
+            x *= rlen;
+            y *= rlen;
+            z *= rlen;
+            w *= rlen;
+            dx *= rlen;
+            dy *= rlen;
+            dz *= rlen;
+            dw *= rlen;
+
+            // see DualQuaternion.transformPoint
+            float tx = w*dx - dw*x + y*dz - z*dy;
+            float ty = w*dy - dw*y + z*dx - x*dz;
+            float tz = w*dz - dw*z + x*dy - y*dx;
+            float cx = y*pz - z*py + w*px, cy = z*px - x*pz + w*py, cz = x*py - y*px + w*pz;
+            outPositions[pidx] = px + 2f * (y*cz - z*cy + tx);
+            outPositions[pidx+1] = py + 2f * (z*cx - x*cz + ty);
+            outPositions[pidx+2] = pz + 2f * (x*cy - y*cx + tz);
+
+            if (normals != null) {
+                float nx = normals[pidx], ny = normals[pidx+1], nz = normals[pidx+2];
+                cx = y*nz - z*ny + w*nx;
+                cy = z*nx - x*nz + w*ny;
+                cz = x*ny - y*nx + w*nz;
+                outNormals[pidx] = nx + 2f * (y*cz - z*cy);
+                outNormals[pidx+1] = ny + 2f * (z*cx - x*cz);
+                outNormals[pidx+2] = nz + 2f * (x*cy - y*cx);
+            }
+        }
+    }
+}
@@ -0,0 +1,316 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+/**
+ * Reads and writes SVG path data (the {@code d} attribute of a {@code path} element). Parsing
+ * scans the supplied character sequence in place and appends segments directly to a {@link
+ * Path}, without allocating per token. All path commands are supported, in absolute and relative
+ * forms; elliptical arcs are converted to cubic curves (via {@link Arc}).
+ */
+public class SvgPathCodec
+{
+    /**
+     * Parses the supplied path data into a new path (which uses the non-zero winding rule, the
+     * SVG default).
+     *
+     * @throws IllegalArgumentException if the data is malformed.
+     */
+    public static Path parse (CharSequence data) {
+        return parse(data, new Path());
+    }
+
+    /**
+     * Parses the supplied path data, appending its segments to {@code into}.
+     *
+     * @return {@code into}, for chaining.
+     * @throws IllegalArgumentException if the data is malformed.
+     */
+    public static Path parse (CharSequence data, Path into) {
+        new Parser(data, into).parse();
+        return into;
+    }
+
+    /**
+     * Returns the path data describing the supplied shape.
+     */
+    public static String write (IShape shape) {
+        return write(shape.pathIterator(null), new StringBuilder()).toString();
+    }
+
+    /**
+     * Appends the path data describing the segments of the supplied iterator to {@code out}.
+     *
+     * @return {@code out}, for chaining.
+     */
+    public static StringBuilder write (PathIterator iter, StringBuilder out) {
+        float[] coords = new float[6];
+        for (; !iter.isDone(); iter.next()) {
+            int type = iter.currentSegment(coords);
+            out.append(COMMANDS[type]);
+            for (int ii = 0, count = Path.pointShift[type]; ii < count; ii++) {
+                if (ii > 0) out.append(' ');
+                appendNumber(out, coords[ii]);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Appends a coordinate, omitting the fractional part of integral values.
+     */
+    protected static void appendNumber (StringBuilder out, float value) {
+        int ivalue = (int)value;
+        if (ivalue == value) out.append(ivalue);
+        else out.append(value);
+    }
+
+    /** Parses path data into a path. */
+    protected static class Parser extends TextReader
+    {
+        public Parser (CharSequence data, Path path) {
+            super(data);
+            _path = path;
+        }
+
+        public void parse () {
+            char cmd = 0;
+            while (peek() != 0) {
+                char c = _text.charAt(_pos);
+                if (isCommand(c)) {
+                    cmd = c;
+                    _pos++;
+                } else if (cmd == 0 || cmd == 'Z' || cmd == 'z') {
+                    // numbers may only follow a command that takes them
+                    throw error("Expected command");
+                }
+                cmd = execute(cmd);
+            }
+        }
+
+        /**
+         * Executes one instance of the specified command, reading its arguments.
+         *
+         * @return the command to be used for any subsequent implicit repetition.
+         */
+        protected char execute (char cmd) {
+            boolean rel = Character.isLowerCase(cmd);
+            float ox = rel ? _x : 0f, oy = rel ? _y : 0f;
+            if (cmd != 'M' && cmd != 'm') {
+                if (!_started) throw error("Path data must begin with a move");
+                // a segment following a close starts a new subpath at the closed subpath's start
+                if (_closed) _path.moveTo(_x, _y);
+                _closed = false;
+            }
+
+            switch (cmd) {
+            case 'M': case 'm':
+                _x = _startX = ox + number();
+                _y = _startY = oy + number();
+                _path.moveTo(_x, _y);
+                _started = true;
+                _closed = false;
+                clearControl();
+                // subsequent coordinate pairs are implicit lines
+                return rel ? 'l' : 'L';
+
+            case 'L': case 'l':
+                _x = ox + number();
+                _y = oy + number();
+                _path.lineTo(_x, _y);
+                clearControl();
+                return cmd;
+
+            case 'H': case 'h':
+                _x = ox + number();
+                _path.lineTo(_x, _y);
+                clearControl();
+                return cmd;
+
+            case 'V': case 'v':
+                _y = oy + number();
+                _path.lineTo(_x, _y);
+                clearControl();
+                return cmd;
+
+            case 'C': case 'c': case 'S': case 's': {
+                float x1, y1;
+                if (cmd == 'C' || cmd == 'c') {
+                    x1 = ox + number();
+                    y1 = oy + number();
+                } else {
+                    // reflect the previous cubic control point, if any
+                    x1 = _cubic ? 2*_x - _ctrlX : _x;
+                    y1 = _cubic ? 2*_y - _ctrlY : _y;
+                }
+                float x2 = ox + number(), y2 = oy + number();
+                float x = ox + number(), y = oy + number();
+                _path.curveTo(x1, y1, x2, y2, x, y);
+                setControl(x2, y2, true);
+                _x = x;
+                _y = y;
+                return cmd;
+            }
+
+            case 'Q': case 'q': case 'T': case 't': {
+                float x1, y1;
+                if (cmd == 'Q' || cmd == 'q') {
+                    x1 = ox + number();
+                    y1 = oy + number();
+                } else {
+                    // reflect the previous quadratic control point, if any
+                    x1 = _quad ? 2*_x - _ctrlX : _x;
+                    y1 = _quad ? 2*_y - _ctrlY : _y;
+                }
+                float x = ox + number(), y = oy + number();
+                _path.quadTo(x1, y1, x, y);
+                setControl(x1, y1, false);
+                _x = x;
+                _y = y;
+                return cmd;
+            }
+
+            case 'A': case 'a': {
+                float rx = number(), ry = number(), angle = number();
+                boolean large = flag(), sweep = flag();
+                float x = ox + number(), y = oy + number();
+                arcTo(rx, ry, angle, large, sweep, x, y);
+                clearControl();
+                _x = x;
+                _y = y;
+                return cmd;
+            }
+
+            case 'Z': case 'z':
+                _path.closePath();
+                _x = _startX;
+                _y = _startY;
+                _closed = true;
+                clearControl();
+                return cmd;
+
+            default:
+                throw error("Unknown command '" + cmd + "'");
+            }
+        }
+
+        /**
+         * Appends an SVG elliptical arc from the current point, converting it from the endpoint
+         * parameterization to the center parameterization used by {@link Arc}.
+         */
+        protected void arcTo (float rx, float ry, float angle, boolean large, boolean sweep,
+                              float x, float y) {
+            float x0 = _x, y0 = _y;
+            if (x0 == x && y0 == y) return;
+            rx = Math.abs(rx);
+            ry = Math.abs(ry);
+            if (rx == 0f || ry == 0f) {
+                _path.lineTo(x, y);
+                return;
+            }
+
+            float phi = FloatMath.toRadians(angle);
+            float cos = FloatMath.cos(phi), sin = FloatMath.sin(phi);
+            float hx = (x0 - x) / 2f, hy = (y0 - y) / 2f;
+            float x1 = cos*hx + sin*hy, y1 = -sin*hx + cos*hy;
+
+            // scale up the radii if they are too small to span the end points
+            float lambda = (x1*x1) / (rx*rx) + (y1*y1) / (ry*ry);
+            if (lambda > 1f) {
+                float scale = FloatMath.sqrt(lambda);
+                rx *= scale;
+                ry *= scale;
+            }
+            float rx2 = rx*rx, ry2 = ry*ry, x12 = x1*x1, y12 = y1*y1;
+            float num = rx2*ry2 - rx2*y12 - ry2*x12, den = rx2*y12 + ry2*x12;
+            float coef = (large == sweep ? -1f : 1f) * FloatMath.sqrt(Math.max(0f, num / den));
+            float cx1 = coef * rx*y1/ry, cy1 = -coef * ry*x1/rx;
+            float cx = cos*cx1 - sin*cy1 + (x0 + x) / 2f;
+            float cy = sin*cx1 + cos*cy1 + (y0 + y) / 2f;
+
+            float start = FloatMath.atan2((y1 - cy1) / ry, (x1 - cx1) / rx);
+            float extent = FloatMath.atan2((-y1 - cy1) / ry, (-x1 - cx1) / rx) - start;
+            if (sweep && extent < 0f) extent += MathUtil.TWO_PI;
+            else if (!sweep && extent > 0f) extent -= MathUtil.TWO_PI;
+
+            // Arc measures angles counterclockwise in a y-down space, so negate them
+            Arc arc = new Arc(cx - rx, cy - ry, 2*rx, 2*ry, -FloatMath.toDegrees(start),
+                              -FloatMath.toDegrees(extent), Arc.OPEN);
+            AffineTransform xf = (phi == 0f) ? null :
+                new AffineTransform().translate(cx, cy).rotate(phi).translate(-cx, -cy);
+            PathIterator iter = arc.pathIterator(xf);
+            float[] coords = _coords;
+            // skip the arc's initial move, as the arc begins at the current point (but fetch it,
+            // as the iterator prepares its curves when fetching the move)
+            iter.currentSegment(coords);
+            for (iter.next(); !iter.isDone(); ) {
+                int type = iter.currentSegment(coords);
+                iter.next();
+                if (type != PathIterator.SEG_CUBICTO) continue;
+                // end exactly at the specified point
+                if (iter.isDone()) {
+                    coords[4] = x;
+                    coords[5] = y;
+                }
+                _path.curveTo(coords[0], coords[1], coords[2], coords[3], coords[4], coords[5]);
+            }
+        }
+
+        protected float number () {
+            return (float)readNumber();
+        }
+
+        /** Reads an arc flag, which may not be separated from the following argument. */
+        protected boolean flag () {
+            accept(',');
+            char c = peek();
+            if (c != '0' && c != '1') throw error("Expected flag");
+            _pos++;
+            accept(',');
+            return c == '1';
+        }
+
+        @Override
+        protected double readNumber () {
+            double value = super.readNumber();
+            accept(',');
+            return value;
+        }
+
+        protected void setControl (float x, float y, boolean cubic) {
+            _ctrlX = x;
+            _ctrlY = y;
+            _cubic = cubic;
+            _quad = !cubic;
+        }
+
+        protected void clearControl () {
+            _cubic = _quad = false;
+        }
+
+        protected static boolean isCommand (char c) {
+            return COMMAND_CHARS.indexOf(c) >= 0;
+        }
+
+        protected final Path _path;
+        protected final float[] _coords = new float[6];
+
+        /** The current point and the start of the current subpath. */
+        protected float _x, _y, _startX, _startY;
+
+        /** The last control point of the previous segment, if it was a cubic or quadratic. */
+        protected float _ctrlX, _ctrlY;
+        protected boolean _cubic, _quad;
+
+        /** Whether a subpath has been started, and whether the previous command closed it. */
+        protected boolean _started, _closed;
+    }
+
+    /** The command letters for each segment type. */
+    protected static final char[] COMMANDS = { 'M', 'L', 'Q', 'C', 'Z' };
+
+    /** The characters of all path commands. */
+    protected static final String COMMAND_CHARS = "MmLlHhVvCcSsQqTtAaZz";
+}
@@ -0,0 +1,138 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+/**
+ * The basis of the text parsers used by {@link SvgPathCodec} and {@link WellKnownCodec}, which
+ * scans a character sequence in place, parsing numbers without allocating substrings or boxed
+ * values.
+ */
+abstract class TextReader
+{
+    protected TextReader (CharSequence text) {
+        _text = text;
+        _length = text.length();
+    }
+
+    /**
+     * Skips whitespace.
+     */
+    protected void skipSpace () {
+        while (_pos < _length && isSpace(_text.charAt(_pos))) _pos++;
+    }
+
+    /**
+     * Returns the next non-whitespace character (without consuming it), or zero if there are no
+     * more.
+     */
+    protected char peek () {
+        skipSpace();
+        return (_pos < _length) ? _text.charAt(_pos) : 0;
+    }
+
+    /**
+     * Consumes the next non-whitespace character if it is the one specified.
+     *
+     * @return true if the character was consumed.
+     */
+    protected boolean accept (char c) {
+        if (peek() != c) return false;
+        _pos++;
+        return true;
+    }
+
+    /**
+     * Consumes the next non-whitespace character, which must be the one specified.
+     */
+    protected void expect (char c) {
+        if (!accept(c)) throw error("Expected '" + c + "'");
+    }
+
+    /**
+     * Parses a decimal number, with optional sign, fraction and exponent.
+     */
+    protected double readNumber () {
+        skipSpace();
+        CharSequence text = _text;
+        boolean negative = false;
+        char c = (_pos < _length) ? text.charAt(_pos) : 0;
+        if (c == '+' || c == '-') {
+            negative = (c == '-');
+            _pos++;
+        }
+        // accumulate up to fifteen significant digits, which a double represents exactly
+        long mantissa = 0L;
+        int exponent = 0, digits = 0;
+        for (; _pos < _length && isDigit(c = text.charAt(_pos)); _pos++, digits++) {
+            if (mantissa < MANTISSA_LIMIT) mantissa = mantissa*10 + (c - '0');
+            else exponent++;
+        }
+        if (_pos < _length && text.charAt(_pos) == '.') {
+            for (_pos++; _pos < _length && isDigit(c = text.charAt(_pos)); _pos++, digits++) {
+                if (mantissa < MANTISSA_LIMIT) {
+                    mantissa = mantissa*10 + (c - '0');
+                    exponent--;
+                }
+            }
+        }
+        if (digits == 0) throw error("Expected number");
+
+        // an exponent marker must be followed by digits, optionally signed
+        if (_pos < _length && (text.charAt(_pos) == 'e' || text.charAt(_pos) == 'E')) {
+            int epos = _pos + 1;
+            boolean eneg = false;
+            if (epos < _length && (text.charAt(epos) == '+' || text.charAt(epos) == '-')) {
+                eneg = (text.charAt(epos++) == '-');
+            }
+            if (epos < _length && isDigit(text.charAt(epos))) {
+                int exp = 0;
+                for (; epos < _length && isDigit(c = text.charAt(epos)); epos++) {
+                    if (exp < 10000) exp = exp*10 + (c - '0');
+                }
+                exponent += eneg ? -exp : exp;
+                _pos = epos;
+            }
+        }
+
+        double value;
+        if (exponent == 0 || mantissa == 0L) value = mantissa;
+        else if (exponent > 0 && exponent < POW10.length) value = mantissa * POW10[exponent];
+        else if (exponent < 0 && -exponent < POW10.length) value = mantissa / POW10[-exponent];
+        else value = mantissa * Math.pow(10, exponent);
+        return negative ? -value : value;
+    }
+
+    /**
+     * Creates an exception describing a syntax error at the current position.
+     */
+    protected IllegalArgumentException error (String message) {
+        return new IllegalArgumentException(message + " at position " + _pos);
+    }
+
+    protected static boolean isDigit (char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    protected static boolean isSpace (char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    /** The text being parsed. */
+    protected final CharSequence _text;
+
+    /** The length of the text. */
+    protected final int _length;
+
+    /** The position of the next character to be read. */
+    protected int _pos;
+
+    /** The mantissa above which further digits are dropped. */
+    protected static final long MANTISSA_LIMIT = 100000000000000L;
+
+    /** The powers of ten that are exactly representable as doubles. */
+    protected static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15,
+        1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+}
@@ -0,0 +1,516 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import pythagoras.util.Platform;
+
+/**
+ * A hierarchy of transforms, each of which is expressed relative to its parent. Local
+ * transforms are stored as translation, rotation and scale in flat arrays (one per attribute)
+ * and world transforms are cached as {@link Matrix4} instances, which are recomputed by {@link
+ * #update} only for nodes that have been changed since the last update and their descendants.
+ *
+ * <p> Nodes are identified by their index, which is assigned by {@link #add} and never changes.
+ * A node's parent must be added before it, so the nodes are always in topological order: a
+ * single pass in index order updates the whole hierarchy. {@link #updateParallel} additionally
+ * updates independent subtrees in parallel.</p>
+ *
+ * <p> A node may be given an arbitrary local matrix (see {@link #setLocalMatrix}) in place of its
+ * translation, rotation and scale. World transforms are composed using {@link
+ * IMatrix4#multAffine} unless a non-affine matrix is involved.</p>
+ */
+public class TransformHierarchy
+{
+    /** The parent index of root nodes. */
+    public static final int NO_PARENT = -1;
+
+    /** The default number of nodes updated by each task in {@link #updateParallel()}. */
+    public static final int DEFAULT_GRAIN = 4096;
+
+    /**
+     * Creates an empty hierarchy.
+     */
+    public TransformHierarchy () {
+        this(16);
+    }
+
+    /**
+     * Creates an empty hierarchy with space for the specified number of nodes.
+     */
+    public TransformHierarchy (int capacity) {
+        _parents = new int[capacity];
+        _flags = new byte[capacity];
+        _stamps = new int[capacity];
+        _trans = new float[capacity*3];
+        _rots = new float[capacity*4];
+        _scales = new float[capacity*3];
+        _locals = new Matrix4[capacity];
+        _worlds = new Matrix4[capacity];
+    }
+
+    /**
+     * Returns the number of nodes in this hierarchy.
+     */
+    public int size () {
+        return _size;
+    }
+
+    /**
+     * Adds a node with an identity local transform.
+     *
+     * @param parent the index of the node's parent, or {@link #NO_PARENT}.
+     * @return the index of the new node.
+     */
+    public int add (int parent) {
+        if (parent < NO_PARENT || parent >= _size) {
+            throw new IndexOutOfBoundsException("No such parent node: " + parent);
+        }
+        if (_size == _parents.length) grow(Math.max(_size*2, 8));
+        int node = _size++;
+        _parents[node] = parent;
+        _flags[node] = DIRTY;
+        _stamps[node] = 0;
+        _trans[node*3] = _trans[node*3+1] = _trans[node*3+2] = 0f;
+        _rots[node*4] = _rots[node*4+1] = _rots[node*4+2] = 0f;
+        _rots[node*4+3] = 1f;
+        _scales[node*3] = _scales[node*3+1] = _scales[node*3+2] = 1f;
+        _locals[node] = null;
+        if (_worlds[node] == null) _worlds[node] = new Matrix4();
+        _anyDirty = true;
+        _order = null;
+        return node;
+    }
+
+    /**
+     * Removes all nodes from this hierarchy.
+     */
+    public void clear () {
+        _size = 0;
+        _anyDirty = false;
+        _order = null;
+    }
+
+    /**
+     * Returns the index of the specified node's parent, or {@link #NO_PARENT}.
+     */
+    public int parent (int node) {
+        checkNode(node);
+        return _parents[node];
+    }
+
+    /**
+     * Sets the translation, rotation and scale of the specified node.
+     */
+    public void setLocal (int node, IVector3 translation, IQuaternion rotation, IVector3 scale) {
+        setTranslation(node, translation.x(), translation.y(), translation.z());
+        setRotation(node, rotation.x(), rotation.y(), rotation.z(), rotation.w());
+        setScale(node, scale.x(), scale.y(), scale.z());
+    }
+
+    /**
+     * Sets the translation of the specified node.
+     */
+    public void setTranslation (int node, IVector3 translation) {
+        setTranslation(node, translation.x(), translation.y(), translation.z());
+    }
+
+    /**
+     * Sets the translation of the specified node.
+     */
+    public void setTranslation (int node, float x, float y, float z) {
+        checkNode(node);
+        int idx = node*3;
+        _trans[idx] = x;
+        _trans[idx+1] = y;
+        _trans[idx+2] = z;
+        markDirty(node);
+    }
+
+    /**
+     * Sets the rotation of the specified node.
+     */
+    public void setRotation (int node, IQuaternion rotation) {
+        setRotation(node, rotation.x(), rotation.y(), rotation.z(), rotation.w());
+    }
+
+    /**
+     * Sets the rotation of the specified node.
+     */
+    public void setRotation (int node, float x, float y, float z, float w) {
+        checkNode(node);
+        int idx = node*4;
+        _rots[idx] = x;
+        _rots[idx+1] = y;
+        _rots[idx+2] = z;
+        _rots[idx+3] = w;
+        markDirty(node);
+    }
+
+    /**
+     * Sets the scale of the specified node.
+     */
+    public void setScale (int node, IVector3 scale) {
+        setScale(node, scale.x(), scale.y(), scale.z());
+    }
+
+    /**
+     * Sets the uniform scale of the specified node.
+     */
+    public void setScale (int node, float scale) {
+        setScale(node, scale, scale, scale);
+    }
+
+    /**
+     * Sets the scale of the specified node.
+     */
+    public void setScale (int node, float x, float y, float z) {
+        checkNode(node);
+        int idx = node*3;
+        _scales[idx] = x;
+        _scales[idx+1] = y;
+        _scales[idx+2] = z;
+        markDirty(node);
+    }
+
+    /**
+     * Sets the local transform of the specified node to an arbitrary (possibly non-affine)
+     * matrix, which is used in place of its translation, rotation and scale until this method is
+     * called again with {@code null}.
+     */
+    public void setLocalMatrix (int node, IMatrix4 matrix) {
+        checkNode(node);
+        if (matrix == null) _locals[node] = null;
+        else if (_locals[node] == null) _locals[node] = new Matrix4(matrix);
+        else _locals[node].set(matrix);
+        markDirty(node);
+    }
+
+    /**
+     * Stores the translation of the specified node in {@code result}.
+     * @return a reference to the result, for chaining.
+     */
+    public Vector3 translation (int node, Vector3 result) {
+        checkNode(node);
+        int idx = node*3;
+        return result.set(_trans[idx], _trans[idx+1], _trans[idx+2]);
+    }
+
+    /**
+     * Stores the rotation of the specified node in {@code result}.
+     * @return a reference to the result, for chaining.
+     */
+    public Quaternion rotation (int node, Quaternion result) {
+        checkNode(node);
+        int idx = node*4;
+        return result.set(_rots[idx], _rots[idx+1], _rots[idx+2], _rots[idx+3]);
+    }
+
+    /**
+     * Stores the scale of the specified node in {@code result}.
+     * @return a reference to the result, for chaining.
+     */
+    public Vector3 scale (int node, Vector3 result) {
+        checkNode(node);
+        int idx = node*3;
+        return result.set(_scales[idx], _scales[idx+1], _scales[idx+2]);
+    }
+
+    /**
+     * Returns the local matrix of the specified node, or null if it uses its translation, rotation
+     * and scale.
+     */
+    public IMatrix4 localMatrix (int node) {
+        checkNode(node);
+        return _locals[node];
+    }
+
+    /**
+     * Returns true if the specified node has been changed since the last update.
+     */
+    public boolean isDirty (int node) {
+        checkNode(node);
+        return (_flags[node] & DIRTY) != 0;
+    }
+
+    /**
+     * Returns the world transform of the specified node, as of the last update. The returned
+     * matrix is updated in place and must not be modified by the caller.
+     */
+    public IMatrix4 world (int node) {
+        checkNode(node);
+        return _worlds[node];
+    }
+
+    /**
+     * Recomputes the world transforms of all changed nodes and their descendants.
+     *
+     * @return the number of world transforms recomputed.
+     */
+    public int update () {
+        if (!_anyDirty) return 0;
+        int stamp = nextStamp(), count = 0;
+        for (int node = 0; node < _size; node++) {
+            if (updateNode(node, stamp, _scratch)) count++;
+        }
+        _anyDirty = false;
+        return count;
+    }
+
+    /**
+     * Recomputes the world transforms of all changed nodes and their descendants, updating
+     * independent subtrees in parallel.
+     *
+     * @return the number of world transforms recomputed.
+     */
+    public int updateParallel () {
+        return updateParallel(DEFAULT_GRAIN);
+    }
+
+    /**
+     * Recomputes the world transforms of all changed nodes and their descendants, updating
+     * independent subtrees in parallel.
+     *
+     * @param grain the approximate number of nodes below which a subtree (or group of sibling
+     * subtrees) is updated by a single task.
+     * @return the number of world transforms recomputed.
+     */
+    public int updateParallel (int grain) {
+        if (!_anyDirty) return 0;
+        if (_size <= grain) return update();
+        if (_order == null) computeOrder();
+        UpdateTask task = new UpdateTask(nextStamp(), 0, _size, Math.max(grain, 1));
+        task.run();
+        _anyDirty = false;
+        return task.total();
+    }
+
+    /**
+     * Recomputes the world transform of the specified node if it or its parent has changed.
+     * @return true if the transform was recomputed.
+     */
+    protected boolean updateNode (int node, int stamp, Matrix4 scratch) {
+        int parent = _parents[node];
+        if ((_flags[node] & DIRTY) == 0 && (parent == NO_PARENT || _stamps[parent] != stamp)) {
+            return false;
+        }
+        Matrix4 local = _locals[node], world = _worlds[node];
+        if (local == null) local = composeLocal(node, scratch);
+        if (parent == NO_PARENT) world.set(local);
+        else {
+            Matrix4 pworld = _worlds[parent];
+            if (pworld.isAffine() && local.isAffine()) pworld.multAffine(local, world);
+            else pworld.mult(local, world);
+        }
+        _flags[node] &= ~DIRTY;
+        _stamps[node] = stamp;
+        return true;
+    }
+
+    /**
+     * Stores the local transform of the specified node, composed from its translation, rotation
+     * and scale, in {@code result}.
+     */
+    protected Matrix4 composeLocal (int node, Matrix4 result) {
+        int tidx = node*3, ridx = node*4;
+        float x = _rots[ridx], y = _rots[ridx+1], z = _rots[ridx+2], w = _rots[ridx+3];
+        float sx = _scales[tidx], sy = _scales[tidx+1], sz = _scales[tidx+2];
+        float xx = x*x, yy = y*y, zz = z*z;
+        float xy = x*y, xz = x*z, xw = x*w;
+        float yz = y*z, yw = y*w, zw = z*w;
+        return result.set((1f - 2f*(yy + zz))*sx, 2f*(xy - zw)*sy, 2f*(xz + yw)*sz, _trans[tidx],
+                          2f*(xy + zw)*sx, (1f - 2f*(xx + zz))*sy, 2f*(yz - xw)*sz, _trans[tidx+1],
+                          2f*(xz - yw)*sx, 2f*(yz + xw)*sy, (1f - 2f*(xx + yy))*sz, _trans[tidx+2],
+                          0f, 0f, 0f, 1f);
+    }
+
+    protected void markDirty (int node) {
+        _flags[node] |= DIRTY;
+        _anyDirty = true;
+    }
+
+    protected int nextStamp () {
+        if (++_stamp == 0) {
+            // the stamp wrapped around; reset the stored stamps so that none matches by accident
+            Arrays.fill(_stamps, 0, _size, 0);
+            _stamp = 1;
+        }
+        return _stamp;
+    }
+
+    protected void checkNode (int node) {
+        if (node < 0 || node >= _size) {
+            throw new IndexOutOfBoundsException("No such node: " + node);
+        }
+    }
+
+    protected void grow (int capacity) {
+        int[] parents = new int[capacity];
+        System.arraycopy(_parents, 0, parents, 0, _size);
+        _parents = parents;
+        byte[] flags = new byte[capacity];
+        System.arraycopy(_flags, 0, flags, 0, _size);
+        _flags = flags;
+        int[] stamps = new int[capacity];
+        System.arraycopy(_stamps, 0, stamps, 0, _size);
+        _stamps = stamps;
+        float[] trans = new float[capacity*3];
+        System.arraycopy(_trans, 0, trans, 0, _size*3);
+        _trans = trans;
+        float[] rots = new float[capacity*4];
+        System.arraycopy(_rots, 0, rots, 0, _size*4);
+        _rots = rots;
+        float[] scales = new float[capacity*3];
+        System.arraycopy(_scales, 0, scales, 0, _size*3);
+        _scales = scales;
+        Matrix4[] locals = new Matrix4[capacity];
+        System.arraycopy(_locals, 0, locals, 0, _size);
+        _locals = locals;
+        Matrix4[] worlds = new Matrix4[capacity];
+        System.arraycopy(_worlds, 0, worlds, 0, _worlds.length);
+        _worlds = worlds;
+    }
+
+    /**
+     * Computes the depth-first (preorder) arrangement of the nodes, in which every subtree
+     * occupies a contiguous range, and the end of the range of each subtree.
+     */
+    protected void computeOrder () {
+        int size = _size;
+        // count the children of each node and turn the counts into offsets
+        int[] offsets = new int[size+1];
+        for (int node = 0; node < size; node++) {
+            int parent = _parents[node];
+            if (parent != NO_PARENT) offsets[parent+1]++;
+        }
+        for (int node = 0; node < size; node++) offsets[node+1] += offsets[node];
+        int[] children = new int[size], fill = new int[size];
+        for (int node = 0; node < size; node++) {
+            int parent = _parents[node];
+            if (parent != NO_PARENT) children[offsets[parent] + fill[parent]++] = node;
+        }
+        // the subtree sizes can be accumulated in reverse index order, as children follow parents
+        int[] sizes = new int[size];
+        for (int node = size-1; node >= 0; node--) {
+            sizes[node]++;
+            int parent = _parents[node];
+            if (parent != NO_PARENT) sizes[parent] += sizes[node];
+        }
+        // assign each node its position: roots in index order, then children after their parent
+        int[] order = new int[size], ends = new int[size], positions = new int[size];
+        int next = 0;
+        for (int node = 0; node < size; node++) {
+            int parent = _parents[node];
+            int pos;
+            if (parent == NO_PARENT) {
+                pos = next;
+                next += sizes[node];
+            } else {
+                pos = positions[node];
+            }
+            order[pos] = node;
+            ends[pos] = pos + sizes[node];
+            int cpos = pos + 1;
+            for (int ii = offsets[node], ll = offsets[node+1]; ii < ll; ii++) {
+                int child = children[ii];
+                positions[child] = cpos;
+                cpos += sizes[child];
+            }
+        }
+        _order = order;
+        _ends = ends;
+    }
+
+    /** Updates a range of the depth-first arrangement which consists of whole subtrees. */
+    protected class UpdateTask implements Runnable
+    {
+        public UpdateTask (int stamp, int start, int end, int grain) {
+            _tstamp = stamp;
+            _start = start;
+            _end = end;
+            _grain = grain;
+        }
+
+        @Override public void run () {
+            int[] order = _order, ends = _ends;
+            int start = _start, end = _end;
+            Matrix4 scratch = new Matrix4();
+            // while we have a single large subtree, update its root and split its children
+            while (end - start > _grain && ends[start] == end) {
+                if (updateNode(order[start], _tstamp, scratch)) _count++;
+                start++;
+            }
+            if (end - start <= _grain) {
+                for (int pos = start; pos < end; pos++) {
+                    if (updateNode(order[pos], _tstamp, scratch)) _count++;
+                }
+                return;
+            }
+            // group adjacent sibling subtrees into tasks of roughly the grain size
+            List<UpdateTask> tasks = new ArrayList<UpdateTask>();
+            for (int pos = start; pos < end; ) {
+                int tend = ends[pos];
+                while (tend < end && ends[tend] - pos <= _grain) tend = ends[tend];
+                tasks.add(new UpdateTask(_tstamp, pos, tend, _grain));
+                pos = tend;
+            }
+            _subtasks = tasks;
+            Platform.invokeAll(tasks);
+        }
+
+        /** Returns the number of transforms recomputed by this task and its subtasks. */
+        public int total () {
+            int total = _count;
+            if (_subtasks != null) {
+                for (UpdateTask task : _subtasks) total += task.total();
+            }
+            return total;
+        }
+
+        protected final int _tstamp, _start, _end, _grain;
+        protected int _count;
+        protected List<UpdateTask> _subtasks;
+    }
+
+    /** The number of nodes in the hierarchy. */
+    protected int _size;
+
+    /** The index of each node's parent, or {@link #NO_PARENT}. */
+    protected int[] _parents;
+
+    /** Flags for each node. */
+    protected byte[] _flags;
+
+    /** The stamp of the update in which each node's world transform was last recomputed. */
+    protected int[] _stamps;
+
+    /** The translation (x, y, z), rotation (x, y, z, w) and scale (x, y, z) of each node. */
+    protected float[] _trans, _rots, _scales;
+
+    /** The explicit local matrix of each node, or null to use its translation, rotation, scale. */
+    protected Matrix4[] _locals;
+
+    /** The cached world transform of each node. */
+    protected Matrix4[] _worlds;
+
+    /** Whether any node has been changed since the last update. */
+    protected boolean _anyDirty;
+
+    /** The stamp of the most recent update. */
+    protected int _stamp;
+
+    /** Holds composed local transforms during {@link #update}. */
+    protected final Matrix4 _scratch = new Matrix4();
+
+    /** The nodes in depth-first order, and the end position of each one's subtree, or null if
+     * they must be recomputed. */
+    protected int[] _order, _ends;
+
+    /** Indicates that a node has changed since the last update. */
+    protected static final byte DIRTY = 1;
+}
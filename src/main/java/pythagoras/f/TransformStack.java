@@ -0,0 +1,253 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+/**
+ * A stack of affine transforms, stored in a single flat array, for use in hierarchical traversals
+ * (such as rendering a scene graph). Each entry holds the six components of an affine transform
+ * (in the order {@code m00, m01, m10, m11, tx, ty}), and all operations apply to the top entry.
+ * Once the stack has grown to the maximum depth of a traversal, pushing, popping and composing
+ * create no garbage.
+ */
+public class TransformStack
+{
+    /** The number of floats used to store each transform. */
+    public static final int ENTRY_SIZE = 6;
+
+    /**
+     * Creates a stack with room for eight transforms, initialized with the identity transform.
+     */
+    public TransformStack () {
+        this(8);
+    }
+
+    /**
+     * Creates a stack with room for {@code capacity} transforms (it will grow as needed),
+     * initialized with the identity transform.
+     */
+    public TransformStack (int capacity) {
+        _data = new float[Math.max(capacity, 1) * ENTRY_SIZE];
+        setToIdentity();
+    }
+
+    /**
+     * Returns the number of transforms on the stack, which is always at least one.
+     */
+    public int depth () {
+        return _top / ENTRY_SIZE + 1;
+    }
+
+    /**
+     * Pushes a copy of the current transform onto the stack.
+     *
+     * @return a reference to this stack, for chaining.
+     */
+    public TransformStack push () {
+        int top = _top, ntop = top + ENTRY_SIZE;
+        if (ntop + ENTRY_SIZE > _data.length) {
+            float[] ndata = new float[_data.length * 2];
+            System.arraycopy(_data, 0, ndata, 0, _data.length);
+            _data = ndata;
+        }
+        System.arraycopy(_data, top, _data, ntop, ENTRY_SIZE);
+        _top = ntop;
+        return this;
+    }
+
+    /**
+     * Pops the current transform from the stack, restoring the transform that was current when
+     * the matching {@link #push} was called.
+     *
+     * @return a reference to this stack, for chaining.
+     * @throws IllegalStateException if there is no matching push.
+     */
+    public TransformStack pop () {
+        if (_top == 0) throw new IllegalStateException("Pop without matching push");
+        _top -= ENTRY_SIZE;
+        return this;
+    }
+
+    /**
+     * Pops all pushed transforms and sets the remaining transform to the identity.
+     *
+     * @return a reference to this stack, for chaining.
+     */
+    public TransformStack reset () {
+        _top = 0;
+        return setToIdentity();
+    }
+
+    /**
+     * Sets the current transform to the identity.
+     *
+     * @return a reference to this stack, for chaining.
+     */
+    public TransformStack setToIdentity () {
+        return set(1f, 0f, 0f, 1f, 0f, 0f);
+    }
+
+    /**
+     * Sets the current transform to the supplied transform.
+     *
+     * @return a reference to this stack, for chaining.
+     */
+    public TransformStack set (AffineTransform xf) {
+        return set(xf.m00, xf.m01, xf.m10, xf.m11, xf.tx, xf.ty);
+    }
+
+    /**
+     * Sets the current transform to the supplied matrix components.
+     *
+     * @return a reference to this stack, for chaining.
+     */
+    public TransformStack set (float m00, float m01, float m10, float m11, float tx, float ty) {
+        float[] data = _data;
+        int top = _top;
+        data[top  ] = m00;
+        data[top+1] = m01;
+        data[top+2] = m10;
+        data[top+3] = m11;
+        data[top+4] = tx;
+        data[top+5] = ty;
+        return this;
+    }
+
+    /**
+     * Translates the current transform (i.e. the translation is applied before the current
+     * transform).
+     *
+     * @return a reference to this stack, for chaining.
+     */
+    public TransformStack translate (float tx, float ty) {
+        float[] data = _data;
+        int top = _top;
+        data[top+4] += data[top  ]*tx + data[top+2]*ty;
+        data[top+5] += data[top+1]*tx + data[top+3]*ty;
+        return this;
+    }
+
+    /**
+     * Rotates the current transform (i.e. the rotation is applied before the current transform).
+     *
+     * @return a reference to this stack, for chaining.
+     */
+    public TransformStack rotate (float angle) {
+        float sina = FloatMath.sin(angle), cosa = FloatMath.cos(angle);
+        return concatenate(cosa, sina, -sina, cosa, 0f, 0f);
+    }
+
+    /**
+     * Uniformly scales the current transform.
+     *
+     * @return a reference to this stack, for chaining.
+     */
+    public TransformStack scale (float scale) {
+        return scale(scale, scale);
+    }
+
+    /**
+     * Scales the current transform (i.e. the scale is applied before the current transform).
+     *
+     * @return a reference to this stack, for chaining.
+     */
+    public TransformStack scale (float scaleX, float scaleY) {
+        float[] data = _data;
+        int top = _top;
+        data[top  ] *= scaleX;
+        data[top+1] *= scaleX;
+        data[top+2] *= scaleY;
+        data[top+3] *= scaleY;
+        return this;
+    }
+
+    /**
+     * Concatenates the supplied transform to the current transform (i.e. computes {@code current
+     * x xf}, which applies {@code xf} first).
+     *
+     * @return a reference to this stack, for chaining.
+     */
+    public TransformStack concatenate (AffineTransform xf) {
+        return concatenate(xf.m00, xf.m01, xf.m10, xf.m11, xf.tx, xf.ty);
+    }
+
+    /**
+     * Concatenates the supplied matrix components to the current transform (i.e. computes {@code
+     * current x m}, which applies {@code m} first).
+     *
+     * @return a reference to this stack, for chaining.
+     */
+    public TransformStack concatenate (float m00, float m01, float m10, float m11,
+                                       float tx, float ty) {
+        float[] data = _data;
+        int top = _top;
+        float am00 = data[top], am01 = data[top+1], am10 = data[top+2], am11 = data[top+3];
+        data[top  ] = am00 * m00 + am10 * m01;
+        data[top+1] = am01 * m00 + am11 * m01;
+        data[top+2] = am00 * m10 + am10 * m11;
+        data[top+3] = am01 * m10 + am11 * m11;
+        data[top+4] += am00 * tx + am10 * ty;
+        data[top+5] += am01 * tx + am11 * ty;
+        return this;
+    }
+
+    /**
+     * Copies the current transform into {@code into}.
+     *
+     * @return {@code into}, for chaining.
+     */
+    public AffineTransform get (AffineTransform into) {
+        float[] data = _data;
+        int top = _top;
+        return into.setTransform(data[top], data[top+1], data[top+2], data[top+3],
+                                 data[top+4], data[top+5]);
+    }
+
+    /**
+     * Copies the six components of the current transform into {@code values} at {@code offset}.
+     */
+    public void get (float[] values, int offset) {
+        System.arraycopy(_data, _top, values, offset, ENTRY_SIZE);
+    }
+
+    /**
+     * Transforms a point by the current transform.
+     *
+     * @return {@code into}, for chaining.
+     */
+    public Point transform (IPoint p, Point into) {
+        float[] data = _data;
+        int top = _top;
+        float x = p.x(), y = p.y();
+        return into.set(data[top  ]*x + data[top+2]*y + data[top+4],
+                        data[top+1]*x + data[top+3]*y + data[top+5]);
+    }
+
+    /**
+     * Transforms {@code count} points, stored as consecutive x/y pairs, by the current transform.
+     * {@code src} and {@code dst} may be the same array.
+     */
+    public void transform (float[] src, int srcOff, float[] dst, int dstOff, int count) {
+        float[] data = _data;
+        int top = _top;
+        float m00 = data[top], m01 = data[top+1], m10 = data[top+2], m11 = data[top+3];
+        float tx = data[top+4], ty = data[top+5];
+        for (int ii = 0; ii < count; ii++) {
+            float x = src[srcOff++], y = src[srcOff++];
+            dst[dstOff++] = m00*x + m10*y + tx;
+            dst[dstOff++] = m01*x + m11*y + ty;
+        }
+    }
+
+    @Override
+    public String toString () {
+        return "[depth=" + depth() + ", top=" + get(new AffineTransform()) + "]";
+    }
+
+    /** The transform data; six floats per entry. */
+    protected float[] _data;
+
+    /** The offset of the current transform in {@link #_data}. */
+    protected int _top;
+}
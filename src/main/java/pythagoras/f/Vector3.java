@@ -4,7 +4,10 @@
 
 package pythagoras.f;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.nio.FloatBuffer;
 
 import pythagoras.util.Platform;
@@ -12,9 +15,9 @@ import pythagoras.util.Platform;
 /**
  * A three element vector.
  */
-public class Vector3 implements IVector3, Serializable
+public class Vector3 implements IVector3, Externalizable
 {
-    private static final long serialVersionUID = -3884541171214417861L;
+    private static final long serialVersionUID = 4064753171086888113L;
 
     /** A unit vector in the X+ direction. */
     public static final IVector3 UNIT_X = new Vector3(1f, 0f, 0f);
@@ -397,6 +400,20 @@ public class Vector3 implements IVector3, Serializable
         return buf.put(x).put(y).put(z);
     }
 
+    @Override // from interface Externalizable
+    public void writeExternal (ObjectOutput out) throws IOException {
+        out.writeFloat(x);
+        out.writeFloat(y);
+        out.writeFloat(z);
+    }
+
+    @Override // from interface Externalizable
+    public void readExternal (ObjectInput in) throws IOException {
+        x = in.readFloat();
+        y = in.readFloat();
+        z = in.readFloat();
+    }
+
     @Override
     public String toString () {
         return "[" + x + ", " + y + ", " + z + "]";
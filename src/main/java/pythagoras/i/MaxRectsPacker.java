@@ -0,0 +1,177 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.i;
+
+import java.util.Arrays;
+
+/**
+ * A rectangle packer which uses the "maximal rectangles" algorithm: each page tracks the set of
+ * maximal free rectangles (which may overlap one another), and each inserted rectangle is placed
+ * into the free rectangle that scores best according to a {@link Heuristic}. This produces very
+ * tight packings, at the cost of more work per insertion than {@link SkylinePacker}.
+ *
+ * <p> After a placement, only free rectangles that intersect the placed rectangle are split, and
+ * only the newly split pieces are tested for containment (the surviving free rectangles were
+ * already mutually non-redundant), so pruning costs {@code O(k·n)} per insertion, where {@code k}
+ * is the (small) number of new pieces, rather than the {@code O(n²)} of a full pruning pass.</p>
+ */
+public class MaxRectsPacker extends RectPacker
+{
+    /** Determines which free rectangle is chosen for a placement. */
+    public static enum Heuristic {
+        /** Minimizes the shorter leftover side of the chosen free rectangle. */
+        BEST_SHORT_SIDE_FIT,
+        /** Minimizes the longer leftover side of the chosen free rectangle. */
+        BEST_LONG_SIDE_FIT,
+        /** Minimizes the leftover area of the chosen free rectangle. */
+        BEST_AREA_FIT,
+        /** Places rectangles as low (minimal y), then as far left, as possible. */
+        BOTTOM_LEFT
+    }
+
+    /**
+     * Creates a packer with the specified page size that uses {@link
+     * Heuristic#BEST_SHORT_SIDE_FIT}.
+     */
+    public MaxRectsPacker (int pageWidth, int pageHeight) {
+        this(pageWidth, pageHeight, Heuristic.BEST_SHORT_SIDE_FIT);
+    }
+
+    /**
+     * Creates a packer with the specified page size and placement heuristic.
+     */
+    public MaxRectsPacker (int pageWidth, int pageHeight, Heuristic heuristic) {
+        super(pageWidth, pageHeight);
+        _heuristic = heuristic;
+    }
+
+    /**
+     * Returns the heuristic used by this packer.
+     */
+    public Heuristic heuristic () {
+        return _heuristic;
+    }
+
+    @Override // from RectPacker
+    protected Page createPage () {
+        return new MaxRectsPage();
+    }
+
+    protected class MaxRectsPage extends Page {
+        public MaxRectsPage () {
+            _free[0] = 0;
+            _free[1] = 0;
+            _free[2] = _pageWidth;
+            _free[3] = _pageHeight;
+            _nfree = 1;
+        }
+
+        @Override public boolean insert (int width, int height, Rectangle target) {
+            long bestScore = Long.MAX_VALUE;
+            int best = -1;
+            for (int ff = 0, fend = _nfree*4; ff < fend; ff += 4) {
+                int fw = _free[ff+2], fh = _free[ff+3];
+                if (fw < width || fh < height) continue;
+                long score = score(_free[ff], _free[ff+1], fw, fh, width, height);
+                if (score < bestScore) {
+                    bestScore = score;
+                    best = ff;
+                }
+            }
+            if (best < 0) return false;
+            int x = _free[best], y = _free[best+1];
+            place(x, y, width, height);
+            target.setBounds(x, y, width, height);
+            used += (long)width * height;
+            return true;
+        }
+
+        /** Scores placing a {@code w x h} rectangle into the specified free rectangle. The primary
+         * criterion is placed in the high bits, the tie breaker in the low bits. */
+        protected long score (int fx, int fy, int fw, int fh, int w, int h) {
+            int lw = fw - w, lh = fh - h;
+            switch (_heuristic) {
+            default:
+            case BEST_SHORT_SIDE_FIT:
+                return (long)Math.min(lw, lh) << 32 | Math.max(lw, lh);
+            case BEST_LONG_SIDE_FIT:
+                return (long)Math.max(lw, lh) << 32 | Math.min(lw, lh);
+            case BEST_AREA_FIT:
+                // leftover area can exceed 32 bits for enormous pages, so clamp it
+                long area = Math.min((long)fw * fh - (long)w * h, Integer.MAX_VALUE);
+                return area << 32 | Math.min(lw, lh);
+            case BOTTOM_LEFT:
+                return (long)(fy + h) << 32 | fx;
+            }
+        }
+
+        /** Splits the free rectangles around the supplied placed rectangle and prunes the
+         * resulting pieces. */
+        protected void place (int x, int y, int w, int h) {
+            int x2 = x + w, y2 = y + h, kept = 0, nsplit = 0;
+            for (int ff = 0, fend = _nfree*4; ff < fend; ff += 4) {
+                int fx = _free[ff], fy = _free[ff+1], fw = _free[ff+2], fh = _free[ff+3];
+                int fx2 = fx + fw, fy2 = fy + fh;
+                if (x >= fx2 || x2 <= fx || y >= fy2 || y2 <= fy) {
+                    if (kept != ff) System.arraycopy(_free, ff, _free, kept, 4);
+                    kept += 4;
+                    continue;
+                }
+                _split = ensure(_split, nsplit + 16);
+                if (x > fx) nsplit = add(_split, nsplit, fx, fy, x - fx, fh);
+                if (x2 < fx2) nsplit = add(_split, nsplit, x2, fy, fx2 - x2, fh);
+                if (y > fy) nsplit = add(_split, nsplit, fx, fy, fw, y - fy);
+                if (y2 < fy2) nsplit = add(_split, nsplit, fx, y2, fw, fy2 - y2);
+            }
+
+            // prune new pieces contained by a surviving free rect or by another new piece
+            for (int ss = 0; ss < nsplit; ss += 4) {
+                boolean redundant = false;
+                for (int ff = 0; ff < kept && !redundant; ff += 4) {
+                    redundant = contains(_free, ff, _split, ss);
+                }
+                for (int oo = 0; oo < nsplit && !redundant; oo += 4) {
+                    redundant = oo != ss && _split[oo+2] > 0 && contains(_split, oo, _split, ss);
+                }
+                if (redundant) _split[ss+2] = 0; // mark as dead
+            }
+            for (int ss = 0; ss < nsplit; ss += 4) {
+                if (_split[ss+2] == 0) continue;
+                _free = ensure(_free, kept + 4);
+                System.arraycopy(_split, ss, _free, kept, 4);
+                kept += 4;
+            }
+            _nfree = kept / 4;
+        }
+
+        /** The free rectangles of this page, as {@code (x, y, width, height)} quadruples. */
+        protected int[] _free = new int[64];
+        protected int _nfree;
+    }
+
+    protected static int add (int[] rects, int idx, int x, int y, int w, int h) {
+        rects[idx++] = x;
+        rects[idx++] = y;
+        rects[idx++] = w;
+        rects[idx++] = h;
+        return idx;
+    }
+
+    /** Returns true if rectangle {@code a[ai]} contains rectangle {@code b[bi]}. */
+    protected static boolean contains (int[] a, int ai, int[] b, int bi) {
+        return b[bi] >= a[ai] && b[bi+1] >= a[ai+1] &&
+            b[bi] + b[bi+2] <= a[ai] + a[ai+2] && b[bi+1] + b[bi+3] <= a[ai+1] + a[ai+3];
+    }
+
+    protected static int[] ensure (int[] values, int size) {
+        if (values.length >= size) return values;
+        return Arrays.copyOf(values, Math.max(size, values.length*2));
+    }
+
+    protected final Heuristic _heuristic;
+
+    /** Scratch storage for split free rectangles, shared by all pages. */
+    protected int[] _split = new int[64];
+}
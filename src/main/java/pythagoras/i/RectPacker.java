@@ -0,0 +1,144 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.i;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The base class for rectangle bin packers, which place rectangles into one or more fixed size
+ * pages (for example, when building texture atlases). Rectangles may be inserted one at a time
+ * as they arrive ("online" packing via {@link #insert}), or a batch of rectangles may be sorted
+ * and then inserted, which generally yields a tighter packing ("offline" packing via {@link
+ * #pack}). When a rectangle does not fit into any existing page, a new page is created.
+ *
+ * @see MaxRectsPacker
+ * @see SkylinePacker
+ */
+public abstract class RectPacker
+{
+    /**
+     * Returns the width of the pages into which rectangles are packed.
+     */
+    public int pageWidth () {
+        return _pageWidth;
+    }
+
+    /**
+     * Returns the height of the pages into which rectangles are packed.
+     */
+    public int pageHeight () {
+        return _pageHeight;
+    }
+
+    /**
+     * Returns the number of pages currently in use.
+     */
+    public int pageCount () {
+        return _pages.size();
+    }
+
+    /**
+     * Returns the fraction of the specified page's area that is occupied by packed rectangles.
+     */
+    public float occupancy (int page) {
+        return _pages.get(page).used / ((float)_pageWidth * _pageHeight);
+    }
+
+    /**
+     * Discards all pages, restoring this packer to its initial state.
+     */
+    public void reset () {
+        _pages.clear();
+    }
+
+    /**
+     * Packs a rectangle of the specified size into the first page that can accommodate it,
+     * creating a new page if necessary.
+     *
+     * @param target a rectangle into which the location and size of the packed rectangle is
+     * written (on success).
+     * @return the index of the page into which the rectangle was packed, or -1 if the rectangle
+     * is empty or larger than a page.
+     */
+    public int insert (int width, int height, Rectangle target) {
+        if (width <= 0 || height <= 0 || width > _pageWidth || height > _pageHeight) return -1;
+        for (int ii = 0, ll = _pages.size(); ii < ll; ii++) {
+            if (_pages.get(ii).insert(width, height, target)) return ii;
+        }
+        Page page = createPage();
+        _pages.add(page);
+        // a fresh page can always accommodate a rectangle no larger than the page
+        page.insert(width, height, target);
+        return _pages.size() - 1;
+    }
+
+    /**
+     * Packs a rectangle of the supplied size.
+     * @see #insert(int,int,Rectangle)
+     */
+    public int insert (IDimension size, Rectangle target) {
+        return insert(size.width(), size.height(), target);
+    }
+
+    /**
+     * Packs the supplied batch of sizes. The sizes are first sorted by decreasing longest side
+     * (then decreasing shortest side) and inserted in that order, which packs considerably more
+     * tightly than inserting them in arbitrary order. Results are reported in input order.
+     *
+     * @param rects an array into which the packed rectangles are written, parallel to {@code
+     * sizes}. Rectangles which could not be packed (see {@link #insert}) are unmodified.
+     * @param pages an array into which the page index of each packed rectangle is written,
+     * parallel to {@code sizes}, or -1 for rectangles that could not be packed.
+     * @return the number of pages in use after packing.
+     */
+    public int pack (IDimension[] sizes, Rectangle[] rects, int[] pages) {
+        int count = sizes.length;
+        // sort (key, index) pairs packed into longs, which avoids boxing and comparators
+        long[] order = new long[count];
+        for (int ii = 0; ii < count; ii++) {
+            int w = sizes[ii].width(), h = sizes[ii].height();
+            long key = (long)(MAX_SIDE - Math.min(Math.max(w, h), MAX_SIDE)) << 16 |
+                (MAX_SIDE - Math.min(Math.min(w, h), MAX_SIDE));
+            order[ii] = key << 32 | ii;
+        }
+        Arrays.sort(order);
+        for (int ii = 0; ii < count; ii++) {
+            int idx = (int)order[ii];
+            pages[idx] = insert(sizes[idx], rects[idx]);
+        }
+        return _pages.size();
+    }
+
+    /** A single page into which rectangles are packed. */
+    protected static abstract class Page {
+        /** The total area occupied by rectangles packed into this page. */
+        public long used;
+
+        /** Packs a rectangle of the specified size into this page, if possible.
+         * @return true if the rectangle was packed and written into {@code target}. */
+        public abstract boolean insert (int width, int height, Rectangle target);
+    }
+
+    protected RectPacker (int pageWidth, int pageHeight) {
+        if (pageWidth <= 0 || pageHeight <= 0) throw new IllegalArgumentException(
+            "Invalid page size " + Dimensions.dimenToString(pageWidth, pageHeight));
+        _pageWidth = pageWidth;
+        _pageHeight = pageHeight;
+    }
+
+    /** Creates a new, empty page. */
+    protected abstract Page createPage ();
+
+    /** The dimensions of our pages. */
+    protected final int _pageWidth, _pageHeight;
+
+    /** The pages into which we have packed rectangles. */
+    protected final List<Page> _pages = new ArrayList<Page>();
+
+    /** Sides longer than this are all sorted together in {@link #pack}. */
+    protected static final int MAX_SIDE = 0xFFFF;
+}
@@ -0,0 +1,802 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.i;
+
+import java.util.Arrays;
+
+/**
+ * An arbitrary area composed of rectangles, stored in "y-x banded" form (in the manner of X11
+ * regions): the region is split into horizontal bands, each of which contains a sorted list of
+ * non-overlapping, non-abutting x-spans. Adjacent bands with identical spans are always coalesced,
+ * so the representation of a given area is canonical.
+ *
+ * <p> Rectangles in a region are half-open: a rectangle {@code (x, y, width, height)} covers
+ * the pixels from {@code x} to {@code x + width - 1} inclusive, matching {@link Rectangle}.</p>
+ *
+ * <p> A region may be capped to a maximum number of rectangles (see {@link #setMaxRects}). When
+ * an operation would exceed the cap, the region is conservatively enlarged by merging the spans
+ * or bands whose merge adds the least uncovered area, which is the behavior one wants when
+ * accumulating repaint damage.</p>
+ */
+public class Region implements IShape
+{
+    /** Used to visit the rectangles of a region without allocation. See {@link #visit}. */
+    public interface Visitor {
+        /** Called for each rectangle in the region, in y-x banded order. */
+        void visit (int x, int y, int width, int height);
+    }
+
+    /** Used to iterate over the rectangles of a region without allocation. A cursor may be reused
+     * (via {@link #reset}) for any number of iterations. The region must not be modified while a
+     * cursor is iterating over it. */
+    public static class Cursor {
+        /** Creates a cursor positioned at the start of the supplied region. */
+        public Cursor (Region region) {
+            reset(region);
+        }
+
+        /** Repositions this cursor at the start of the supplied region. */
+        public Cursor reset (Region region) {
+            _region = region;
+            _band = 0;
+            _span = 0;
+            return this;
+        }
+
+        /** Returns true if there are more rectangles to be obtained via {@link #next}. */
+        public boolean hasNext () {
+            return _band < _region._nbands;
+        }
+
+        /** Writes the next rectangle into {@code target}.
+         * @return false if there were no more rectangles, in which case {@code target} is
+         * unmodified. */
+        public boolean next (Rectangle target) {
+            Region r = _region;
+            if (_band >= r._nbands) return false;
+            int bb = _band * 3, y1 = r._bands[bb], y2 = r._bands[bb+1];
+            target.setBounds(r._spans[_span], y1, r._spans[_span+1] - r._spans[_span], y2 - y1);
+            _span += 2;
+            if (_span >= r._bands[bb+2]) _band++;
+            return true;
+        }
+
+        protected Region _region;
+        protected int _band, _span;
+    }
+
+    /**
+     * Creates an empty region with no cap on its rectangle count.
+     */
+    public Region () {
+        this(0);
+    }
+
+    /**
+     * Creates an empty region which will contain at most {@code maxRects} rectangles.
+     * @see #setMaxRects
+     */
+    public Region (int maxRects) {
+        setMaxRects(maxRects);
+    }
+
+    /**
+     * Creates a region which covers the supplied rectangle.
+     */
+    public Region (IRectangle r) {
+        this(0);
+        add(r);
+    }
+
+    /**
+     * Creates a region which is a copy of the supplied region.
+     */
+    public Region (Region other) {
+        this(other._maxRects);
+        set(other);
+    }
+
+    /**
+     * Configures the maximum number of rectangles this region may contain. If an operation would
+     * result in more rectangles, the region is enlarged (never shrunk) to a covering region with
+     * at most {@code maxRects} rectangles. A value of zero or less means no limit.
+     */
+    public Region setMaxRects (int maxRects) {
+        _maxRects = maxRects;
+        enforceCap();
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of rectangles allowed in this region, or zero if unlimited.
+     */
+    public int maxRects () {
+        return Math.max(_maxRects, 0);
+    }
+
+    /**
+     * Returns the number of rectangles that make up this region.
+     */
+    public int rectCount () {
+        return _nbands == 0 ? 0 : _bands[_nbands*3-1] / 2;
+    }
+
+    /**
+     * Returns the number of y-bands in this region.
+     */
+    public int bandCount () {
+        return _nbands;
+    }
+
+    /**
+     * Returns the total number of pixels covered by this region.
+     */
+    public long area () {
+        long area = 0;
+        for (int bb = 0, ss = 0, bend = _nbands*3; bb < bend; bb += 3) {
+            long width = 0;
+            for (int send = _bands[bb+2]; ss < send; ss += 2) width += _spans[ss+1] - _spans[ss];
+            area += width * (_bands[bb+1] - _bands[bb]);
+        }
+        return area;
+    }
+
+    /**
+     * Empties this region.
+     * @return a reference to this region, for chaining.
+     */
+    public Region clear () {
+        _nbands = 0;
+        return this;
+    }
+
+    /**
+     * Makes this region a copy of the supplied region (the rectangle cap is not copied, but is
+     * applied to the copied rectangles).
+     * @return a reference to this region, for chaining.
+     */
+    public Region set (Region other) {
+        if (other == this) return this;
+        int nspans = other.spanLength();
+        _bands = ensure(_bands, other._nbands*3);
+        _spans = ensure(_spans, nspans);
+        System.arraycopy(other._bands, 0, _bands, 0, other._nbands*3);
+        System.arraycopy(other._spans, 0, _spans, 0, nspans);
+        _nbands = other._nbands;
+        _minX = other._minX;
+        _maxX = other._maxX;
+        enforceCap();
+        return this;
+    }
+
+    /**
+     * Makes this region cover exactly the supplied rectangle.
+     * @return a reference to this region, for chaining.
+     */
+    public Region set (int x, int y, int width, int height) {
+        _nbands = 0;
+        if (width > 0 && height > 0) {
+            _bands = ensure(_bands, 3);
+            _spans = ensure(_spans, 2);
+            _bands[0] = y;
+            _bands[1] = y + height;
+            _bands[2] = 2;
+            _spans[0] = _minX = x;
+            _spans[1] = _maxX = x + width;
+            _nbands = 1;
+        }
+        return this;
+    }
+
+    /**
+     * Makes this region cover exactly the supplied rectangle.
+     * @return a reference to this region, for chaining.
+     */
+    public Region set (IRectangle r) {
+        return set(r.x(), r.y(), r.width(), r.height());
+    }
+
+    /**
+     * Unions the specified rectangle into this region.
+     * @return a reference to this region, for chaining.
+     */
+    public Region add (int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0) return this;
+        // fast path: the rectangle is already covered (common when accumulating damage)
+        if (_nbands > 0 && contains(x, y, width, height)) return this;
+        if (_nbands == 0) return set(x, y, width, height);
+        loadRect(x, y, width, height);
+        return combine(_rbands, 1, _rspans, UNION);
+    }
+
+    /**
+     * Unions the supplied rectangle into this region.
+     * @return a reference to this region, for chaining.
+     */
+    public Region add (IRectangle r) {
+        return add(r.x(), r.y(), r.width(), r.height());
+    }
+
+    /**
+     * Unions the supplied region into this region.
+     * @return a reference to this region, for chaining.
+     */
+    public Region add (Region other) {
+        if (other == this || other._nbands == 0) return this;
+        if (_nbands == 0) return set(other);
+        return combine(other._bands, other._nbands, other._spans, UNION);
+    }
+
+    /**
+     * Intersects this region with the specified rectangle.
+     * @return a reference to this region, for chaining.
+     */
+    public Region intersect (int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0) return clear();
+        if (_nbands == 0) return this;
+        loadRect(x, y, width, height);
+        return combine(_rbands, 1, _rspans, INTERSECT);
+    }
+
+    /**
+     * Intersects this region with the supplied rectangle.
+     * @return a reference to this region, for chaining.
+     */
+    public Region intersect (IRectangle r) {
+        return intersect(r.x(), r.y(), r.width(), r.height());
+    }
+
+    /**
+     * Intersects this region with the supplied region.
+     * @return a reference to this region, for chaining.
+     */
+    public Region intersect (Region other) {
+        if (other == this) return this;
+        if (other._nbands == 0) return clear();
+        if (_nbands == 0) return this;
+        return combine(other._bands, other._nbands, other._spans, INTERSECT);
+    }
+
+    /**
+     * Removes the specified rectangle from this region. Note that if this region has a rectangle
+     * cap, the result may be enlarged to satisfy the cap and thus may still overlap the
+     * subtracted rectangle.
+     * @return a reference to this region, for chaining.
+     */
+    public Region subtract (int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0 || _nbands == 0) return this;
+        loadRect(x, y, width, height);
+        return combine(_rbands, 1, _rspans, SUBTRACT);
+    }
+
+    /**
+     * Removes the supplied rectangle from this region.
+     * @see #subtract(int,int,int,int)
+     */
+    public Region subtract (IRectangle r) {
+        return subtract(r.x(), r.y(), r.width(), r.height());
+    }
+
+    /**
+     * Removes the supplied region from this region.
+     * @see #subtract(int,int,int,int)
+     */
+    public Region subtract (Region other) {
+        if (other == this) return clear();
+        if (other._nbands == 0 || _nbands == 0) return this;
+        return combine(other._bands, other._nbands, other._spans, SUBTRACT);
+    }
+
+    /**
+     * Translates this region by the specified amount.
+     * @return a reference to this region, for chaining.
+     */
+    public Region translate (int dx, int dy) {
+        for (int bb = 0, bend = _nbands*3; bb < bend; bb += 3) {
+            _bands[bb] += dy;
+            _bands[bb+1] += dy;
+        }
+        for (int ss = 0, send = spanLength(); ss < send; ss++) _spans[ss] += dx;
+        _minX += dx;
+        _maxX += dx;
+        return this;
+    }
+
+    /**
+     * Passes each rectangle in this region to the supplied visitor, in y-x banded order.
+     */
+    public void visit (Visitor visitor) {
+        for (int bb = 0, ss = 0, bend = _nbands*3; bb < bend; bb += 3) {
+            int y = _bands[bb], height = _bands[bb+1] - y;
+            for (int send = _bands[bb+2]; ss < send; ss += 2) {
+                visitor.visit(_spans[ss], y, _spans[ss+1] - _spans[ss], height);
+            }
+        }
+    }
+
+    /**
+     * Writes the rectangles of this region into {@code dst} as packed {@code (x, y, width,
+     * height)} quadruples, starting at {@code offset}.
+     * @return the number of rectangles written.
+     * @throws IndexOutOfBoundsException if {@code dst} cannot hold {@link #rectCount} rects.
+     */
+    public int getRects (int[] dst, int offset) {
+        int count = rectCount();
+        if (offset + count*4 > dst.length) throw new IndexOutOfBoundsException(
+            "Need room for " + count + " rects at offset " + offset);
+        for (int bb = 0, ss = 0, bend = _nbands*3; bb < bend; bb += 3) {
+            int y = _bands[bb], height = _bands[bb+1] - y;
+            for (int send = _bands[bb+2]; ss < send; ss += 2) {
+                dst[offset++] = _spans[ss];
+                dst[offset++] = y;
+                dst[offset++] = _spans[ss+1] - _spans[ss];
+                dst[offset++] = height;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns a cursor positioned at the start of this region. To avoid allocation, reuse a cursor
+     * via {@link Cursor#reset}.
+     */
+    public Cursor cursor () {
+        return new Cursor(this);
+    }
+
+    @Override // from interface IShape
+    public boolean isEmpty () {
+        return _nbands == 0;
+    }
+
+    @Override // from interface IShape
+    public boolean contains (int x, int y) {
+        int band = findBand(y);
+        if (band < 0) return false;
+        int ss = band == 0 ? 0 : _bands[band*3-1], send = _bands[band*3+2];
+        for (; ss < send; ss += 2) {
+            if (x < _spans[ss]) return false;
+            if (x < _spans[ss+1]) return true;
+        }
+        return false;
+    }
+
+    @Override // from interface IShape
+    public boolean contains (IPoint point) {
+        return contains(point.x(), point.y());
+    }
+
+    @Override // from interface IShape
+    public boolean contains (int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0) return false;
+        int band = findBand(y), x2 = x + width, y2 = y + height;
+        if (band < 0) return false;
+        for (int top = y; band < _nbands; band++) {
+            int bb = band*3;
+            // the first band may start above y; each later band must start where the last ended
+            if (_bands[bb] > top) return false;
+            boolean covered = false;
+            for (int ss = band == 0 ? 0 : _bands[bb-1], send = _bands[bb+2]; ss < send; ss += 2) {
+                if (x < _spans[ss]) break;
+                if (x2 <= _spans[ss+1]) { covered = true; break; }
+            }
+            if (!covered) return false;
+            top = _bands[bb+1];
+            if (top >= y2) return true;
+        }
+        return false;
+    }
+
+    @Override // from interface IShape
+    public boolean contains (IRectangle r) {
+        return contains(r.x(), r.y(), r.width(), r.height());
+    }
+
+    @Override // from interface IShape
+    public boolean intersects (int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0 || _nbands == 0) return false;
+        int x2 = x + width, y2 = y + height;
+        if (x2 <= _minX || x >= _maxX) return false;
+        for (int band = Math.max(0, findBandAtOrBelow(y)); band < _nbands; band++) {
+            int bb = band*3;
+            if (_bands[bb] >= y2) break;
+            if (_bands[bb+1] <= y) continue;
+            for (int ss = band == 0 ? 0 : _bands[bb-1], send = _bands[bb+2]; ss < send; ss += 2) {
+                if (_spans[ss] >= x2) break;
+                if (_spans[ss+1] > x) return true;
+            }
+        }
+        return false;
+    }
+
+    @Override // from interface IShape
+    public boolean intersects (IRectangle r) {
+        return intersects(r.x(), r.y(), r.width(), r.height());
+    }
+
+    @Override // from interface IShape
+    public Rectangle bounds () {
+        return bounds(new Rectangle());
+    }
+
+    @Override // from interface IShape
+    public Rectangle bounds (Rectangle target) {
+        if (_nbands == 0) target.setBounds(0, 0, 0, 0);
+        else {
+            int y1 = _bands[0], y2 = _bands[_nbands*3-2];
+            target.setBounds(_minX, y1, _maxX - _minX, y2 - y1);
+        }
+        return target;
+    }
+
+    @Override // from Object
+    public boolean equals (Object obj) {
+        if (obj == this) return true;
+        if (!(obj instanceof Region)) return false;
+        // banded regions are canonical, so equal areas have equal representations
+        Region o = (Region)obj;
+        return o._nbands == _nbands && rangeEquals(o._bands, _bands, _nbands*3) &&
+            rangeEquals(o._spans, _spans, spanLength());
+    }
+
+    @Override // from Object
+    public int hashCode () {
+        int hash = _nbands;
+        for (int ii = 0, ll = _nbands*3; ii < ll; ii++) hash = 31*hash + _bands[ii];
+        for (int ii = 0, ll = spanLength(); ii < ll; ii++) hash = 31*hash + _spans[ii];
+        return hash;
+    }
+
+    @Override // from Object
+    public String toString () {
+        StringBuilder buf = new StringBuilder("Region[");
+        for (int bb = 0, ss = 0, bend = _nbands*3; bb < bend; bb += 3) {
+            int y = _bands[bb], height = _bands[bb+1] - y;
+            for (int send = _bands[bb+2]; ss < send; ss += 2) {
+                if (buf.length() > 7) buf.append(", ");
+                buf.append(Dimensions.dimenToString(_spans[ss+1] - _spans[ss], height));
+                buf.append(Points.pointToString(_spans[ss], y));
+            }
+        }
+        return buf.append("]").toString();
+    }
+
+    /** Returns the number of ints used in {@link #_spans}. */
+    protected int spanLength () {
+        return _nbands == 0 ? 0 : _bands[_nbands*3-1];
+    }
+
+    /** Returns the index of the band that contains {@code y}, or -1. */
+    protected int findBand (int y) {
+        int band = findBandAtOrBelow(y);
+        return (band >= 0 && y < _bands[band*3+1]) ? band : -1;
+    }
+
+    /** Returns the index of the last band whose top is at or above {@code y}, or -1. */
+    protected int findBandAtOrBelow (int y) {
+        int low = 0, high = _nbands - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (_bands[mid*3] <= y) low = mid + 1;
+            else high = mid - 1;
+        }
+        return high;
+    }
+
+    /** Configures the scratch single rectangle region used for rectangle operations. */
+    protected void loadRect (int x, int y, int width, int height) {
+        _rbands[0] = y;
+        _rbands[1] = y + height;
+        _rbands[2] = 2;
+        _rspans[0] = x;
+        _rspans[1] = x + width;
+    }
+
+    /**
+     * Combines this region with the supplied banded region using {@code op}, writing the result
+     * into our scratch buffers which are then swapped with our main buffers. This walks the two
+     * regions' bands in lockstep, so it is linear in the number of spans of both regions.
+     */
+    protected Region combine (int[] obands, int onbands, int[] ospans, int op) {
+        int[] abands = _bands, aspans = _spans;
+        int anb = _nbands, ai = 0, bi = 0;
+        _nbands = 0;
+        _bands = ensure(_tbands, (anb + onbands) * 6);
+        _spans = ensure(_tspans, 16);
+        _nspans = 0;
+        _minX = Integer.MAX_VALUE;
+        _maxX = Integer.MIN_VALUE;
+
+        int y = Math.min(abands[0], obands[0]);
+        while (ai < anb || bi < onbands) {
+            int atop = ai < anb ? abands[ai*3] : Integer.MAX_VALUE;
+            int btop = bi < onbands ? obands[bi*3] : Integer.MAX_VALUE;
+            if (y < atop && y < btop) {
+                // neither region covers y, skip down to the next band
+                y = Math.min(atop, btop);
+                continue;
+            }
+            boolean ain = atop <= y, bin = btop <= y;
+            int abot = ain ? abands[ai*3+1] : atop, bbot = bin ? obands[bi*3+1] : btop;
+            int ny = Math.min(abot, bbot);
+
+            // skip combining bands which can produce no output for this op
+            boolean emit = (op == UNION) || (op == INTERSECT && ain && bin) ||
+                (op == SUBTRACT && ain);
+            if (emit) {
+                int as = ai == 0 ? 0 : abands[ai*3-1], ae = ain ? abands[ai*3+2] : as;
+                int bs = bi == 0 ? 0 : obands[bi*3-1], be = bin ? obands[bi*3+2] : bs;
+                combineSpans(aspans, as, ae, ospans, bs, be, op, y, ny);
+            }
+
+            y = ny;
+            if (ain && y >= abot) ai++;
+            if (bin && y >= bbot) bi++;
+        }
+
+        _tbands = abands;
+        _tspans = aspans;
+        enforceCap();
+        return this;
+    }
+
+    /** Combines the span lists {@code a[as,ae)} and {@code b[bs,be)} into a new band. */
+    protected void combineSpans (int[] a, int as, int ae, int[] b, int bs, int be, int op,
+                                 int y1, int y2) {
+        int bandStart = _nspans;
+        boolean ina = false, inb = false, inout = false;
+        int start = 0;
+        while (as < ae || bs < be) {
+            int xa = as < ae ? a[as] : Integer.MAX_VALUE, xb = bs < be ? b[bs] : Integer.MAX_VALUE;
+            int x = Math.min(xa, xb);
+            if (xa == x) { ina = !ina; as++; }
+            if (xb == x) { inb = !inb; bs++; }
+            boolean in;
+            switch (op) {
+            case UNION: in = ina || inb; break;
+            case INTERSECT: in = ina && inb; break;
+            default: in = ina && !inb; break;
+            }
+            if (in == inout) continue;
+            inout = in;
+            if (in) start = x;
+            else if (_nspans > bandStart && _spans[_nspans-1] == start) _spans[_nspans-1] = x;
+            else {
+                _spans = ensure(_spans, _nspans + 2);
+                _spans[_nspans++] = start;
+                _spans[_nspans++] = x;
+            }
+        }
+        appendBand(bandStart, y1, y2);
+    }
+
+    /** Appends (or coalesces with the previous band) a band whose spans were just written into
+     * {@link #_spans} starting at {@code bandStart}. */
+    protected void appendBand (int bandStart, int y1, int y2) {
+        int count = _nspans - bandStart;
+        if (count == 0) return;
+        if (_nbands > 0) {
+            int pb = (_nbands-1)*3, pstart = _nbands == 1 ? 0 : _bands[pb-1];
+            if (_bands[pb+1] == y1 && bandStart - pstart == count &&
+                rangeEquals(_spans, pstart, bandStart, count)) {
+                _bands[pb+1] = y2;
+                _nspans = bandStart;
+                return;
+            }
+        }
+        _bands = ensure(_bands, _nbands*3 + 3);
+        int bb = _nbands*3;
+        _bands[bb] = y1;
+        _bands[bb+1] = y2;
+        _bands[bb+2] = _nspans;
+        _nbands++;
+        _minX = Math.min(_minX, _spans[bandStart]);
+        _maxX = Math.max(_maxX, _spans[_nspans-1]);
+    }
+
+    /**
+     * Enlarges this region until it contains no more than {@link #_maxRects} rectangles. Each
+     * step greedily applies whichever merge adds the least uncovered area per rectangle removed:
+     * either bridging the gap between two spans in a band, or merging two vertically adjacent
+     * bands into one band covering the union of their spans. Each step is linear in the number
+     * of rectangles; since the cap is normally enforced after every operation, the number of
+     * steps needed is small.
+     */
+    protected void enforceCap () {
+        if (_maxRects <= 0) return;
+        while (rectCount() > _maxRects) {
+            double bestCost = Double.MAX_VALUE;
+            int bestBand = -1, bestSpan = -1;
+            for (int band = 0, ss = 0; band < _nbands; band++) {
+                int bb = band*3, height = _bands[bb+1] - _bands[bb], send = _bands[bb+2];
+                for (ss += 2; ss < send; ss += 2) {
+                    double cost = (double)(_spans[ss] - _spans[ss-1]) * height;
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestBand = band;
+                        bestSpan = ss;
+                    }
+                }
+                ss = send;
+                if (band + 1 < _nbands) {
+                    int removed = bandMergeRemoved(band);
+                    if (removed == 0) continue;
+                    double cost = (double)bandMergeCost(band) / removed;
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestBand = band;
+                        bestSpan = -1;
+                    }
+                }
+            }
+            if (bestBand < 0) {
+                // no merge makes progress (should not happen), so fall back to our bounds
+                int y1 = _bands[0], y2 = _bands[_nbands*3-2];
+                set(_minX, y1, _maxX - _minX, y2 - y1);
+                break;
+            }
+            if (bestSpan >= 0) mergeSpans(bestBand, bestSpan);
+            else mergeBands(bestBand);
+        }
+    }
+
+    /** Returns the number of rectangles eliminated by merging {@code band} with the next band. */
+    protected int bandMergeRemoved (int band) {
+        int bb = band*3, s0 = band == 0 ? 0 : _bands[bb-1], s1 = _bands[bb+2], s2 = _bands[bb+5];
+        return (s2 - s0 - unionSpans(s0, s1, s1, s2, null)) / 2;
+    }
+
+    /** Returns the uncovered area added by merging {@code band} with the next band. */
+    protected long bandMergeCost (int band) {
+        int bb = band*3, s0 = band == 0 ? 0 : _bands[bb-1], s1 = _bands[bb+2], s2 = _bands[bb+5];
+        unionSpans(s0, s1, s1, s2, _scratchWidth);
+        long uwidth = _scratchWidth[0];
+        long h1 = _bands[bb+1] - _bands[bb], h2 = _bands[bb+4] - _bands[bb+3];
+        long height = _bands[bb+4] - _bands[bb];
+        return uwidth * height - spanWidth(s0, s1) * h1 - spanWidth(s1, s2) * h2;
+    }
+
+    /** Computes the union of two span ranges of {@link #_spans}, returning the number of ints the
+     * union would occupy; if {@code width} is non-null, the union's total width is written to
+     * {@code width[0]}. */
+    protected int unionSpans (int as, int ae, int bs, int be, long[] width) {
+        int ints = 0, depth = 0, start = 0, lastEnd = Integer.MIN_VALUE;
+        long total = 0;
+        while (as < ae || bs < be) {
+            int xa = as < ae ? _spans[as] : Integer.MAX_VALUE;
+            int xb = bs < be ? _spans[bs] : Integer.MAX_VALUE;
+            int x;
+            boolean opening;
+            if (xa <= xb) { x = xa; opening = (as & 1) == 0; as++; }
+            else { x = xb; opening = (bs & 1) == 0; bs++; }
+            if (opening) {
+                if (depth++ == 0) {
+                    if (x != lastEnd) ints += 2;
+                    start = x;
+                }
+            } else if (--depth == 0) {
+                total += x - start;
+                lastEnd = x;
+            }
+        }
+        if (width != null) width[0] = total;
+        return ints;
+    }
+
+    /** Returns the total width of the spans in {@code _spans[ss, send)}. */
+    protected long spanWidth (int ss, int send) {
+        long width = 0;
+        for (; ss < send; ss += 2) width += _spans[ss+1] - _spans[ss];
+        return width;
+    }
+
+    /** Bridges the gap between the span ending at {@code ss-1} and the span starting at
+     * {@code ss} in the specified band. */
+    protected void mergeSpans (int band, int ss) {
+        int length = spanLength();
+        _spans[ss-1] = _spans[ss+1];
+        System.arraycopy(_spans, ss+2, _spans, ss, length - ss - 2);
+        for (int bb = band*3, bend = _nbands*3; bb < bend; bb += 3) _bands[bb+2] -= 2;
+        coalesceAround(band);
+    }
+
+    /** Merges {@code band} with the band below it, replacing both with the union of their spans
+     * over the vertical extent of both. */
+    protected void mergeBands (int band) {
+        int bb = band*3, s0 = band == 0 ? 0 : _bands[bb-1], s1 = _bands[bb+2], s2 = _bands[bb+5];
+        int length = spanLength();
+        // compute the union into our scratch span buffer, then splice it back in
+        _tspans = ensure(_tspans, s2 - s0);
+        int count = 0, depth = 0, as = s0, bs = s1;
+        while (as < s1 || bs < s2) {
+            int xa = as < s1 ? _spans[as] : Integer.MAX_VALUE;
+            int xb = bs < s2 ? _spans[bs] : Integer.MAX_VALUE;
+            int x;
+            boolean opening;
+            if (xa <= xb) { x = xa; opening = (as & 1) == 0; as++; }
+            else { x = xb; opening = (bs & 1) == 0; bs++; }
+            if (opening) {
+                if (depth++ == 0) {
+                    if (count > 0 && _tspans[count-1] == x) count--;
+                    else _tspans[count++] = x;
+                }
+            } else if (--depth == 0) _tspans[count++] = x;
+        }
+        System.arraycopy(_tspans, 0, _spans, s0, count);
+        System.arraycopy(_spans, s2, _spans, s0 + count, length - s2);
+        int removed = (s2 - s0) - count;
+        _bands[bb+1] = _bands[bb+4];
+        _bands[bb+2] = s0 + count;
+        System.arraycopy(_bands, bb+6, _bands, bb+3, (_nbands - band - 2)*3);
+        _nbands--;
+        for (int ob = bb+3, bend = _nbands*3; ob < bend; ob += 3) _bands[ob+2] -= removed;
+        coalesceAround(band);
+    }
+
+    /** Coalesces {@code band} with its neighbors if they abut and have identical spans. */
+    protected void coalesceAround (int band) {
+        if (band + 1 < _nbands) coalesceWithNext(band);
+        if (band > 0) coalesceWithNext(band - 1);
+    }
+
+    /** Coalesces {@code band} with the next band if they abut and have identical spans. */
+    protected void coalesceWithNext (int band) {
+        int bb = band*3, s0 = band == 0 ? 0 : _bands[bb-1], s1 = _bands[bb+2], s2 = _bands[bb+5];
+        if (_bands[bb+1] != _bands[bb+3] || s1 - s0 != s2 - s1 ||
+            !rangeEquals(_spans, s0, s1, s1 - s0)) return;
+        int length = spanLength(), count = s1 - s0;
+        System.arraycopy(_spans, s2, _spans, s1, length - s2);
+        _bands[bb+1] = _bands[bb+4];
+        System.arraycopy(_bands, bb+6, _bands, bb+3, (_nbands - band - 2)*3);
+        _nbands--;
+        for (int ob = bb+3, bend = _nbands*3; ob < bend; ob += 3) _bands[ob+2] -= count;
+    }
+
+    protected static boolean rangeEquals (int[] values, int a, int b, int count) {
+        for (int ii = 0; ii < count; ii++) if (values[a+ii] != values[b+ii]) return false;
+        return true;
+    }
+
+    protected static boolean rangeEquals (int[] a, int[] b, int count) {
+        for (int ii = 0; ii < count; ii++) if (a[ii] != b[ii]) return false;
+        return true;
+    }
+
+    protected static int[] ensure (int[] values, int size) {
+        if (values.length >= size) return values;
+        return Arrays.copyOf(values, Math.max(size, values.length*2));
+    }
+
+    /** The bands of this region, as {@code (y1, y2, spanEnd)} triples, where {@code spanEnd} is
+     * the index in {@link #_spans} just past the band's last span. */
+    protected int[] _bands = new int[12];
+
+    /** The x-spans of all bands, as {@code (x1, x2)} pairs. */
+    protected int[] _spans = new int[16];
+
+    /** The number of bands in this region. */
+    protected int _nbands;
+
+    /** The horizontal extent of this region; only valid when non-empty. */
+    protected int _minX, _maxX;
+
+    /** The maximum number of rectangles in this region, or zero for no limit. */
+    protected int _maxRects;
+
+    /** Scratch buffers into which operations write their results; swapped with the main buffers
+     * after each operation so that repeated operations do not allocate. */
+    protected int[] _tbands = new int[12], _tspans = new int[16];
+
+    /** The number of ints written into {@link #_spans} during an operation. */
+    protected int _nspans;
+
+    /** A scratch single rectangle region used by the rectangle operations. */
+    protected final int[] _rbands = new int[3], _rspans = new int[2];
+
+    /** A scratch holder for {@link #unionSpans} results. */
+    protected final long[] _scratchWidth = new long[1];
+
+    protected static final int UNION = 0, INTERSECT = 1, SUBTRACT = 2;
+}
@@ -0,0 +1,153 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.i;
+
+import java.util.Arrays;
+
+/**
+ * A rectangle packer which uses the "skyline" algorithm: each page tracks only the upper
+ * envelope of the rectangles packed so far, as a list of horizontal segments, and each inserted
+ * rectangle is set down on top of that envelope. Space beneath the envelope is never reclaimed,
+ * so packings are somewhat looser than those of {@link MaxRectsPacker}, but insertion is linear
+ * in the (typically small) number of skyline segments, which makes this packer well suited to
+ * very large numbers of similarly sized rectangles, such as glyphs.
+ */
+public class SkylinePacker extends RectPacker
+{
+    /** Determines where on the skyline a rectangle is placed. */
+    public static enum Heuristic {
+        /** Places rectangles as low (minimal top edge), then as far left, as possible. */
+        BOTTOM_LEFT,
+        /** Places rectangles so as to minimize the area wasted beneath them. */
+        MIN_WASTE
+    }
+
+    /**
+     * Creates a packer with the specified page size that uses {@link Heuristic#BOTTOM_LEFT}.
+     */
+    public SkylinePacker (int pageWidth, int pageHeight) {
+        this(pageWidth, pageHeight, Heuristic.BOTTOM_LEFT);
+    }
+
+    /**
+     * Creates a packer with the specified page size and placement heuristic.
+     */
+    public SkylinePacker (int pageWidth, int pageHeight, Heuristic heuristic) {
+        super(pageWidth, pageHeight);
+        _heuristic = heuristic;
+    }
+
+    /**
+     * Returns the heuristic used by this packer.
+     */
+    public Heuristic heuristic () {
+        return _heuristic;
+    }
+
+    @Override // from RectPacker
+    protected Page createPage () {
+        return new SkylinePage();
+    }
+
+    protected class SkylinePage extends Page {
+        public SkylinePage () {
+            _sx[0] = 0;
+            _sy[0] = 0;
+            _sw[0] = _pageWidth;
+            _count = 1;
+        }
+
+        @Override public boolean insert (int width, int height, Rectangle target) {
+            long bestScore = Long.MAX_VALUE;
+            int best = -1, bestY = 0;
+            for (int ii = 0; ii < _count; ii++) {
+                int x = _sx[ii];
+                if (x + width > _pageWidth) break; // segments are sorted by x
+                // find the height at which the rectangle rests if its left edge is at segment ii
+                int y = 0, jj = ii;
+                long waste = 0;
+                for (int remain = width; remain > 0; jj++) {
+                    y = Math.max(y, _sy[jj]);
+                    remain -= _sw[jj];
+                }
+                if (y + height > _pageHeight) continue;
+                if (_heuristic == Heuristic.MIN_WASTE) {
+                    for (int kk = ii, remain = width; kk < jj; kk++) {
+                        int w = Math.min(remain, _sw[kk]);
+                        waste += (long)w * (y - _sy[kk]);
+                        remain -= w;
+                    }
+                }
+                long score = (_heuristic == Heuristic.MIN_WASTE) ?
+                    Math.min(waste, Integer.MAX_VALUE) << 32 | (y + height) :
+                    (long)(y + height) << 32 | x;
+                if (score < bestScore) {
+                    bestScore = score;
+                    best = ii;
+                    bestY = y;
+                }
+            }
+            if (best < 0) return false;
+            int x = _sx[best];
+            place(best, x, bestY + height, width);
+            target.setBounds(x, bestY, width, height);
+            used += (long)width * height;
+            return true;
+        }
+
+        /** Inserts a new skyline segment at {@code idx} and trims the segments it covers. */
+        protected void place (int idx, int x, int y, int width) {
+            ensureCapacity(_count + 1);
+            System.arraycopy(_sx, idx, _sx, idx+1, _count - idx);
+            System.arraycopy(_sy, idx, _sy, idx+1, _count - idx);
+            System.arraycopy(_sw, idx, _sw, idx+1, _count - idx);
+            _sx[idx] = x;
+            _sy[idx] = y;
+            _sw[idx] = width;
+            _count++;
+
+            // trim or remove the segments shadowed by the new segment
+            int right = x + width, ii = idx + 1;
+            while (ii < _count && _sx[ii] < right) {
+                int shrink = right - _sx[ii];
+                if (shrink >= _sw[ii]) remove(ii);
+                else {
+                    _sx[ii] += shrink;
+                    _sw[ii] -= shrink;
+                    break;
+                }
+            }
+
+            // merge neighboring segments of the same height
+            for (int jj = Math.max(idx - 1, 0); jj < _count - 1 && jj <= idx + 1; ) {
+                if (_sy[jj] == _sy[jj+1]) {
+                    _sw[jj] += _sw[jj+1];
+                    remove(jj+1);
+                } else jj++;
+            }
+        }
+
+        protected void remove (int idx) {
+            System.arraycopy(_sx, idx+1, _sx, idx, _count - idx - 1);
+            System.arraycopy(_sy, idx+1, _sy, idx, _count - idx - 1);
+            System.arraycopy(_sw, idx+1, _sw, idx, _count - idx - 1);
+            _count--;
+        }
+
+        protected void ensureCapacity (int size) {
+            if (_sx.length >= size) return;
+            int nsize = Math.max(size, _sx.length*2);
+            _sx = Arrays.copyOf(_sx, nsize);
+            _sy = Arrays.copyOf(_sy, nsize);
+            _sw = Arrays.copyOf(_sw, nsize);
+        }
+
+        /** The skyline segments, sorted by x: left edge, height and width. */
+        protected int[] _sx = new int[16], _sy = new int[16], _sw = new int[16];
+        protected int _count;
+    }
+
+    protected final Heuristic _heuristic;
+}
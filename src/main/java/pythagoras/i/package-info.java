@@ -1,7 +1,8 @@
 /**
  * The Pythagoras geometry utility classes specialized on {@code int}. Note that many of the
  * classes offered by the float- and double-specialized classes do not exist here. The
- * int-specialized code supports only points, dimensions and rectangles. If you intend to use
- * non-rectangular geometric shapes, you almost certainly want to be using floating-point math.
+ * int-specialized code supports only points, dimensions, rectangles and rectangular regions. If
+ * you intend to use non-rectangular geometric shapes, you almost certainly want to be using
+ * floating-point math.
  */
 package pythagoras.i;
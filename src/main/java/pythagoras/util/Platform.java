@@ -4,6 +4,12 @@
 
 package pythagoras.util;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * Handles differences between the JDK and GWT platforms.
  */
@@ -51,4 +57,31 @@ public class Platform
     public static double[] clone (double[] values) {
         return values.clone();
     }
+
+    /**
+     * Runs the supplied tasks, in parallel on a fork-join pool where the platform supports it,
+     * and returns when all of them have completed. Tasks may themselves call this method, in which
+     * case their subtasks are forked into the same pool. If any task throws an exception, it is
+     * rethrown by this method.
+     */
+    public static void invokeAll (List<? extends Runnable> tasks) {
+        if (tasks.size() == 1) {
+            tasks.get(0).run();
+            return;
+        }
+        final List<ForkJoinTask<?>> fjtasks = new ArrayList<ForkJoinTask<?>>(tasks.size());
+        for (Runnable task : tasks) fjtasks.add(ForkJoinTask.adapt(task));
+        if (ForkJoinTask.inForkJoinPool()) ForkJoinTask.invokeAll(fjtasks);
+        else PoolHolder.POOL.invoke(new RecursiveAction() {
+            @Override protected void compute () {
+                ForkJoinTask.invokeAll(fjtasks);
+            }
+        });
+    }
+
+    /** Lazily creates the pool used by {@link #invokeAll}. */
+    protected static class PoolHolder
+    {
+        public static final ForkJoinPool POOL = new ForkJoinPool();
+    }
 }
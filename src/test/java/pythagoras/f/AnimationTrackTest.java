@@ -0,0 +1,100 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link AnimationTrack} class.
+ */
+public class AnimationTrackTest
+{
+    @Test public void testFindKey () {
+        AnimationTrack track = testTrack(new Random(1), 10);
+        int cursor = 0;
+        for (float time = -1f; time < 11f; time += 0.1f) {
+            cursor = track.findKey(time, cursor);
+            assertEquals(track.findKey(time, 0), cursor);
+            assertEquals(track.findKey(time, 7), cursor);
+            assertEquals(Math.min(Math.max((int)Math.floor(time), 0), 9), cursor);
+        }
+    }
+
+    @Test public void testInterpolation () {
+        Random rand = new Random(2);
+        AnimationTrack track = testTrack(rand, 2);
+        Vector3 t0 = new Vector3(), s0 = new Vector3(), t1 = new Vector3(), s1 = new Vector3();
+        Quaternion r0 = new Quaternion(), r1 = new Quaternion(), r = new Quaternion();
+        track.sample(0f, AnimationTrack.Interpolation.SLERP, 0, t0, r0, s0);
+        track.sample(1f, AnimationTrack.Interpolation.SLERP, 0, t1, r1, s1);
+
+        Vector3 t = new Vector3(), s = new Vector3();
+        for (float time = 0f; time <= 1f; time += 0.125f) {
+            track.sample(time, AnimationTrack.Interpolation.SLERP, 0, t, r, s);
+            assertClose(t0.lerp(t1, time), t, 1e-5f);
+            assertClose(s0.lerp(s1, time), s, 1e-5f);
+            Quaternion expected = r0.slerp(r1, time);
+            assertClose(expected, r, 1e-5f);
+
+            // the corrected nlerp should closely track the slerp
+            track.sample(time, AnimationTrack.Interpolation.CORRECTED_NLERP, 0, t, r, s);
+            assertClose(expected, r, 1e-3f);
+            track.sample(time, AnimationTrack.Interpolation.NLERP, 0, t, r, s);
+            assertEquals(1f, r.x*r.x + r.y*r.y + r.z*r.z + r.w*r.w, 1e-5f);
+        }
+    }
+
+    @Test public void testBatch () {
+        Random rand = new Random(3);
+        int count = 20;
+        AnimationTrack[] tracks = new AnimationTrack[count];
+        for (int ii = 0; ii < count; ii++) tracks[ii] = testTrack(rand, 5);
+        int[] cursors = new int[count];
+        Matrix4[] results = new Matrix4[count];
+        FloatBuffer buf = FloatBuffer.allocate(count * 16);
+        for (float time = 0f; time < 5f; time += 0.3f) {
+            AnimationTrack.sample(time, AnimationTrack.Interpolation.NLERP, tracks, cursors,
+                                  results, 0, count);
+            buf.clear();
+            AnimationTrack.sample(time, AnimationTrack.Interpolation.NLERP, tracks, new int[count],
+                                  buf, 0, count);
+            buf.flip();
+            Matrix4 expected = new Matrix4(), fromBuf = new Matrix4();
+            for (int ii = 0; ii < count; ii++) {
+                tracks[ii].sample(time, AnimationTrack.Interpolation.NLERP, 0, expected);
+                assertEquals(expected, results[ii]);
+                assertEquals(expected, fromBuf.set(buf));
+                assertEquals(tracks[ii].findKey(time, 0), cursors[ii]);
+            }
+        }
+    }
+
+    protected static void assertClose (IVector3 expected, IVector3 actual, float epsilon) {
+        assertEquals(expected.x(), actual.x(), epsilon);
+        assertEquals(expected.y(), actual.y(), epsilon);
+        assertEquals(expected.z(), actual.z(), epsilon);
+    }
+
+    protected static void assertClose (IQuaternion expected, IQuaternion actual, float epsilon) {
+        assertEquals(expected.x(), actual.x(), epsilon);
+        assertEquals(expected.y(), actual.y(), epsilon);
+        assertEquals(expected.z(), actual.z(), epsilon);
+        assertEquals(expected.w(), actual.w(), epsilon);
+    }
+
+    protected static AnimationTrack testTrack (Random rand, int keys) {
+        AnimationTrack track = new AnimationTrack(1);
+        for (int ii = 0; ii < keys; ii++) {
+            track.addKey(ii, new Vector3(rand.nextFloat(), rand.nextFloat(), rand.nextFloat()),
+                         new Quaternion().randomize(rand),
+                         new Vector3(1f + rand.nextFloat(), 1f, 1f + rand.nextFloat()));
+        }
+        return track;
+    }
+}
@@ -0,0 +1,84 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link ArcLengthTable} class.
+ */
+public class ArcLengthTableTest
+{
+    @Test public void testLine () {
+        ArcLengthTable table = new ArcLengthTable(new Line(0, 0, 30, 40));
+        assertEquals(50f, table.length(), 1e-4f);
+        assertClose(new Point(15, 20), table.pointAt(25));
+        assertClose(new Point(30, 40), table.pointAt(100));
+        Vector tan = table.tangentAt(10);
+        assertEquals(0.6f, tan.x, 1e-5f);
+        assertEquals(0.8f, tan.y, 1e-5f);
+    }
+
+    @Test public void testCubic () {
+        CubicCurve curve = new CubicCurve(0, 0, 10, 40, 60, -30, 100, 20);
+        ArcLengthTable table = new ArcLengthTable(curve);
+        assertEquals(sampledLength(curve), table.length(), 1e-2f);
+
+        // points at equal distances must be (nearly) equally spaced
+        Point prev = table.pointAt(0);
+        float step = table.length() / 100;
+        for (int ii = 1; ii <= 100; ii++) {
+            Point p = table.pointAt(ii * step);
+            assertEquals(step, prev.distance(p), 1e-3f);
+            prev = p;
+        }
+    }
+
+    @Test public void testPathAppend () {
+        Path path = new Path();
+        path.moveTo(0, 0);
+        path.lineTo(10, 0);
+        ArcLengthTable table = new ArcLengthTable(path);
+        assertEquals(10f, table.length(), 1e-4f);
+
+        path.quadTo(20, 0, 20, 10);
+        path.moveTo(100, 100);
+        path.lineTo(100, 110);
+        path.closePath();
+        ArcLengthTable fresh = new ArcLengthTable(path);
+        assertEquals(fresh.length(), table.length(), 1e-4f);
+        // the move between subpaths is not traversed, but the close is
+        float curve = fresh.length() - 30;
+        assertClose(new Point(20, 10), table.pointAt(10 + curve));
+        assertClose(new Point(100, 105), table.pointAt(15 + curve));
+        assertClose(new Point(100, 105), table.pointAt(25 + curve));
+
+        path.reset();
+        path.moveTo(0, 0);
+        path.lineTo(0, 5);
+        assertEquals(5f, table.length(), 1e-4f);
+    }
+
+    /** Returns the length of a curve, approximated by a polyline through many samples. */
+    protected static float sampledLength (CubicCurve curve) {
+        double len = 0;
+        Point prev = new Point(curve.x1(), curve.y1()), p = new Point();
+        for (int ii = 1; ii <= 10000; ii++) {
+            float t = ii / 10000f, u = 1 - t;
+            p.set(u*u*u*curve.x1() + 3*u*u*t*curve.ctrlX1() + 3*u*t*t*curve.ctrlX2() +
+                  t*t*t*curve.x2(),
+                  u*u*u*curve.y1() + 3*u*u*t*curve.ctrlY1() + 3*u*t*t*curve.ctrlY2() +
+                  t*t*t*curve.y2());
+            len += prev.distance(p);
+            prev.set(p);
+        }
+        return (float)len;
+    }
+
+    protected static void assertClose (IPoint expected, IPoint actual) {
+        assertTrue(expected + " != " + actual, expected.distance(actual) < 1e-3f);
+    }
+}
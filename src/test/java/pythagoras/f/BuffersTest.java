@@ -0,0 +1,104 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link Buffers} class and the externalization of the bulk types.
+ */
+public class BuffersTest
+{
+    @Test public void testFloatBuffer () {
+        Random rand = new Random(3);
+        int count = 10;
+        Vector3[] vs = new Vector3[count];
+        Quaternion[] qs = new Quaternion[count];
+        Matrix4[] ms = new Matrix4[count];
+        AffineTransform[] ts = new AffineTransform[count];
+        for (int ii = 0; ii < count; ii++) {
+            vs[ii] = new Vector3(rand.nextFloat(), rand.nextFloat(), rand.nextFloat());
+            qs[ii] = new Quaternion().randomize(rand);
+            ms[ii] = new Matrix4().setToRotation(rand.nextFloat(), Vector3.UNIT_Z);
+            ts[ii] = new AffineTransform(rand.nextFloat(), rand.nextFloat(), 1, 2);
+        }
+
+        FloatBuffer buf = FloatBuffer.allocate(count * (Buffers.VECTOR3_SIZE +
+            Buffers.QUATERNION_SIZE + Buffers.MATRIX4_SIZE + Buffers.AFFINE_SIZE));
+        Buffers.put(buf, vs, 0, count);
+        Buffers.put(buf, qs, 0, count);
+        Buffers.put(buf, ms, 0, count);
+        Buffers.put(buf, ts, 0, count);
+        assertEquals(0, buf.remaining());
+        buf.flip();
+
+        Vector3[] rvs = new Vector3[count];
+        Quaternion[] rqs = new Quaternion[count];
+        Matrix4[] rms = new Matrix4[count];
+        AffineTransform[] rts = new AffineTransform[count];
+        Buffers.get(buf, rvs, 0, count);
+        Buffers.get(buf, rqs, 0, count);
+        Buffers.get(buf, rms, 0, count);
+        Buffers.get(buf, rts, 0, count);
+        for (int ii = 0; ii < count; ii++) {
+            assertEquals(vs[ii], rvs[ii]);
+            assertEquals(qs[ii], rqs[ii]);
+            assertEquals(ms[ii], rms[ii]);
+            assertEquals(ts[ii].toString(), rts[ii].toString());
+        }
+    }
+
+    @Test public void testByteBuffer () {
+        Box[] boxes = { new Box(new Vector3(1, 2, 3), new Vector3(4, 5, 6)), Box.UNIT };
+        Matrix3[] ms = { new Matrix3().setToRotation(1f), new Matrix3() };
+        ByteBuffer buf = ByteBuffer.allocateDirect(
+            4 * (2*Buffers.BOX_SIZE + 2*Buffers.MATRIX3_SIZE));
+        buf.order(ByteOrder.BIG_ENDIAN); // make sure we write little-endian regardless
+        Buffers.put(buf, boxes, 0, 2);
+        Buffers.put(buf, ms, 0, 2);
+        assertEquals(0, buf.remaining());
+        assertEquals(1f, Float.intBitsToFloat(Integer.reverseBytes(buf.getInt(0))), 0f);
+
+        buf.flip();
+        Box[] rboxes = { new Box(), null };
+        Matrix3[] rms = new Matrix3[2];
+        Buffers.get(buf, rboxes, 0, 2);
+        Buffers.get(buf, rms, 0, 2);
+        assertEquals(0, buf.remaining());
+        assertEquals(boxes[0], rboxes[0]);
+        assertEquals(boxes[1], rboxes[1]);
+        assertEquals(ms[0], rms[0]);
+        assertEquals(ms[1], rms[1]);
+    }
+
+    @Test public void testExternalizable () throws Exception {
+        Object[] values = {
+            new Vector3(1, 2, 3), new Quaternion(0, 0, 0.6f, 0.8f),
+            new Matrix3().setToRotation(0.5f), new Matrix4().setToTranslation(1, 2, 3),
+            new Box(new Vector3(-1, -2, -3), new Vector3(1, 2, 3)),
+            new AffineTransform(2, 0.5f, 3, 4)
+        };
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        ObjectOutputStream oout = new ObjectOutputStream(bout);
+        for (Object value : values) oout.writeObject(value);
+        oout.close();
+
+        ObjectInputStream oin = new ObjectInputStream(
+            new ByteArrayInputStream(bout.toByteArray()));
+        for (Object value : values) {
+            assertEquals(value.toString(), oin.readObject().toString());
+        }
+    }
+}
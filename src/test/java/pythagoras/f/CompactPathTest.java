@@ -0,0 +1,84 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.util.Random;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link CompactPath} class.
+ */
+public class CompactPathTest
+{
+    @Test public void testRoundTrip () {
+        Path path = new Path(Path.WIND_EVEN_ODD);
+        path.moveTo(-100, 20);
+        path.lineTo(250.5f, 20);
+        path.quadTo(300, 100, 250, 180.25f);
+        path.curveTo(100, 250, 0, 90, -100, 180);
+        path.closePath();
+        path.moveTo(10, 60);
+        path.lineTo(50, 60);
+        path.lineTo(30, 100);
+        path.closePath();
+
+        CompactPath compact = new CompactPath(path);
+        assertEquals(path.windingRule(), compact.windingRule());
+        assertEquals(path.bounds(), compact.bounds());
+        assertTrue(compact.encodedSize() < 4 * path.pointSize);
+
+        float err = compact.quantizationError();
+        PathIterator pi = path.pathIterator(null), ci = compact.pathIterator(null);
+        float[] pc = new float[6], cc = new float[6];
+        for (; !pi.isDone(); pi.next(), ci.next()) {
+            assertFalse(ci.isDone());
+            int type = pi.currentSegment(pc);
+            assertEquals(type, ci.currentSegment(cc));
+            for (int ii = 0; ii < Path.pointShift[type]; ii++) assertEquals(pc[ii], cc[ii], err);
+        }
+        assertTrue(ci.isDone());
+
+        // hit testing agrees away from the edges
+        Random rand = new Random(1);
+        for (int ii = 0; ii < 1000; ii++) {
+            float x = -120 + rand.nextFloat() * 440, y = rand.nextFloat() * 280;
+            assertEquals(path.contains(x, y), compact.contains(x, y));
+            assertEquals(path.intersects(x, y, 1, 1), compact.intersects(x, y, 1, 1));
+        }
+    }
+
+    @Test public void testDense () {
+        // neighboring points of a dense outline are close, so most deltas fit in one byte
+        Path path = new Path();
+        path.moveTo(100, 0);
+        for (int ii = 1; ii < 4000; ii++) {
+            float a = ii * MathUtil.TAU / 4000;
+            path.lineTo(100 * FloatMath.cos(a), 100 * FloatMath.sin(a));
+        }
+        path.closePath();
+        CompactPath compact = new CompactPath(path);
+        assertTrue(compact.encodedSize() * 3 < 4 * path.pointSize);
+        assertTrue(compact.contains(0, 0));
+        assertFalse(compact.contains(99, 99));
+    }
+
+    @Test public void testDegenerate () {
+        CompactPath empty = new CompactPath(new Path());
+        assertEquals(0, empty.segmentCount());
+        assertTrue(empty.pathIterator(null).isDone());
+        assertTrue(empty.isEmpty());
+
+        // a horizontal line has no height to quantize against
+        CompactPath line = new CompactPath(new Line(1, 5, 9, 5));
+        float[] coords = new float[6];
+        PathIterator iter = line.pathIterator(null);
+        iter.next();
+        assertEquals(PathIterator.SEG_LINETO, iter.currentSegment(coords));
+        assertEquals(9f, coords[0], 0f);
+        assertEquals(5f, coords[1], 0f);
+    }
+}
@@ -0,0 +1,69 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.util.Random;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link CompositeShape} class.
+ */
+public class CompositeShapeTest
+{
+    @Test public void testContains () {
+        // a square frame with a circle in the middle, and a stripe cut through it all
+        CompositeShape shape = CompositeShape.difference(
+            new Rectangle(0, 0, 100, 100), new Rectangle(20, 20, 60, 60)).
+            add(new Ellipse(40, 40, 20, 20)).
+            exclusiveOr(new Rectangle(45, -10, 10, 120));
+
+        // point queries never materialize the outline
+        Random rand = new Random(1);
+        for (int ii = 0; ii < 1000; ii++) {
+            float x = -20 + rand.nextFloat() * 140, y = -20 + rand.nextFloat() * 140;
+            boolean frame = x >= 0 && y >= 0 && x <= 100 && y <= 100 &&
+                !(x > 20 && y > 20 && x < 80 && y < 80);
+            boolean circle = (x-50)*(x-50) + (y-50)*(y-50) < 100;
+            boolean stripe = x > 45 && x < 55 && y > -10 && y < 110;
+            assertEquals((frame || circle) != stripe, shape.contains(x, y));
+        }
+        assertFalse(shape.isMaterialized());
+        assertTrue(shape.contains(5, 5));
+        assertFalse(shape.contains(50, 5));
+        assertTrue(shape.contains(50, -5));
+        assertTrue(shape.contains(42, 50));
+        assertFalse(shape.contains(50, 50));
+
+        // nor do rectangle queries that the operands can decide
+        assertTrue(shape.intersects(0, 0, 10, 10));
+        assertTrue(shape.contains(0, 0, 10, 10));
+        assertFalse(shape.intersects(200, 200, 10, 10));
+        assertFalse(shape.isMaterialized());
+
+
+        // outlines are computed on demand
+        shape = CompositeShape.difference(
+            new Rectangle(0, 0, 100, 100), new Rectangle(50, -10, 60, 120));
+        assertEquals(new Rectangle(0, 0, 100, 100), shape.bounds());
+        assertEquals(new Rectangle(0, 0, 50, 100), shape.tightBounds());
+        assertTrue(shape.isMaterialized());
+    }
+
+    @Test public void testIntersection () {
+        CompositeShape shape = CompositeShape.intersection(
+            new Rectangle(0, 0, 10, 10), new Rectangle(20, 20, 10, 10));
+        assertTrue(shape.isEmpty());
+        assertFalse(shape.intersects(0, 0, 30, 30));
+        assertTrue(shape.pathIterator(null).isDone());
+
+        shape = CompositeShape.intersection(
+            new Rectangle(0, 0, 10, 10), new Ellipse(5, 5, 10, 10));
+        assertEquals(new Rectangle(5, 5, 5, 5), shape.bounds());
+        assertTrue(shape.intersects(8, 8, 1, 1));
+        assertFalse(shape.isMaterialized());
+    }
+}
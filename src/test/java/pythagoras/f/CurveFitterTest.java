@@ -0,0 +1,137 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link CurveFitter} class.
+ */
+public class CurveFitterTest
+{
+    @Test public void testSmooth () {
+        // a dense spiral, which should be fitted by a few curves
+        int count = 50000;
+        float[] points = new float[count*2];
+        for (int ii = 0; ii < count; ii++) {
+            float a = ii * 0.0002f, r = 50 + 10*a;
+            points[ii*2] = r * FloatMath.cos(a);
+            points[ii*2+1] = r * FloatMath.sin(a);
+        }
+        Path path = new CurveFitter(0.05f).fit(points, 0, count);
+        int segments = 0;
+        for (PathIterator iter = path.pathIterator(null); !iter.isDone(); iter.next()) {
+            assertTrue(iter.currentSegment(new float[6]) != PathIterator.SEG_LINETO);
+            segments++;
+        }
+        assertTrue("Too many segments: " + segments, segments < count / 500);
+        assertWithin(path, points, count, 0.05f);
+    }
+
+    @Test public void testCorners () {
+        // a dense square, closed via the path iterator
+        Path square = new Path();
+        square.moveTo(0, 0);
+        for (int side = 0; side < 4; side++) {
+            for (int ii = 1; ii <= 100; ii++) {
+                float d = ii / 10f;
+                switch (side) {
+                case 0: square.lineTo(d, 0); break;
+                case 1: square.lineTo(10, d); break;
+                case 2: square.lineTo(10 - d, 10); break;
+                case 3: square.lineTo(0, 10 - d); break;
+                }
+            }
+        }
+        square.closePath();
+        Path fitted = new CurveFitter(0.01f).fit(square.pathIterator(null));
+
+        // each side becomes a single segment ending at a corner
+        float[] coords = new float[6];
+        float[][] corners = { { 10, 0 }, { 10, 10 }, { 0, 10 }, { 0, 0 } };
+        PathIterator iter = fitted.pathIterator(null);
+        assertEquals(PathIterator.SEG_MOVETO, iter.currentSegment(coords));
+        for (float[] corner : corners) {
+            iter.next();
+            int type = iter.currentSegment(coords);
+            int off = (type == PathIterator.SEG_CUBICTO) ? 4 : 0;
+            assertEquals(corner[0], coords[off], 1e-4f);
+            assertEquals(corner[1], coords[off+1], 1e-4f);
+        }
+        iter.next();
+        assertEquals(PathIterator.SEG_CLOSE, iter.currentSegment(coords));
+        assertWithin(fitted, square.points, square.pointSize / 2, 0.01f);
+    }
+
+    @Test public void testNoisy () {
+        // a line with fading jitter (but no corners), whose error is always greatest at its start
+        int count = 4000;
+        float[] points = new float[count*2];
+        for (int ii = 0; ii < count; ii++) {
+            points[ii*2] = ii;
+            points[ii*2+1] = (ii % 2 == 0 ? 0.2f : -0.2f) * (count - ii) / count;
+        }
+        final int[] fitted = new int[1];
+        CurveFitter fitter = new CurveFitter(0.05f) {
+            @Override protected int fitRange (int first, int last, float t1x, float t1y,
+                                              float t2x, float t2y) {
+                fitted[0] += last - first + 1;
+                return super.fitRange(first, last, t1x, t1y, t2x, t2y);
+            }
+        };
+        Path path = fitter.fit(points, 0, count);
+        // splitting near the ends of ranges would refit nearly all of the points at each split
+        assertTrue("Fitted " + fitted[0] + " points", fitted[0] < count * 32);
+        assertWithin(path, points, count, 0.05f);
+    }
+
+    /** Checks that the points lie within the tolerance of the path. The fitted segments end at
+     * input points, so each point is only checked against the segment spanning it. */
+    protected static void assertWithin (Path path, float[] points, int count, float tolerance) {
+        float[] c = new float[6], flat = new float[257*2];
+        float sx = 0, sy = 0, x = 0, y = 0;
+        int first = 0;
+        for (PathIterator iter = path.pathIterator(null); !iter.isDone(); iter.next()) {
+            switch (iter.currentSegment(c)) {
+            case PathIterator.SEG_MOVETO:
+                sx = x = c[0];
+                sy = y = c[1];
+                continue;
+            case PathIterator.SEG_CLOSE:
+                c[0] = sx;
+                c[1] = sy;
+                // fall through
+            case PathIterator.SEG_LINETO:
+                // treat the line as a cubic with its control points at its ends
+                c[4] = c[2] = c[0];
+                c[5] = c[3] = c[1];
+                c[0] = x;
+                c[1] = y;
+                break;
+            }
+            // approximate the segment with a dense polyline
+            for (int ii = 0; ii <= 256; ii++) {
+                float t = ii / 256f;
+                flat[ii*2] = GeometryUtil.cubic(t, x, c[0], c[2], c[4]);
+                flat[ii*2+1] = GeometryUtil.cubic(t, y, c[1], c[3], c[5]);
+            }
+            x = c[4];
+            y = c[5];
+            int last = Math.min(first + 1, count - 1);
+            while (last < count-1 && (points[last*2] != x || points[last*2+1] != y)) last++;
+            for (int pp = first; pp <= last; pp++) {
+                float px = points[pp*2], py = points[pp*2+1], best = Float.MAX_VALUE;
+                for (int ff = 2; ff < flat.length; ff += 2) {
+                    best = Math.min(best, Lines.pointSegDist(px, py, flat[ff-2], flat[ff-1],
+                                                             flat[ff], flat[ff+1]));
+                }
+                assertTrue("Point " + pp + " is " + best + " from the path", best <= tolerance);
+            }
+            first = last;
+        }
+        assertEquals("Points left unfitted", count-1, first);
+    }
+}
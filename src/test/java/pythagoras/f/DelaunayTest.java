@@ -0,0 +1,198 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.util.Random;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link Delaunay} class.
+ */
+public class DelaunayTest
+{
+    @Test public void testRandom () {
+        Random rand = new Random(1);
+        float[] xy = new float[1000];
+        for (int ii = 0; ii < xy.length; ii++) xy[ii] = rand.nextFloat() * 100;
+        Delaunay tri = new Delaunay(xy, 0, 500);
+        checkDelaunay(xy, tri.triangles(), 500);
+        // a planar triangulation of n points with h on the hull has 2n - h - 2 triangles
+        assertTrue(tri.triangleCount() < 2 * 500 - 2);
+        assertTrue(tri.triangleCount() > 2 * 500 - 100);
+    }
+
+    @Test public void testGrid () {
+        // grid points are cocircular in fours and collinear in rows; they must be triangulated
+        // exactly, into two triangles per cell
+        int side = 20;
+        float[] xy = new float[side * side * 2];
+        for (int ii = 0; ii < side * side; ii++) {
+            xy[ii*2] = ii % side;
+            xy[ii*2+1] = ii / side;
+        }
+        Delaunay tri = new Delaunay(xy, 0, side * side);
+        int[] tris = tri.triangles();
+        assertEquals(2 * (side - 1) * (side - 1), tris.length / 3);
+        checkDelaunay(xy, tris, side * side);
+    }
+
+    @Test public void testIncremental () {
+        Delaunay tri = new Delaunay();
+        // collinear and coincident points first, which can't be triangulated until a point off
+        // the line is added
+        assertEquals(0, tri.add(0, 0));
+        tri.add(2, 0);
+        tri.add(1, 0);
+        tri.add(2, 0);
+        assertTrue(tri.isEmpty());
+        assertEquals(1, tri.nearest(1.8f, 0.5f));
+        tri.add(1, 1);
+        assertFalse(tri.isEmpty());
+        assertEquals(2, tri.triangleCount());
+        assertEquals(1, tri.representative(3));
+        tri.add(1, -1);
+        tri.add(5, 5);
+        assertEquals(6, tri.nearest(4, 4));
+        assertEquals(2, tri.nearest(1.1f, 0.1f));
+    }
+
+    @Test public void testConstrained () {
+        Random rand = new Random(2);
+        float[] xy = new float[400];
+        for (int ii = 0; ii < xy.length; ii++) xy[ii] = rand.nextFloat() * 100;
+        Delaunay tri = new Delaunay(xy, 0, 200);
+        // a diamond, whose edges cross many triangles
+        Path diamond = new Path();
+        diamond.moveTo(50, 5);
+        diamond.lineTo(95, 50);
+        diamond.lineTo(50, 95);
+        diamond.lineTo(5, 50);
+        diamond.closePath();
+        int[] outline = tri.constrain(diamond, 0.1f);
+        assertEquals(4, outline.length);
+        for (int ii = 0; ii < 4; ii++) {
+            assertTrue(tri.isConstrained(outline[ii], outline[(ii+1) % 4]));
+        }
+        // the triangles inside the diamond cover it exactly
+        int[] tris = tri.triangles(diamond);
+        float area = 0;
+        for (int ii = 0; ii < tris.length; ii += 3) {
+            float signed = signedArea(xy(tri, tris[ii]), xy(tri, tris[ii+1]), xy(tri, tris[ii+2]));
+            assertTrue(signed > 0);
+            area += signed;
+        }
+        assertEquals(45 * 45 * 2, area, 0.1f);
+
+        // a point added on a constrained edge divides it
+        int mid = tri.add(72.5f, 27.5f);
+        assertTrue(tri.isConstrained(outline[0], mid));
+        assertTrue(tri.isConstrained(mid, outline[1]));
+        assertFalse(tri.isConstrained(outline[0], outline[1]));
+
+        try {
+            tri.constrain(tri.add(0, 0), tri.add(100, 100));
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected: the edge crosses the diamond
+        }
+    }
+
+    @Test public void testConstrainedCollinear () {
+        // edges along the hull through collinear hull vertices, in both directions
+        float[] grid = { 0, 0, 1, 0, 2, 0, 0, 1, 1, 1, 2, 1 };
+        int[][] edges = { { 0, 2 }, { 2, 0 }, { 3, 5 }, { 5, 3 } };
+        for (int[] edge : edges) {
+            Delaunay tri = new Delaunay(grid, 0, 6);
+            tri.constrain(edge[0], edge[1]);
+            int mid = (edge[0] + edge[1]) / 2;
+            assertTrue(tri.isConstrained(edge[0], mid));
+            assertTrue(tri.isConstrained(mid, edge[1]));
+        }
+
+        // a clockwise outline around the same grid
+        Delaunay tri = new Delaunay(grid, 0, 6);
+        Path outline = new Path();
+        outline.moveTo(0, 0);
+        outline.lineTo(0, 1);
+        outline.lineTo(2, 1);
+        outline.lineTo(2, 0);
+        outline.closePath();
+        tri.constrain(outline, 0.1f);
+        assertTrue(tri.isConstrained(5, 4));
+        assertTrue(tri.isConstrained(2, 1));
+        assertEquals(4, tri.triangles(outline).length / 3);
+
+        // a failed constraint through a vertex leaves no partial constraint behind
+        tri = new Delaunay(new float[] { 0, 0, 1, 0, 2, 0, 1.5f, -1, 1.5f, 1 }, 0, 5);
+        tri.constrain(3, 4);
+        try {
+            tri.constrain(0, 2);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("0-2"));
+        }
+        assertFalse(tri.isConstrained(0, 1));
+    }
+
+    @Test public void testNearest () {
+        Random rand = new Random(3);
+        float[] xy = new float[2000];
+        for (int ii = 0; ii < xy.length; ii++) xy[ii] = rand.nextFloat() * 100;
+        Delaunay tri = new Delaunay(xy, 0, 1000);
+        for (int ii = 0; ii < 200; ii++) {
+            float x = rand.nextFloat() * 140 - 20, y = rand.nextFloat() * 140 - 20;
+            int best = 0;
+            for (int vv = 1; vv < 1000; vv++) {
+                if (Points.distanceSq(x, y, xy[vv*2], xy[vv*2+1]) <
+                    Points.distanceSq(x, y, xy[best*2], xy[best*2+1])) best = vv;
+            }
+            assertEquals(best, tri.nearest(x, y));
+        }
+    }
+
+    @Test public void testVoronoi () {
+        Random rand = new Random(4);
+        float[] xy = new float[600];
+        for (int ii = 0; ii < xy.length; ii++) xy[ii] = rand.nextFloat() * 100;
+        Delaunay tri = new Delaunay(xy, 0, 300);
+        Rectangle clip = new Rectangle(-10, -10, 120, 120);
+        Path[] cells = tri.voronoi(clip);
+        // the cells tile the clip rectangle, and each contains its site
+        float area = 0;
+        for (int ii = 0; ii < cells.length; ii++) {
+            assertTrue(cells[ii].contains(xy[ii*2], xy[ii*2+1]));
+            area += MassProperties.of(cells[ii]).area();
+        }
+        assertEquals(120 * 120, area, 1f);
+        for (int ii = 0; ii < 100; ii++) {
+            float x = rand.nextFloat() * 120 - 10, y = rand.nextFloat() * 120 - 10;
+            int nearest = tri.nearest(x, y);
+            Rectangle bounds = cells[nearest].bounds();
+            assertTrue(bounds.x <= x && x <= bounds.maxX() && bounds.y <= y && y <= bounds.maxY());
+        }
+    }
+
+    protected static void checkDelaunay (float[] xy, int[] tris, int count) {
+        for (int ii = 0; ii < tris.length; ii += 3) {
+            int a = tris[ii], b = tris[ii+1], c = tris[ii+2];
+            assertTrue(Predicates.orient(xy[a*2], xy[a*2+1], xy[b*2], xy[b*2+1],
+                                         xy[c*2], xy[c*2+1]) > 0);
+            for (int vv = 0; vv < count; vv++) {
+                assertFalse(Predicates.inCircle(xy[a*2], xy[a*2+1], xy[b*2], xy[b*2+1],
+                                                xy[c*2], xy[c*2+1], xy[vv*2], xy[vv*2+1]) > 0);
+            }
+        }
+    }
+
+    protected static Point xy (Delaunay tri, int vertex) {
+        return tri.vertex(vertex, new Point());
+    }
+
+    protected static float signedArea (Point a, Point b, Point c) {
+        return ((b.x - a.x) * (c.y - a.y) - (c.x - a.x) * (b.y - a.y)) / 2;
+    }
+}
@@ -0,0 +1,102 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.util.Random;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link DualQuaternion} and {@link Skinning} classes.
+ */
+public class DualQuaternionTest
+{
+    @Test public void testTransform () {
+        Random rand = new Random(1);
+        for (int ii = 0; ii < 100; ii++) {
+            Quaternion rot = new Quaternion().randomize(rand);
+            Vector3 trans = randomVector(rand), point = randomVector(rand);
+            DualQuaternion dq = new DualQuaternion(rot, trans);
+            Matrix4 m = new Matrix4().setToTransform(trans, rot);
+
+            assertClose(trans, dq.translation(new Vector3()));
+            assertClose(m.transformPoint(point), dq.transformPoint(point));
+            assertClose(rot.transform(point), dq.transformVector(point, new Vector3()));
+            assertTrue(m.epsilonEquals(dq.toMatrix(new Matrix4()), 1e-5f));
+            assertClose(point, dq.invert().transformPoint(dq.transformPoint(point)));
+
+            Quaternion orot = new Quaternion().randomize(rand);
+            Vector3 otrans = randomVector(rand);
+            DualQuaternion prod = dq.mult(new DualQuaternion(orot, otrans));
+            Matrix4 mprod = m.mult(new Matrix4().setToTransform(otrans, orot));
+            assertClose(mprod.transformPoint(point), prod.transformPoint(point));
+        }
+    }
+
+    @Test public void testBlend () {
+        Quaternion rot = new Quaternion().fromAngleAxis(1f, Vector3.UNIT_Y);
+        DualQuaternion a = new DualQuaternion(rot, new Vector3(1, 2, 3));
+        // the negation of a dual quaternion represents the same transform
+        DualQuaternion b = new DualQuaternion().set(-a.x, -a.y, -a.z, -a.w,
+                                                    -a.dx, -a.dy, -a.dz, -a.dw);
+        DualQuaternion blend = DualQuaternion.blend(
+            new IDualQuaternion[] { a, b }, new float[] { 0.3f, 0.7f }, 0, 2,
+            new DualQuaternion());
+        assertClose(new Vector3(1, 2, 3), blend.translation(new Vector3()));
+        assertEquals(1f, blend.x*blend.x + blend.y*blend.y + blend.z*blend.z + blend.w*blend.w,
+                     1e-6f);
+    }
+
+    @Test public void testSkin () {
+        Random rand = new Random(2);
+        int bcount = 4, vcount = 50, influences = 3;
+        DualQuaternion[] dqs = new DualQuaternion[bcount];
+        for (int ii = 0; ii < bcount; ii++) {
+            dqs[ii] = new DualQuaternion(new Quaternion().randomize(rand), randomVector(rand));
+        }
+        float[] bones = Skinning.pack(dqs, 0, bcount, new float[bcount*Skinning.BONE_SIZE]);
+        int[] indices = new int[vcount*influences];
+        float[] weights = new float[vcount*influences];
+        float[] positions = new float[vcount*3], normals = new float[vcount*3];
+        for (int ii = 0; ii < indices.length; ii++) {
+            indices[ii] = rand.nextInt(bcount);
+            weights[ii] = rand.nextFloat();
+        }
+        for (int ii = 0; ii < positions.length; ii++) {
+            positions[ii] = rand.nextFloat();
+            normals[ii] = rand.nextFloat();
+        }
+        float[] outPositions = new float[vcount*3], outNormals = new float[vcount*3];
+        Skinning.skin(bones, influences, indices, weights, positions, normals, vcount,
+                      outPositions, outNormals);
+
+        IDualQuaternion[] vdqs = new IDualQuaternion[influences];
+        float[] vweights = new float[influences];
+        DualQuaternion blend = new DualQuaternion();
+        for (int vv = 0; vv < vcount; vv++) {
+            for (int ii = 0; ii < influences; ii++) {
+                vdqs[ii] = dqs[indices[vv*influences + ii]];
+                vweights[ii] = weights[vv*influences + ii];
+            }
+            DualQuaternion.blend(vdqs, vweights, 0, influences, blend);
+            Vector3 pos = new Vector3(positions[vv*3], positions[vv*3+1], positions[vv*3+2]);
+            Vector3 norm = new Vector3(normals[vv*3], normals[vv*3+1], normals[vv*3+2]);
+            assertClose(blend.transformPoint(pos),
+                        new Vector3(outPositions[vv*3], outPositions[vv*3+1],
+                                    outPositions[vv*3+2]));
+            assertClose(blend.transformVector(norm, new Vector3()),
+                        new Vector3(outNormals[vv*3], outNormals[vv*3+1], outNormals[vv*3+2]));
+        }
+    }
+
+    protected static Vector3 randomVector (Random rand) {
+        return new Vector3(rand.nextFloat()*2 - 1, rand.nextFloat()*2 - 1, rand.nextFloat()*2 - 1);
+    }
+
+    protected static void assertClose (IVector3 expected, IVector3 actual) {
+        assertTrue(expected + " != " + actual, expected.subtract(actual).length() < 1e-5f);
+    }
+}
@@ -0,0 +1,86 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.util.Random;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Verifies the documented error bounds of the {@link FastMath} approximations.
+ */
+public class FastMathTest
+{
+    @Test public void testSinCos () {
+        Random rand = new Random(1);
+        Vector sc = new Vector();
+        for (int ii = 0; ii < SAMPLES; ii++) {
+            float a = (rand.nextFloat()*2 - 1) * FloatMath.PI;
+            assertUlps("sin", a, FastMath.sin(a), Math.sin(a), 2);
+            assertUlps("cos", a, FastMath.cos(a), Math.cos(a), 2);
+            FastMath.sincos(a, sc);
+            assertEquals(FastMath.cos(a), sc.x, 0f);
+            assertEquals(FastMath.sin(a), sc.y, 0f);
+
+            float b = (rand.nextFloat()*2 - 1) * FastMath.MAX_TRIG_ARGUMENT;
+            assertEquals(Math.sin(b), FastMath.sin(b), 1e-7);
+            assertEquals(Math.cos(b), FastMath.cos(b), 1e-7);
+        }
+        assertEquals(0f, FastMath.sin(0f), 0f);
+        assertEquals(1f, FastMath.cos(0f), 0f);
+        assertTrue(Float.isNaN(FastMath.sin(Float.NaN)));
+        assertTrue(Float.isNaN(FastMath.cos(Float.POSITIVE_INFINITY)));
+        assertEquals((float)Math.sin(1e6f), FastMath.sin(1e6f), 0f);
+    }
+
+    @Test public void testInverse () {
+        Random rand = new Random(2);
+        for (int ii = 0; ii < SAMPLES; ii++) {
+            float v = rand.nextFloat()*2 - 1;
+            assertUlps("asin", v, FastMath.asin(v), Math.asin(v), 3);
+            assertUlps("acos", v, FastMath.acos(v), Math.acos(v), 2);
+            float t = (float)Math.tan((rand.nextFloat() - 0.5) * Math.PI);
+            assertUlps("atan", t, FastMath.atan(t), Math.atan(t), 3);
+            float x = rand.nextFloat()*2 - 1, y = rand.nextFloat()*2 - 1;
+            assertUlps("atan2", y/x, FastMath.atan2(y, x), Math.atan2(y, x), 4);
+        }
+        for (float v : new float[] { -1f, -0.5f, 0f, 0.5f, 1f }) {
+            assertUlps("asin", v, FastMath.asin(v), Math.asin(v), 3);
+            assertUlps("acos", v, FastMath.acos(v), Math.acos(v), 2);
+        }
+        assertTrue(Float.isNaN(FastMath.acos(1.5f)));
+        assertEquals(FloatMath.HALF_PI, FastMath.atan(Float.POSITIVE_INFINITY), 0f);
+        assertEquals(-FloatMath.PI, FastMath.atan2(-0f, -1f), 0f);
+        assertEquals(FloatMath.PI, FastMath.atan2(0f, -1f), 0f);
+        assertEquals(FloatMath.HALF_PI, FastMath.atan2(1f, 0f), 0f);
+    }
+
+    @Test public void testPolicy () {
+        assertFalse(FloatMath.isFastMath());
+        float a = 0.7f;
+        assertEquals((float)Math.sin(a), FloatMath.sin(a), 0f);
+        FloatMath.setFastMath(true);
+        try {
+            assertEquals(FastMath.sin(a), FloatMath.sin(a), 0f);
+            assertEquals(FastMath.atan2(a, 2f), FloatMath.atan2(a, 2f), 0f);
+            Vector sc = FloatMath.sincos(a, new Vector());
+            assertEquals(FastMath.cos(a), sc.x, 0f);
+        } finally {
+            FloatMath.setFastMath(false);
+        }
+    }
+
+    protected static void assertUlps (String fn, float arg, float actual, double expected,
+                                      int ulps) {
+        float rounded = (float)expected;
+        if (actual == rounded) return;
+        double error = Math.abs(actual - expected) / Math.ulp(rounded);
+        assertTrue(fn + "(" + arg + ") = " + actual + ", expected " + expected + " (" + error +
+                   " ulp)", error <= ulps);
+    }
+
+    protected static final int SAMPLES = 200000;
+}
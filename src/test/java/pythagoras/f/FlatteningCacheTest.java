@@ -0,0 +1,78 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link FlatteningCache} class.
+ */
+public class FlatteningCacheTest
+{
+    @Test public void testLookup () {
+        FlatteningCache cache = new FlatteningCache(10000, 4);
+        Ellipse glyph = new Ellipse(0, 0, 20, 10);
+        IShape cached = cache.cached(glyph);
+
+        // the cached outline matches a fresh flattening wherever it is drawn at a given scale
+        AffineTransform xf = new AffineTransform().scale(3, 3);
+        for (int ii = 0; ii < 3; ii++) {
+            xf.setTranslation(ii * 50, ii * 20);
+            PathIterator iter = cached.pathIterator(xf, 0.1f);
+            assertEquals(glyph.pathIterator(null).windingRule(), iter.windingRule());
+            float[] coords = new float[6];
+            Rectangle bounds = Transforms.createTransformedShape(xf, glyph).bounds();
+            int segs = 0;
+            for (; !iter.isDone(); iter.next(), segs++) {
+                if (iter.currentSegment(coords) == PathIterator.SEG_CLOSE) continue;
+                // flattened points lie on the transformed ellipse
+                float ex = (coords[0] - bounds.centerX()) / 30;
+                float ey = (coords[1] - bounds.centerY()) / 15;
+                assertEquals(1f, ex*ex + ey*ey, 1e-3f);
+            }
+            assertTrue(segs > 8);
+        }
+        assertEquals(1, cache.misses());
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.size());
+
+        // a sufficiently different scale or flatness is a separate entry
+        cached.pathIterator(new AffineTransform().scale(10, 10), 0.1f);
+        cached.pathIterator(xf, 0.5f);
+        assertEquals(3, cache.size());
+        cache.invalidate(glyph);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.points());
+    }
+
+    @Test public void testEviction () {
+        FlatteningCache cache = new FlatteningCache(200, 1);
+        Ellipse[] shapes = new Ellipse[50];
+        for (int ii = 0; ii < shapes.length; ii++) {
+            shapes[ii] = new Ellipse(ii, 0, 10, 10);
+            cache.pathIterator(shapes[ii], null, 0.01f);
+            assertTrue(cache.points() <= 200);
+        }
+        assertTrue(cache.evictions() > 0);
+        assertEquals(50, cache.misses());
+
+        // recently used entries survive, and the least recently used do not
+        cache.pathIterator(shapes[49], null, 0.01f);
+        assertEquals(1, cache.hits());
+        cache.pathIterator(shapes[0], null, 0.01f);
+        assertEquals(51, cache.misses());
+
+        // an outline larger than the cache is flattened, but not cached
+        int size = cache.size();
+        Path big = new Path();
+        big.moveTo(0, 0);
+        for (int ii = 1; ii < 300; ii++) big.lineTo(ii, ii % 2);
+        assertFalse(cache.pathIterator(big, null, 0.01f).isDone());
+        cache.pathIterator(big, null, 0.01f);
+        assertEquals(53, cache.misses());
+        assertEquals(size, cache.size());
+    }
+}
@@ -0,0 +1,77 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link ImmutableArea} class.
+ */
+public class ImmutableAreaTest
+{
+    @Test public void testSnapshot () {
+        Area area = new Area(new Rectangle(0, 0, 100, 100));
+        area.add(new Area(new Rectangle(50, 50, 100, 100)));
+        checkSnapshot(area);
+        checkSnapshot(new Area(new Ellipse(0, 0, 100, 50)));
+
+        // the snapshot is unaffected by changes to the original
+        ImmutableArea frozen = area.freeze();
+        area.reset();
+        assertTrue(frozen.contains(5, 5));
+        assertTrue(new Area().freeze().isEmpty());
+    }
+
+    protected void checkSnapshot (Area area) {
+        ImmutableArea frozen = area.freeze();
+        assertEquals(area.bounds(), frozen.bounds());
+        assertEquals(area.tightBounds(), frozen.tightBounds());
+        assertEquals(area.isPolygonal(), frozen.isPolygonal());
+        assertEquals(area.isSingular(), frozen.isSingular());
+        assertEquals(area.bounds(), frozen.toArea().bounds());
+
+        Random rand = new Random(1);
+        for (int ii = 0; ii < 1000; ii++) {
+            float x = -10 + rand.nextFloat() * 170, y = -10 + rand.nextFloat() * 170;
+            assertEquals(area.contains(x, y), frozen.contains(x, y));
+            assertEquals(area.intersects(x, y, 5, 5), frozen.intersects(x, y, 5, 5));
+            assertEquals(area.contains(x, y, 5, 5), frozen.contains(x, y, 5, 5));
+        }
+    }
+
+    @Test public void testConcurrentQueries () throws InterruptedException {
+        final ImmutableArea frozen = new ImmutableArea(new Ellipse(0, 0, 150, 150));
+        final boolean[] expected = new boolean[1000];
+        for (int ii = 0; ii < expected.length; ii++) {
+            expected[ii] = frozen.contains(ii % 150, ii / 7);
+        }
+
+        final AtomicInteger mismatches = new AtomicInteger();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int tt = 0; tt < 8; tt++) {
+            Thread thread = new Thread() {
+                @Override public void run () {
+                    for (int rr = 0; rr < 20; rr++) {
+                        for (int ii = 0; ii < expected.length; ii++) {
+                            if (frozen.contains(ii % 150, ii / 7) != expected[ii]) {
+                                mismatches.incrementAndGet();
+                            }
+                        }
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) thread.join();
+        assertEquals(0, mismatches.get());
+    }
+}
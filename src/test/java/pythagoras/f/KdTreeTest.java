@@ -0,0 +1,126 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link KdTree} class.
+ */
+public class KdTreeTest
+{
+    @Test public void testNearest2 () {
+        Random rand = new Random(1);
+        float[] coords = randomCoords(rand, 5000, 2);
+        // use a small grain to exercise parallel construction
+        KdTree tree = new KdTree(coords, 0, 5000, 2, 256);
+        int k = 10;
+        int[] indices = new int[k];
+        float[] dists = new float[k];
+        for (int ii = 0; ii < 200; ii++) {
+            float[] query = { rand.nextFloat() * 120 - 60, rand.nextFloat() * 120 - 60 };
+            assertEquals(k, tree.nearest(query, k, 0f, indices, dists));
+            float[] expected = bruteForce(coords, 2, query);
+            for (int jj = 0; jj < k; jj++) {
+                assertEquals(expected[jj], dists[jj], 0f);
+                assertEquals(dists[jj], distanceSq(coords, 2, indices[jj], query), 0f);
+            }
+            assertEquals(dists[0], distanceSq(coords, 2, tree.nearest(query[0], query[1]), query),
+                         0f);
+        }
+    }
+
+    @Test public void testNearest3 () {
+        Random rand = new Random(2);
+        float[] coords = randomCoords(rand, 3000, 3);
+        KdTree tree = new KdTree(coords, 0, 3000, 3, 128);
+        int[] indices = new int[5];
+        float[] dists = new float[5];
+        for (int ii = 0; ii < 200; ii++) {
+            float[] query = { rand.nextFloat() * 100 - 50, rand.nextFloat() * 100 - 50,
+                              rand.nextFloat() * 100 - 50 };
+            assertEquals(5, tree.nearest(query, 5, 0f, indices, dists));
+            float[] expected = bruteForce(coords, 3, query);
+            for (int jj = 0; jj < 5; jj++) assertEquals(expected[jj], dists[jj], 0f);
+        }
+    }
+
+    @Test public void testApproximate () {
+        Random rand = new Random(3);
+        float[] coords = randomCoords(rand, 5000, 2);
+        KdTree tree = new KdTree(coords, 0, 5000, 2);
+        float eps = 0.5f, bound = (1 + eps) * (1 + eps);
+        int[] indices = new int[3];
+        float[] dists = new float[3];
+        for (int ii = 0; ii < 200; ii++) {
+            float[] query = { rand.nextFloat() * 100 - 50, rand.nextFloat() * 100 - 50 };
+            assertEquals(3, tree.nearest(query, 3, eps, indices, dists));
+            float[] expected = bruteForce(coords, 2, query);
+            for (int jj = 0; jj < 3; jj++) assertTrue(dists[jj] <= expected[jj] * bound + 1e-3f);
+        }
+    }
+
+    @Test public void testWithinRadius () {
+        Random rand = new Random(4);
+        float[] coords = randomCoords(rand, 2000, 3);
+        KdTree tree = new KdTree(coords, 0, 2000, 3);
+        for (int ii = 0; ii < 50; ii++) {
+            float[] query = { rand.nextFloat() * 100 - 50, rand.nextFloat() * 100 - 50,
+                              rand.nextFloat() * 100 - 50 };
+            float radius = rand.nextFloat() * 20;
+            int[] found = tree.withinRadius(query, radius);
+            Arrays.sort(found);
+            int count = 0;
+            for (int jj = 0; jj < 2000; jj++) {
+                if (distanceSq(coords, 3, jj, query) <= radius * radius) {
+                    assertEquals(jj, found[count++]);
+                }
+            }
+            assertEquals(count, found.length);
+        }
+    }
+
+    @Test public void testSmall () {
+        KdTree empty = new KdTree(new Point[0]);
+        assertEquals(-1, empty.nearest(0, 0));
+        assertEquals(0, empty.withinRadius(0, 0, 10).length);
+
+        KdTree tree = new KdTree(new Point[] { new Point(1, 1), new Point(1, 1), new Point(5, 5) });
+        int[] indices = new int[5];
+        assertEquals(3, tree.nearest(new float[] { 4, 4 }, 5, 0f, indices, null));
+        assertEquals(2, indices[0]);
+        assertEquals(2, tree.withinRadius(0, 0, 2).length);
+    }
+
+    protected static float[] randomCoords (Random rand, int count, int dims) {
+        float[] coords = new float[count * dims];
+        for (int ii = 0; ii < coords.length; ii++) {
+            // include duplicate coordinates so that splits have ties
+            coords[ii] = (ii % 7 == 0) ? 0f : rand.nextFloat() * 100 - 50;
+        }
+        return coords;
+    }
+
+    protected static float[] bruteForce (float[] coords, int dims, float[] query) {
+        int count = coords.length / dims;
+        float[] dists = new float[count];
+        for (int ii = 0; ii < count; ii++) dists[ii] = distanceSq(coords, dims, ii, query);
+        Arrays.sort(dists);
+        return dists;
+    }
+
+    protected static float distanceSq (float[] coords, int dims, int index, float[] query) {
+        float distSq = 0f;
+        for (int ii = 0; ii < dims; ii++) {
+            float d = coords[index*dims + ii] - query[ii];
+            distSq += d*d;
+        }
+        return distSq;
+    }
+}
@@ -0,0 +1,83 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link MassProperties} class.
+ */
+public class MassPropertiesTest
+{
+    @Test public void testRectangle () {
+        MassProperties props = MassProperties.of(new Rectangle(1000, 2000, 40, 10));
+        assertEquals(400f, props.area(), 1e-3f);
+        assertEquals(1020f, props.centroidX(), 1e-3f);
+        assertEquals(2005f, props.centroidY(), 1e-3f);
+        assertEquals(40 * 10*10*10 / 12f, props.momentXX(), 1e-2f);
+        assertEquals(10 * 40*40*40 / 12f, props.momentYY(), 1e-1f);
+        assertEquals(0f, props.momentXY(), 1e-2f);
+    }
+
+    @Test public void testCurves () {
+        // the exact integrals over curves match those over a very fine polyline
+        Path path = new Path(), poly = new Path();
+        path.moveTo(0, 0);
+        path.quadTo(50, -30, 100, 0);
+        path.curveTo(120, 40, 40, 120, 10, 60);
+        path.closePath();
+        poly.moveTo(0, 0);
+        for (int ii = 1, steps = 2000; ii <= steps; ii++) {
+            float t = ii / (float)steps;
+            poly.lineTo(GeometryUtil.quad(t, 0, 50, 100), GeometryUtil.quad(t, 0, -30, 0));
+        }
+        for (int ii = 1, steps = 2000; ii <= steps; ii++) {
+            float t = ii / (float)steps;
+            poly.lineTo(GeometryUtil.cubic(t, 100, 120, 40, 10),
+                        GeometryUtil.cubic(t, 0, 40, 120, 60));
+        }
+        poly.closePath();
+        MassProperties exact = path.massProperties();
+        MassProperties flat = new MassProperties().accumulate(poly.pathIterator(null));
+        assertEquals(flat.area(), exact.area(), 1e-3f * exact.area());
+        assertEquals(flat.centroidX(), exact.centroidX(), 1e-2f);
+        assertEquals(flat.centroidY(), exact.centroidY(), 1e-2f);
+        assertEquals(flat.momentXX(), exact.momentXX(), 1e-3f * exact.momentXX());
+        assertEquals(flat.momentYY(), exact.momentYY(), 1e-3f * exact.momentYY());
+        assertEquals(flat.momentXY(), exact.momentXY(), 1e-3f * Math.abs(exact.momentXY()));
+
+        // a circle's cubic approximation is very nearly a circle
+        MassProperties circle = MassProperties.of(new Ellipse(-10, -10, 20, 20));
+        assertEquals(FloatMath.PI * 100, circle.area(), 0.1f);
+        assertEquals(0f, circle.centroidX(), 1e-4f);
+        assertEquals(FloatMath.PI * 10000 / 2, circle.polarMoment(), 20f);
+    }
+
+    @Test public void testWindingRules () {
+        // a square with a smaller square inside, both wound the same way
+        Path path = new Path(Path.WIND_EVEN_ODD);
+        path.append(new Rectangle(0, 0, 10, 10), false);
+        path.append(new Rectangle(2, 2, 4, 4), false);
+        assertEquals(84f, path.massProperties().area(), 1e-4f);
+        path.setWindingRule(Path.WIND_NON_ZERO);
+        assertEquals(100f, path.massProperties().area(), 1e-4f);
+
+        // a hole wound the other way is a hole under either rule
+        path = new Path(Path.WIND_NON_ZERO);
+        path.append(new Rectangle(0, 0, 10, 10), false);
+        path.moveTo(2, 2);
+        path.lineTo(2, 6);
+        path.lineTo(6, 6);
+        path.lineTo(6, 2);
+        path.closePath();
+        MassProperties props = path.massProperties();
+        assertEquals(84f, props.area(), 1e-4f);
+        assertEquals(84f, Math.abs(new MassProperties().accumulate(
+                                       path.pathIterator(null)).area()), 1e-4f);
+        // the hole shifts the centroid away from it
+        assertTrue(props.centroidX() > 5f && props.centroidY() > 5f);
+    }
+}
@@ -0,0 +1,159 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the type classification of {@link Matrix4} and {@link Matrix3}, and the specialized
+ * kernels that it selects.
+ */
+public class MatrixTypeTest
+{
+    @Test public void testMatrix4Types () {
+        Quaternion rot = new Quaternion().fromAngleAxis(0.7f, new Vector3(1, 2, 3).normalize());
+        Vector3 trans = new Vector3(1, -2, 3);
+        assertEquals(Matrix4.TYPE_IDENTITY, new Matrix4().type());
+        assertEquals(Matrix4.TYPE_TRANSLATION, new Matrix4().setToTranslation(trans).type());
+        assertEquals(Matrix4.TYPE_RIGID, new Matrix4().setToTransform(trans, rot).type());
+        assertEquals(Matrix4.TYPE_AFFINE, new Matrix4().setToTransform(trans, rot, 2f).type());
+        assertEquals(Matrix4.TYPE_PROJECTIVE,
+                     new Matrix4().setToPerspective(1f, 1f, 1f, 10f).type());
+
+        // components written directly are reclassified once the type is reset
+        Matrix4 m = new Matrix4().setToTransform(trans, rot);
+        m.m13 = 0.5f;
+        assertEquals(Matrix4.TYPE_PROJECTIVE, m.resetType().type());
+        m.m13 = 0f;
+        m.m00 = 2f;
+        assertEquals(Matrix4.TYPE_AFFINE, m.resetType().type());
+        assertClose(new Matrix4(), naiveMult(m, m.invert()));
+        m.setToIdentity().m30 = 1f;
+        assertEquals(Matrix4.TYPE_TRANSLATION, m.resetType().type());
+        // the raw setters discard the type, and a rotation is then merely affine
+        float[] rv = get(new Matrix4().setToTransform(trans, rot), 16);
+        assertEquals(Matrix4.TYPE_AFFINE, new Matrix4(FloatBuffer.wrap(rv)).type());
+        assertEquals(Matrix4.TYPE_RIGID, new Matrix4().setToTransform(trans, rot, 1f).type());
+
+        Matrix4 r1 = new Matrix4().setToTransform(trans, rot);
+        Matrix4 r2 = new Matrix4().setToTransform(trans.negate(), rot.invert());
+        assertEquals(Matrix4.TYPE_RIGID, r1.mult(r2).type());
+        assertEquals(Matrix4.TYPE_RIGID, r1.invert().type());
+        assertEquals(Matrix4.TYPE_RIGID, new Matrix4(r1).type());
+    }
+
+    @Test public void testMatrix4Kernels () {
+        Random rand = new Random(1);
+        for (int ii = 0; ii < 50; ii++) {
+            Quaternion rot = new Quaternion().randomize(rand);
+            Vector3 trans = new Vector3(rand.nextFloat(), rand.nextFloat(), rand.nextFloat());
+            Matrix4 proj = new Matrix4().setToTransform(trans, rot);
+            proj.m03 = 0.1f;
+            proj.resetType();
+            Matrix4[] ms = {
+                new Matrix4(), new Matrix4().setToTranslation(trans),
+                new Matrix4().setToTransform(trans, rot),
+                new Matrix4().setToTransform(trans, rot, 0.5f + rand.nextFloat()), proj };
+            Vector4 point = new Vector4(rand.nextFloat(), rand.nextFloat(), rand.nextFloat(), 1f);
+            Vector3 point3 = new Vector3(point.x, point.y, point.z);
+            for (int aa = 0; aa < ms.length; aa++) {
+                Matrix4 a = ms[aa];
+                assertEquals(aa, a.type());
+                assertClose(new Matrix4(), naiveMult(a, a.invert()));
+                Vector4 tp = a.transform(point);
+                assertClose(new Vector3(tp.x, tp.y, tp.z).multLocal(1f / tp.w),
+                            a.projectPoint(point3));
+                if (aa < ms.length-1) {
+                    assertClose(new Vector3(tp.x, tp.y, tp.z), a.transformPoint(point3));
+                }
+                for (Matrix4 b : ms) assertClose(naiveMult(a, b), a.mult(b));
+            }
+        }
+    }
+
+    @Test public void testMatrix3Kernels () {
+        Random rand = new Random(2);
+        Vector trans = new Vector(rand.nextFloat(), rand.nextFloat());
+        Matrix3[] ms = {
+            new Matrix3(), new Matrix3().setToTranslation(trans),
+            new Matrix3().setToTransform(trans, 0.5f),
+            new Matrix3().setToTransform(trans, 0.5f, 2f),
+            new Matrix3().setToRotation(0.5f, new Vector3(1, 2, 3).normalize()) };
+        Vector point = new Vector(rand.nextFloat(), rand.nextFloat());
+        for (int aa = 0; aa < ms.length; aa++) {
+            Matrix3 a = ms[aa];
+            assertEquals(aa, a.type());
+            assertClose(new Matrix3(), a.mult(a.invert()));
+            Vector3 tp = a.transform(new Vector3(point.x, point.y, 1f));
+            if (aa < ms.length-1) {
+                Vector xp = a.transformPoint(point);
+                assertClose(new Vector3(tp.x, tp.y, 0f), new Vector3(xp.x, xp.y, 0f));
+            }
+            for (Matrix3 b : ms) assertClose(naiveMult(a, b), a.mult(b));
+        }
+
+        assertEquals(Matrix3.TYPE_RIGID, new Matrix3().setToTransform(trans, 0.5f, 1f).type());
+        // components written directly are reclassified once the type is reset
+        Matrix3 m = new Matrix3().setToTransform(trans, 0.5f);
+        m.m00 = 2f;
+        assertEquals(Matrix3.TYPE_AFFINE, m.resetType().type());
+        assertClose(new Matrix3(), naiveMult(m, m.invert()));
+    }
+
+    protected static Matrix4 naiveMult (Matrix4 a, Matrix4 b) {
+        float[] av = get(a, 16), bv = get(b, 16), rv = new float[16];
+        mult(av, bv, rv, 4);
+        return new Matrix4(FloatBuffer.wrap(rv));
+    }
+
+    protected static Matrix3 naiveMult (Matrix3 a, Matrix3 b) {
+        float[] av = get(a, 9), bv = get(b, 9), rv = new float[9];
+        mult(av, bv, rv, 3);
+        Matrix3 result = new Matrix3();
+        for (int col = 0; col < 3; col++) {
+            for (int row = 0; row < 3; row++) result.setElement(row, col, rv[col*3 + row]);
+        }
+        return result;
+    }
+
+    /** Multiplies two column-major matrices of the specified size. */
+    protected static void mult (float[] a, float[] b, float[] result, int size) {
+        for (int col = 0; col < size; col++) {
+            for (int row = 0; row < size; row++) {
+                float sum = 0f;
+                for (int kk = 0; kk < size; kk++) sum += a[kk*size + row] * b[col*size + kk];
+                result[col*size + row] = sum;
+            }
+        }
+    }
+
+    protected static float[] get (IMatrix4 m, int size) {
+        float[] values = new float[size];
+        m.get(FloatBuffer.wrap(values));
+        return values;
+    }
+
+    protected static float[] get (IMatrix3 m, int size) {
+        float[] values = new float[size];
+        m.get(FloatBuffer.wrap(values));
+        return values;
+    }
+
+    protected static void assertClose (IVector3 expected, IVector3 actual) {
+        assertTrue(expected + " != " + actual, expected.subtract(actual).length() < 1e-4f);
+    }
+
+    protected static void assertClose (Matrix4 expected, Matrix4 actual) {
+        assertArrayEquals(expected + " != " + actual, get(expected, 16), get(actual, 16), 1e-4f);
+    }
+
+    protected static void assertClose (Matrix3 expected, Matrix3 actual) {
+        assertArrayEquals(expected + " != " + actual, get(expected, 9), get(actual, 9), 1e-4f);
+    }
+}
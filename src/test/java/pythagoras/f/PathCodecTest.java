@@ -0,0 +1,157 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link PathCodec} class.
+ */
+public class PathCodecTest
+{
+    @Test public void testPathRoundTrip () {
+        Path path = testPath();
+        ByteBuffer buf = ByteBuffer.allocate(PathCodec.encodedSize(path) + 3);
+        buf.position(3); // make sure we handle unaligned records
+        PathCodec.write(path, buf);
+        assertEquals(0, buf.remaining());
+
+        buf.position(3);
+        Path read = PathCodec.readPath(buf);
+        assertEquals(0, buf.remaining());
+        assertEquals(path.windingRule(), read.windingRule());
+        assertSamePath(path.pathIterator(null), read.pathIterator(null));
+
+        buf.position(3);
+        EncodedShape shape = PathCodec.wrap(buf);
+        assertSamePath(path.pathIterator(null), shape.pathIterator(null));
+        assertEquals(path.bounds(), shape.bounds());
+        for (float x = -5; x < 25; x += 0.7f) {
+            for (float y = -5; y < 25; y += 0.7f) {
+                assertEquals(path.contains(x, y), shape.contains(x, y));
+            }
+        }
+    }
+
+    @Test public void testAreaRoundTrip () {
+        Area area = new Area(new Rectangle(0, 0, 10, 10));
+        area.add(new Area(new Rectangle(5, 5, 10, 10)));
+        Area curved = new Area(testPath());
+        ByteBuffer buf = ByteBuffer.allocateDirect(PathCodec.encodedSize(area));
+        PathCodec.write(area, buf);
+        buf.flip();
+        Area read = PathCodec.readArea(buf);
+        assertSamePath(area.pathIterator(null), read.pathIterator(null));
+        assertEquals(area.isPolygonal(), read.isPolygonal());
+        for (float x = -1; x < 16; x += 0.3f) {
+            assertEquals(area.contains(x, x/2), read.contains(x, x/2));
+        }
+
+        buf = ByteBuffer.allocate(PathCodec.encodedSize(curved));
+        PathCodec.write(curved, buf);
+        buf.flip();
+        read = PathCodec.readArea(buf);
+        assertSamePath(curved.pathIterator(null), read.pathIterator(null));
+        assertFalse(read.isPolygonal());
+    }
+
+    @Test public void testDoublePrecision () {
+        pythagoras.d.Path dpath = new pythagoras.d.Path();
+        dpath.moveTo(1, 2);
+        dpath.quadTo(3, 4, 5, 6);
+        dpath.closePath();
+        ByteBuffer buf = ByteBuffer.allocate(pythagoras.d.PathCodec.encodedSize(dpath));
+        pythagoras.d.PathCodec.write(dpath, buf);
+        buf.flip();
+        Path path = PathCodec.readPath(buf);
+        float[] coords = new float[6];
+        PathIterator iter = path.pathIterator(null);
+        assertEquals(PathIterator.SEG_MOVETO, iter.currentSegment(coords));
+        iter.next();
+        assertEquals(PathIterator.SEG_QUADTO, iter.currentSegment(coords));
+        assertEquals(5f, coords[2], 0f);
+    }
+
+    @Test public void testMapped () throws Exception {
+        File file = File.createTempFile("pathcodec", ".bin");
+        file.deleteOnExit();
+        Path path = testPath();
+        Area area = new Area(path);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel chan = raf.getChannel();
+            int size = PathCodec.encodedSize(path) + PathCodec.encodedSize(area);
+            MappedByteBuffer out = chan.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            PathCodec.write(path, out);
+            PathCodec.write(area, out);
+            out.force();
+
+            MappedByteBuffer in = chan.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            EncodedShape s1 = PathCodec.wrap(in), s2 = PathCodec.wrap(in);
+            assertFalse(s1.isArea());
+            assertTrue(s2.isArea());
+            assertSamePath(path.pathIterator(null), s1.pathIterator(null));
+            assertSamePath(area.pathIterator(null), s2.pathIterator(null));
+        } finally {
+            raf.close();
+        }
+    }
+
+    @Test(expected=IllegalArgumentException.class) public void testCorrupt () {
+        PathCodec.wrap(ByteBuffer.allocate(64));
+    }
+
+    @Test public void testCorruptTypes () {
+        Path path = testPath();
+        ByteBuffer buf = ByteBuffer.allocate(PathCodec.encodedSize(path));
+        PathCodec.write(path, buf);
+        // an unknown type, and a valid type that disagrees with the number of coordinates
+        for (byte type : new byte[] { 9, -1, PathIterator.SEG_CLOSE }) {
+            ByteBuffer corrupt = ByteBuffer.allocate(buf.capacity());
+            buf.rewind();
+            corrupt.put(buf).put(PathCodec.TYPES_OFFSET + 1, type).rewind();
+            try {
+                PathCodec.readPath(corrupt);
+                fail("Read path with segment type " + type);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    protected static Path testPath () {
+        Path path = new Path(Path.WIND_EVEN_ODD);
+        path.moveTo(0, 0);
+        path.lineTo(20, 0);
+        path.quadTo(25, 10, 20, 20);
+        path.curveTo(15, 25, 5, 25, 0, 20);
+        path.closePath();
+        path.moveTo(5, 5);
+        path.lineTo(10, 5);
+        path.lineTo(10, 10);
+        path.closePath();
+        return path;
+    }
+
+    protected static void assertSamePath (PathIterator iter1, PathIterator iter2) {
+        float[] coords1 = new float[6], coords2 = new float[6];
+        assertEquals(iter1.windingRule(), iter2.windingRule());
+        while (!iter1.isDone()) {
+            assertFalse(iter2.isDone());
+            assertEquals(iter1.currentSegment(coords1), iter2.currentSegment(coords2));
+            assertArrayEquals(coords1, coords2, 0f);
+            iter1.next();
+            iter2.next();
+        }
+        assertTrue(iter2.isDone());
+    }
+}
@@ -0,0 +1,93 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link RootSolver} class.
+ */
+public class RootSolverTest
+{
+    @Test public void testQuadratic () {
+        float[] roots = new float[2];
+        // (t - 0.25)(t - 0.75) = t^2 - t + 0.1875
+        assertRoots(new float[] { 0.25f, 0.75f }, roots,
+                    RootSolver.solveQuadratic(0.1875f, -1, 1, 0, 1, roots, 0));
+        assertRoots(new float[] { 0.75f }, roots,
+                    RootSolver.solveQuadratic(0.1875f, -1, 1, 0.5f, 1, roots, 0));
+        assertEquals(0, RootSolver.solveQuadratic(1, 0, 1, 0, 1, roots, 0));
+        assertEquals(0, RootSolver.solveQuadratic(1, 0, 0, 0, 1, roots, 0));
+    }
+
+    @Test public void testCubicQuartic () {
+        float[] roots = new float[4];
+        // (t - 0.1)(t - 0.5)(t - 0.9) = t^3 - 1.5t^2 + 0.59t - 0.045
+        assertRoots(new float[] { 0.1f, 0.5f, 0.9f }, roots,
+                    RootSolver.solveCubic(-0.045f, 0.59f, -1.5f, 1, 0, 1, roots, 0));
+        // a double root at 0.5 and a single root at 2, outside the interval
+        // (t - 0.5)^2 (t - 2) = t^3 - 3t^2 + 2.25t - 0.5
+        assertRoots(new float[] { 0.5f }, roots,
+                    RootSolver.solveCubic(-0.5f, 2.25f, -3, 1, 0, 1, roots, 0));
+        // (t - 0.1)(t - 0.3)(t - 0.6)(t - 0.8)
+        float[] c = expand(0.1f, 0.3f, 0.6f, 0.8f);
+        assertRoots(new float[] { 0.1f, 0.3f, 0.6f, 0.8f }, roots,
+                    RootSolver.solveQuartic(c[0], c[1], c[2], c[3], c[4], 0, 1, roots, 0));
+    }
+
+    @Test public void testNearDoubleRoot () {
+        // two roots close enough that the extremum between them is tiny, but nonzero
+        float[] c = expand(0.5074f, 0.5023f, 0.1516f), roots = new float[3];
+        for (int ii = 0; ii < c.length; ii++) c[ii] *= 0.32f;
+        int count = RootSolver.solveCubic(c[0], c[1], c[2], c[3], 0, 1, roots, 0);
+        assertEquals(3, count);
+        assertEquals(0.1516f, roots[0], 1e-4f);
+        assertEquals(0.5023f, roots[1], 2e-4f);
+        assertEquals(0.5074f, roots[2], 2e-4f);
+    }
+
+    @Test public void testSolveAll () {
+        float[] a = expand(0.2f, 0.4f, 0.7f), b = expand(0.3f, 5f, -5f);
+        float[] coeffs = { a[0], a[1], a[2], a[3], b[0], b[1], b[2], b[3] };
+        float[] roots = new float[6];
+        int[] counts = new int[2];
+        assertEquals(4, RootSolver.solveAll(3, coeffs, 0, 2, 0, 1, roots, counts));
+        assertEquals(3, counts[0]);
+        assertEquals(1, counts[1]);
+        assertEquals(0.2f, roots[0], 1e-5f);
+        assertEquals(0.7f, roots[2], 1e-5f);
+        assertEquals(0.3f, roots[3], 1e-5f);
+    }
+
+    @Test public void testLineAndCubic () {
+        // the (symmetric) curve crosses the line y = 0.5 once, at its midpoint
+        float[] params = new float[6];
+        int count = GeometryUtil.intersectLineAndCubic(
+            -1, 0.5f, 2, 0.5f, 0.1f, 0.1f, 0.25f, 0.25f, 0.75f, 0.75f, 0.9f, 0.9f, params);
+        assertEquals(1, count);
+        assertEquals(0.5f, params[0], 1e-5f);
+    }
+
+    /** Returns the coefficients (lowest order first) of the monic polynomial with the specified
+     * roots. */
+    protected static float[] expand (float... roots) {
+        float[] c = { 1 };
+        for (float r : roots) {
+            float[] nc = new float[c.length + 1];
+            for (int ii = 0; ii < c.length; ii++) {
+                nc[ii+1] += c[ii];
+                nc[ii] -= r * c[ii];
+            }
+            c = nc;
+        }
+        return c;
+    }
+
+    protected static void assertRoots (float[] expect, float[] roots, int count) {
+        assertEquals(expect.length, count);
+        for (int ii = 0; ii < count; ii++) assertEquals(expect[ii], roots[ii], 1e-4f);
+    }
+}
@@ -0,0 +1,100 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link SpatialOrder} class.
+ */
+public class SpatialOrderTest
+{
+    @Test public void testMorton () {
+        assertEquals(0b0111L, SpatialOrder.morton(0b11, 0b01));
+        assertEquals(0xFFFFFFFFL, SpatialOrder.morton(0xFFFF, 0xFFFF));
+        assertEquals(0b101001L, SpatialOrder.morton(0b11, 0b00, 0b10));
+        assertEquals(Long.MAX_VALUE, SpatialOrder.morton(0x1FFFFF, 0x1FFFFF, 0x1FFFFF));
+    }
+
+    @Test public void testHilbert2 () {
+        // the first 4^k cells of the curve fill the 2^k square at the origin, each adjacent to
+        // the last
+        int side = 64;
+        int[] cells = new int[side*side];
+        Arrays.fill(cells, -1);
+        for (int x = 0; x < side; x++) {
+            for (int y = 0; y < side; y++) {
+                long key = SpatialOrder.hilbert(x, y);
+                assertTrue(key < cells.length);
+                assertEquals(-1, cells[(int)key]);
+                cells[(int)key] = x * side + y;
+            }
+        }
+        for (int ii = 1; ii < cells.length; ii++) {
+            int dx = cells[ii]/side - cells[ii-1]/side, dy = cells[ii]%side - cells[ii-1]%side;
+            assertEquals(1, Math.abs(dx) + Math.abs(dy));
+        }
+    }
+
+    @Test public void testHilbert3 () {
+        int side = 16;
+        int[] cells = new int[side*side*side];
+        Arrays.fill(cells, -1);
+        for (int x = 0; x < side; x++) {
+            for (int y = 0; y < side; y++) {
+                for (int z = 0; z < side; z++) {
+                    long key = SpatialOrder.hilbert(x, y, z);
+                    assertTrue(key < cells.length);
+                    assertEquals(-1, cells[(int)key]);
+                    cells[(int)key] = (x * side + y) * side + z;
+                }
+            }
+        }
+        for (int ii = 1; ii < cells.length; ii++) {
+            int a = cells[ii-1], b = cells[ii];
+            int dist = Math.abs(a/(side*side) - b/(side*side)) +
+                Math.abs(a/side%side - b/side%side) + Math.abs(a%side - b%side);
+            assertEquals(1, dist);
+        }
+    }
+
+    @Test public void testSort () {
+        Random rand = new Random(1);
+        int count = 100000;
+        long[] keys = new long[count];
+        for (int ii = 0; ii < count; ii++) keys[ii] = rand.nextLong() >>> (1 + rand.nextInt(40));
+        long[] expected = keys.clone();
+        Arrays.sort(expected);
+        long[] original = keys.clone();
+        // use a small grain to exercise the parallel passes
+        int[] order = SpatialOrder.sort(keys, count, 4096);
+        assertArrayEquals(expected, keys);
+        for (int ii = 0; ii < count; ii++) {
+            assertEquals(keys[ii], original[order[ii]]);
+            // equal keys retain their order
+            if (ii > 0 && keys[ii] == keys[ii-1]) assertTrue(order[ii] > order[ii-1]);
+        }
+    }
+
+    @Test public void testSortPoints () {
+        Random rand = new Random(1);
+        Rectangle bounds = new Rectangle(-100, -100, 200, 200);
+        float[] xy = new float[2000];
+        for (int ii = 0; ii < xy.length; ii++) xy[ii] = rand.nextFloat() * 200 - 100;
+        float[] original = xy.clone();
+        int[] order = SpatialOrder.sort(SpatialOrder.HILBERT, bounds, xy, 0, 1000);
+        long last = -1;
+        for (int ii = 0; ii < 1000; ii++) {
+            assertEquals(original[order[ii]*2], xy[ii*2], 0f);
+            long key = SpatialOrder.key(SpatialOrder.HILBERT, bounds, xy[ii*2], xy[ii*2+1]);
+            assertTrue(key >= last);
+            last = key;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link SvgPathCodec} class.
+ */
+public class SvgPathCodecTest
+{
+    @Test public void testCommands () {
+        // relative commands, implicit repetition and packed numbers
+        Path path = SvgPathCodec.parse("m10,10 20,0-.5.5 v10h-5z l1e1 0");
+        assertEquals("M10 10L30 10L29.5 10.5L29.5 20.5L24.5 20.5ZM10 10L20 10",
+                     SvgPathCodec.write(path));
+
+        // smooth curves reflect the previous control point
+        path = SvgPathCodec.parse("M0 0 C0 10 10 10 10 0 S20 -10 20 0 M0 0 Q5 5 10 0 t10 0");
+        assertEquals("M0 0C0 10 10 10 10 0C10 -10 20 -10 20 0M0 0Q5 5 10 0Q15 -5 20 0",
+                     SvgPathCodec.write(path));
+    }
+
+    @Test public void testArc () {
+        // a half circle from (0,0) to (20,0) sweeping through (10,10)
+        Path path = SvgPathCodec.parse("M0 0 A10 10 0 0 0 20 0");
+        Point end = path.currentPoint();
+        assertEquals(20f, end.x, 0f);
+        assertEquals(0f, end.y, 0f);
+        assertEquals(10f, path.tightBounds().maxY(), 1e-3f);
+        assertEquals(0f, path.tightBounds().minY(), 1e-3f);
+
+        // a rotated ellipse still ends exactly at its end point
+        path = SvgPathCodec.parse("M0 0 a20 10 30 1 1 15 5");
+        end = path.currentPoint();
+        assertEquals(15f, end.x, 0f);
+        assertEquals(5f, end.y, 0f);
+    }
+
+    @Test public void testArcOnEllipse () {
+        // every point of the decoded curves lies on the arc's ellipse
+        checkOnEllipse(SvgPathCodec.parse("M0 0A20 10 0 0 1 40 0"), 20, 0, 20, 10);
+        checkOnEllipse(SvgPathCodec.parse("M0 0A20 10 90 0 1 0 40"), 0, 20, 10, 20);
+        checkOnEllipse(SvgPathCodec.parse("M10 10a30 15 0 0 1 30 15"), 10, 25, 30, 15);
+    }
+
+    @Test public void testErrors () {
+        for (String data : new String[] { "L10 10", "M10", "M0 0 X", "M0 0 A1 1 0 2 0 1 1" }) {
+            try {
+                SvgPathCodec.parse(data);
+                fail("Parsed invalid path data: " + data);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Checks that the curves of the supplied path lie on the axis-aligned ellipse with the
+     * specified center and radii.
+     */
+    protected static void checkOnEllipse (Path path, float cx, float cy, float rx, float ry) {
+        float[] coords = new float[6];
+        float px = 0, py = 0;
+        for (PathIterator iter = path.pathIterator(null); !iter.isDone(); iter.next()) {
+            int type = iter.currentSegment(coords);
+            if (type == PathIterator.SEG_CUBICTO) {
+                for (int ii = 0; ii <= 10; ii++) {
+                    float t = ii / 10f, u = 1 - t;
+                    float x = u*u*u*px + 3*u*u*t*coords[0] + 3*u*t*t*coords[2] + t*t*t*coords[4];
+                    float y = u*u*u*py + 3*u*u*t*coords[1] + 3*u*t*t*coords[3] + t*t*t*coords[5];
+                    float dx = (x - cx) / rx, dy = (y - cy) / ry;
+                    assertEquals(1f, dx*dx + dy*dy, 2e-3f);
+                }
+            }
+            if (type != PathIterator.SEG_CLOSE) {
+                int last = (type == PathIterator.SEG_CUBICTO) ? 4 :
+                    (type == PathIterator.SEG_QUADTO ? 2 : 0);
+                px = coords[last];
+                py = coords[last+1];
+            }
+        }
+    }
+}
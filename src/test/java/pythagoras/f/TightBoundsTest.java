@@ -0,0 +1,59 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link IShape#tightBounds}.
+ */
+public class TightBoundsTest
+{
+    @Test public void testCurves () {
+        // the curve peaks at y = 5 (halfway to its control point)
+        QuadCurve quad = new QuadCurve(0, 0, 5, 10, 10, 0);
+        assertClose(new Rectangle(0, 0, 10, 10), quad.bounds());
+        assertClose(new Rectangle(0, 0, 10, 5), quad.tightBounds());
+
+        // the curve peaks at y = 7.5 (three quarters of the way to its control points)
+        CubicCurve cubic = new CubicCurve(0, 0, 0, 10, 10, 10, 10, 0);
+        assertClose(new Rectangle(0, 0, 10, 7.5f), cubic.tightBounds());
+        // an S curve overshoots its end points in x
+        CubicCurve s = new CubicCurve(0, 0, 40, 0, -30, 10, 10, 10);
+        Rectangle sb = s.tightBounds();
+        assertEquals(-2.83349f, sb.x, 1e-4f);
+        assertEquals(12.83349f, sb.maxX(), 1e-4f);
+    }
+
+    @Test public void testPathCache () {
+        Path path = new Path();
+        path.moveTo(0, 0);
+        path.quadTo(5, 10, 10, 0);
+        path.closePath();
+        assertClose(new Rectangle(0, 0, 10, 5), path.tightBounds());
+        assertClose(new Rectangle(0, 0, 10, 10), path.bounds());
+
+        // mutation invalidates the cached bounds
+        path.lineTo(0, -3);
+        assertClose(new Rectangle(0, -3, 10, 8), path.tightBounds());
+        path.transform(new AffineTransform().translate(1, 1));
+        assertClose(new Rectangle(1, -2, 10, 8), path.tightBounds());
+        path.reset();
+        assertClose(new Rectangle(), path.tightBounds());
+
+        // other shapes agree with the path
+        assertClose(new Rectangle(0, 0, 10, 5),
+                    new Area(new QuadCurve(0, 0, 5, 10, 10, 0)).tightBounds());
+    }
+
+    protected static void assertClose (IRectangle expected, IRectangle actual) {
+        assertTrue(expected + " != " + actual,
+                   Math.abs(expected.x() - actual.x()) < 1e-4f &&
+                   Math.abs(expected.y() - actual.y()) < 1e-4f &&
+                   Math.abs(expected.width() - actual.width()) < 1e-4f &&
+                   Math.abs(expected.height() - actual.height()) < 1e-4f);
+    }
+}
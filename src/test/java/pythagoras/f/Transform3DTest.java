@@ -0,0 +1,90 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.util.Random;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link Transform3D} class and the transform methods that use it.
+ */
+public class Transform3DTest
+{
+    @Test public void testComposeInvert () {
+        Random rand = new Random(1);
+        for (int ii = 0; ii < 100; ii++) {
+            Transform3D[] xforms = randomTransforms(rand);
+            Vector3 point = randomVector(rand);
+            for (Transform3D a : xforms) {
+                assertClose(a.matrix().projectPoint(point), a.transformPoint(point));
+                assertClose(point, a.invert().transformPoint(a.transformPoint(point)));
+                for (Transform3D b : xforms) {
+                    Transform3D ab = a.compose(b);
+                    assertEquals(Math.max(a.type(), b.type()), ab.type());
+                    assertClose(a.transformPoint(b.transformPoint(point)),
+                                ab.transformPoint(point));
+                }
+            }
+        }
+    }
+
+    @Test public void testBox () {
+        Random rand = new Random(2);
+        Box box = new Box(new Vector3(-1, -2, -3), new Vector3(3, 2, 1));
+        for (Transform3D xform : randomTransforms(rand)) {
+            if (xform.type() == Transform3D.GENERAL) continue;
+            Box xbox = box.transform(xform);
+            // the transformed box must be the bounds of the transformed corners
+            Box bounds = new Box();
+            for (int ii = 0; ii < 8; ii++) {
+                Vector3 corner = box.vertex(ii, new Vector3());
+                bounds.addLocal(xform.transformPointLocal(corner));
+            }
+            assertClose(bounds.minimumExtent(), xbox.minimumExtent());
+            assertClose(bounds.maximumExtent(), xbox.maximumExtent());
+        }
+    }
+
+    @Test public void testPlaneRay () {
+        Random rand = new Random(3);
+        for (Transform3D xform : randomTransforms(rand)) {
+            Vector3 p1 = randomVector(rand), p2 = randomVector(rand), p3 = randomVector(rand);
+            Plane plane = new Plane().fromPoints(p1, p2, p3).transform(xform);
+            assertEquals(0f, plane.distance(xform.transformPoint(p1)), 1e-4f);
+            assertEquals(0f, plane.distance(xform.transformPoint(p2)), 1e-4f);
+            assertEquals(0f, plane.distance(xform.transformPoint(p3)), 1e-4f);
+
+            Ray3 ray = new Ray3(p1, p2.subtract(p1).normalizeLocal()).transform(xform);
+            Vector3 xp1 = xform.transformPoint(p1), xp2 = xform.transformPoint(p2);
+            assertClose(xp1, ray.origin());
+            assertClose(xp2.subtract(xp1).normalizeLocal(), ray.direction());
+        }
+    }
+
+    protected static Transform3D[] randomTransforms (Random rand) {
+        Quaternion rot = new Quaternion().randomize(rand);
+        Vector3 trans = randomVector(rand);
+        Matrix4 affine = new Matrix4().setToTransform(
+            trans, rot, new Vector3(1 + rand.nextFloat(), 1 + rand.nextFloat(), 0.5f));
+        Matrix4 general = new Matrix4(affine);
+        general.m03 = 0.1f;
+        general.m13 = -0.1f;
+        general.resetType();
+        return new Transform3D[] {
+            new Transform3D(), new Transform3D(trans, rot),
+            new Transform3D(trans, rot, 0.5f + rand.nextFloat()),
+            new Transform3D(affine), new Transform3D(general) };
+    }
+
+    protected static Vector3 randomVector (Random rand) {
+        return new Vector3(rand.nextFloat()*2 - 1, rand.nextFloat()*2 - 1, rand.nextFloat()*2 - 1);
+    }
+
+    protected static void assertClose (IVector3 expected, IVector3 actual) {
+        assertTrue(expected + " != " + actual, expected.subtract(actual).length() < 1e-4f);
+    }
+}
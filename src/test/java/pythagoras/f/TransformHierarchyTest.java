@@ -0,0 +1,76 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.util.Random;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link TransformHierarchy} class.
+ */
+public class TransformHierarchyTest
+{
+    @Test public void testUpdate () {
+        TransformHierarchy h = new TransformHierarchy(2);
+        int root = h.add(TransformHierarchy.NO_PARENT);
+        int child = h.add(root), grandchild = h.add(child), other = h.add(root);
+        h.setTranslation(root, 1, 2, 3);
+        h.setRotation(child, new Quaternion().fromAngleAxis(0.5f, Vector3.UNIT_Z));
+        h.setScale(child, 2f);
+        h.setTranslation(grandchild, 0, 1, 0);
+        assertEquals(4, h.update());
+        assertEquals(0, h.update());
+        assertWorld(h, grandchild);
+
+        // changing the child should recompute only it and its descendants
+        h.setScale(child, 1, 2, 3);
+        assertTrue(h.isDirty(child));
+        assertEquals(2, h.update());
+        assertFalse(h.isDirty(child));
+        assertWorld(h, grandchild);
+        assertWorld(h, other);
+
+        // a non-affine local matrix should be composed with a full multiply
+        h.setLocalMatrix(other, new Matrix4().setToPerspective(1f, 1f, 1f, 10f));
+        assertEquals(1, h.update());
+        assertWorld(h, other);
+
+        // a hierarchy created without capacity grows as needed
+        h = new TransformHierarchy(0);
+        assertEquals(0, h.add(TransformHierarchy.NO_PARENT));
+        assertEquals(1, h.add(0));
+        assertEquals(2, h.update());
+    }
+
+    @Test public void testParallel () {
+        Random rand = new Random(7);
+        TransformHierarchy h = new TransformHierarchy();
+        for (int ii = 0; ii < 5000; ii++) {
+            int node = h.add(ii == 0 || rand.nextInt(10) == 0 ?
+                             TransformHierarchy.NO_PARENT : rand.nextInt(ii));
+            h.setTranslation(node, rand.nextFloat(), rand.nextFloat(), rand.nextFloat());
+            h.setRotation(node, new Quaternion().randomize(rand));
+        }
+        assertEquals(5000, h.updateParallel(64));
+        for (int ii = 0; ii < 50; ii++) h.setScale(rand.nextInt(h.size()), 1.01f);
+        int count = h.updateParallel(64);
+        assertTrue(count >= 50 && count < 5000);
+        for (int node = 0; node < h.size(); node++) assertWorld(h, node);
+    }
+
+    protected static void assertWorld (TransformHierarchy h, int node) {
+        Matrix4 expected = new Matrix4();
+        for (int n = node; n != TransformHierarchy.NO_PARENT; n = h.parent(n)) {
+            Matrix4 local = (h.localMatrix(n) != null) ? new Matrix4(h.localMatrix(n)) :
+                new Matrix4().setToTransform(h.translation(n, new Vector3()),
+                                             h.rotation(n, new Quaternion()),
+                                             h.scale(n, new Vector3()));
+            expected = local.mult(expected);
+        }
+        assertTrue(h.world(node) + " != " + expected, h.world(node).epsilonEquals(expected, 1e-4f));
+    }
+}
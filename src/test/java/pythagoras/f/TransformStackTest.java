@@ -0,0 +1,55 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link TransformStack} class and in-place {@link AffineTransform} composition.
+ */
+public class TransformStackTest
+{
+    @Test public void testPushPop () {
+        TransformStack stack = new TransformStack(1);
+        AffineTransform expect = new AffineTransform();
+        stack.translate(5, 10).rotate(0.5f).scale(2, 3);
+        expect.translate(5, 10).rotate(0.5f).scale(2, 3);
+        assertClose(expect, stack.get(new AffineTransform()));
+
+        AffineTransform saved = expect.copy();
+        for (int ii = 0; ii < 20; ii++) {
+            stack.push().rotate(0.1f).translate(1, 2).scale(1.1f);
+            expect.rotate(0.1f).translate(1, 2).uniformScale(1.1f);
+        }
+        assertEquals(21, stack.depth());
+        assertClose(expect, stack.get(new AffineTransform()));
+        for (int ii = 0; ii < 20; ii++) stack.pop();
+        assertClose(saved, stack.get(new AffineTransform()));
+
+        try {
+            stack.pop();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ise) {
+            // expected
+        }
+    }
+
+    @Test public void testLocal () {
+        AffineTransform a = new AffineTransform(1, 2, 3, 5, 7, 11);
+        AffineTransform b = new AffineTransform(2, 0.5f, -1, 4, -3, 2);
+        assertClose((AffineTransform)a.concatenate(b), a.copy().concatenateLocal(b));
+        assertClose((AffineTransform)a.preConcatenate(b), a.copy().preConcatenateLocal(b));
+        assertClose(new AffineTransform(), a.copy().concatenateLocal(a.invert()));
+        assertClose(new AffineTransform(), a.copy().invertLocal().concatenateLocal(a));
+    }
+
+    protected static void assertClose (AffineTransform expect, AffineTransform actual) {
+        float[] ev = new float[6], av = new float[6];
+        expect.get(ev);
+        actual.get(av);
+        assertArrayEquals(expect + " != " + actual, ev, av, 1e-4f);
+    }
+}
@@ -0,0 +1,67 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.util.Random;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link TransformedShape} class.
+ */
+public class TransformedShapeTest
+{
+    @Test public void testAgainstCopy () {
+        Path source = new Path();
+        source.moveTo(0, 0);
+        source.lineTo(40, 0);
+        source.quadTo(60, 20, 40, 40);
+        source.curveTo(30, 60, 10, 30, 0, 40);
+        source.closePath();
+
+        AffineTransform xf = new AffineTransform();
+        TransformedShape view = new TransformedShape(source, xf);
+        Random rand = new Random(1);
+        for (int ii = 0; ii < 4; ii++) {
+            // the view tracks changes to its transform
+            if (ii == 1) xf.translate(20, -10).scale(2, 0.5f);
+            else if (ii == 2) xf.rotate(FloatMath.PI/2);
+            else if (ii == 3) xf.rotate(0.3f).shear(0.2f, 0);
+            IShape copy = Transforms.createTransformedShape(xf, source);
+            assertEquals(copy.bounds(), view.bounds());
+            Rectangle tight = copy.tightBounds(), vtight = view.tightBounds();
+            assertEquals(tight.x, vtight.x, 1e-3f);
+            assertEquals(tight.y, vtight.y, 1e-3f);
+            assertEquals(tight.width, vtight.width, 1e-3f);
+            assertEquals(tight.height, vtight.height, 1e-3f);
+
+            Rectangle bounds = copy.bounds();
+            for (int jj = 0; jj < 500; jj++) {
+                float x = bounds.x - 10 + rand.nextFloat() * (bounds.width + 20);
+                float y = bounds.y - 10 + rand.nextFloat() * (bounds.height + 20);
+                assertEquals(copy.contains(x, y), view.contains(x, y));
+                assertEquals(copy.intersects(x, y, 3, 3), view.intersects(x, y, 3, 3));
+                assertEquals(copy.contains(x, y, 3, 3), view.contains(x, y, 3, 3));
+            }
+        }
+    }
+
+    @Test public void testNested () {
+        AffineTransform inner = new AffineTransform().translate(10, 0);
+        AffineTransform outer = new AffineTransform().scale(2, 2);
+        TransformedShape view = new TransformedShape(
+            new TransformedShape(new Rectangle(0, 0, 5, 5), inner), outer);
+        assertTrue(view.source() instanceof Rectangle);
+        assertEquals(new Rectangle(20, 0, 10, 10), view.bounds());
+        assertTrue(view.contains(25, 5));
+        assertFalse(view.contains(5, 5));
+
+        // a degenerate transform collapses the shape
+        outer.setScale(0, 0);
+        assertFalse(view.contains(0, 0));
+        assertFalse(view.intersects(-1, -1, 2, 2));
+    }
+}
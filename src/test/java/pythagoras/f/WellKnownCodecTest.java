@@ -0,0 +1,72 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.f;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link WellKnownCodec} class.
+ */
+public class WellKnownCodecTest
+{
+    @Test public void testWKT () {
+        String wkt = "MULTIPOLYGON (((0 0, 100 0, 100 100, 0 100, 0 0), " +
+            "(20 20, 20 80, 80 80, 80 20, 20 20)), ((200 0, 250 0, 225 50, 200 0)))";
+        Path path = WellKnownCodec.parseWKT(wkt);
+        assertTrue(path.contains(10, 10));
+        assertFalse(path.contains(50, 50));
+        assertTrue(path.contains(225, 10));
+        assertEquals(wkt, WellKnownCodec.toWKT(path, 0.1f));
+
+        // qualifiers, case, extra dimensions and empty members
+        path = WellKnownCodec.parseWKT("geometrycollection z (point z (1 2 3), " +
+                                       "linestring z (0 0 1, 5 5 2), polygon empty)");
+        assertEquals("LINESTRING (0 0, 5 5)", WellKnownCodec.toWKT(path, 0.1f));
+        assertEquals("GEOMETRYCOLLECTION EMPTY", WellKnownCodec.toWKT(new Path(), 0.1f));
+
+        try {
+            WellKnownCodec.parseWKT("POLYGON ((0 0, 1 1)");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test public void testWKB () {
+        Path path = new Path(Path.WIND_EVEN_ODD);
+        path.append(new Rectangle(0, 0, 100, 50), false);
+        path.moveTo(10, 10);
+        path.lineTo(40, 30);
+        String wkt = WellKnownCodec.toWKT(path, 0.1f);
+        assertTrue(wkt.startsWith("GEOMETRYCOLLECTION (POLYGON"));
+
+        byte[] little = WellKnownCodec.toWKB(path, 0.1f);
+        assertEquals(wkt, WellKnownCodec.toWKT(
+                         WellKnownCodec.readWKB(ByteBuffer.wrap(little)), 0.1f));
+
+        ByteBuffer big = ByteBuffer.allocate(little.length).order(ByteOrder.BIG_ENDIAN);
+        WellKnownCodec.writeWKB(path.pathIterator(null), 0.1f, big);
+        assertFalse(big.hasRemaining());
+        big.flip();
+        // reading does not depend on the order of the buffer
+        big.order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(wkt, WellKnownCodec.toWKT(WellKnownCodec.readWKB(big), 0.1f));
+        assertFalse(big.hasRemaining());
+
+        // truncated geometries are rejected as malformed
+        for (int length : new int[] { 0, 3, 9, little.length - 1 }) {
+            try {
+                WellKnownCodec.readWKB(ByteBuffer.wrap(little, 0, length));
+                fail("Read truncated WKB of length " + length);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.i;
+
+import java.util.Random;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link RectPacker} implementations.
+ */
+public class RectPackerTest
+{
+    @Test public void testMaxRects () {
+        for (MaxRectsPacker.Heuristic h : MaxRectsPacker.Heuristic.values()) {
+            testOnline(new MaxRectsPacker(256, 256, h));
+            testOffline(new MaxRectsPacker(256, 256, h));
+        }
+    }
+
+    @Test public void testSkyline () {
+        for (SkylinePacker.Heuristic h : SkylinePacker.Heuristic.values()) {
+            testOnline(new SkylinePacker(256, 256, h));
+            testOffline(new SkylinePacker(256, 256, h));
+        }
+    }
+
+    @Test public void testOversized () {
+        RectPacker packer = new MaxRectsPacker(64, 64);
+        assertEquals(-1, packer.insert(65, 10, new Rectangle()));
+        assertEquals(0, packer.insert(64, 64, new Rectangle()));
+        assertEquals(1, packer.insert(1, 1, new Rectangle()));
+        assertEquals(1f, packer.occupancy(0), 0f);
+    }
+
+    protected void testOnline (RectPacker packer) {
+        Random rand = new Random(13);
+        int count = 500;
+        Rectangle[] rects = new Rectangle[count];
+        int[] pages = new int[count];
+        for (int ii = 0; ii < count; ii++) {
+            rects[ii] = new Rectangle();
+            int w = 4 + rand.nextInt(40), h = 4 + rand.nextInt(40);
+            pages[ii] = packer.insert(w, h, rects[ii]);
+            assertTrue(pages[ii] >= 0);
+            assertEquals(w, rects[ii].width);
+            assertEquals(h, rects[ii].height);
+        }
+        checkPacking(packer, rects, pages);
+    }
+
+    protected void testOffline (RectPacker packer) {
+        Random rand = new Random(17);
+        int count = 500;
+        Dimension[] sizes = new Dimension[count];
+        Rectangle[] rects = new Rectangle[count];
+        int[] pages = new int[count];
+        for (int ii = 0; ii < count; ii++) {
+            sizes[ii] = new Dimension(4 + rand.nextInt(40), 4 + rand.nextInt(40));
+            rects[ii] = new Rectangle();
+        }
+        int pageCount = packer.pack(sizes, rects, pages);
+        assertEquals(pageCount, packer.pageCount());
+        for (int ii = 0; ii < count; ii++) {
+            assertTrue(pages[ii] >= 0);
+            assertEquals(sizes[ii], rects[ii].size());
+        }
+        checkPacking(packer, rects, pages);
+        // sorted packing should fill the first page reasonably well
+        assertTrue(packer.occupancy(0) > 0.7f);
+    }
+
+    protected void checkPacking (RectPacker packer, Rectangle[] rects, int[] pages) {
+        Rectangle page = new Rectangle(0, 0, packer.pageWidth(), packer.pageHeight());
+        for (int ii = 0; ii < rects.length; ii++) {
+            assertTrue(rects[ii] + " on page", page.contains(rects[ii]));
+            for (int jj = ii+1; jj < rects.length; jj++) {
+                if (pages[ii] == pages[jj]) assertFalse(
+                    rects[ii] + " overlaps " + rects[jj], rects[ii].intersects(rects[jj]));
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+//
+// Pythagoras - a collection of geometry classes
+// http://github.com/samskivert/pythagoras
+
+package pythagoras.i;
+
+import java.util.Random;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link Region} class.
+ */
+public class RegionTest
+{
+    @Test public void testBasicOps () {
+        Region r = new Region(new Rectangle(0, 0, 10, 10));
+        r.add(10, 0, 5, 10); // abuts, so should coalesce into a single rect
+        assertEquals(1, r.rectCount());
+        assertEquals(new Rectangle(0, 0, 15, 10), r.bounds());
+
+        r.subtract(5, 5, 2, 2);
+        assertEquals(4, r.rectCount());
+        assertEquals(15*10 - 4, r.area());
+        assertFalse(r.contains(5, 5));
+        assertTrue(r.contains(4, 5));
+        assertTrue(r.contains(0, 0, 15, 5));
+        assertFalse(r.contains(0, 0, 15, 6));
+        // queries starting partway down a band
+        assertTrue(r.contains(0, 2, 5, 6));
+        assertFalse(r.contains(2, 2, 5, 6));
+        assertFalse(r.intersects(5, 5, 1, 1));
+
+        r.add(5, 5, 2, 2);
+        assertEquals(new Region(new Rectangle(0, 0, 15, 10)), r);
+
+        r.intersect(new Rectangle(-5, -5, 10, 10));
+        assertEquals(new Region(new Rectangle(0, 0, 5, 5)), r);
+    }
+
+    @Test public void testAgainstBitmap () {
+        Random rand = new Random(42);
+        for (int trial = 0; trial < 50; trial++) {
+            Region r = new Region();
+            boolean[][] bits = new boolean[SIZE][SIZE];
+            for (int op = 0; op < 30; op++) {
+                int x = rand.nextInt(SIZE), y = rand.nextInt(SIZE);
+                int w = 1 + rand.nextInt(SIZE - x), h = 1 + rand.nextInt(SIZE - y);
+                int which = rand.nextInt(3);
+                if (which == 0) r.add(x, y, w, h);
+                else if (which == 1) r.subtract(x, y, w, h);
+                else r.add(new Region(new Rectangle(x, y, w, h)).subtract(
+                               x + w/2, y + h/2, w/2, h/2));
+                for (int yy = 0; yy < SIZE; yy++) {
+                    for (int xx = 0; xx < SIZE; xx++) {
+                        boolean in = xx >= x && xx < x+w && yy >= y && yy < y+h;
+                        boolean hole = xx >= x + w/2 && xx < x + w/2 + w/2 &&
+                            yy >= y + h/2 && yy < y + h/2 + h/2;
+                        if (which == 0) bits[yy][xx] |= in;
+                        else if (which == 1) bits[yy][xx] &= !in;
+                        else bits[yy][xx] |= in && !hole;
+                    }
+                }
+                assertMatches(bits, r);
+            }
+        }
+    }
+
+    @Test public void testCap () {
+        Random rand = new Random(7);
+        Region capped = new Region(8), exact = new Region();
+        for (int ii = 0; ii < 200; ii++) {
+            int x = rand.nextInt(SIZE), y = rand.nextInt(SIZE);
+            int w = 1 + rand.nextInt(4), h = 1 + rand.nextInt(4);
+            capped.add(x, y, w, h);
+            exact.add(x, y, w, h);
+            assertTrue(capped.rectCount() <= 8);
+        }
+        // the capped region must be conservative
+        assertTrue(new Region(exact).subtract(capped).isEmpty());
+        Region cover = new Region();
+        for (int ii = 0; ii < 10; ii++) {
+            cover.add(ii * 10, 0, 5, 5);
+            cover.setMaxRects(3);
+            assertTrue(cover.rectCount() <= 3);
+            assertTrue(cover.contains(ii * 10, 0, 5, 5));
+        }
+    }
+
+    @Test public void testCursor () {
+        Region r = new Region(new Rectangle(0, 0, 10, 10)).subtract(2, 2, 6, 6);
+        Region copy = new Region();
+        Rectangle rect = new Rectangle();
+        Region.Cursor cursor = r.cursor();
+        int count = 0;
+        while (cursor.next(rect)) {
+            copy.add(rect);
+            count++;
+        }
+        assertEquals(r.rectCount(), count);
+        assertEquals(r, copy);
+        int[] packed = new int[count*4];
+        assertEquals(count, r.getRects(packed, 0));
+    }
+
+    protected void assertMatches (boolean[][] bits, Region r) {
+        long area = 0;
+        for (int yy = 0; yy < SIZE; yy++) {
+            for (int xx = 0; xx < SIZE; xx++) {
+                assertEquals(bits[yy][xx], r.contains(xx, yy));
+                assertEquals(bits[yy][xx], r.intersects(xx, yy, 1, 1));
+                if (xx > 0 && yy > 0) {
+                    boolean block = bits[yy-1][xx-1] && bits[yy-1][xx] &&
+                        bits[yy][xx-1] && bits[yy][xx];
+                    assertEquals(block, r.contains(xx-1, yy-1, 2, 2));
+                }
+                if (bits[yy][xx]) area++;
+            }
+        }
+        assertEquals(area, r.area());
+    }
+
+    protected static final int SIZE = 32;
+}